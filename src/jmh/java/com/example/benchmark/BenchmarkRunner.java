@@ -0,0 +1,62 @@
+package com.example.benchmark;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按多个线程数依次运行基准，并把全部结果写入同一个 JSON 文件
+ *
+ * <p>参数通过系统属性传入（由 Gradle 的 jmh 任务设置）：
+ * <ul>
+ *     <li>{@code jmh.include}：基准名正则，默认全部</li>
+ *     <li>{@code jmh.threads}：逗号分隔的线程数，默认 {@code 1,2,4}</li>
+ *     <li>{@code jmh.forks} / {@code jmh.warmupIterations} / {@code jmh.iterations}：JMH 对应选项</li>
+ *     <li>{@code jmh.iterationSeconds}：每轮预热与测量的秒数</li>
+ *     <li>{@code jmh.output}：结果文件路径</li>
+ * </ul>
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String include = System.getProperty("jmh.include", ".*");
+        int forks = Integer.getInteger("jmh.forks", 1);
+        int warmupIterations = Integer.getInteger("jmh.warmupIterations", 3);
+        int iterations = Integer.getInteger("jmh.iterations", 5);
+        TimeValue iterationTime = TimeValue.seconds(Integer.getInteger("jmh.iterationSeconds", 1));
+        File output = new File(System.getProperty("jmh.output", "build/reports/jmh/results.json"));
+
+        List<RunResult> results = new ArrayList<>();
+        for (String threads : System.getProperty("jmh.threads", "1,2,4").split(",")) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(Integer.parseInt(threads.trim()))
+                    .forks(forks)
+                    .warmupIterations(warmupIterations)
+                    .warmupTime(iterationTime)
+                    .measurementIterations(iterations)
+                    .measurementTime(iterationTime)
+                    .build();
+            results.addAll(new Runner(options).run());
+        }
+
+        File parent = output.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IllegalStateException("Cannot create directory: " + parent);
+        }
+        ResultFormatFactory.getInstance(ResultFormatType.JSON, output.getPath()).writeOut(results);
+        System.out.println("JMH results written to " + output.getAbsolutePath());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.benchmark;
+
+import com.example.Calculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calculator 数组批量运算与逐个标量调用的对比
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CalculatorArrayBenchmark {
+
+    @Param({"1024", "1048576"})
+    public int size;
+
+    private Calculator calculator;
+    private int[] a;
+    private int[] b;
+    private int[] intOut;
+    private double[] d;
+    private double[] doubleOut;
+
+    @Setup
+    public void setUp() {
+        calculator = new Calculator();
+        Random random = new Random(42);
+        a = new int[size];
+        b = new int[size];
+        d = new double[size];
+        intOut = new int[size];
+        doubleOut = new double[size];
+        for (int i = 0; i < size; i++) {
+            a[i] = random.nextInt(1 << 15);
+            b[i] = random.nextInt(1 << 15) + 1;
+            d[i] = random.nextDouble() * 1000;
+        }
+    }
+
+    @Benchmark
+    public int[] addScalar() {
+        for (int i = 0; i < size; i++) {
+            intOut[i] = calculator.add(a[i], b[i]);
+        }
+        return intOut;
+    }
+
+    @Benchmark
+    public int[] addArray() {
+        calculator.add(a, b, intOut);
+        return intOut;
+    }
+
+    @Benchmark
+    public int[] addExactArray() {
+        calculator.addExact(a, b, intOut);
+        return intOut;
+    }
+
+    @Benchmark
+    public int[] multiplyScalar() {
+        for (int i = 0; i < size; i++) {
+            intOut[i] = calculator.multiply(a[i], b[i]);
+        }
+        return intOut;
+    }
+
+    @Benchmark
+    public int[] multiplyArray() {
+        calculator.multiply(a, b, intOut);
+        return intOut;
+    }
+
+    @Benchmark
+    public double[] divideScalar() {
+        for (int i = 0; i < size; i++) {
+            doubleOut[i] = calculator.divide(a[i], b[i]);
+        }
+        return doubleOut;
+    }
+
+    @Benchmark
+    public double[] divideArray() {
+        calculator.divide(a, b, doubleOut);
+        return doubleOut;
+    }
+
+    @Benchmark
+    public double[] sqrtScalar() {
+        for (int i = 0; i < size; i++) {
+            doubleOut[i] = calculator.sqrt(d[i]);
+        }
+        return doubleOut;
+    }
+
+    @Benchmark
+    public double[] sqrtArray() {
+        calculator.sqrt(d, doubleOut);
+        return doubleOut;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.benchmark;
+
+import com.example.Calculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calculator 基本运算基准
+ *
+ * <p>操作数放在非 final 字段中，避免被 JIT 当作常量折叠掉。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CalculatorBenchmark {
+
+    private Calculator calculator;
+    private int a;
+    private int b;
+    private double d;
+
+    @Setup
+    public void setUp() {
+        calculator = new Calculator();
+        a = 123_456;
+        b = 789;
+        d = 98_765.4321;
+    }
+
+    @Benchmark
+    public int add() {
+        return calculator.add(a, b);
+    }
+
+    @Benchmark
+    public int multiply() {
+        return calculator.multiply(a, b);
+    }
+
+    @Benchmark
+    public double divide() {
+        return calculator.divide(a, b);
+    }
+
+    @Benchmark
+    public int square() {
+        return calculator.square(b);
+    }
+
+    @Benchmark
+    public double sqrt() {
+        return calculator.sqrt(d);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.benchmark;
+
+import com.example.Calculator;
+import com.example.expression.ColumnBatch;
+import com.example.expression.CompiledExpression;
+import com.example.expression.ExpressionCompiler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 编译后的表达式按列求值与手工串联 Calculator 调用的对比
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExpressionBenchmark {
+
+    @Param({"1048576"})
+    public int rows;
+
+    private Calculator calculator;
+    private CompiledExpression expression;
+    private ColumnBatch batch;
+    private int[] a;
+    private int[] b;
+    private int[] c;
+    private double[] out;
+
+    @Setup
+    public void setUp() {
+        calculator = new Calculator();
+        expression = new ExpressionCompiler().compile("sqrt(a*a + b*b) / c");
+        Random random = new Random(42);
+        a = new int[rows];
+        b = new int[rows];
+        c = new int[rows];
+        out = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            a[i] = random.nextInt(2000) - 1000;
+            b[i] = random.nextInt(2000) - 1000;
+            c[i] = random.nextInt(100) + 1;
+        }
+        batch = new ColumnBatch().put("a", a).put("b", b).put("c", c);
+    }
+
+    @Benchmark
+    public double[] handChained() {
+        for (int i = 0; i < rows; i++) {
+            double hypot = calculator.sqrt(
+                    calculator.add(calculator.multiply(a[i], a[i]), calculator.multiply(b[i], b[i])));
+            if (c[i] == 0) {
+                throw new ArithmeticException("Division by zero");
+            }
+            out[i] = hypot / c[i];
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] compiled() {
+        expression.evaluate(batch, out);
+        return out;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.benchmark;
+
+import com.example.search.NameIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户名前缀索引基准：前 N 个匹配的查询延迟与改名开销
+ *
+ * <p>名字由随机音节拼成，分布接近真实用户名。建索引前后各做一次 GC，
+ * 把索引占用的堆内存（每个用户的字节数）打印到基准输出中。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NameIndexBenchmark {
+
+    private static final String[] SYLLABLES = {
+        "an", "be", "chi", "da", "el", "fa", "go", "ha", "is", "jo", "ka", "li", "ma", "no",
+        "ol", "pe", "qu", "ra", "si", "to", "ul", "vi", "wa", "xe", "ya", "zo"
+    };
+
+    @Param({"1000000"})
+    public int userCount;
+
+    @Param({"10"})
+    public int limit;
+
+    private NameIndex index;
+    private String[] names;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        names = new String[userCount];
+        for (int i = 0; i < userCount; i++) {
+            names[i] = randomName(random);
+        }
+
+        long before = usedHeap();
+        index = new NameIndex(userCount);
+        for (int i = 0; i < userCount; i++) {
+            index.put(i + 1, names[i]);
+        }
+        long after = usedHeap();
+        System.out.printf("%nNameIndex: %d users, %.1f heap bytes/user%n",
+                index.size(), (double) (after - before) / userCount);
+    }
+
+    /**
+     * 单字母前缀：匹配数量巨大，只取前 limit 个
+     */
+    @Benchmark
+    public List<Long> searchShortPrefix() {
+        return index.search(SYLLABLES[ThreadLocalRandom.current().nextInt(SYLLABLES.length)].substring(0, 1), limit);
+    }
+
+    /**
+     * 用已有名字的前 4 个字符查询，接近输入联想的典型请求
+     */
+    @Benchmark
+    public List<Long> searchTypedPrefix() {
+        String name = names[ThreadLocalRandom.current().nextInt(userCount)];
+        return index.search(name.substring(0, Math.min(4, name.length())), limit);
+    }
+
+    @Benchmark
+    public void rename() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        index.put(random.nextInt(userCount) + 1, names[random.nextInt(userCount)]);
+    }
+
+    private static String randomName(Random random) {
+        StringBuilder name = new StringBuilder();
+        int syllables = 2 + random.nextInt(3);
+        for (int s = 0; s < syllables; s++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.append(' ').append(SYLLABLES[random.nextInt(SYLLABLES.length)]).toString();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.benchmark;
+
+import com.example.codec.UserCodec;
+import com.example.codec.UserView;
+import com.example.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户二进制编码与 Java 序列化的对比基准：编码、解码、只读单个字段
+ *
+ * <p>User 没有实现 Serializable，Java 序列化使用字段相同的镜像类。
+ * 两种格式的单条记录大小打印到基准输出中。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserCodecBenchmark {
+
+    private final User user = new User(123456789L, "Zoë Zhang", "zoe.zhang@example.com");
+    private final SerializableUser serializableUser =
+            new SerializableUser(user.getId(), user.getName(), user.getEmail());
+    private final UserView view = new UserView();
+
+    private ByteBuffer heapBuffer;
+    private ByteBuffer directBuffer;
+    private byte[] serialized;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        heapBuffer = ByteBuffer.allocate(256);
+        directBuffer = ByteBuffer.allocateDirect(256);
+        UserCodec.encode(user, heapBuffer);
+        UserCodec.encode(user, directBuffer);
+        heapBuffer.flip();
+        directBuffer.flip();
+        serialized = javaSerialize();
+        System.out.printf("%nUserCodec: %d bytes, Java serialization: %d bytes%n",
+                heapBuffer.remaining(), serialized.length);
+    }
+
+    @Benchmark
+    public ByteBuffer codecEncode() {
+        directBuffer.clear();
+        UserCodec.encode(user, directBuffer);
+        directBuffer.flip();
+        return directBuffer;
+    }
+
+    @Benchmark
+    public User codecDecodeHeap() {
+        User decoded = UserCodec.decodeUser(heapBuffer);
+        heapBuffer.rewind();
+        return decoded;
+    }
+
+    @Benchmark
+    public User codecDecodeDirect() {
+        User decoded = UserCodec.decodeUser(directBuffer);
+        directBuffer.rewind();
+        return decoded;
+    }
+
+    /**
+     * 只按名字过滤，不创建任何对象
+     */
+    @Benchmark
+    public boolean codecViewNameEquals() {
+        return view.wrap(directBuffer, 0).nameEquals("Zoë Zhang");
+    }
+
+    @Benchmark
+    public byte[] javaSerialize() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(serializableUser);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Object javaDeserialize() {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return in.readObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class SerializableUser implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Long id;
+        private final String name;
+        private final String email;
+
+        SerializableUser(Long id, String name, String email) {
+            this.id = id;
+            this.name = name;
+            this.email = email;
+        }
+    }
+}
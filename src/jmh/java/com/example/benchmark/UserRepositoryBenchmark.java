@@ -0,0 +1,117 @@
+package com.example.benchmark;
+
+import com.example.model.User;
+import com.example.repository.BloomFilterUserRepository;
+import com.example.repository.CachingUserRepository;
+import com.example.repository.FileUserRepository;
+import com.example.repository.InMemoryUserRepository;
+import com.example.repository.OffHeapUserRepository;
+import com.example.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 各仓库实现的读写基准
+ *
+ * <p>{@code file} 每次写入都要等待 fsync，吞吐量取决于磁盘，
+ * 与其他实现的数字不能直接比较，只用于发现自身的回归。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserRepositoryBenchmark {
+
+    @Param({"memory", "offheap", "caching", "bloom", "file"})
+    public String implementation;
+
+    @Param({"10000"})
+    public int userCount;
+
+    private UserRepository repository;
+    private FileUserRepository fileRepository;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        InMemoryUserRepository memory = new InMemoryUserRepository();
+        switch (implementation) {
+            case "memory":
+                repository = memory;
+                break;
+            case "offheap":
+                repository = new OffHeapUserRepository();
+                break;
+            case "caching":
+                repository = new CachingUserRepository(memory, userCount / 10);
+                break;
+            case "bloom":
+                repository = new BloomFilterUserRepository(memory, memory.emails(), userCount * 2L, 0.01);
+                break;
+            case "file":
+                directory = Files.createTempDirectory("user-repository-bench");
+                fileRepository = new FileUserRepository(directory);
+                repository = fileRepository;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown implementation: " + implementation);
+        }
+        for (int i = 1; i <= userCount; i++) {
+            repository.save(new User(null, "user" + i, email(i)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (fileRepository != null) {
+            fileRepository.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public User findById() {
+        return repository.findById(randomId());
+    }
+
+    /**
+     * 一半命中已有邮箱，一半为新邮箱
+     */
+    @Benchmark
+    public boolean existsByEmail() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long n = random.nextBoolean() ? random.nextInt(userCount) + 1 : userCount + random.nextInt(userCount) + 1;
+        return repository.existsByEmail(email(n));
+    }
+
+    @Benchmark
+    public User update() {
+        long id = randomId();
+        return repository.save(new User(id, "renamed" + id, email(id)));
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextInt(userCount) + 1;
+    }
+
+    private static String email(long n) {
+        return "user" + n + "@example.com";
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.benchmark;
+
+import com.example.model.User;
+import com.example.repository.InMemoryUserRepository;
+import com.example.service.EmailService;
+import com.example.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UserService 基准，底层使用内存仓库和空实现的邮件服务
+ *
+ * <p>状态在所有线程间共享，线程数由 {@link BenchmarkRunner} 逐个指定，
+ * 用于观察并发下的伸缩性。每轮迭代前重建仓库，避免注册用例让数据无限增长。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserServiceBenchmark {
+
+    @Param({"10000"})
+    public int userCount;
+
+    private UserService userService;
+    private final AtomicLong emailSequence = new AtomicLong();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        InMemoryUserRepository repository = new InMemoryUserRepository();
+        for (int i = 1; i <= userCount; i++) {
+            User user = repository.save(new User(null, "user" + i, email(i)));
+            repository.counters().addPosts(user.getId(), i % 100);
+            repository.counters().addFollowers(user.getId(), i % 1000);
+        }
+        userService = new UserService(repository, new NoOpEmailService());
+        emailSequence.set(userCount);
+    }
+
+    @Benchmark
+    public User register() {
+        long n = emailSequence.incrementAndGet();
+        return userService.register(new User(null, "new" + n, email(n)));
+    }
+
+    @Benchmark
+    public User findUser() {
+        return userService.findUser(randomId());
+    }
+
+    @Benchmark
+    public User updateUser() {
+        long id = randomId();
+        return userService.updateUser(id, new User(null, "renamed" + id, email(id)));
+    }
+
+    @Benchmark
+    public UserService.UserStats getUserStats() {
+        return userService.getUserStats(randomId());
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextInt(userCount) + 1;
+    }
+
+    private static String email(long n) {
+        return "user" + n + "@example.com";
+    }
+
+    /**
+     * 不做任何事的邮件服务，只测量服务与仓库本身的开销
+     */
+    static final class NoOpEmailService implements EmailService {
+        @Override
+        public void sendWelcomeEmail(String email) {
+        }
+
+        @Override
+        public void sendUpdateNotification(String email) {
+        }
+
+        @Override
+        public void sendAccountDeletionEmail(String email) {
+        }
+    }
+}
@@ -34,4 +34,163 @@ public class Calculator {
         }
         return Math.sqrt(number);
     }
+
+    // ========== 数组批量运算 ==========
+    // 逐元素计算，结果写入 out（可以与输入是同一个数组）。
+    // 循环体内没有分支和方法调用，便于 JIT 自动向量化；
+    // 需要报错的情况在主循环之前单独扫描，出错时 out 不会被修改。
+
+    /**
+     * 整数除法中除数为 0 时的处理方式
+     */
+    public enum ZeroDivisorPolicy {
+        /** 抛出 ArithmeticException，与 {@link #divide(int, int)} 一致 */
+        THROW,
+        /** 按 IEEE 754 浮点语义得到 Infinity / -Infinity / NaN */
+        IEEE,
+        /** 结果记为 0 */
+        ZERO
+    }
+
+    public void add(int[] a, int[] b, int[] out) {
+        int n = checkLengths(a.length, b.length, out.length);
+        for (int i = 0; i < n; i++) {
+            out[i] = a[i] + b[i];
+        }
+    }
+
+    public void subtract(int[] a, int[] b, int[] out) {
+        int n = checkLengths(a.length, b.length, out.length);
+        for (int i = 0; i < n; i++) {
+            out[i] = a[i] - b[i];
+        }
+    }
+
+    public void multiply(int[] a, int[] b, int[] out) {
+        int n = checkLengths(a.length, b.length, out.length);
+        for (int i = 0; i < n; i++) {
+            out[i] = a[i] * b[i];
+        }
+    }
+
+    public void square(int[] in, int[] out) {
+        int n = checkLengths(in.length, in.length, out.length);
+        for (int i = 0; i < n; i++) {
+            out[i] = in[i] * in[i];
+        }
+    }
+
+    /**
+     * 逐元素除法，除数为 0 时抛出 ArithmeticException
+     */
+    public void divide(int[] a, int[] b, double[] out) {
+        divide(a, b, out, ZeroDivisorPolicy.THROW);
+    }
+
+    public void divide(int[] a, int[] b, double[] out, ZeroDivisorPolicy policy) {
+        int n = checkLengths(a.length, b.length, out.length);
+        int firstZero = indexOfZero(b, n);
+        if (firstZero >= 0 && policy == ZeroDivisorPolicy.THROW) {
+            throw new ArithmeticException("Division by zero at index " + firstZero);
+        }
+        for (int i = 0; i < n; i++) {
+            out[i] = (double) a[i] / b[i];
+        }
+        if (firstZero >= 0 && policy == ZeroDivisorPolicy.ZERO) {
+            for (int i = firstZero; i < n; i++) {
+                if (b[i] == 0) {
+                    out[i] = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * 逐元素平方根，存在负数时抛出 IllegalArgumentException
+     */
+    public void sqrt(double[] in, double[] out) {
+        int n = checkLengths(in.length, in.length, out.length);
+        for (int i = 0; i < n; i++) {
+            if (in[i] < 0) {
+                throw new IllegalArgumentException(
+                        "Cannot calculate square root of negative number at index " + i);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            out[i] = Math.sqrt(in[i]);
+        }
+    }
+
+    // ---------- 溢出检查版本 ----------
+    // 主循环只累积溢出标志位，结束后统一判断；溢出时抛出 ArithmeticException，
+    // 此时 out 中的内容未定义。
+
+    public void addExact(int[] a, int[] b, int[] out) {
+        int n = checkLengths(a.length, b.length, out.length);
+        int overflow = 0;
+        for (int i = 0; i < n; i++) {
+            int x = a[i];
+            int y = b[i];
+            int r = x + y;
+            // 两个操作数同号而结果异号时溢出，符号位记录在 overflow 中
+            overflow |= (x ^ r) & (y ^ r);
+            out[i] = r;
+        }
+        if (overflow < 0) {
+            throw new ArithmeticException("integer overflow");
+        }
+    }
+
+    public void subtractExact(int[] a, int[] b, int[] out) {
+        int n = checkLengths(a.length, b.length, out.length);
+        int overflow = 0;
+        for (int i = 0; i < n; i++) {
+            int x = a[i];
+            int y = b[i];
+            int r = x - y;
+            // 两个操作数异号且结果与被减数异号时溢出
+            overflow |= (x ^ y) & (x ^ r);
+            out[i] = r;
+        }
+        if (overflow < 0) {
+            throw new ArithmeticException("integer overflow");
+        }
+    }
+
+    public void multiplyExact(int[] a, int[] b, int[] out) {
+        int n = checkLengths(a.length, b.length, out.length);
+        long overflow = 0;
+        for (int i = 0; i < n; i++) {
+            long r = (long) a[i] * b[i];
+            // 结果无法用 int 表示时，截断后再扩展与原值不同
+            overflow |= r ^ (int) r;
+            out[i] = (int) r;
+        }
+        if (overflow != 0) {
+            throw new ArithmeticException("integer overflow");
+        }
+    }
+
+    public void squareExact(int[] in, int[] out) {
+        multiplyExact(in, in, out);
+    }
+
+    private static int indexOfZero(int[] values, int n) {
+        for (int i = 0; i < n; i++) {
+            if (values[i] == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int checkLengths(int length, int otherLength, int outLength) {
+        if (length != otherLength) {
+            throw new IllegalArgumentException("Array lengths differ: " + length + " and " + otherLength);
+        }
+        if (outLength < length) {
+            throw new IllegalArgumentException("Output array too small: " + outLength + " < " + length);
+        }
+        return length;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,183 @@
+package com.example;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+/**
+ * 大规模数值数据的聚合计算（和、均值、方差、最小/最大值、平方和）
+ *
+ * <p>输入可以是原始类型数组、{@link IntStream}/{@link DoubleStream}，
+ * 或者按块提供数据的迭代器（数据总量可以超过堆大小，内存占用只与同时处理的块数有关）。
+ * 并行版本把数据拆分到 {@link ForkJoinPool} 上分别累加，再合并部分结果。
+ *
+ * <p>误差说明：设 ε = 2<sup>-53</sup>，S = Σ|x<sub>i</sub>|。并行与顺序计算的
+ * 和（及平方和）相差不超过 4εS + O(nε²)S，通常只差几个 ulp；
+ * 均值的差异相应地不超过 4εS / n；方差的相对差异不超过 O(ε·log₂n) 乘以数据的条件数
+ * （均值相对标准差越大，条件数越大）。最小值、最大值和个数完全一致。
+ */
+public final class Reductions {
+
+    /** 并行拆分时每个叶子任务处理的最少元素数 */
+    static final int SPLIT_THRESHOLD = 1 << 14;
+
+    private Reductions() {
+    }
+
+    public static StatsAccumulator of(double[] values) {
+        return of(values, 0, values.length);
+    }
+
+    public static StatsAccumulator of(double[] values, int from, int to) {
+        checkRange(values.length, from, to);
+        StatsAccumulator accumulator = new StatsAccumulator();
+        for (int i = from; i < to; i++) {
+            accumulator.accept(values[i]);
+        }
+        return accumulator;
+    }
+
+    public static StatsAccumulator of(int[] values) {
+        return of(values, 0, values.length);
+    }
+
+    public static StatsAccumulator of(int[] values, int from, int to) {
+        checkRange(values.length, from, to);
+        StatsAccumulator accumulator = new StatsAccumulator();
+        for (int i = from; i < to; i++) {
+            accumulator.accept(values[i]);
+        }
+        return accumulator;
+    }
+
+    /**
+     * 流可以是并行流，此时由流框架拆分并合并部分结果
+     */
+    public static StatsAccumulator of(DoubleStream stream) {
+        return stream.collect(StatsAccumulator::new, StatsAccumulator::accept, StatsAccumulator::combine);
+    }
+
+    public static StatsAccumulator of(IntStream stream) {
+        return stream.collect(StatsAccumulator::new, StatsAccumulator::accept, StatsAccumulator::combine);
+    }
+
+    /**
+     * 顺序处理按块提供的数据，同一时刻只持有一个块
+     */
+    public static StatsAccumulator ofChunks(Iterator<double[]> chunks) {
+        StatsAccumulator accumulator = new StatsAccumulator();
+        while (chunks.hasNext()) {
+            accumulator.combine(of(chunks.next()));
+        }
+        return accumulator;
+    }
+
+    public static StatsAccumulator parallel(double[] values) {
+        return parallel(values, ForkJoinPool.commonPool());
+    }
+
+    public static StatsAccumulator parallel(double[] values, ForkJoinPool pool) {
+        return pool.invoke(new DoubleArrayTask(values, 0, values.length));
+    }
+
+    public static StatsAccumulator parallel(int[] values) {
+        return parallel(values, ForkJoinPool.commonPool());
+    }
+
+    public static StatsAccumulator parallel(int[] values, ForkJoinPool pool) {
+        return pool.invoke(new IntArrayTask(values, 0, values.length));
+    }
+
+    /**
+     * 并行处理按块提供的数据
+     *
+     * <p>最多 maxChunksInFlight 个块同时在线程池中计算，超过时等待最早提交的块完成，
+     * 内存占用与数据总量无关。部分结果按块的顺序合并，结果可重复。
+     *
+     * @param maxChunksInFlight 同时计算的块数上限
+     */
+    public static StatsAccumulator parallelChunks(Iterator<double[]> chunks, ForkJoinPool pool,
+                                                  int maxChunksInFlight) {
+        if (maxChunksInFlight <= 0) {
+            throw new IllegalArgumentException("Max chunks in flight must be positive: " + maxChunksInFlight);
+        }
+        StatsAccumulator accumulator = new StatsAccumulator();
+        Deque<ForkJoinTask<StatsAccumulator>> inFlight = new ArrayDeque<>();
+        try {
+            while (chunks.hasNext()) {
+                if (inFlight.size() >= maxChunksInFlight) {
+                    accumulator.combine(inFlight.removeFirst().join());
+                }
+                double[] chunk = chunks.next();
+                inFlight.addLast(pool.submit(new DoubleArrayTask(chunk, 0, chunk.length)));
+            }
+            while (!inFlight.isEmpty()) {
+                accumulator.combine(inFlight.removeFirst().join());
+            }
+        } finally {
+            for (ForkJoinTask<StatsAccumulator> task : inFlight) {
+                task.cancel(false);
+            }
+        }
+        return accumulator;
+    }
+
+    private static void checkRange(int length, int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length " + length);
+        }
+    }
+
+    private static final class DoubleArrayTask extends RecursiveTask<StatsAccumulator> {
+        private final double[] values;
+        private final int from;
+        private final int to;
+
+        DoubleArrayTask(double[] values, int from, int to) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected StatsAccumulator compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                return of(values, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            DoubleArrayTask left = new DoubleArrayTask(values, from, mid);
+            left.fork();
+            StatsAccumulator right = new DoubleArrayTask(values, mid, to).compute();
+            return left.join().combine(right);
+        }
+    }
+
+    private static final class IntArrayTask extends RecursiveTask<StatsAccumulator> {
+        private final int[] values;
+        private final int from;
+        private final int to;
+
+        IntArrayTask(int[] values, int from, int to) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected StatsAccumulator compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                return of(values, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            IntArrayTask left = new IntArrayTask(values, from, mid);
+            left.fork();
+            StatsAccumulator right = new IntArrayTask(values, mid, to).compute();
+            return left.join().combine(right);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example;
+
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+
+/**
+ * 可合并的统计量累加器：个数、和、均值、方差、最小值、最大值、平方和
+ *
+ * <p>和与平方和用 Kahan-Neumaier 补偿求和，均值由补偿和得到；方差用 Welford 在线算法，
+ * 两个部分结果用 Chan 等人的公式合并，合并顺序不同引起的差异只在舍入误差范围内
+ * （见 {@link Reductions} 的误差说明）。
+ *
+ * <p>非线程安全；并行计算时每个任务使用自己的累加器，最后 {@link #combine} 合并。
+ * 可以直接用于流：{@code stream.collect(StatsAccumulator::new, StatsAccumulator::accept, StatsAccumulator::combine)}。
+ */
+public class StatsAccumulator implements DoubleConsumer, IntConsumer {
+
+    private long count;
+    private double mean;
+    private double m2;
+    private double sum;
+    private double sumCompensation;
+    private double sumOfSquares;
+    private double sumOfSquaresCompensation;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    @Override
+    public void accept(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        addToSum(value);
+        addToSumOfSquares(value * value);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    @Override
+    public void accept(int value) {
+        accept((double) value);
+    }
+
+    /**
+     * 合并另一个累加器的结果，other 不会被修改
+     */
+    public StatsAccumulator combine(StatsAccumulator other) {
+        if (other.count == 0) {
+            return this;
+        }
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            m2 = other.m2;
+            sum = other.sum;
+            sumCompensation = other.sumCompensation;
+            sumOfSquares = other.sumOfSquares;
+            sumOfSquaresCompensation = other.sumOfSquaresCompensation;
+            min = other.min;
+            max = other.max;
+            return this;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+        addToSum(other.sum);
+        addToSum(other.sumCompensation);
+        addToSumOfSquares(other.sumOfSquares);
+        addToSumOfSquares(other.sumOfSquaresCompensation);
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum + sumCompensation;
+    }
+
+    /**
+     * 平均值（补偿求和的结果除以个数），没有数据时为 0
+     */
+    public double getMean() {
+        return count == 0 ? 0 : getSum() / count;
+    }
+
+    /**
+     * 总体方差（除以 n），没有数据时为 0
+     */
+    public double getVariance() {
+        return count == 0 ? 0 : Math.max(0, m2 / count);
+    }
+
+    /**
+     * 样本方差（除以 n - 1），少于两个数据时为 NaN
+     */
+    public double getSampleVariance() {
+        return count < 2 ? Double.NaN : Math.max(0, m2 / (count - 1));
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    public double getSumOfSquares() {
+        return sumOfSquares + sumOfSquaresCompensation;
+    }
+
+    /**
+     * 最小值，没有数据时为正无穷
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * 最大值，没有数据时为负无穷
+     */
+    public double getMax() {
+        return max;
+    }
+
+    private void addToSum(double value) {
+        double t = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            sumCompensation += (sum - t) + value;
+        } else {
+            sumCompensation += (value - t) + sum;
+        }
+        sum = t;
+    }
+
+    private void addToSumOfSquares(double value) {
+        double t = sumOfSquares + value;
+        if (Math.abs(sumOfSquares) >= Math.abs(value)) {
+            sumOfSquaresCompensation += (sumOfSquares - t) + value;
+        } else {
+            sumOfSquaresCompensation += (value - t) + sumOfSquares;
+        }
+        sumOfSquares = t;
+    }
+
+    @Override
+    public String toString() {
+        return "StatsAccumulator{count=" + count + ", sum=" + getSum() + ", mean=" + getMean()
+                + ", variance=" + getVariance() + ", min=" + min + ", max=" + max + "}";
+    }
+}
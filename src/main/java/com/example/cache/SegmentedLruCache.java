@@ -0,0 +1,255 @@
+package com.example.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分段 LRU（SLRU）缓存
+ *
+ * <p>新条目先进入试用段（probation），再次命中后晋升到保护段（protected），
+ * 只被访问过一次的条目会先被淘汰，扫描式的一次性访问不会冲掉热点数据。
+ * 整个缓存按 key 的哈希拆分成多个分片，每个分片独立加锁。
+ *
+ * <p>{@link #get(Object, Function)} 提供读穿透加载：加载开始前记录分片的失效版本号，
+ * 加载期间若该分片有条目被 {@link #invalidate} 则放弃写入缓存，
+ * 因此失效操作返回之后不会再有旧值被写回缓存。
+ */
+public class SegmentedLruCache<K, V> {
+
+    private static final int DEFAULT_SHARDS = 16;
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private final List<Shard> shards;
+    private final int shardMask;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+
+    public SegmentedLruCache(int maximumSize) {
+        this(maximumSize, null);
+    }
+
+    /**
+     * @param maximumSize 最大条目数
+     * @param ttl         写入后的存活时间，为 null 时不过期
+     */
+    public SegmentedLruCache(int maximumSize, Duration ttl) {
+        this(maximumSize, ttl, System::nanoTime);
+    }
+
+    /**
+     * @param ticker 计算 TTL 使用的纳秒时钟
+     */
+    SegmentedLruCache(int maximumSize, Duration ttl, LongSupplier ticker) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+        int shardCount = Math.min(DEFAULT_SHARDS, Integer.highestOneBit(maximumSize));
+        this.shards = new ArrayList<>(shardCount);
+        int perShard = (maximumSize + shardCount - 1) / shardCount;
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new Shard(perShard));
+        }
+        this.shardMask = shardCount - 1;
+        this.ttlNanos = ttl == null ? 0 : ttl.toNanos();
+        this.ticker = ticker;
+    }
+
+    /**
+     * 查询缓存，未命中或已过期时返回 null
+     */
+    public V getIfPresent(K key) {
+        V value = shardFor(key).get(key);
+        if (value == null) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
+        }
+        return value;
+    }
+
+    /**
+     * 读穿透：未命中时调用 loader 加载，loader 返回 null 时不缓存
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Shard shard = shardFor(key);
+        V value = shard.get(key);
+        if (value != null) {
+            hitCount.increment();
+            return value;
+        }
+        missCount.increment();
+
+        long stamp = shard.stamp();
+        value = loader.apply(key);
+        if (value != null) {
+            shard.putIfStamp(key, value, stamp);
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        shardFor(key).put(key, value);
+    }
+
+    /**
+     * 移除条目，并让该分片上正在进行的加载放弃写入
+     */
+    public void invalidate(K key) {
+        shardFor(key).invalidate(key);
+    }
+
+    public void invalidateAll() {
+        for (Shard shard : shards) {
+            shard.clear();
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Shard shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), expirationCount.sum());
+    }
+
+    private Shard shardFor(K key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return shards.get(h & shardMask);
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long writeNanos;
+        boolean isProtected;
+
+        Entry(V value, long writeNanos) {
+            this.value = value;
+            this.writeNanos = writeNanos;
+        }
+    }
+
+    private final class Shard {
+        private final int protectedCapacity;
+        private final int capacity;
+        private final LinkedHashMap<K, Entry<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<K, Entry<V>> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+        private long stamp;
+
+        Shard(int capacity) {
+            this.capacity = capacity;
+            this.protectedCapacity = (int) (capacity * PROTECTED_RATIO);
+        }
+
+        synchronized V get(K key) {
+            Entry<V> entry = protectedSegment.get(key);
+            if (entry == null) {
+                entry = probation.get(key);
+            }
+            if (entry == null) {
+                return null;
+            }
+            if (isExpired(entry)) {
+                remove(key, entry);
+                expirationCount.increment();
+                return null;
+            }
+            if (!entry.isProtected) {
+                promote(key, entry);
+            }
+            return entry.value;
+        }
+
+        synchronized long stamp() {
+            return stamp;
+        }
+
+        synchronized void putIfStamp(K key, V value, long expectedStamp) {
+            if (stamp == expectedStamp) {
+                put(key, value);
+            }
+        }
+
+        synchronized void put(K key, V value) {
+            Entry<V> entry = new Entry<>(value, ttlNanos > 0 ? ticker.getAsLong() : 0);
+            Entry<V> previous = protectedSegment.remove(key);
+            if (previous != null) {
+                entry.isProtected = true;
+                protectedSegment.put(key, entry);
+                return;
+            }
+            probation.put(key, entry);
+            evictIfNeeded();
+        }
+
+        synchronized void invalidate(K key) {
+            stamp++;
+            if (protectedSegment.remove(key) == null) {
+                probation.remove(key);
+            }
+        }
+
+        synchronized void clear() {
+            stamp++;
+            probation.clear();
+            protectedSegment.clear();
+        }
+
+        synchronized int size() {
+            return probation.size() + protectedSegment.size();
+        }
+
+        private void promote(K key, Entry<V> entry) {
+            probation.remove(key);
+            entry.isProtected = true;
+            protectedSegment.put(key, entry);
+            // 保护段超出容量时把最久未用的条目降级回试用段
+            while (protectedSegment.size() > protectedCapacity) {
+                Iterator<Map.Entry<K, Entry<V>>> eldest = protectedSegment.entrySet().iterator();
+                Map.Entry<K, Entry<V>> demoted = eldest.next();
+                eldest.remove();
+                demoted.getValue().isProtected = false;
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+            evictIfNeeded();
+        }
+
+        private void evictIfNeeded() {
+            while (probation.size() + protectedSegment.size() > capacity) {
+                LinkedHashMap<K, Entry<V>> victims = probation.isEmpty() ? protectedSegment : probation;
+                Iterator<K> eldest = victims.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictionCount.increment();
+            }
+        }
+
+        private void remove(K key, Entry<V> entry) {
+            if (entry.isProtected) {
+                protectedSegment.remove(key);
+            } else {
+                probation.remove(key);
+            }
+        }
+
+        private boolean isExpired(Entry<V> entry) {
+            return ttlNanos > 0 && ticker.getAsLong() - entry.writeNanos >= ttlNanos;
+        }
+    }
+}
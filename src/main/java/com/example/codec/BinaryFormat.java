@@ -0,0 +1,237 @@
+package com.example.codec;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 编解码共用的底层读写：LEB128 变长整数、zigzag 编码和直接读写缓冲区的 UTF-8
+ *
+ * <p>读取方法都使用绝对位置，不改变缓冲区的 position。
+ */
+final class BinaryFormat {
+
+    private static final int MAX_VARINT_BYTES = 10;
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private BinaryFormat() {
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int varLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long getVarLong(ByteBuffer buffer, int index) {
+        long value = 0;
+        for (int shift = 0, i = 0; i < MAX_VARINT_BYTES; i++, shift += 7) {
+            byte b = byteAt(buffer, index + i);
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Corrupted varint at " + index);
+    }
+
+    /**
+     * 跳过 index 处的变长整数，返回其后的位置
+     */
+    static int skipVarLong(ByteBuffer buffer, int index) {
+        for (int i = 0; i < MAX_VARINT_BYTES; i++) {
+            if (byteAt(buffer, index + i) >= 0) {
+                return index + i + 1;
+            }
+        }
+        throw new IllegalStateException("Corrupted varint at " + index);
+    }
+
+    /**
+     * 读取作为长度使用的变长整数，并检查其后确实有这么多字节
+     *
+     * @throws IllegalStateException 长度为负数或超出 int 范围
+     */
+    static int getLength(ByteBuffer buffer, int index, int end) {
+        long length = getVarLong(buffer, index);
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Corrupted length at " + index + ": " + length);
+        }
+        if (length > buffer.limit() - end) {
+            throw new BufferUnderflowException();
+        }
+        return (int) length;
+    }
+
+    static byte byteAt(ByteBuffer buffer, int index) {
+        if (index >= buffer.limit()) {
+            throw new BufferUnderflowException();
+        }
+        return buffer.get(index);
+    }
+
+    /**
+     * 字符串的 UTF-8 编码长度，不成对的代理字符按 '?' 计算，与 {@link String#getBytes} 一致
+     */
+    static int utf8Length(String value) {
+        int length = value.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    bytes += 1;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    bytes += 2;
+                    i++;
+                } else if (Character.isSurrogate(c)) {
+                    // 编码为单字节 '?'
+                } else {
+                    bytes += 2;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 把字符串按 UTF-8 直接写入缓冲区，调用方保证剩余空间不少于 {@link #utf8Length}
+     */
+    static void putUtf8(ByteBuffer buffer, String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    /**
+     * 从缓冲区 [index, index + length) 解码字符串
+     *
+     * <p>堆缓冲区直接在底层数组上构造 String；直接缓冲区逐字节解码到 char 数组。
+     */
+    static String getUtf8(ByteBuffer buffer, int index, int length) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + index, length, StandardCharsets.UTF_8);
+        }
+        char[] chars = new char[length];
+        int count = 0;
+        int i = index;
+        int end = index + length;
+        while (i < end) {
+            int b = buffer.get(i) & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+                i++;
+                continue;
+            }
+            int extra = b >= 0xF0 ? 3 : b >= 0xE0 ? 2 : b >= 0xC0 ? 1 : -1;
+            if (extra < 0 || i + extra >= end) {
+                chars[count++] = REPLACEMENT;
+                i++;
+                continue;
+            }
+            int codePoint = b & (0x3F >> extra);
+            boolean valid = true;
+            for (int k = 1; k <= extra; k++) {
+                int next = buffer.get(i + k) & 0xFF;
+                if ((next & 0xC0) != 0x80) {
+                    valid = false;
+                    break;
+                }
+                codePoint = (codePoint << 6) | (next & 0x3F);
+            }
+            if (!valid) {
+                chars[count++] = REPLACEMENT;
+                i++;
+            } else if (codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                chars[count++] = Character.highSurrogate(codePoint);
+                chars[count++] = Character.lowSurrogate(codePoint);
+                i += extra + 1;
+            } else {
+                chars[count++] = (char) codePoint;
+                i += extra + 1;
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    /**
+     * 缓冲区 [index, index + length) 是否是 value 的 UTF-8 编码，逐个字符编码比较，不分配对象
+     */
+    static boolean utf8Equals(ByteBuffer buffer, int index, int length, String value) {
+        int i = index;
+        int end = index + length;
+        int chars = value.length();
+        for (int c = 0; c < chars; c++) {
+            char ch = value.charAt(c);
+            int codePoint;
+            if (Character.isHighSurrogate(ch) && c + 1 < chars && Character.isLowSurrogate(value.charAt(c + 1))) {
+                codePoint = Character.toCodePoint(ch, value.charAt(++c));
+            } else if (Character.isSurrogate(ch)) {
+                codePoint = '?';
+            } else {
+                codePoint = ch;
+            }
+            if (codePoint < 0x80) {
+                if (i >= end || buffer.get(i++) != (byte) codePoint) {
+                    return false;
+                }
+                continue;
+            }
+            int bytes = codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            if (end - i < bytes) {
+                return false;
+            }
+            int shift = 6 * (bytes - 1);
+            int lead = (0xF00 >> bytes) & 0xFF;
+            if (buffer.get(i++) != (byte) (lead | (codePoint >> shift))) {
+                return false;
+            }
+            for (shift -= 6; shift >= 0; shift -= 6) {
+                if (buffer.get(i++) != (byte) (0x80 | ((codePoint >> shift) & 0x3F))) {
+                    return false;
+                }
+            }
+        }
+        return i == end;
+    }
+}
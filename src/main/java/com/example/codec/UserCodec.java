@@ -0,0 +1,136 @@
+package com.example.codec;
+
+import com.example.model.User;
+import com.example.service.UserService;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link User} 与 {@link UserService.UserStats} 的二进制编解码，用于缓存复制与磁盘快照
+ *
+ * <p>用户记录格式（版本 1）：
+ * <pre>
+ * [版本 u8 = 1][标志 u8：1 = 有 id，2 = 有名字，4 = 有邮箱]
+ * [id：zigzag 变长整数]                         有 id 时
+ * [名字：变长整数字节数 + UTF-8]                有名字时
+ * [邮箱：变长整数字节数 + UTF-8]                有邮箱时
+ * </pre>
+ * 统计记录格式（版本 1）：{@code [版本 u8 = 1][用户记录][发帖数 zigzag 变长整数][粉丝数 zigzag 变长整数]}。
+ * 增加字段时提升版本号，解码端继续支持所有旧版本。
+ *
+ * <p>编码直接把字符逐个写入目标缓冲区，解码直接从缓冲区构造字符串，中间不经过 byte 数组。
+ * encode / decode 从缓冲区的 position 开始读写并推进 position；
+ * 只需要读取个别字段时用 {@link UserView} / {@link UserStatsView}。
+ */
+public final class UserCodec {
+
+    /**
+     * 当前编码版本
+     */
+    public static final byte VERSION = 1;
+
+    static final int HAS_ID = 1;
+    static final int HAS_NAME = 2;
+    static final int HAS_EMAIL = 4;
+
+    private UserCodec() {
+    }
+
+    /**
+     * 用户编码后的字节数
+     */
+    public static int encodedSize(User user) {
+        int size = 2;
+        if (user.getId() != null) {
+            size += BinaryFormat.varLongSize(BinaryFormat.zigZag(user.getId()));
+        }
+        size += stringSize(user.getName());
+        size += stringSize(user.getEmail());
+        return size;
+    }
+
+    /**
+     * 把用户写入缓冲区的 position 处
+     *
+     * @throws BufferOverflowException 剩余空间不足，此时缓冲区不会被修改
+     */
+    public static void encode(User user, ByteBuffer buffer) {
+        if (buffer.remaining() < encodedSize(user)) {
+            throw new BufferOverflowException();
+        }
+        put(user, buffer);
+    }
+
+    /**
+     * 从缓冲区的 position 处读取一个用户
+     *
+     * @throws IllegalStateException            版本不支持或数据损坏
+     * @throws java.nio.BufferUnderflowException 记录不完整
+     */
+    public static User decodeUser(ByteBuffer buffer) {
+        UserView view = new UserView().wrap(buffer);
+        User user = view.toUser();
+        buffer.position(buffer.position() + view.encodedLength());
+        return user;
+    }
+
+    public static int encodedSize(UserService.UserStats stats) {
+        return 1 + encodedSize(stats.getUser())
+                + BinaryFormat.varLongSize(BinaryFormat.zigZag(stats.getPostCount()))
+                + BinaryFormat.varLongSize(BinaryFormat.zigZag(stats.getFollowerCount()));
+    }
+
+    /**
+     * @throws BufferOverflowException 剩余空间不足，此时缓冲区不会被修改
+     */
+    public static void encode(UserService.UserStats stats, ByteBuffer buffer) {
+        if (buffer.remaining() < encodedSize(stats)) {
+            throw new BufferOverflowException();
+        }
+        buffer.put(VERSION);
+        put(stats.getUser(), buffer);
+        BinaryFormat.putVarLong(buffer, BinaryFormat.zigZag(stats.getPostCount()));
+        BinaryFormat.putVarLong(buffer, BinaryFormat.zigZag(stats.getFollowerCount()));
+    }
+
+    /**
+     * @throws IllegalStateException            版本不支持或数据损坏
+     * @throws java.nio.BufferUnderflowException 记录不完整
+     */
+    public static UserService.UserStats decodeUserStats(ByteBuffer buffer) {
+        UserStatsView view = new UserStatsView().wrap(buffer);
+        UserService.UserStats stats = view.toUserStats();
+        buffer.position(buffer.position() + view.encodedLength());
+        return stats;
+    }
+
+    private static void put(User user, ByteBuffer buffer) {
+        Long id = user.getId();
+        String name = user.getName();
+        String email = user.getEmail();
+        int flags = (id != null ? HAS_ID : 0) | (name != null ? HAS_NAME : 0) | (email != null ? HAS_EMAIL : 0);
+        buffer.put(VERSION);
+        buffer.put((byte) flags);
+        if (id != null) {
+            BinaryFormat.putVarLong(buffer, BinaryFormat.zigZag(id));
+        }
+        putString(buffer, name);
+        putString(buffer, email);
+    }
+
+    private static int stringSize(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int length = BinaryFormat.utf8Length(value);
+        return BinaryFormat.varLongSize(length) + length;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value != null) {
+            BinaryFormat.putVarLong(buffer, BinaryFormat.utf8Length(value));
+            BinaryFormat.putUtf8(buffer, value);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.codec;
+
+import com.example.service.UserService;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 直接读取缓冲区中 {@link UserCodec} 编码的用户统计记录，不创建对象
+ *
+ * <p>用法与 {@link UserView} 相同；{@link #user()} 返回的视图随本视图一起复用。
+ */
+public final class UserStatsView {
+
+    private final UserView user = new UserView();
+    private int start;
+    private int end;
+    private int postCount;
+    private int followerCount;
+
+    public UserStatsView wrap(ByteBuffer buffer) {
+        return wrap(buffer, buffer.position());
+    }
+
+    /**
+     * @throws IllegalStateException            版本不支持或数据损坏
+     * @throws java.nio.BufferUnderflowException 记录不完整
+     */
+    public UserStatsView wrap(ByteBuffer buffer, int index) {
+        int version = BinaryFormat.byteAt(buffer, index);
+        if (version != UserCodec.VERSION) {
+            throw new IllegalStateException("Unsupported user stats record version: " + version);
+        }
+        user.wrap(buffer, index + 1);
+        int position = index + 1 + user.encodedLength();
+        postCount = (int) BinaryFormat.unZigZag(BinaryFormat.getVarLong(buffer, position));
+        position = BinaryFormat.skipVarLong(buffer, position);
+        followerCount = (int) BinaryFormat.unZigZag(BinaryFormat.getVarLong(buffer, position));
+        position = BinaryFormat.skipVarLong(buffer, position);
+        this.start = index;
+        this.end = position;
+        return this;
+    }
+
+    public int encodedLength() {
+        return end - start;
+    }
+
+    public UserView user() {
+        return user;
+    }
+
+    public int postCount() {
+        return postCount;
+    }
+
+    public int followerCount() {
+        return followerCount;
+    }
+
+    public UserService.UserStats toUserStats() {
+        return new UserService.UserStats(user.toUser(), postCount, followerCount);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.codec;
+
+import com.example.model.User;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 直接读取缓冲区中 {@link UserCodec} 编码的用户记录，不创建 {@link User}
+ *
+ * <p>{@link #wrap} 只解析字段的位置，字符串在调用 {@link #name()} / {@link #email()} 时才解码；
+ * {@link #nameEquals} / {@link #emailEquals} 直接比较字节，不分配对象。
+ * 同一个实例可以反复 wrap 不同的记录，遍历大量记录时不产生垃圾。
+ * 不改变缓冲区的 position，非线程安全。
+ */
+public final class UserView {
+
+    private ByteBuffer buffer;
+    private int start;
+    private int end;
+    private int flags;
+    private long id;
+    private int nameOffset;
+    private int nameLength;
+    private int emailOffset;
+    private int emailLength;
+
+    /**
+     * 读取缓冲区当前 position 处的记录
+     */
+    public UserView wrap(ByteBuffer buffer) {
+        return wrap(buffer, buffer.position());
+    }
+
+    /**
+     * 读取缓冲区 index 处的记录
+     *
+     * @throws IllegalStateException            版本不支持或数据损坏
+     * @throws java.nio.BufferUnderflowException 记录不完整
+     */
+    public UserView wrap(ByteBuffer buffer, int index) {
+        int version = BinaryFormat.byteAt(buffer, index);
+        if (version != UserCodec.VERSION) {
+            throw new IllegalStateException("Unsupported user record version: " + version);
+        }
+        int position = index + 1;
+        int recordFlags = BinaryFormat.byteAt(buffer, position++);
+        long recordId = 0;
+        if ((recordFlags & UserCodec.HAS_ID) != 0) {
+            recordId = BinaryFormat.unZigZag(BinaryFormat.getVarLong(buffer, position));
+            position = BinaryFormat.skipVarLong(buffer, position);
+        }
+        int recordNameOffset = -1;
+        int recordNameLength = 0;
+        if ((recordFlags & UserCodec.HAS_NAME) != 0) {
+            int lengthEnd = BinaryFormat.skipVarLong(buffer, position);
+            recordNameLength = BinaryFormat.getLength(buffer, position, lengthEnd);
+            recordNameOffset = lengthEnd;
+            position = lengthEnd + recordNameLength;
+        }
+        int recordEmailOffset = -1;
+        int recordEmailLength = 0;
+        if ((recordFlags & UserCodec.HAS_EMAIL) != 0) {
+            int lengthEnd = BinaryFormat.skipVarLong(buffer, position);
+            recordEmailLength = BinaryFormat.getLength(buffer, position, lengthEnd);
+            recordEmailOffset = lengthEnd;
+            position = lengthEnd + recordEmailLength;
+        }
+
+        this.buffer = buffer;
+        this.start = index;
+        this.end = position;
+        this.flags = recordFlags;
+        this.id = recordId;
+        this.nameOffset = recordNameOffset;
+        this.nameLength = recordNameLength;
+        this.emailOffset = recordEmailOffset;
+        this.emailLength = recordEmailLength;
+        return this;
+    }
+
+    /**
+     * 记录占用的字节数，下一条记录从 wrap 位置加上该值处开始
+     */
+    public int encodedLength() {
+        return end - start;
+    }
+
+    public boolean hasId() {
+        return (flags & UserCodec.HAS_ID) != 0;
+    }
+
+    /**
+     * 用户 id，{@link #hasId()} 为 false 时返回 0
+     */
+    public long id() {
+        return id;
+    }
+
+    public boolean hasName() {
+        return nameOffset >= 0;
+    }
+
+    public String name() {
+        return nameOffset < 0 ? null : BinaryFormat.getUtf8(buffer, nameOffset, nameLength);
+    }
+
+    public boolean nameEquals(String value) {
+        if (value == null || nameOffset < 0) {
+            return value == null && nameOffset < 0;
+        }
+        return BinaryFormat.utf8Equals(buffer, nameOffset, nameLength, value);
+    }
+
+    public boolean hasEmail() {
+        return emailOffset >= 0;
+    }
+
+    public String email() {
+        return emailOffset < 0 ? null : BinaryFormat.getUtf8(buffer, emailOffset, emailLength);
+    }
+
+    public boolean emailEquals(String value) {
+        if (value == null || emailOffset < 0) {
+            return value == null && emailOffset < 0;
+        }
+        return BinaryFormat.utf8Equals(buffer, emailOffset, emailLength, value);
+    }
+
+    /**
+     * 创建对应的 User 对象
+     */
+    public User toUser() {
+        return new User(hasId() ? id : null, name(), email());
+    }
+}
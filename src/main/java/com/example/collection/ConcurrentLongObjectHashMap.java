@@ -0,0 +1,222 @@
+package com.example.collection;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongFunction;
+
+/**
+ * 线程安全的 long 键哈希表
+ *
+ * <p>按键的哈希高位拆分成多个段，每段是一个 {@link LongObjectHashMap} 加一把 {@link StampedLock}。
+ * 读操作先走乐观读，段内没有并发写入时不需要任何加锁和 CAS；
+ * 乐观读失败（期间有写入或扩容）才退回读锁重试。写操作只锁所在的段。
+ *
+ * <p>值不允许为 null。{@link #forEach} 逐段复制后再回调，回调中可以安全地修改本表。
+ */
+public class ConcurrentLongObjectHashMap<V> {
+
+    private static final int DEFAULT_SEGMENTS = 16;
+
+    private final Segment<V>[] segments;
+    private final int segmentShift;
+
+    public ConcurrentLongObjectHashMap() {
+        this(DEFAULT_SEGMENTS * 16);
+    }
+
+    public ConcurrentLongObjectHashMap(int expectedSize) {
+        this(expectedSize, DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * @param expectedSize 预计条目数
+     * @param segmentCount 段数，会向上取整为 2 的幂
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentLongObjectHashMap(int expectedSize, int segmentCount) {
+        if (segmentCount <= 0) {
+            throw new IllegalArgumentException("Segment count must be positive: " + segmentCount);
+        }
+        int count = segmentCount == 1 ? 1 : Integer.highestOneBit(segmentCount - 1) << 1;
+        this.segments = (Segment<V>[]) new Segment<?>[count];
+        // 段号取混淆后哈希的最高几位，段内槽位用低位，两者互不相关
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(count);
+        int perSegment = Math.max(expectedSize, 0) / count + 1;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(perSegment);
+        }
+    }
+
+    public V get(long key) {
+        Segment<V> segment = segmentFor(key);
+        StampedLock lock = segment.lock;
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            V value;
+            try {
+                value = segment.map.get(key);
+            } catch (RuntimeException e) {
+                // 与扩容交错时可能读到不一致的数组，交给 validate 判定
+                value = null;
+            }
+            if (lock.validate(stamp)) {
+                return value;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return segment.map.get(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not supported");
+        }
+        Segment<V> segment = segmentFor(key);
+        long stamp = segment.lock.writeLock();
+        try {
+            return segment.map.put(key, value);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return 已存在的值，插入成功时返回 null
+     */
+    public V putIfAbsent(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not supported");
+        }
+        Segment<V> segment = segmentFor(key);
+        long stamp = segment.lock.writeLock();
+        try {
+            return segment.map.putIfAbsent(key, value);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 不存在时原子地创建，mappingFunction 在段写锁内执行，应当短小且不访问本表
+     */
+    public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+        V existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        Segment<V> segment = segmentFor(key);
+        long stamp = segment.lock.writeLock();
+        try {
+            return segment.map.computeIfAbsent(key, mappingFunction);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    public V remove(long key) {
+        Segment<V> segment = segmentFor(key);
+        long stamp = segment.lock.writeLock();
+        try {
+            return segment.map.remove(key);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 仅当当前值就是 value（同一对象）时删除
+     */
+    public boolean remove(long key, V value) {
+        Segment<V> segment = segmentFor(key);
+        long stamp = segment.lock.writeLock();
+        try {
+            if (segment.map.get(key) != value) {
+                return false;
+            }
+            segment.map.remove(key);
+            return true;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 各段大小之和，并发修改时只是近似值
+     */
+    public int size() {
+        long size = 0;
+        for (Segment<V> segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                size += segment.map.size();
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        for (Segment<V> segment : segments) {
+            long stamp = segment.lock.writeLock();
+            try {
+                segment.map.clear();
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * 逐段遍历：每段在读锁内复制出键值，释放锁后再回调。
+     * 不同段之间不是同一时刻的快照。
+     */
+    public void forEach(LongObjectConsumer<? super V> action) {
+        for (Segment<V> segment : segments) {
+            long[] keys;
+            Object[] values;
+            long stamp = segment.lock.readLock();
+            try {
+                int n = segment.map.size();
+                keys = new long[n];
+                values = new Object[n];
+                int[] index = {0};
+                segment.map.forEach((key, value) -> {
+                    keys[index[0]] = key;
+                    values[index[0]++] = value;
+                });
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+            for (int i = 0; i < keys.length; i++) {
+                @SuppressWarnings("unchecked")
+                V value = (V) values[i];
+                action.accept(keys[i], value);
+            }
+        }
+    }
+
+    private Segment<V> segmentFor(long key) {
+        return segments.length == 1 ? segments[0] : segments[(int) (LongObjectHashMap.mix(key) >>> segmentShift)];
+    }
+
+    private static final class Segment<V> {
+        final StampedLock lock = new StampedLock();
+        final LongObjectHashMap<V> map;
+
+        Segment(int expectedSize) {
+            this.map = new LongObjectHashMap<>(expectedSize);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.collection;
+
+/**
+ * 接收 long 键与对象值的回调，避免遍历时装箱
+ */
+@FunctionalInterface
+public interface LongObjectConsumer<V> {
+    void accept(long key, V value);
+}
@@ -0,0 +1,239 @@
+package com.example.collection;
+
+import java.util.function.LongFunction;
+
+/**
+ * 以 long 为键的开放寻址哈希表（线性探测），非线程安全
+ *
+ * <p>键直接存放在 {@code long[]} 中，值存放在对应下标的 {@code Object[]} 中，
+ * 每个条目只占两个数组槽位，没有 {@code Long} 装箱和 {@code HashMap.Node} 的开销，
+ * 查找过程不分配任何对象。值不允许为 null（null 槽位表示空位），
+ * 删除使用后移（backward shift）而不是墓碑，删除频繁时探测链也不会变长。
+ */
+public class LongObjectHashMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.6f;
+
+    private final float loadFactor;
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    public LongObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    public LongObjectHashMap(int expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative: " + expectedSize);
+        }
+        if (loadFactor <= 0 || loadFactor >= 1) {
+            throw new IllegalArgumentException("Load factor must be in (0, 1): " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(tableSizeFor((int) Math.ceil(Math.max(expectedSize, 1) / loadFactor)));
+    }
+
+    /**
+     * 对键做 64 位混淆，连续 id 也能均匀分布
+     */
+    static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32) ^ (h >>> 16);
+    }
+
+    public V get(long key) {
+        long[] k = keys;
+        Object[] v = values;
+        int m = k.length - 1;
+        if (v.length != k.length) {
+            // 只可能出现在并发包装类的乐观读中，由调用方重试
+            return null;
+        }
+        int index = (int) mix(key) & m;
+        for (int probes = 0; probes <= m; probes++) {
+            Object value = v[index];
+            if (value == null) {
+                return null;
+            }
+            if (k[index] == key) {
+                return cast(value);
+            }
+            index = (index + 1) & m;
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @return 原来的值，不存在时返回 null
+     */
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not supported");
+        }
+        int index = (int) mix(key) & mask;
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                V previous = cast(values[index]);
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * @return 已存在的值，插入成功时返回 null
+     */
+    public V putIfAbsent(long key, V value) {
+        V existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        put(key, value);
+        return null;
+    }
+
+    public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+        V existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        V created = mappingFunction.apply(key);
+        if (created != null) {
+            put(key, created);
+        }
+        return created;
+    }
+
+    /**
+     * @return 被删除的值，不存在时返回 null
+     */
+    public V remove(long key) {
+        int index = (int) mix(key) & mask;
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                V previous = cast(values[index]);
+                shiftBack(index);
+                size--;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(values, null);
+        size = 0;
+    }
+
+    public void forEach(LongObjectConsumer<? super V> action) {
+        long[] k = keys;
+        Object[] v = values;
+        for (int i = 0; i < v.length; i++) {
+            Object value = v[i];
+            if (value != null) {
+                action.accept(k[i], cast(value));
+            }
+        }
+    }
+
+    /**
+     * 当前槽位数，用于估算内存占用
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * 删除 index 处的条目后，把同一探测链上后面的条目前移填补空位
+     */
+    private void shiftBack(int index) {
+        int hole = index;
+        int next = (hole + 1) & mask;
+        while (values[next] != null) {
+            int ideal = (int) mix(keys[next]) & mask;
+            // 条目的理想位置不在 (hole, next] 区间内时，才可以前移到 hole
+            boolean movable = hole <= next
+                    ? (ideal <= hole || ideal > next)
+                    : (ideal <= hole && ideal > next);
+            if (movable) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[hole] = null;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        long[] newKeys = new long[newCapacity];
+        Object[] newValues = new Object[newCapacity];
+        int newMask = newCapacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            Object value = oldValues[i];
+            if (value != null) {
+                int index = (int) mix(oldKeys[i]) & newMask;
+                while (newValues[index] != null) {
+                    index = (index + 1) & newMask;
+                }
+                newKeys[index] = oldKeys[i];
+                newValues[index] = value;
+            }
+        }
+        // 先替换值数组再替换键数组，乐观读者看到长度不一致时会放弃本次结果
+        values = newValues;
+        keys = newKeys;
+        mask = newMask;
+        resizeThreshold = (int) (newCapacity * loadFactor);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * loadFactor);
+    }
+
+    private static int tableSizeFor(int n) {
+        int capacity = Integer.highestOneBit(Math.max(n, 2) - 1) << 1;
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity too large: " + n);
+        }
+        return capacity;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V cast(Object value) {
+        return (V) value;
+    }
+}
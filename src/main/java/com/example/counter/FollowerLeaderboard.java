@@ -0,0 +1,289 @@
+package com.example.counter;
+
+import com.example.collection.ConcurrentLongObjectHashMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * 按粉丝数排名的排行榜，由 {@link UserCounterStore} 在粉丝数变化时增量维护
+ *
+ * <p>排序规则：粉丝数降序，相同时 id 升序；粉丝数不大于 0 的用户不上榜。
+ * 数据结构是两棵按子树大小增强的不可变 treap：一棵按名次排序，一棵按 id 索引每个用户在榜上的粉丝数。
+ * 每个用户的位置更新沿一条路径复制 O(log N) 个节点，一批更新完成后把两棵树作为一个快照一起发布，
+ * 读取只使用某一时刻的快照，名次和粉丝数总是来自同一个版本。
+ * {@link #top} 耗时 O(k + log N)，{@link #rankOf} 耗时 O(log N)。
+ *
+ * <p>粉丝数变化时只把用户记入待更新集合，同一用户在两次读取之间的多次变化只记一次，
+ * 计数写入不加锁，也不做树操作。读取前如果有待更新的用户，由抢到锁的读取方逐个重新读取计数器的当前值、
+ * 批量应用并发布新快照，发布之后才把这批用户从待更新计数中扣除，
+ * 因此没有其他读取方在应用时，读取总能看到此前已完成的所有增量，并发更新的通知顺序也不影响结果。
+ * 其他读取方不等待锁，直接返回最近发布的快照，最多落后正在应用的这一批。
+ */
+public final class FollowerLeaderboard {
+
+    private final ReentrantLock applyLock = new ReentrantLock();
+    private final ConcurrentLongObjectHashMap<Boolean> dirty = new ConcurrentLongObjectHashMap<>();
+    /** 已标记但还没有发布到快照的用户数 */
+    private final AtomicLong pending = new AtomicLong();
+    private final LongUnaryOperator followers;
+    private volatile Snapshot snapshot = new Snapshot(null, null);
+
+    /**
+     * @param followers 用户当前的粉丝数，已删除的用户返回 0
+     */
+    FollowerLeaderboard(LongUnaryOperator followers) {
+        this.followers = followers;
+    }
+
+    /**
+     * 粉丝数最多的 k 个用户，按名次排列
+     */
+    public List<FollowerRank> top(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("K must be positive: " + k);
+        }
+        Node node = current().ranks;
+        List<FollowerRank> ranks = new ArrayList<>(Math.min(k, size(node)));
+        Deque<Node> path = new ArrayDeque<>();
+        while ((node != null || !path.isEmpty()) && ranks.size() < k) {
+            while (node != null) {
+                path.push(node);
+                node = node.left;
+            }
+            node = path.pop();
+            ranks.add(new FollowerRank(node.userId, node.followers, ranks.size() + 1));
+            node = node.right;
+        }
+        return ranks;
+    }
+
+    /**
+     * 用户的名次，从 1 开始；不在榜上时返回 0
+     *
+     * <p>与该用户的更新并发时，可能返回更新前或更新后的名次。
+     */
+    public long rankOf(long userId) {
+        Snapshot s = current();
+        Node key = find(s.keys, userId);
+        if (key == null) {
+            return 0;
+        }
+        Node node = s.ranks;
+        long before = 0;
+        while (node != null) {
+            if (Order.RANK.precedes(node.followers, node.userId, key.followers, userId)) {
+                before += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return before + 1;
+    }
+
+    /**
+     * 上榜的用户数
+     */
+    public int size() {
+        return size(current().ranks);
+    }
+
+    /**
+     * 记录用户的粉丝数发生了变化（包括删除），下次读取时重新读取并更新位置
+     */
+    void markChanged(long userId) {
+        if (dirty.get(userId) != null) {
+            return;
+        }
+        // 先计数再入集合：其他线程看到集合中已有该用户而直接返回时，计数一定已经包含它
+        pending.incrementAndGet();
+        if (dirty.putIfAbsent(userId, Boolean.TRUE) != null) {
+            pending.decrementAndGet();
+        }
+    }
+
+    /**
+     * 读取用的快照：有待更新的用户且没有其他线程在应用时，先应用并发布新快照
+     */
+    private Snapshot current() {
+        if (pending.get() <= 0 || !applyLock.tryLock()) {
+            return snapshot;
+        }
+        try {
+            Snapshot s = snapshot;
+            Node[] trees = {s.ranks, s.keys};
+            long[] applied = {0};
+            dirty.forEach((userId, ignored) -> {
+                // 先移出集合再读取计数：之后的变化会重新标记，不会丢失
+                if (dirty.remove(userId) != null) {
+                    applied[0]++;
+                    apply(trees, userId, followers.applyAsLong(userId));
+                }
+            });
+            s = new Snapshot(trees[0], trees[1]);
+            snapshot = s;
+            pending.addAndGet(-applied[0]);
+            return s;
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    /**
+     * 更新用户在两棵树中的位置，trees 依次是名次树和 id 树
+     */
+    private static void apply(Node[] trees, long userId, long count) {
+        Node previous = find(trees[1], userId);
+        if (previous != null && previous.followers == count) {
+            return;
+        }
+        if (previous != null) {
+            trees[0] = delete(trees[0], Order.RANK, previous.followers, userId);
+            trees[1] = delete(trees[1], Order.ID, previous.followers, userId);
+        }
+        if (count > 0) {
+            int priority = priorityOf(userId);
+            trees[0] = insert(trees[0], Order.RANK, count, userId, priority);
+            trees[1] = insert(trees[1], Order.ID, count, userId, priority);
+        }
+    }
+
+    private static Node find(Node node, long userId) {
+        while (node != null && node.userId != userId) {
+            node = userId < node.userId ? node.left : node.right;
+        }
+        return node;
+    }
+
+    private static Node insert(Node node, Order order, long followers, long userId, int priority) {
+        if (node == null) {
+            return new Node(followers, userId, priority, null, null);
+        }
+        if (priority > node.priority) {
+            Node[] halves = split(node, order, followers, userId);
+            return new Node(followers, userId, priority, halves[0], halves[1]);
+        }
+        if (order.precedes(followers, userId, node.followers, node.userId)) {
+            return node.withChildren(insert(node.left, order, followers, userId, priority), node.right);
+        }
+        return node.withChildren(node.left, insert(node.right, order, followers, userId, priority));
+    }
+
+    private static Node delete(Node node, Order order, long followers, long userId) {
+        if (node == null) {
+            return null;
+        }
+        if (node.followers == followers && node.userId == userId) {
+            return merge(node.left, node.right);
+        }
+        if (order.precedes(followers, userId, node.followers, node.userId)) {
+            return node.withChildren(delete(node.left, order, followers, userId), node.right);
+        }
+        return node.withChildren(node.left, delete(node.right, order, followers, userId));
+    }
+
+    /**
+     * 拆分为排在 (followers, userId) 之前的部分和之后的部分
+     */
+    private static Node[] split(Node node, Order order, long followers, long userId) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (order.precedes(node.followers, node.userId, followers, userId)) {
+            Node[] halves = split(node.right, order, followers, userId);
+            halves[0] = node.withChildren(node.left, halves[0]);
+            return halves;
+        }
+        Node[] halves = split(node.left, order, followers, userId);
+        halves[1] = node.withChildren(halves[1], node.right);
+        return halves;
+    }
+
+    /**
+     * 合并两棵树，first 中的节点都排在 second 之前
+     */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            return first.withChildren(first.left, merge(first.right, second));
+        }
+        return second.withChildren(merge(first, second.left), second.right);
+    }
+
+    private static int priorityOf(long userId) {
+        long h = userId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node {
+        final long followers;
+        final long userId;
+        final int priority;
+        final Node left;
+        final Node right;
+        final int size;
+
+        Node(long followers, long userId, int priority, Node left, Node right) {
+            this.followers = followers;
+            this.userId = userId;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+        }
+
+        Node withChildren(Node newLeft, Node newRight) {
+            return new Node(followers, userId, priority, newLeft, newRight);
+        }
+    }
+
+    /**
+     * 某一时刻的排行榜：名次树与 id 树总是一起发布
+     */
+    private static final class Snapshot {
+        final Node ranks;
+        final Node keys;
+
+        Snapshot(Node ranks, Node keys) {
+            this.ranks = ranks;
+            this.keys = keys;
+        }
+    }
+
+    private enum Order {
+        /** 粉丝数降序，相同时 id 升序 */
+        RANK {
+            @Override
+            boolean precedes(long aFollowers, long aId, long bFollowers, long bId) {
+                return aFollowers > bFollowers || (aFollowers == bFollowers && aId < bId);
+            }
+        },
+        /** id 升序 */
+        ID {
+            @Override
+            boolean precedes(long aFollowers, long aId, long bFollowers, long bId) {
+                return aId < bId;
+            }
+        };
+
+        /**
+         * (aFollowers, aId) 是否排在 (bFollowers, bId) 之前
+         */
+        abstract boolean precedes(long aFollowers, long aId, long bFollowers, long bId);
+    }
+}
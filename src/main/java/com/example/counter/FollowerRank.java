@@ -0,0 +1,37 @@
+package com.example.counter;
+
+/**
+ * 粉丝数排行榜中的一项
+ */
+public final class FollowerRank {
+
+    private final long userId;
+    private final long followerCount;
+    private final long rank;
+
+    public FollowerRank(long userId, long followerCount, long rank) {
+        this.userId = userId;
+        this.followerCount = followerCount;
+        this.rank = rank;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public long getFollowerCount() {
+        return followerCount;
+    }
+
+    /**
+     * 名次，从 1 开始
+     */
+    public long getRank() {
+        return rank;
+    }
+
+    @Override
+    public String toString() {
+        return "FollowerRank{userId=" + userId + ", followerCount=" + followerCount + ", rank=" + rank + '}';
+    }
+}
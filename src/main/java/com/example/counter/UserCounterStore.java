@@ -0,0 +1,228 @@
+package com.example.counter;
+
+import com.example.collection.ConcurrentLongObjectHashMap;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 用户发帖数 / 粉丝数计数器
+ *
+ * <p>每个用户的计数默认只占一个 long，用 CAS 更新；某个用户出现写竞争时
+ * 自动膨胀为 {@link LongAdder}，热点用户的并发写入分散到多个 cell 上，
+ * 不会集中在同一个 CAS 上排队。
+ *
+ * <p>{@link #consolidate()} 会把上次整理以来没有写入的用户折叠回单个 long，
+ * 释放 {@link LongAdder} 的 cell，冷用户的内存占用保持稳定。
+ * 读取是弱一致的：并发写入或整理期间读到的值可能短暂偏小，但不会丢失计数。
+ *
+ * <p>默认维护粉丝排行榜：每次粉丝数变化都会通知 {@link FollowerLeaderboard}，
+ * 粉丝数写入只多一次无锁的标记，排行榜在读取时批量更新。不需要排行榜时可以用
+ * {@link #UserCounterStore(boolean)} 关闭。
+ */
+public class UserCounterStore {
+
+    private final ConcurrentLongObjectHashMap<UserCounters> counters = new ConcurrentLongObjectHashMap<>();
+    private final FollowerLeaderboard leaderboard;
+
+    public UserCounterStore() {
+        this(true);
+    }
+
+    /**
+     * @param followerLeaderboard 是否维护粉丝数排行榜
+     */
+    public UserCounterStore(boolean followerLeaderboard) {
+        this.leaderboard = followerLeaderboard ? new FollowerLeaderboard(this::getFollowerCount) : null;
+    }
+
+    public void incrementPosts(long userId) {
+        addPosts(userId, 1);
+    }
+
+    public void decrementPosts(long userId) {
+        addPosts(userId, -1);
+    }
+
+    public void addPosts(long userId, long delta) {
+        countersFor(userId).posts.add(delta);
+    }
+
+    public void incrementFollowers(long userId) {
+        addFollowers(userId, 1);
+    }
+
+    public void decrementFollowers(long userId) {
+        addFollowers(userId, -1);
+    }
+
+    public void addFollowers(long userId, long delta) {
+        countersFor(userId).followers.add(delta);
+        if (leaderboard != null) {
+            leaderboard.markChanged(userId);
+        }
+    }
+
+    public long getPostCount(long userId) {
+        UserCounters c = counters.get(userId);
+        return c == null ? 0 : c.posts.sum();
+    }
+
+    public long getFollowerCount(long userId) {
+        UserCounters c = counters.get(userId);
+        return c == null ? 0 : c.followers.sum();
+    }
+
+    /**
+     * 删除用户的全部计数
+     */
+    public void remove(long userId) {
+        counters.remove(userId);
+        if (leaderboard != null) {
+            leaderboard.markChanged(userId);
+        }
+    }
+
+    /**
+     * 粉丝数排行榜
+     *
+     * @throws UnsupportedOperationException 创建时没有开启排行榜
+     */
+    public FollowerLeaderboard followerLeaderboard() {
+        if (leaderboard == null) {
+            throw new UnsupportedOperationException("Follower leaderboard is not enabled");
+        }
+        return leaderboard;
+    }
+
+    /**
+     * 有计数记录的用户数
+     */
+    public int size() {
+        return counters.size();
+    }
+
+    /**
+     * 把自上次整理以来没有写入的计数器折叠回单个 long
+     *
+     * @return 本次折叠的计数器个数
+     */
+    public int consolidate() {
+        int[] deflated = {0};
+        counters.forEach((userId, c) -> {
+            if (c.posts.deflateIfCold()) {
+                deflated[0]++;
+            }
+            if (c.followers.deflateIfCold()) {
+                deflated[0]++;
+            }
+        });
+        return deflated[0];
+    }
+
+    /**
+     * 按固定周期执行 {@link #consolidate()}
+     */
+    public ScheduledFuture<?> scheduleConsolidation(ScheduledExecutorService scheduler, Duration period) {
+        long nanos = period.toNanos();
+        return scheduler.scheduleWithFixedDelay(this::consolidate, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private UserCounters countersFor(long userId) {
+        UserCounters c = counters.get(userId);
+        if (c == null) {
+            c = counters.computeIfAbsent(userId, id -> new UserCounters());
+        }
+        return c;
+    }
+
+    private static final class UserCounters {
+        final StripedCounter posts = new StripedCounter();
+        final StripedCounter followers = new StripedCounter();
+    }
+
+    /**
+     * 无竞争时是一个 CAS 更新的 long，出现竞争后膨胀为 {@link LongAdder}
+     */
+    static final class StripedCounter {
+        private static final AtomicLongFieldUpdater<StripedCounter> BASE =
+                AtomicLongFieldUpdater.newUpdater(StripedCounter.class, "base");
+        private static final AtomicReferenceFieldUpdater<StripedCounter, LongAdder> ADDER =
+                AtomicReferenceFieldUpdater.newUpdater(StripedCounter.class, LongAdder.class, "adder");
+
+        private volatile long base;
+        private volatile LongAdder adder;
+        private volatile boolean touched;
+
+        void add(long delta) {
+            LongAdder a = adder;
+            if (a == null) {
+                long b = base;
+                if (BASE.compareAndSet(this, b, b + delta)) {
+                    return;
+                }
+                a = new LongAdder();
+                if (!ADDER.compareAndSet(this, null, a)) {
+                    a = adder;
+                    if (a == null) {
+                        // 刚好被整理折叠，直接累加到 base
+                        BASE.getAndAdd(this, delta);
+                        return;
+                    }
+                }
+            }
+            a.add(delta);
+            if (!touched) {
+                touched = true;
+            }
+            if (adder != a) {
+                // 写入期间 adder 被折叠：由本线程把残留值转入 base，
+                // sumThenReset 基于 getAndSet，每个增量只会被收取一次
+                long rest = a.sumThenReset();
+                if (rest != 0) {
+                    BASE.getAndAdd(this, rest);
+                }
+            }
+        }
+
+        long sum() {
+            long sum = base;
+            LongAdder a = adder;
+            if (a != null) {
+                sum += a.sum();
+            }
+            return sum;
+        }
+
+        boolean isInflated() {
+            return adder != null;
+        }
+
+        /**
+         * 上次调用以来没有写入时折叠回 base
+         */
+        boolean deflateIfCold() {
+            LongAdder a = adder;
+            if (a == null) {
+                return false;
+            }
+            if (touched) {
+                touched = false;
+                return false;
+            }
+            if (!ADDER.compareAndSet(this, a, null)) {
+                return false;
+            }
+            long rest = a.sumThenReset();
+            if (rest != 0) {
+                BASE.getAndAdd(this, rest);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.expression;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按列存放的输入数据，每个变量对应一个 int[] 或 double[] 列，所有列行数相同
+ *
+ * <p>列数组直接引用调用方传入的数组，不做复制。
+ */
+public class ColumnBatch {
+
+    private final Map<String, Object> columns = new HashMap<>();
+    private int rowCount = -1;
+
+    public ColumnBatch put(String name, int[] column) {
+        return putColumn(name, column, column.length);
+    }
+
+    public ColumnBatch put(String name, double[] column) {
+        return putColumn(name, column, column.length);
+    }
+
+    public int rowCount() {
+        return Math.max(rowCount, 0);
+    }
+
+    boolean contains(String name) {
+        return columns.containsKey(name);
+    }
+
+    /**
+     * @return int[] 或 double[]
+     */
+    Object column(String name) {
+        Object column = columns.get(name);
+        if (column == null) {
+            throw new IllegalArgumentException("Unknown variable: " + name);
+        }
+        return column;
+    }
+
+    private ColumnBatch putColumn(String name, Object column, int length) {
+        if (rowCount >= 0 && length != rowCount) {
+            throw new IllegalArgumentException(
+                    "Column " + name + " has " + length + " rows, expected " + rowCount);
+        }
+        columns.put(name, column);
+        rowCount = length;
+        return this;
+    }
+}
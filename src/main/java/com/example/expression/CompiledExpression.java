@@ -0,0 +1,123 @@
+package com.example.expression;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 已解析并完成常量折叠的表达式，不可变，可在线程间共享
+ *
+ * <p>按列求值：变量按名称从 {@link ColumnBatch} 取列，列的类型（int[] / double[]）
+ * 决定运算按 int 还是 double 进行，规则与 {@link com.example.Calculator} 的标量方法一致。
+ * 数据按固定大小的行块计算，中间结果留在缓存中，不会为每个中间节点分配整列数组。
+ */
+public final class CompiledExpression {
+
+    static final int BLOCK_SIZE = 1024;
+
+    private final String source;
+    private final Node root;
+    private final Set<String> variables;
+
+    CompiledExpression(String source, Node root) {
+        this.source = source;
+        this.root = root;
+        Set<String> names = new LinkedHashSet<>();
+        root.collectVariables(names);
+        this.variables = Collections.unmodifiableSet(names);
+    }
+
+    public static CompiledExpression compile(String source) {
+        return new CompiledExpression(source, Parser.parse(source));
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * 表达式中引用的变量，按出现顺序
+     */
+    public Set<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * 折叠后整个表达式是否为常量
+     */
+    public boolean isConstant() {
+        return root instanceof Node.Literal;
+    }
+
+    /**
+     * 对每一行求值
+     *
+     * @throws ArithmeticException      某行除数为 0
+     * @throws IllegalArgumentException 某行对负数开方，或缺少变量对应的列
+     */
+    public double[] evaluate(ColumnBatch batch) {
+        double[] out = new double[batch.rowCount()];
+        evaluate(batch, out);
+        return out;
+    }
+
+    /**
+     * 对每一行求值并写入 out，抛出异常时 out 中可能已有部分结果
+     */
+    public void evaluate(ColumnBatch batch, double[] out) {
+        evaluate(batch, out, batch.rowCount());
+    }
+
+    private void evaluate(ColumnBatch batch, double[] out, int rows) {
+        if (out.length < rows) {
+            throw new IllegalArgumentException("Output array too small: " + out.length + " < " + rows);
+        }
+        if (rows == 0) {
+            return;
+        }
+        Kernel kernel = Kernel.bind(root, batch, Math.min(BLOCK_SIZE, rows));
+        for (int offset = 0; offset < rows; offset += BLOCK_SIZE) {
+            int length = Math.min(BLOCK_SIZE, rows - offset);
+            kernel.compute(offset, length);
+            if (kernel.isInt()) {
+                int[] ints = kernel.ints;
+                for (int i = 0; i < length; i++) {
+                    out[offset + i] = ints[i];
+                }
+            } else {
+                System.arraycopy(kernel.doubles, 0, out, offset, length);
+            }
+        }
+    }
+
+    /**
+     * 单行求值；Integer/Short/Byte 按 int 参与运算，其他数值类型按 double
+     */
+    public double evaluate(Map<String, ? extends Number> values) {
+        ColumnBatch batch = new ColumnBatch();
+        for (String name : variables) {
+            Number value = values.get(name);
+            if (value == null) {
+                throw new IllegalArgumentException("Unknown variable: " + name);
+            }
+            if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                batch.put(name, new int[]{value.intValue()});
+            } else {
+                batch.put(name, new double[]{value.doubleValue()});
+            }
+        }
+        // 没有变量时批次为空，行数显式指定为 1
+        double[] out = new double[1];
+        evaluate(batch, out, 1);
+        return out[0];
+    }
+
+    /**
+     * 折叠后的表达式，括号表示求值顺序
+     */
+    @Override
+    public String toString() {
+        return root.toString();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.expression;
+
+import com.example.cache.CacheStats;
+import com.example.cache.SegmentedLruCache;
+
+/**
+ * 表达式编译器，按源文本缓存编译结果
+ *
+ * <p>同一公式反复编译时直接返回缓存中的 {@link CompiledExpression}，
+ * 语法错误不会被缓存。
+ */
+public class ExpressionCompiler {
+
+    private static final int DEFAULT_CACHE_SIZE = 1024;
+
+    private final SegmentedLruCache<String, CompiledExpression> cache;
+
+    public ExpressionCompiler() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param cacheSize 最多缓存的表达式个数
+     */
+    public ExpressionCompiler(int cacheSize) {
+        this.cache = new SegmentedLruCache<>(cacheSize);
+    }
+
+    /**
+     * @throws ExpressionSyntaxException 公式有语法错误
+     */
+    public CompiledExpression compile(String source) {
+        return cache.get(source, CompiledExpression::compile);
+    }
+
+    public CacheStats cacheStats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.expression;
+
+/**
+ * 表达式语法错误异常
+ */
+public class ExpressionSyntaxException extends RuntimeException {
+
+    private final int position;
+
+    public ExpressionSyntaxException(String message, int position) {
+        super(message + " at position " + position);
+        this.position = position;
+    }
+
+    /**
+     * 出错位置（从 0 开始的字符下标）
+     */
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,337 @@
+package com.example.expression;
+
+import com.example.Calculator;
+
+/**
+ * 按列批量求值的节点
+ *
+ * <p>求值时按输入列的类型把语法树绑定成一棵 Kernel 树，每个 Kernel 持有一块
+ * 长度为 blockSize 的输出缓冲区，一次计算一个行块，循环体内没有虚调用，便于 JIT 向量化。
+ * int 运算复用 {@link Calculator} 的数组运算；除零与负数开方在计算前扫描，
+ * 抛出与 Calculator 标量运算相同的异常和消息。
+ *
+ * <p>Kernel 树持有可变缓冲区，只在一次求值调用内使用，不跨线程共享。
+ */
+abstract class Kernel {
+
+    private static final Calculator CALCULATOR = new Calculator();
+
+    /** int 类型的输出，double 类型时为 null */
+    final int[] ints;
+    /** double 类型的输出，int 类型时为 null */
+    final double[] doubles;
+
+    Kernel(boolean isInt, int blockSize) {
+        this.ints = isInt ? new int[blockSize] : null;
+        this.doubles = isInt ? null : new double[blockSize];
+    }
+
+    final boolean isInt() {
+        return ints != null;
+    }
+
+    /**
+     * 计算第 offset 行开始的 length 行，结果写入缓冲区的 [0, length)
+     */
+    abstract void compute(int offset, int length);
+
+    static Kernel bind(Node node, ColumnBatch batch, int blockSize) {
+        if (node instanceof Node.Literal) {
+            Number value = ((Node.Literal) node).value;
+            return value instanceof Integer
+                    ? new IntConstant(value.intValue(), blockSize)
+                    : new DoubleConstant(value.doubleValue(), blockSize);
+        }
+        if (node instanceof Node.Variable) {
+            String name = ((Node.Variable) node).name;
+            Object column = batch.column(name);
+            return column instanceof int[]
+                    ? new IntColumn((int[]) column, blockSize)
+                    : new DoubleColumn((double[]) column, blockSize);
+        }
+        if (node instanceof Node.Unary) {
+            Node.Unary unary = (Node.Unary) node;
+            Kernel operand = bind(unary.operand, batch, blockSize);
+            switch (unary.op) {
+                case SQRT:
+                    return new Sqrt(toDouble(operand, blockSize), blockSize);
+                case SQUARE:
+                case NEGATE:
+                    return operand.isInt()
+                            ? new IntUnary(unary.op, operand, blockSize)
+                            : new DoubleUnary(unary.op, operand, blockSize);
+                default:
+                    throw new IllegalStateException("Not a unary operator: " + unary.op);
+            }
+        }
+        Node.Binary binary = (Node.Binary) node;
+        Kernel left = bind(binary.left, batch, blockSize);
+        Kernel right = bind(binary.right, batch, blockSize);
+        if (binary.op == Node.Op.DIVIDE) {
+            return new Divide(toDouble(left, blockSize), toDouble(right, blockSize), blockSize);
+        }
+        if (left.isInt() && right.isInt()) {
+            return new IntBinary(binary.op, left, right, blockSize);
+        }
+        return new DoubleBinary(binary.op, toDouble(left, blockSize), toDouble(right, blockSize), blockSize);
+    }
+
+    private static Kernel toDouble(Kernel kernel, int blockSize) {
+        return kernel.isInt() ? new IntToDouble(kernel, blockSize) : kernel;
+    }
+
+    private static final class IntConstant extends Kernel {
+        IntConstant(int value, int blockSize) {
+            super(true, blockSize);
+            java.util.Arrays.fill(ints, value);
+        }
+
+        @Override
+        void compute(int offset, int length) {
+        }
+    }
+
+    private static final class DoubleConstant extends Kernel {
+        DoubleConstant(double value, int blockSize) {
+            super(false, blockSize);
+            java.util.Arrays.fill(doubles, value);
+        }
+
+        @Override
+        void compute(int offset, int length) {
+        }
+    }
+
+    private static final class IntColumn extends Kernel {
+        private final int[] column;
+
+        IntColumn(int[] column, int blockSize) {
+            super(true, blockSize);
+            this.column = column;
+        }
+
+        @Override
+        void compute(int offset, int length) {
+            System.arraycopy(column, offset, ints, 0, length);
+        }
+    }
+
+    private static final class DoubleColumn extends Kernel {
+        private final double[] column;
+
+        DoubleColumn(double[] column, int blockSize) {
+            super(false, blockSize);
+            this.column = column;
+        }
+
+        @Override
+        void compute(int offset, int length) {
+            System.arraycopy(column, offset, doubles, 0, length);
+        }
+    }
+
+    private static final class IntToDouble extends Kernel {
+        private final Kernel operand;
+
+        IntToDouble(Kernel operand, int blockSize) {
+            super(false, blockSize);
+            this.operand = operand;
+        }
+
+        @Override
+        void compute(int offset, int length) {
+            operand.compute(offset, length);
+            int[] in = operand.ints;
+            double[] out = doubles;
+            for (int i = 0; i < length; i++) {
+                out[i] = in[i];
+            }
+        }
+    }
+
+    /**
+     * int 加减乘，整块交给 Calculator 的数组运算（块尾多出的元素是上一块的残留值，计算结果不会被使用）
+     */
+    private static final class IntBinary extends Kernel {
+        private final Node.Op op;
+        private final Kernel left;
+        private final Kernel right;
+
+        IntBinary(Node.Op op, Kernel left, Kernel right, int blockSize) {
+            super(true, blockSize);
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        void compute(int offset, int length) {
+            left.compute(offset, length);
+            right.compute(offset, length);
+            switch (op) {
+                case ADD:
+                    CALCULATOR.add(left.ints, right.ints, ints);
+                    break;
+                case SUBTRACT:
+                    CALCULATOR.subtract(left.ints, right.ints, ints);
+                    break;
+                case MULTIPLY:
+                    CALCULATOR.multiply(left.ints, right.ints, ints);
+                    break;
+                default:
+                    throw new IllegalStateException("Not an int operator: " + op);
+            }
+        }
+    }
+
+    private static final class IntUnary extends Kernel {
+        private final Node.Op op;
+        private final Kernel operand;
+
+        IntUnary(Node.Op op, Kernel operand, int blockSize) {
+            super(true, blockSize);
+            this.op = op;
+            this.operand = operand;
+        }
+
+        @Override
+        void compute(int offset, int length) {
+            operand.compute(offset, length);
+            if (op == Node.Op.SQUARE) {
+                CALCULATOR.square(operand.ints, ints);
+                return;
+            }
+            int[] in = operand.ints;
+            int[] out = ints;
+            for (int i = 0; i < length; i++) {
+                out[i] = -in[i];
+            }
+        }
+    }
+
+    private static final class DoubleBinary extends Kernel {
+        private final Node.Op op;
+        private final Kernel left;
+        private final Kernel right;
+
+        DoubleBinary(Node.Op op, Kernel left, Kernel right, int blockSize) {
+            super(false, blockSize);
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        void compute(int offset, int length) {
+            left.compute(offset, length);
+            right.compute(offset, length);
+            double[] l = left.doubles;
+            double[] r = right.doubles;
+            double[] out = doubles;
+            switch (op) {
+                case ADD:
+                    for (int i = 0; i < length; i++) {
+                        out[i] = l[i] + r[i];
+                    }
+                    break;
+                case SUBTRACT:
+                    for (int i = 0; i < length; i++) {
+                        out[i] = l[i] - r[i];
+                    }
+                    break;
+                case MULTIPLY:
+                    for (int i = 0; i < length; i++) {
+                        out[i] = l[i] * r[i];
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Not a double operator: " + op);
+            }
+        }
+    }
+
+    private static final class DoubleUnary extends Kernel {
+        private final Node.Op op;
+        private final Kernel operand;
+
+        DoubleUnary(Node.Op op, Kernel operand, int blockSize) {
+            super(false, blockSize);
+            this.op = op;
+            this.operand = operand;
+        }
+
+        @Override
+        void compute(int offset, int length) {
+            operand.compute(offset, length);
+            double[] in = operand.doubles;
+            double[] out = doubles;
+            if (op == Node.Op.SQUARE) {
+                for (int i = 0; i < length; i++) {
+                    out[i] = in[i] * in[i];
+                }
+            } else {
+                for (int i = 0; i < length; i++) {
+                    out[i] = -in[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * 与 {@link Calculator#divide(int, int)} 一致：除数为 0 时抛出 ArithmeticException
+     */
+    private static final class Divide extends Kernel {
+        private final Kernel left;
+        private final Kernel right;
+
+        Divide(Kernel left, Kernel right, int blockSize) {
+            super(false, blockSize);
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        void compute(int offset, int length) {
+            left.compute(offset, length);
+            right.compute(offset, length);
+            double[] l = left.doubles;
+            double[] r = right.doubles;
+            for (int i = 0; i < length; i++) {
+                if (r[i] == 0) {
+                    throw new ArithmeticException("Division by zero");
+                }
+            }
+            double[] out = doubles;
+            for (int i = 0; i < length; i++) {
+                out[i] = l[i] / r[i];
+            }
+        }
+    }
+
+    /**
+     * 与 {@link Calculator#sqrt(double)} 一致：负数时抛出 IllegalArgumentException
+     */
+    private static final class Sqrt extends Kernel {
+        private final Kernel operand;
+
+        Sqrt(Kernel operand, int blockSize) {
+            super(false, blockSize);
+            this.operand = operand;
+        }
+
+        @Override
+        void compute(int offset, int length) {
+            operand.compute(offset, length);
+            double[] in = operand.doubles;
+            for (int i = 0; i < length; i++) {
+                if (in[i] < 0) {
+                    throw new IllegalArgumentException("Cannot calculate square root of negative number");
+                }
+            }
+            double[] out = doubles;
+            for (int i = 0; i < length; i++) {
+                out[i] = Math.sqrt(in[i]);
+            }
+        }
+    }
+}
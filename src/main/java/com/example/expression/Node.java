@@ -0,0 +1,169 @@
+package com.example.expression;
+
+import com.example.Calculator;
+
+import java.util.Set;
+
+/**
+ * 表达式语法树节点（不可变）
+ *
+ * <p>字面量区分 int 和 double，运算规则与 {@link Calculator} 一致：
+ * 两个 int 相加减乘、int 求平方仍是 int（溢出时回绕），除法和开方的结果总是 double。
+ * 创建节点时如果所有子节点都是字面量就直接折叠为常量；
+ * 折叠时若会抛出异常（如除以常量 0）则保留原节点，异常推迟到求值时按原语义抛出。
+ */
+abstract class Node {
+
+    private static final Calculator CALCULATOR = new Calculator();
+
+    enum Op {
+        ADD("+"), SUBTRACT("-"), MULTIPLY("*"), DIVIDE("/"), NEGATE("-"), SQUARE("square"), SQRT("sqrt");
+
+        final String symbol;
+
+        Op(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    abstract void collectVariables(Set<String> names);
+
+    static Node literal(Number value) {
+        return new Literal(value);
+    }
+
+    static Node variable(String name) {
+        return new Variable(name);
+    }
+
+    static Node unary(Op op, Node operand) {
+        if (operand instanceof Literal) {
+            Number folded = foldUnary(op, ((Literal) operand).value);
+            if (folded != null) {
+                return new Literal(folded);
+            }
+        }
+        return new Unary(op, operand);
+    }
+
+    static Node binary(Op op, Node left, Node right) {
+        if (left instanceof Literal && right instanceof Literal) {
+            Number folded = foldBinary(op, ((Literal) left).value, ((Literal) right).value);
+            if (folded != null) {
+                return new Literal(folded);
+            }
+        }
+        return new Binary(op, left, right);
+    }
+
+    private static Number foldUnary(Op op, Number value) {
+        boolean isInt = value instanceof Integer;
+        switch (op) {
+            case NEGATE:
+                return isInt ? (Number) CALCULATOR.subtract(0, value.intValue()) : (Number) (-value.doubleValue());
+            case SQUARE:
+                return isInt ? (Number) CALCULATOR.square(value.intValue())
+                        : (Number) (value.doubleValue() * value.doubleValue());
+            case SQRT:
+                return value.doubleValue() < 0 ? null : CALCULATOR.sqrt(value.doubleValue());
+            default:
+                throw new IllegalStateException("Not a unary operator: " + op);
+        }
+    }
+
+    private static Number foldBinary(Op op, Number left, Number right) {
+        boolean isInt = left instanceof Integer && right instanceof Integer;
+        double l = left.doubleValue();
+        double r = right.doubleValue();
+        switch (op) {
+            case ADD:
+                return isInt ? (Number) CALCULATOR.add(left.intValue(), right.intValue()) : (Number) (l + r);
+            case SUBTRACT:
+                return isInt ? (Number) CALCULATOR.subtract(left.intValue(), right.intValue()) : (Number) (l - r);
+            case MULTIPLY:
+                return isInt ? (Number) CALCULATOR.multiply(left.intValue(), right.intValue()) : (Number) (l * r);
+            case DIVIDE:
+                return r == 0 ? null : l / r;
+            default:
+                throw new IllegalStateException("Not a binary operator: " + op);
+        }
+    }
+
+    static final class Literal extends Node {
+        final Number value;
+
+        Literal(Number value) {
+            this.value = value;
+        }
+
+        @Override
+        void collectVariables(Set<String> names) {
+        }
+
+        @Override
+        public String toString() {
+            return value.toString();
+        }
+    }
+
+    static final class Variable extends Node {
+        final String name;
+
+        Variable(String name) {
+            this.name = name;
+        }
+
+        @Override
+        void collectVariables(Set<String> names) {
+            names.add(name);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    static final class Unary extends Node {
+        final Op op;
+        final Node operand;
+
+        Unary(Op op, Node operand) {
+            this.op = op;
+            this.operand = operand;
+        }
+
+        @Override
+        void collectVariables(Set<String> names) {
+            operand.collectVariables(names);
+        }
+
+        @Override
+        public String toString() {
+            return op == Op.NEGATE ? "(-" + operand + ")" : op.symbol + "(" + operand + ")";
+        }
+    }
+
+    static final class Binary extends Node {
+        final Op op;
+        final Node left;
+        final Node right;
+
+        Binary(Op op, Node left, Node right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        void collectVariables(Set<String> names) {
+            left.collectVariables(names);
+            right.collectVariables(names);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + " " + op.symbol + " " + right + ")";
+        }
+    }
+}
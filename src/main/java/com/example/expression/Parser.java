@@ -0,0 +1,188 @@
+package com.example.expression;
+
+/**
+ * 递归下降解析器
+ *
+ * <pre>
+ * expression := term (('+' | '-') term)*
+ * term       := unary (('*' | '/') unary)*
+ * unary      := '-' unary | primary
+ * primary    := number | name | name '(' arguments ')' | '(' expression ')'
+ * </pre>
+ *
+ * 支持的函数：{@code sqrt(x)}、{@code square(x)}，以及与 Calculator 方法同名的
+ * {@code add(x, y)}、{@code subtract(x, y)}、{@code multiply(x, y)}、{@code divide(x, y)}。
+ * 不含小数点和指数的数字是 int 字面量，否则是 double 字面量。
+ */
+final class Parser {
+
+    private final String source;
+    private int pos;
+
+    private Parser(String source) {
+        this.source = source;
+    }
+
+    static Node parse(String source) {
+        Parser parser = new Parser(source);
+        Node node = parser.expression();
+        parser.skipWhitespace();
+        if (parser.pos < source.length()) {
+            throw parser.error("Unexpected '" + source.charAt(parser.pos) + "'");
+        }
+        return node;
+    }
+
+    private Node expression() {
+        Node node = term();
+        while (true) {
+            if (accept('+')) {
+                node = Node.binary(Node.Op.ADD, node, term());
+            } else if (accept('-')) {
+                node = Node.binary(Node.Op.SUBTRACT, node, term());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private Node term() {
+        Node node = unary();
+        while (true) {
+            if (accept('*')) {
+                node = Node.binary(Node.Op.MULTIPLY, node, unary());
+            } else if (accept('/')) {
+                node = Node.binary(Node.Op.DIVIDE, node, unary());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private Node unary() {
+        if (accept('-')) {
+            return Node.unary(Node.Op.NEGATE, unary());
+        }
+        return primary();
+    }
+
+    private Node primary() {
+        skipWhitespace();
+        if (pos >= source.length()) {
+            throw error("Unexpected end of expression");
+        }
+        char c = source.charAt(pos);
+        if (accept('(')) {
+            Node node = expression();
+            expect(')');
+            return node;
+        }
+        if (Character.isDigit(c) || c == '.') {
+            return number();
+        }
+        if (Character.isLetter(c) || c == '_') {
+            int start = pos;
+            String name = name();
+            if (accept('(')) {
+                return call(name, start);
+            }
+            return Node.variable(name);
+        }
+        throw error("Unexpected '" + c + "'");
+    }
+
+    private Node call(String name, int start) {
+        switch (name) {
+            case "sqrt":
+                return Node.unary(Node.Op.SQRT, lastArgument());
+            case "square":
+                return Node.unary(Node.Op.SQUARE, lastArgument());
+            case "add":
+                return Node.binary(Node.Op.ADD, firstArgument(), lastArgument());
+            case "subtract":
+                return Node.binary(Node.Op.SUBTRACT, firstArgument(), lastArgument());
+            case "multiply":
+                return Node.binary(Node.Op.MULTIPLY, firstArgument(), lastArgument());
+            case "divide":
+                return Node.binary(Node.Op.DIVIDE, firstArgument(), lastArgument());
+            default:
+                throw new ExpressionSyntaxException("Unknown function '" + name + "'", start);
+        }
+    }
+
+    private Node firstArgument() {
+        Node node = expression();
+        expect(',');
+        return node;
+    }
+
+    private Node lastArgument() {
+        Node node = expression();
+        expect(')');
+        return node;
+    }
+
+    private Node number() {
+        int start = pos;
+        boolean isDouble = false;
+        while (pos < source.length()) {
+            char c = source.charAt(pos);
+            if (Character.isDigit(c)) {
+                pos++;
+            } else if (c == '.') {
+                isDouble = true;
+                pos++;
+            } else if ((c == 'e' || c == 'E') && pos > start) {
+                isDouble = true;
+                pos++;
+                if (pos < source.length() && (source.charAt(pos) == '+' || source.charAt(pos) == '-')) {
+                    pos++;
+                }
+            } else {
+                break;
+            }
+        }
+        String text = source.substring(start, pos);
+        try {
+            return Node.literal(isDouble ? (Number) Double.parseDouble(text) : (Number) Integer.parseInt(text));
+        } catch (NumberFormatException e) {
+            throw new ExpressionSyntaxException("Invalid number '" + text + "'", start);
+        }
+    }
+
+    private String name() {
+        int start = pos;
+        while (pos < source.length()
+                && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '_')) {
+            pos++;
+        }
+        return source.substring(start, pos);
+    }
+
+    private boolean accept(char expected) {
+        skipWhitespace();
+        if (pos < source.length() && source.charAt(pos) == expected) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char expected) {
+        if (!accept(expected)) {
+            throw error(pos < source.length()
+                    ? "Expected '" + expected + "' but found '" + source.charAt(pos) + "'"
+                    : "Expected '" + expected + "'");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private ExpressionSyntaxException error(String message) {
+        return new ExpressionSyntaxException(message, pos);
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.filter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 计数布隆过滤器（线程安全）
+ *
+ * <p>每个位置是一个 4 位计数器，16 个计数器打包在一个 long 中，用 CAS 更新，
+ * 因此除了 {@link #put} 之外还支持 {@link #remove}。
+ * {@link #mightContain} 返回 false 表示一定不存在；返回 true 表示可能存在。
+ *
+ * <p>计数器达到上限 15 后不再增减（粘滞），代价是该位置以后无法被清除，
+ * 但保证删除操作永远不会造成漏判。只应删除确实 put 过的元素。
+ */
+public class CountingBloomFilter {
+
+    private static final int COUNTERS_PER_WORD = 16;
+    private static final long MAX_COUNT = 15;
+    private static final int MAX_HASH_FUNCTIONS = 16;
+
+    private final AtomicLongArray words;
+    private final long counterCount;
+    private final int hashFunctions;
+    private final LongAdder approximateSize = new LongAdder();
+
+    /**
+     * 按预计元素数和期望误判率确定大小
+     *
+     * @param expectedInsertions 预计元素数
+     * @param falsePositiveRate  期望误判率，取值 (0, 1)
+     */
+    public CountingBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        this(optimalCounters(expectedInsertions, falsePositiveRate), expectedInsertions);
+    }
+
+    private CountingBloomFilter(long counters, long expectedInsertions) {
+        long words = (counters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD;
+        if (words > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Bloom filter too large: " + counters + " counters");
+        }
+        this.words = new AtomicLongArray((int) Math.max(words, 1));
+        this.counterCount = this.words.length() * (long) COUNTERS_PER_WORD;
+        this.hashFunctions = optimalHashFunctions(expectedInsertions, counterCount);
+    }
+
+    /**
+     * 按内存预算确定大小，误判率由预算和元素数共同决定
+     *
+     * @param memoryBudgetBytes  计数器数组占用的字节数上限
+     * @param expectedInsertions 预计元素数
+     */
+    public static CountingBloomFilter withMemoryBudget(long memoryBudgetBytes, long expectedInsertions) {
+        if (memoryBudgetBytes < Long.BYTES) {
+            throw new IllegalArgumentException("Memory budget too small: " + memoryBudgetBytes);
+        }
+        checkExpectedInsertions(expectedInsertions);
+        long counters = memoryBudgetBytes / Long.BYTES * COUNTERS_PER_WORD;
+        return new CountingBloomFilter(counters, expectedInsertions);
+    }
+
+    public void put(String element) {
+        long hash = hash(element);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            increment(index(h1, h2, i));
+        }
+        approximateSize.increment();
+    }
+
+    /**
+     * 删除一个之前 put 过的元素
+     */
+    public void remove(String element) {
+        long hash = hash(element);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            decrement(index(h1, h2, i));
+        }
+        approximateSize.decrement();
+    }
+
+    /**
+     * @return false 表示一定不存在
+     */
+    public boolean mightContain(String element) {
+        long hash = hash(element);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            if (counter(index(h1, h2, i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按当前元素数估算的误判率
+     */
+    public double expectedFalsePositiveRate() {
+        long n = Math.max(approximateSize.sum(), 0);
+        return Math.pow(1 - Math.exp(-(double) hashFunctions * n / counterCount), hashFunctions);
+    }
+
+    /**
+     * put 次数减去 remove 次数
+     */
+    public long approximateElementCount() {
+        return approximateSize.sum();
+    }
+
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    /**
+     * 计数器数组占用的字节数
+     */
+    public long memoryBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    private long index(int h1, int h2, int i) {
+        long combined = h1 + (long) i * h2;
+        return (combined & Long.MAX_VALUE) % counterCount;
+    }
+
+    private long counter(long index) {
+        long word = words.get((int) (index / COUNTERS_PER_WORD));
+        return (word >>> shift(index)) & MAX_COUNT;
+    }
+
+    private void increment(long index) {
+        int w = (int) (index / COUNTERS_PER_WORD);
+        int shift = shift(index);
+        while (true) {
+            long word = words.get(w);
+            long count = (word >>> shift) & MAX_COUNT;
+            if (count == MAX_COUNT || words.compareAndSet(w, word, word + (1L << shift))) {
+                return;
+            }
+        }
+    }
+
+    private void decrement(long index) {
+        int w = (int) (index / COUNTERS_PER_WORD);
+        int shift = shift(index);
+        while (true) {
+            long word = words.get(w);
+            long count = (word >>> shift) & MAX_COUNT;
+            // 已饱和的计数器无法知道真实值，保持不动；为 0 说明调用方删除了不存在的元素
+            if (count == MAX_COUNT || count == 0 || words.compareAndSet(w, word, word - (1L << shift))) {
+                return;
+            }
+        }
+    }
+
+    private static int shift(long index) {
+        return (int) (index % COUNTERS_PER_WORD) * 4;
+    }
+
+    /**
+     * 64 位 FNV-1a 加一次混淆，拆成两个 32 位哈希做双重哈希
+     */
+    private static long hash(String element) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : element.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long optimalCounters(long expectedInsertions, double falsePositiveRate) {
+        checkExpectedInsertions(expectedInsertions);
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False positive rate must be in (0, 1): " + falsePositiveRate);
+        }
+        return (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    }
+
+    private static int optimalHashFunctions(long expectedInsertions, long counters) {
+        long k = Math.round((double) counters / expectedInsertions * Math.log(2));
+        return (int) Math.max(1, Math.min(k, MAX_HASH_FUNCTIONS));
+    }
+
+    private static void checkExpectedInsertions(long expectedInsertions) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Expected insertions must be positive: " + expectedInsertions);
+        }
+    }
+}
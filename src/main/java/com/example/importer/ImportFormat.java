@@ -0,0 +1,28 @@
+package com.example.importer;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * 导入文件格式
+ */
+public enum ImportFormat {
+    /** 逗号分隔，第一行是包含 name、email 列的表头 */
+    CSV,
+    /** 每行一个 JSON 对象，读取其中的 name、email 字段 */
+    NDJSON;
+
+    /**
+     * 按扩展名判断格式：.csv 为 CSV，.ndjson/.jsonl/.json 为 NDJSON
+     */
+    public static ImportFormat of(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Cannot infer import format from file name: " + file);
+    }
+}
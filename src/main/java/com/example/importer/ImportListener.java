@@ -0,0 +1,22 @@
+package com.example.importer;
+
+import java.util.List;
+
+/**
+ * 导入进度回调，每提交完一个分块调用一次，在调用 {@link UserImporter#importFile} 的线程中执行
+ */
+@FunctionalInterface
+public interface ImportListener {
+
+    ImportListener NONE = progress -> { };
+
+    void onProgress(ImportProgress progress);
+
+    /**
+     * 已保存用户中不会再由导入器发送欢迎邮件的地址，调用方可以记录或补发
+     *
+     * <p>欢迎邮件积压已满时，每个放不下的批次调用一次；导入异常结束时再调用一次，交出积压中尚未发出的地址。
+     */
+    default void onWelcomeEmailsUnsent(List<String> emails) {
+    }
+}
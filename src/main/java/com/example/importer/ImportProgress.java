@@ -0,0 +1,91 @@
+package com.example.importer;
+
+import java.time.Duration;
+
+/**
+ * 导入进度，也作为 {@link UserImporter#importFile} 的最终结果
+ *
+ * <p>{@link #getCommittedOffset()} 之前的记录都已保存或写入拒绝文件，
+ * 导入中断后把它作为 resumeOffset 即可从断点继续。
+ */
+public final class ImportProgress {
+
+    private final long committedOffset;
+    private final long totalBytes;
+    private final long importedCount;
+    private final long rejectedCount;
+    private final long welcomeEmailsSent;
+    private final long welcomeEmailsFailed;
+    private final long welcomeEmailsUnsent;
+    private final Duration elapsed;
+
+    ImportProgress(long committedOffset, long totalBytes, long importedCount, long rejectedCount,
+                   long welcomeEmailsSent, long welcomeEmailsFailed, long welcomeEmailsUnsent, Duration elapsed) {
+        this.committedOffset = committedOffset;
+        this.totalBytes = totalBytes;
+        this.importedCount = importedCount;
+        this.rejectedCount = rejectedCount;
+        this.welcomeEmailsSent = welcomeEmailsSent;
+        this.welcomeEmailsFailed = welcomeEmailsFailed;
+        this.welcomeEmailsUnsent = welcomeEmailsUnsent;
+        this.elapsed = elapsed;
+    }
+
+    public long getCommittedOffset() {
+        return committedOffset;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * 本次运行保存的用户数，不含断点之前的记录
+     */
+    public long getImportedCount() {
+        return importedCount;
+    }
+
+    /**
+     * 本次运行拒绝的记录数
+     */
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * 本次运行已发出的欢迎邮件数；导入过程中的进度只包含当时已发出的部分
+     */
+    public long getWelcomeEmailsSent() {
+        return welcomeEmailsSent;
+    }
+
+    /**
+     * 本次运行发送失败的欢迎邮件数，失败的邮件不会重试
+     */
+    public long getWelcomeEmailsFailed() {
+        return welcomeEmailsFailed;
+    }
+
+    /**
+     * 本次运行因积压已满而交给 {@link ImportListener#onWelcomeEmailsUnsent} 的地址数
+     */
+    public long getWelcomeEmailsUnsent() {
+        return welcomeEmailsUnsent;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    public double getFraction() {
+        return totalBytes == 0 ? 1 : (double) committedOffset / totalBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1f%% (%d/%d bytes) imported=%d rejected=%d welcome(sent=%d failed=%d unsent=%d)"
+                        + " elapsed=%ds", getFraction() * 100, committedOffset, totalBytes, importedCount,
+                rejectedCount, welcomeEmailsSent, welcomeEmailsFailed, welcomeEmailsUnsent, elapsed.getSeconds());
+    }
+}
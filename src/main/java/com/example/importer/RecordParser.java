@@ -0,0 +1,268 @@
+package com.example.importer;
+
+import com.example.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 把一行文本解析为 User，无状态，可以被多个解析线程共享
+ *
+ * <p>CSV 支持双引号包围的字段和 "" 转义，不支持跨行的字段；NDJSON 只读取顶层的字符串字段，
+ * 其他字段忽略。id 列/字段一律忽略，由仓库分配新 id。
+ */
+final class RecordParser {
+
+    private final ImportFormat format;
+    private final int nameColumn;
+    private final int emailColumn;
+
+    private RecordParser(ImportFormat format, int nameColumn, int emailColumn) {
+        this.format = format;
+        this.nameColumn = nameColumn;
+        this.emailColumn = emailColumn;
+    }
+
+    static RecordParser ndjson() {
+        return new RecordParser(ImportFormat.NDJSON, -1, -1);
+    }
+
+    /**
+     * @param header CSV 表头行，必须包含 email 列
+     */
+    static RecordParser csv(String header) {
+        List<String> columns = splitCsv(header);
+        int name = -1;
+        int email = -1;
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i).trim().toLowerCase(Locale.ROOT);
+            if (column.equals("name")) {
+                name = i;
+            } else if (column.equals("email")) {
+                email = i;
+            }
+        }
+        if (email < 0) {
+            throw new IllegalArgumentException("CSV header has no email column: " + header);
+        }
+        return new RecordParser(ImportFormat.CSV, name, email);
+    }
+
+    /**
+     * @throws IllegalArgumentException 无法解析
+     */
+    User parse(String line) {
+        String name;
+        String email;
+        if (format == ImportFormat.CSV) {
+            List<String> fields = splitCsv(line);
+            if (emailColumn >= fields.size()) {
+                throw new IllegalArgumentException("Missing email column");
+            }
+            email = fields.get(emailColumn);
+            name = nameColumn >= 0 && nameColumn < fields.size() ? fields.get(nameColumn) : null;
+        } else {
+            String[] values = parseJson(line);
+            name = values[0];
+            email = values[1];
+        }
+        return new User(null, name, email == null ? null : email.trim());
+    }
+
+    static boolean isValidEmail(String email) {
+        if (email == null) {
+            return false;
+        }
+        int at = email.indexOf('@');
+        return at > 0 && at == email.lastIndexOf('@') && at < email.length() - 1;
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        int n = line.length();
+        while (true) {
+            field.setLength(0);
+            if (i < n && line.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= n) {
+                        throw new IllegalArgumentException("Unterminated quoted field");
+                    }
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        if (i < n && line.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                }
+                if (i < n && line.charAt(i) != ',') {
+                    throw new IllegalArgumentException("Unexpected character after quoted field at " + i);
+                }
+            } else {
+                while (i < n && line.charAt(i) != ',') {
+                    field.append(line.charAt(i++));
+                }
+            }
+            fields.add(field.toString());
+            if (i >= n) {
+                return fields;
+            }
+            // 跳过逗号
+            i++;
+        }
+    }
+
+    /**
+     * @return {name, email}
+     */
+    private static String[] parseJson(String line) {
+        JsonCursor cursor = new JsonCursor(line);
+        String[] values = new String[2];
+        cursor.expect('{');
+        if (!cursor.consume('}')) {
+            do {
+                String key = cursor.string();
+                cursor.expect(':');
+                if (cursor.peek() == '"') {
+                    String value = cursor.string();
+                    if (key.equals("name")) {
+                        values[0] = value;
+                    } else if (key.equals("email")) {
+                        values[1] = value;
+                    }
+                } else {
+                    cursor.skipScalar();
+                }
+            } while (cursor.consume(','));
+            cursor.expect('}');
+        }
+        if (!cursor.atEnd()) {
+            throw new IllegalArgumentException("Trailing characters after JSON object");
+        }
+        return values;
+    }
+
+    private static final class JsonCursor {
+        private final String text;
+        private int pos;
+
+        JsonCursor(String text) {
+            this.text = text;
+        }
+
+        char peek() {
+            skipWhitespace();
+            if (pos >= text.length()) {
+                throw new IllegalArgumentException("Unexpected end of JSON");
+            }
+            return text.charAt(pos);
+        }
+
+        boolean consume(char c) {
+            if (peek() == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char c) {
+            if (!consume(c)) {
+                throw new IllegalArgumentException("Expected '" + c + "' at " + pos);
+            }
+        }
+
+        boolean atEnd() {
+            skipWhitespace();
+            return pos >= text.length();
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder builder = new StringBuilder();
+            while (true) {
+                if (pos >= text.length()) {
+                    throw new IllegalArgumentException("Unterminated JSON string");
+                }
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return builder.toString();
+                }
+                if (c != '\\') {
+                    builder.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    throw new IllegalArgumentException("Unterminated JSON escape");
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        builder.append(escaped);
+                        break;
+                    case 'b':
+                        builder.append('\b');
+                        break;
+                    case 'f':
+                        builder.append('\f');
+                        break;
+                    case 'n':
+                        builder.append('\n');
+                        break;
+                    case 'r':
+                        builder.append('\r');
+                        break;
+                    case 't':
+                        builder.append('\t');
+                        break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw new IllegalArgumentException("Truncated unicode escape");
+                        }
+                        builder.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Invalid escape '\\" + escaped + "'");
+                }
+            }
+        }
+
+        /**
+         * 跳过数字、true、false、null；嵌套的对象和数组不支持
+         */
+        void skipScalar() {
+            char c = peek();
+            if (c == '{' || c == '[') {
+                throw new IllegalArgumentException("Nested JSON values are not supported");
+            }
+            int start = pos;
+            while (pos < text.length()) {
+                c = text.charAt(pos);
+                if (c == ',' || c == '}' || Character.isWhitespace(c)) {
+                    break;
+                }
+                pos++;
+            }
+            if (pos == start) {
+                throw new IllegalArgumentException("Expected JSON value at " + pos);
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.importer;
+
+/**
+ * 记录被拒绝的原因，写入拒绝文件的第二列
+ */
+public enum RejectReason {
+    /** 无法解析 */
+    MALFORMED,
+    /** 邮箱为空或格式不正确 */
+    INVALID_EMAIL,
+    /** 邮箱与文件中靠前的记录或仓库中已有用户重复 */
+    DUPLICATE_EMAIL,
+    /** 保存到仓库失败 */
+    SAVE_FAILED
+}
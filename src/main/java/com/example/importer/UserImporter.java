@@ -0,0 +1,451 @@
+package com.example.importer;
+
+import com.example.model.User;
+import com.example.repository.UserRepository;
+import com.example.service.EmailService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 从 CSV 或 NDJSON 文件批量导入用户
+ *
+ * <p>流水线分三段：
+ * <ul>
+ *     <li>调用线程把文件切成按行对齐的分块（默认 4MB），交给解析线程池</li>
+ *     <li>解析线程用 {@link MappedByteBuffer} 映射各自的分块并解析为 User，互不共享状态</li>
+ *     <li>调用线程按文件顺序逐块提交：每 batchSize 条记录先在批内去重，再用一次
+ *     {@link UserRepository#findExistingEmails} 排除已存在的邮箱，最后一次 {@link UserRepository#saveAll}</li>
+ * </ul>
+ * 同时在途的分块不超过解析线程数的两倍，内存占用与文件大小无关。
+ * 由于前面的批次在后面的批次查询之前已经保存，文件内跨批次的重复邮箱同样会被仓库查询排除，
+ * 无需在内存中保留整个文件的邮箱集合。
+ *
+ * <p>被拒绝的记录以 {@code 偏移量\t原因\t原始行} 的格式写入拒绝文件，原因见 {@link RejectReason}。
+ * 每提交完一个分块回调一次 {@link ImportListener}，其中的 committedOffset 可以作为中断后的 resumeOffset；
+ * 从断点继续时拒绝文件以追加方式打开。
+ *
+ * <p>欢迎邮件默认不发送，需要时在构造时指定每秒上限。开启后由 {@link WelcomeEmailThrottle} 限速发送，
+ * 积压超过 {@value #WELCOME_BACKLOG_SECONDS} 秒的配额时，放不下的地址通过
+ * {@link ImportListener#onWelcomeEmailsUnsent} 交给调用方，提交线程不等待，导入速度与邮件速率无关；
+ * 正常结束时等待积压的邮件发完（最多约 {@value #WELCOME_BACKLOG_SECONDS} 秒）。
+ * 导入异常结束时不再等待，尚未发出的地址同样交给调用方，继续导入时不会补发。
+ * 已发出、发送失败和交给调用方的数量见 {@link ImportProgress}。
+ */
+public class UserImporter {
+
+    private static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    /** 欢迎邮件队列容量对应的配额秒数 */
+    private static final int WELCOME_BACKLOG_SECONDS = 10;
+    private static final int MAX_WELCOME_BACKLOG = 1 << 20;
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    private final UserRepository repository;
+    private final EmailService emailService;
+    private final int parallelism;
+    private final int chunkSize;
+    private final int batchSize;
+    private final double welcomeEmailsPerSecond;
+
+    public UserImporter(UserRepository repository, EmailService emailService) {
+        this(repository, emailService, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE,
+                DEFAULT_BATCH_SIZE, 0);
+    }
+
+    /**
+     * @param repository             写入的仓库
+     * @param emailService           发送欢迎邮件，welcomeEmailsPerSecond 为 0 时不使用
+     * @param parallelism            解析线程数
+     * @param chunkSize              每个解析任务处理的字节数，会延伸到行尾
+     * @param batchSize              每次查询已存在邮箱并批量保存的记录数
+     * @param welcomeEmailsPerSecond 欢迎邮件每秒上限，为 0 时不发送欢迎邮件
+     */
+    public UserImporter(UserRepository repository, EmailService emailService, int parallelism, int chunkSize,
+                        int batchSize, double welcomeEmailsPerSecond) {
+        if (parallelism <= 0 || chunkSize <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Parallelism, chunk size and batch size must be positive");
+        }
+        if (welcomeEmailsPerSecond < 0 || Double.isNaN(welcomeEmailsPerSecond)) {
+            throw new IllegalArgumentException("Welcome emails per second must not be negative");
+        }
+        this.repository = repository;
+        this.emailService = emailService;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+        this.welcomeEmailsPerSecond = welcomeEmailsPerSecond;
+    }
+
+    /**
+     * 从头导入，按扩展名判断格式
+     *
+     * @param rejectsFile 拒绝文件，为 null 时只计数不记录
+     */
+    public ImportProgress importFile(Path input, Path rejectsFile) {
+        return importFile(input, ImportFormat.of(input), rejectsFile, 0, ImportListener.NONE);
+    }
+
+    /**
+     * @param resumeOffset 从该字节偏移量继续导入，必须是之前回调中的 committedOffset，0 表示从头开始
+     * @param listener     每提交完一个分块回调一次；欢迎邮件积压已满或异常结束时回调未发出的地址
+     * @return 最终进度，计数只包含本次运行
+     * @throws UncheckedIOException 读取输入或写入拒绝文件失败
+     */
+    public ImportProgress importFile(Path input, ImportFormat format, Path rejectsFile, long resumeOffset,
+                                     ImportListener listener) {
+        if (resumeOffset < 0) {
+            throw new IllegalArgumentException("Resume offset must not be negative: " + resumeOffset);
+        }
+        AtomicInteger threadId = new AtomicInteger();
+        ExecutorService parsers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "user-import-parser-" + threadId.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        WelcomeEmailThrottle throttle = welcomeEmailsPerSecond > 0
+                ? new WelcomeEmailThrottle(emailService, welcomeEmailsPerSecond, welcomeBacklog())
+                : null;
+        boolean completed = false;
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ);
+             Writer rejects = openRejects(rejectsFile, resumeOffset > 0)) {
+            ImportRun run = new ImportRun(channel.size(), rejects, throttle, listener);
+            long offset = resumeOffset;
+            RecordParser parser;
+            if (format == ImportFormat.CSV) {
+                long headerEnd = lineEnd(channel, 0);
+                parser = RecordParser.csv(readHeader(channel, headerEnd));
+                offset = Math.max(offset, headerEnd);
+            } else {
+                parser = RecordParser.ndjson();
+            }
+            checkResumeOffset(channel, resumeOffset);
+
+            Deque<Future<ParsedChunk>> pending = new ArrayDeque<>();
+            while (offset < run.totalBytes || !pending.isEmpty()) {
+                while (offset < run.totalBytes && pending.size() < parallelism * 2) {
+                    long start = offset;
+                    long end = Math.min(run.totalBytes, lineEnd(channel, start + chunkSize - 1));
+                    pending.add(parsers.submit(() -> parseChunk(channel, start, end, parser)));
+                    offset = end;
+                }
+                ParsedChunk chunk = await(pending.poll());
+                run.commit(chunk);
+                listener.onProgress(run.progress());
+            }
+            completed = true;
+            if (throttle != null) {
+                throttle.close();
+            }
+            return run.progress();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to import users from " + input, e);
+        } finally {
+            parsers.shutdownNow();
+            if (throttle != null && !completed) {
+                List<String> unsent = throttle.abort();
+                if (!unsent.isEmpty()) {
+                    listener.onWelcomeEmailsUnsent(unsent);
+                }
+            }
+        }
+    }
+
+    private int welcomeBacklog() {
+        double backlog = welcomeEmailsPerSecond * WELCOME_BACKLOG_SECONDS;
+        return (int) Math.min(MAX_WELCOME_BACKLOG, Math.max(batchSize, Math.ceil(backlog)));
+    }
+
+    private static Writer openRejects(Path rejectsFile, boolean append) throws IOException {
+        if (rejectsFile == null) {
+            return Writer.nullWriter();
+        }
+        return Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static String readHeader(FileChannel channel, long headerEnd) throws IOException {
+        if (headerEnd > SCAN_BUFFER_SIZE * 16) {
+            throw new IllegalArgumentException("CSV header is too long");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) headerEnd);
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+            // 读满为止
+        }
+        String header = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+        // 去掉 BOM 和行尾
+        return header.replace("\uFEFF", "").replace("\r", "").replace("\n", "");
+    }
+
+    private static void checkResumeOffset(FileChannel channel, long resumeOffset) throws IOException {
+        if (resumeOffset == 0) {
+            return;
+        }
+        if (resumeOffset > channel.size()) {
+            throw new IllegalArgumentException("Resume offset beyond end of file: " + resumeOffset);
+        }
+        ByteBuffer previous = ByteBuffer.allocate(1);
+        channel.read(previous, resumeOffset - 1);
+        if (previous.get(0) != '\n') {
+            throw new IllegalArgumentException("Resume offset is not at the start of a line: " + resumeOffset);
+        }
+    }
+
+    /**
+     * 从 position 开始（含）找到的第一个换行符之后的偏移量，没有换行符时为文件大小
+     */
+    private static long lineEnd(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long pos = position;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, pos);
+            if (read <= 0) {
+                return Math.max(position, channel.size());
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+    }
+
+    private static ParsedChunk parseChunk(FileChannel channel, long start, long end, RecordParser parser)
+            throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        int limit = buffer.limit();
+        List<Row> rows = new ArrayList<>();
+        byte[] line = new byte[256];
+        int lineStart = 0;
+        for (int i = 0; i <= limit; i++) {
+            if (i < limit && buffer.get(i) != '\n') {
+                continue;
+            }
+            int length = i - lineStart;
+            if (length > 0 && buffer.get(lineStart + length - 1) == '\r') {
+                length--;
+            }
+            if (length > 0) {
+                if (length > line.length) {
+                    line = new byte[Math.max(length, line.length * 2)];
+                }
+                buffer.position(lineStart);
+                buffer.get(line, 0, length);
+                String text = new String(line, 0, length, StandardCharsets.UTF_8);
+                if (!text.trim().isEmpty()) {
+                    rows.add(Row.parse(start + lineStart, text, parser));
+                }
+            }
+            lineStart = i + 1;
+        }
+        return new ParsedChunk(end, rows);
+    }
+
+    private static ParsedChunk await(Future<ParsedChunk> future) throws IOException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 单次导入的提交状态，只在调用线程中使用
+     */
+    private final class ImportRun {
+        final long totalBytes;
+        final Writer rejects;
+        final WelcomeEmailThrottle throttle;
+        final ImportListener listener;
+        final long startNanos = System.nanoTime();
+        long committedOffset;
+        long importedCount;
+        long rejectedCount;
+        long welcomeEmailsUnsent;
+
+        ImportRun(long totalBytes, Writer rejects, WelcomeEmailThrottle throttle, ImportListener listener) {
+            this.totalBytes = totalBytes;
+            this.rejects = rejects;
+            this.throttle = throttle;
+            this.listener = listener;
+        }
+
+        void commit(ParsedChunk chunk) throws IOException {
+            List<Row> batch = new ArrayList<>(Math.min(batchSize, chunk.rows.size()));
+            for (Row row : chunk.rows) {
+                if (row.reason != null) {
+                    reject(row, row.reason);
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    writeBatch(batch);
+                    batch.clear();
+                }
+            }
+            writeBatch(batch);
+            rejects.flush();
+            committedOffset = chunk.endOffset;
+        }
+
+        ImportProgress progress() {
+            return new ImportProgress(committedOffset, totalBytes, importedCount, rejectedCount,
+                    throttle == null ? 0 : throttle.getSentCount(), throttle == null ? 0 : throttle.getFailedCount(),
+                    welcomeEmailsUnsent, Duration.ofNanos(System.nanoTime() - startNanos));
+        }
+
+        private void writeBatch(List<Row> batch) throws IOException {
+            if (batch.isEmpty()) {
+                return;
+            }
+            Set<String> emails = new HashSet<>();
+            List<Row> candidates = new ArrayList<>(batch.size());
+            for (Row row : batch) {
+                if (emails.add(row.user.getEmail())) {
+                    candidates.add(row);
+                } else {
+                    reject(row, RejectReason.DUPLICATE_EMAIL);
+                }
+            }
+
+            Set<String> existing = repository.findExistingEmails(emails);
+            List<Row> pending = new ArrayList<>(candidates.size());
+            List<User> toSave = new ArrayList<>(candidates.size());
+            for (Row row : candidates) {
+                if (existing.contains(row.user.getEmail())) {
+                    reject(row, RejectReason.DUPLICATE_EMAIL);
+                } else {
+                    pending.add(row);
+                    toSave.add(row.user);
+                }
+            }
+            if (toSave.isEmpty()) {
+                return;
+            }
+
+            List<String> welcomeEmails = new ArrayList<>(toSave.size());
+            List<User> saved = null;
+            try {
+                saved = repository.saveAll(toSave);
+            } catch (RuntimeException e) {
+                // 下面逐个重试，定位失败的记录
+            }
+            for (int i = 0; i < pending.size(); i++) {
+                User savedUser;
+                if (saved != null) {
+                    savedUser = saved.get(i);
+                } else {
+                    try {
+                        savedUser = repository.save(toSave.get(i));
+                    } catch (RuntimeException e) {
+                        reject(pending.get(i), RejectReason.SAVE_FAILED);
+                        continue;
+                    }
+                }
+                importedCount++;
+                welcomeEmails.add(savedUser.getEmail());
+            }
+            if (throttle != null && !welcomeEmails.isEmpty()) {
+                List<String> overflow = throttle.submit(welcomeEmails);
+                if (!overflow.isEmpty()) {
+                    welcomeEmailsUnsent += overflow.size();
+                    listener.onWelcomeEmailsUnsent(overflow);
+                }
+            }
+        }
+
+        private void reject(Row row, RejectReason reason) throws IOException {
+            rejectedCount++;
+            rejects.write(Long.toString(row.offset));
+            rejects.write('\t');
+            rejects.write(reason.name());
+            rejects.write('\t');
+            rejects.write(row.text);
+            rejects.write('\n');
+        }
+    }
+
+    private static final class ParsedChunk {
+        final long endOffset;
+        final List<Row> rows;
+
+        ParsedChunk(long endOffset, List<Row> rows) {
+            this.endOffset = endOffset;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * 一行记录：解析成功时 reason 为 null
+     */
+    private static final class Row {
+        final long offset;
+        final String text;
+        final User user;
+        final RejectReason reason;
+
+        private Row(long offset, String text, User user, RejectReason reason) {
+            this.offset = offset;
+            this.text = text;
+            this.user = user;
+            this.reason = reason;
+        }
+
+        static Row parse(long offset, String text, RecordParser parser) {
+            User user;
+            try {
+                user = parser.parse(text);
+            } catch (IllegalArgumentException e) {
+                return new Row(offset, text, null, RejectReason.MALFORMED);
+            }
+            if (!RecordParser.isValidEmail(user.getEmail())) {
+                return new Row(offset, text, null, RejectReason.INVALID_EMAIL);
+            }
+            return new Row(offset, text, user, null);
+        }
+    }
+}
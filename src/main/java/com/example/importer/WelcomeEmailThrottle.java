@@ -0,0 +1,164 @@
+package com.example.importer;
+
+import com.example.service.EmailService;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 限速发送欢迎邮件：导入线程只负责入队，后台线程按每秒上限批量发送
+ *
+ * <p>每批最多发送一秒的配额，发送后按批大小推迟下一批的时间，长期速率不超过上限。
+ * 队列有界，积压满时 {@link #submit} 不阻塞，放不下的地址原样返回给调用方，导入速度不受邮件速率限制，
+ * 内存占用也不随导入量增长。
+ *
+ * <p>发送失败只计数。正常结束时 {@link #close()} 等待队列发送完毕，最多等待一个队列容量的配额时间；
+ * 异常结束时用 {@link #abort()} 立即停止发送线程，取回尚未发出的地址交给调用方处理。
+ */
+final class WelcomeEmailThrottle implements Closeable {
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final EmailService emailService;
+    private final double emailsPerSecond;
+    private final int maxBatch;
+    private final ArrayBlockingQueue<String> queue;
+    private final Thread sender;
+    private volatile boolean closed;
+    private volatile boolean aborted;
+    private volatile long sentCount;
+    private volatile long failedCount;
+    /** 发送线程退出时取出但未发送的批次，join 之后读取 */
+    private List<String> abandoned = Collections.emptyList();
+
+    /**
+     * @param capacity 队列容量，积压达到该数量后 {@link #submit} 不再接收
+     */
+    WelcomeEmailThrottle(EmailService emailService, double emailsPerSecond, int capacity) {
+        if (!(emailsPerSecond > 0)) {
+            throw new IllegalArgumentException("Emails per second must be positive: " + emailsPerSecond);
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.emailService = emailService;
+        this.emailsPerSecond = emailsPerSecond;
+        this.maxBatch = (int) Math.max(1, Math.min(emailsPerSecond, 1000));
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.sender = new Thread(this::sendLoop, "welcome-email-throttle");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    /**
+     * 按顺序入队，不等待
+     *
+     * @return 队列已满而没有入队的地址，按原顺序；全部入队时为空列表
+     */
+    List<String> submit(List<String> emails) {
+        if (closed) {
+            throw new IllegalStateException("Welcome email throttle is closed");
+        }
+        for (int i = 0; i < emails.size(); i++) {
+            if (!queue.offer(emails.get(i))) {
+                return new ArrayList<>(emails.subList(i, emails.size()));
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    long getSentCount() {
+        return sentCount;
+    }
+
+    long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * 停止接收，等待队列中剩余的邮件发送完毕
+     */
+    @Override
+    public void close() {
+        closed = true;
+        awaitSender();
+    }
+
+    /**
+     * 停止接收并立即结束发送线程，不等待队列发送完毕
+     *
+     * <p>正在进行的一次发送调用会先完成。
+     *
+     * @return 尚未发出的地址，按入队顺序
+     */
+    List<String> abort() {
+        closed = true;
+        aborted = true;
+        sender.interrupt();
+        awaitSender();
+        List<String> unsent = new ArrayList<>(abandoned.size() + queue.size());
+        unsent.addAll(abandoned);
+        queue.drainTo(unsent);
+        return unsent;
+    }
+
+    private void awaitSender() {
+        boolean interrupted = false;
+        while (sender.isAlive()) {
+            try {
+                sender.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sendLoop() {
+        List<String> batch = new ArrayList<>(maxBatch);
+        long nextSendNanos = System.nanoTime();
+        while (!aborted && (!closed || !queue.isEmpty())) {
+            String first;
+            try {
+                first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // 只有 close() / abort() 能结束发送线程
+                continue;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, maxBatch - 1);
+
+            long wait;
+            while (!aborted && (wait = nextSendNanos - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (aborted) {
+                break;
+            }
+            nextSendNanos = Math.max(nextSendNanos, System.nanoTime())
+                    + (long) (batch.size() * TimeUnit.SECONDS.toNanos(1) / emailsPerSecond);
+            try {
+                if (batch.size() == 1) {
+                    emailService.sendWelcomeEmail(batch.get(0));
+                } else {
+                    emailService.sendWelcomeEmails(new ArrayList<>(batch));
+                }
+                sentCount += batch.size();
+            } catch (RuntimeException e) {
+                failedCount += batch.size();
+            }
+            batch.clear();
+        }
+        abandoned = batch;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 耗时直方图快照（单位纳秒），由所有线程的直方图合并而成，不可变
+ */
+public final class HistogramSnapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long min;
+    private final long max;
+
+    HistogramSnapshot(long[] counts, long count, long sum, long min, long max) {
+        this.counts = counts;
+        this.count = count;
+        this.sum = sum;
+        this.min = count == 0 ? 0 : min;
+        this.max = count == 0 ? 0 : max;
+    }
+
+    static HistogramSnapshot empty() {
+        return new HistogramSnapshot(new long[LatencyHistogram.BUCKET_COUNT], 0, 0, 0, 0);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getTotal() {
+        return sum;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * 百分位数，例如 99.9 表示 p999；结果是所在桶的上界，相对误差小于 1/64
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(LatencyHistogram.highestValueAt(i), max);
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.1fus p50=%dus p99=%dus max=%dus", count,
+                getMean() / 1000, TimeUnit.NANOSECONDS.toMicros(getValueAtPercentile(50)),
+                TimeUnit.NANOSECONDS.toMicros(getValueAtPercentile(99)), TimeUnit.NANOSECONDS.toMicros(max));
+    }
+}
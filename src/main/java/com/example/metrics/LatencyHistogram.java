@@ -0,0 +1,83 @@
+package com.example.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 对数-线性直方图（HDR 风格），记录纳秒级耗时
+ *
+ * <p>值按 2 的幂分段，每段再等分为 64 个子桶，相对误差小于 1/64；
+ * 小于 128 的值精确记录，超过 {@link #MAX_TRACKABLE} 的值记在最后一个桶。
+ * 允许多个线程同时写入，写入用原子加，不加锁也不分配对象；调用方按线程分段，
+ * 只有哈希到同一分段的线程才会竞争同一个直方图。其他线程可以随时读取快照，
+ * 读到的结果与正在进行的写入之间可能有微小的不一致。
+ */
+final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+    /** 约 18 分钟 */
+    static final long MAX_TRACKABLE = 1L << 40;
+    static final int BUCKET_COUNT = indexOf(MAX_TRACKABLE) + 1;
+
+    // 末尾四个槽位依次是：总次数、总和、最小值、最大值
+    private static final int COUNT = BUCKET_COUNT;
+    private static final int SUM = BUCKET_COUNT + 1;
+    private static final int MIN = BUCKET_COUNT + 2;
+    private static final int MAX = BUCKET_COUNT + 3;
+
+    private final AtomicLongArray slots = new AtomicLongArray(BUCKET_COUNT + 4);
+
+    LatencyHistogram() {
+        slots.set(MIN, Long.MAX_VALUE);
+    }
+
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        int index = indexOf(Math.min(value, MAX_TRACKABLE));
+        slots.getAndIncrement(index);
+        slots.getAndIncrement(COUNT);
+        slots.getAndAdd(SUM, value);
+        long min = slots.get(MIN);
+        while (value < min && !slots.compareAndSet(MIN, min, value)) {
+            min = slots.get(MIN);
+        }
+        long max = slots.get(MAX);
+        while (value > max && !slots.compareAndSet(MAX, max, value)) {
+            max = slots.get(MAX);
+        }
+    }
+
+    /**
+     * 把本直方图的内容累加到 counts（长度为 BUCKET_COUNT）
+     *
+     * @return {count, sum, min, max}
+     */
+    long[] addTo(long[] counts) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += slots.get(i);
+        }
+        return new long[]{slots.get(COUNT), slots.get(SUM), slots.get(MIN), slots.get(MAX)};
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int bucket = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> bucket);
+        return SUB_BUCKET_COUNT + (bucket - 1) * HALF_SUB_BUCKET_COUNT + (subBucket - HALF_SUB_BUCKET_COUNT);
+    }
+
+    /**
+     * 桶所代表区间的最大值
+     */
+    static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int bucket = (index - SUB_BUCKET_COUNT) / HALF_SUB_BUCKET_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << bucket) - 1;
+    }
+}
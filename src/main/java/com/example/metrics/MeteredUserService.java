@@ -0,0 +1,141 @@
+package com.example.metrics;
+
+import com.example.model.User;
+import com.example.repository.UserRepository;
+import com.example.service.EmailService;
+import com.example.service.UserService;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 为每个操作计时并统计异常的 UserService，由 {@link UserServiceMetrics#instrument} 创建
+ *
+ * <p>每个方法都是显式的 try/catch/finally，没有 lambda，记录过程不分配对象。
+ */
+final class MeteredUserService extends UserService {
+
+    private final UserServiceMetrics metrics;
+
+    MeteredUserService(UserRepository userRepository, EmailService emailService, Executor statsExecutor,
+                       UserServiceMetrics metrics) {
+        super(userRepository, emailService, statsExecutor);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public User register(User user) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.begin(Operation.REGISTER);
+        try {
+            return super.register(user);
+        } catch (RuntimeException e) {
+            recorder.failed(e);
+            throw e;
+        } finally {
+            recorder.end();
+        }
+    }
+
+    @Override
+    public User findUser(Long id) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.begin(Operation.FIND_USER);
+        try {
+            return super.findUser(id);
+        } catch (RuntimeException e) {
+            recorder.failed(e);
+            throw e;
+        } finally {
+            recorder.end();
+        }
+    }
+
+    @Override
+    public User findUser(long id) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.begin(Operation.FIND_USER);
+        try {
+            return super.findUser(id);
+        } catch (RuntimeException e) {
+            recorder.failed(e);
+            throw e;
+        } finally {
+            recorder.end();
+        }
+    }
+
+    @Override
+    public User updateUser(Long id, User updatedUser) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.begin(Operation.UPDATE_USER);
+        try {
+            return super.updateUser(id, updatedUser);
+        } catch (RuntimeException e) {
+            recorder.failed(e);
+            throw e;
+        } finally {
+            recorder.end();
+        }
+    }
+
+    @Override
+    public User updateUser(long id, User updatedUser) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.begin(Operation.UPDATE_USER);
+        try {
+            return super.updateUser(id, updatedUser);
+        } catch (RuntimeException e) {
+            recorder.failed(e);
+            throw e;
+        } finally {
+            recorder.end();
+        }
+    }
+
+    @Override
+    public void deleteUser(Long id) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.begin(Operation.DELETE_USER);
+        try {
+            super.deleteUser(id);
+        } catch (RuntimeException e) {
+            recorder.failed(e);
+            throw e;
+        } finally {
+            recorder.end();
+        }
+    }
+
+    @Override
+    public void deleteUser(long id) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.begin(Operation.DELETE_USER);
+        try {
+            super.deleteUser(id);
+        } catch (RuntimeException e) {
+            recorder.failed(e);
+            throw e;
+        } finally {
+            recorder.end();
+        }
+    }
+
+    @Override
+    public UserStats getUserStats(Long userId) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.begin(Operation.GET_USER_STATS);
+        try {
+            return super.getUserStats(userId);
+        } catch (RuntimeException e) {
+            recorder.failed(e);
+            throw e;
+        } finally {
+            recorder.end();
+        }
+    }
+
+    @Override
+    public UserStats getUserStats(long userId) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.begin(Operation.GET_USER_STATS);
+        try {
+            return super.getUserStats(userId);
+        } catch (RuntimeException e) {
+            recorder.failed(e);
+            throw e;
+        } finally {
+            recorder.end();
+        }
+    }
+}
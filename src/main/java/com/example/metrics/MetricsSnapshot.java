@@ -0,0 +1,68 @@
+package com.example.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 所有操作的指标快照
+ */
+public final class MetricsSnapshot {
+
+    private static final double[] EXPORTED_PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<Operation, OperationSnapshot> operations;
+
+    MetricsSnapshot(Map<Operation, OperationSnapshot> operations) {
+        this.operations = Collections.unmodifiableMap(new EnumMap<>(operations));
+    }
+
+    public OperationSnapshot get(Operation operation) {
+        return operations.get(operation);
+    }
+
+    public Map<Operation, OperationSnapshot> getOperations() {
+        return operations;
+    }
+
+    /**
+     * 导出为扁平的键值对，便于写日志或对接监控系统。
+     * 键形如 {@code register.calls}、{@code register.errors.duplicateEmail}、
+     * {@code register.repository.p99}，耗时单位为纳秒。
+     */
+    public Map<String, Long> toMap() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (OperationSnapshot snapshot : operations.values()) {
+            String prefix = snapshot.getOperation().metricName() + ".";
+            map.put(prefix + "calls", snapshot.getCalls());
+            map.put(prefix + "errors.userNotFound", snapshot.getUserNotFoundCount());
+            map.put(prefix + "errors.duplicateEmail", snapshot.getDuplicateEmailCount());
+            map.put(prefix + "errors.other", snapshot.getOtherErrorCount());
+            export(map, prefix + "total.", snapshot.getTotal());
+            export(map, prefix + "repository.", snapshot.getRepository());
+            export(map, prefix + "email.", snapshot.getEmail());
+        }
+        return map;
+    }
+
+    private static void export(Map<String, Long> map, String prefix, HistogramSnapshot histogram) {
+        map.put(prefix + "sum", histogram.getTotal());
+        map.put(prefix + "max", histogram.getMax());
+        for (double percentile : EXPORTED_PERCENTILES) {
+            String name = percentile == Math.rint(percentile)
+                    ? String.valueOf((long) percentile)
+                    : String.valueOf(percentile).replace(".", "");
+            map.put(prefix + "p" + name, histogram.getValueAtPercentile(percentile));
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (OperationSnapshot snapshot : operations.values()) {
+            builder.append(snapshot).append(System.lineSeparator());
+        }
+        return builder.toString();
+    }
+}
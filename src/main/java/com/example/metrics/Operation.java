@@ -0,0 +1,25 @@
+package com.example.metrics;
+
+/**
+ * 被统计的 UserService 操作
+ */
+public enum Operation {
+    REGISTER("register"),
+    FIND_USER("findUser"),
+    UPDATE_USER("updateUser"),
+    DELETE_USER("deleteUser"),
+    GET_USER_STATS("getUserStats");
+
+    private final String metricName;
+
+    Operation(String metricName) {
+        this.metricName = metricName;
+    }
+
+    /**
+     * 导出指标时使用的名称
+     */
+    public String metricName() {
+        return metricName;
+    }
+}
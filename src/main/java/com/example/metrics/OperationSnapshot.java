@@ -0,0 +1,76 @@
+package com.example.metrics;
+
+/**
+ * 单个操作的指标快照
+ *
+ * <p>{@link #getTotal()} 是整个操作的耗时，{@link #getRepository()} 与 {@link #getEmail()}
+ * 分别是每次操作中花在 UserRepository 与 EmailService 上的时间之和。
+ * 调用次数包含失败的调用。
+ */
+public final class OperationSnapshot {
+
+    private final Operation operation;
+    private final HistogramSnapshot total;
+    private final HistogramSnapshot repository;
+    private final HistogramSnapshot email;
+    private final long userNotFoundCount;
+    private final long duplicateEmailCount;
+    private final long otherErrorCount;
+
+    OperationSnapshot(Operation operation, HistogramSnapshot total, HistogramSnapshot repository,
+                      HistogramSnapshot email, long userNotFoundCount, long duplicateEmailCount,
+                      long otherErrorCount) {
+        this.operation = operation;
+        this.total = total;
+        this.repository = repository;
+        this.email = email;
+        this.userNotFoundCount = userNotFoundCount;
+        this.duplicateEmailCount = duplicateEmailCount;
+        this.otherErrorCount = otherErrorCount;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public long getCalls() {
+        return total.getCount();
+    }
+
+    public HistogramSnapshot getTotal() {
+        return total;
+    }
+
+    public HistogramSnapshot getRepository() {
+        return repository;
+    }
+
+    public HistogramSnapshot getEmail() {
+        return email;
+    }
+
+    public long getUserNotFoundCount() {
+        return userNotFoundCount;
+    }
+
+    public long getDuplicateEmailCount() {
+        return duplicateEmailCount;
+    }
+
+    /**
+     * 其他类型异常的次数
+     */
+    public long getOtherErrorCount() {
+        return otherErrorCount;
+    }
+
+    public long getErrorCount() {
+        return userNotFoundCount + duplicateEmailCount + otherErrorCount;
+    }
+
+    @Override
+    public String toString() {
+        return operation.metricName() + ": calls=" + getCalls() + " errors=" + getErrorCount()
+                + " total[" + total + "] repository[" + repository + "] email[" + email + "]";
+    }
+}
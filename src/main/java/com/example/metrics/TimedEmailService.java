@@ -0,0 +1,80 @@
+package com.example.metrics;
+
+import com.example.service.EmailService;
+
+import java.util.Collection;
+
+/**
+ * 把邮件发送耗时累加到当前线程正在统计的操作上
+ */
+final class TimedEmailService implements EmailService {
+
+    private final EmailService delegate;
+    private final UserServiceMetrics metrics;
+
+    TimedEmailService(EmailService delegate, UserServiceMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void sendWelcomeEmail(String email) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            delegate.sendWelcomeEmail(email);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    @Override
+    public void sendWelcomeEmails(Collection<String> emails) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            delegate.sendWelcomeEmails(emails);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    @Override
+    public void sendUpdateNotification(String email) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            delegate.sendUpdateNotification(email);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    @Override
+    public void sendUpdateNotifications(Collection<String> emails) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            delegate.sendUpdateNotifications(emails);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    @Override
+    public void sendAccountDeletionEmail(String email) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            delegate.sendAccountDeletionEmail(email);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    private static void addElapsed(UserServiceMetrics.ThreadRecorder recorder, long start) {
+        if (recorder != null) {
+            recorder.emailNanos += System.nanoTime() - start;
+        }
+    }
+}
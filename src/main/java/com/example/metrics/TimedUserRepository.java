@@ -0,0 +1,207 @@
+package com.example.metrics;
+
+import com.example.counter.FollowerRank;
+import com.example.model.User;
+import com.example.repository.UserRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 把仓库调用耗时累加到当前线程正在统计的操作上
+ *
+ * <p>原始类型重载同样转调被装饰仓库的原始类型版本，不引入装箱。
+ */
+final class TimedUserRepository implements UserRepository {
+
+    private final UserRepository delegate;
+    private final UserServiceMetrics metrics;
+
+    TimedUserRepository(UserRepository delegate, UserServiceMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public User save(User user) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            return delegate.save(user);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    @Override
+    public List<User> saveAll(Collection<User> users) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            return delegate.saveAll(users);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    @Override
+    public User findById(Long id) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            return delegate.findById(id);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    @Override
+    public User findById(long id) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            return delegate.findById(id);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            return delegate.findPage(afterId, limit);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    @Override
+    public List<User> findByNamePrefix(String prefix, int limit) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            return delegate.findByNamePrefix(prefix, limit);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            return delegate.existsByEmail(email);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    @Override
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            return delegate.findExistingEmails(emails);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    @Override
+    public void delete(Long id) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            delegate.delete(id);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    @Override
+    public void delete(long id) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            delegate.delete(id);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    @Override
+    public int getPostCount(Long userId) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            return delegate.getPostCount(userId);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    @Override
+    public int getPostCount(long userId) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            return delegate.getPostCount(userId);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    @Override
+    public int getFollowerCount(Long userId) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            return delegate.getFollowerCount(userId);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    @Override
+    public int getFollowerCount(long userId) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            return delegate.getFollowerCount(userId);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    @Override
+    public List<FollowerRank> topByFollowers(int k) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            return delegate.topByFollowers(k);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    @Override
+    public long rankOf(long userId) {
+        UserServiceMetrics.ThreadRecorder recorder = metrics.active();
+        long start = System.nanoTime();
+        try {
+            return delegate.rankOf(userId);
+        } finally {
+            addElapsed(recorder, start);
+        }
+    }
+
+    private static void addElapsed(UserServiceMetrics.ThreadRecorder recorder, long start) {
+        if (recorder != null) {
+            recorder.repositoryNanos += System.nanoTime() - start;
+        }
+    }
+}
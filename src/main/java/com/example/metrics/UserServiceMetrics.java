@@ -0,0 +1,206 @@
+package com.example.metrics;
+
+import com.example.exception.DuplicateEmailException;
+import com.example.exception.UserNotFoundException;
+import com.example.repository.UserRepository;
+import com.example.service.EmailService;
+import com.example.service.UserService;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * UserService 的调用次数、耗时与异常统计
+ *
+ * <p>用法：{@code UserService service = metrics.instrument(repository, emailService);}
+ * 返回的服务在每个操作前后计时，并把花在 UserRepository 与 EmailService 上的时间单独累计。
+ * 嵌套调用（如 updateUser 内部的 findUser）只记在最外层的操作上。
+ *
+ * <p>统计数据分成固定数量的分段（处理器数的两倍向上取 2 的幂，最多 64 个），线程按 id 哈希到一个分段，
+ * 用原子加写入该分段的直方图和计数器，不加锁；分段的直方图首次使用时创建，之后记录不再分配对象。
+ * 每个线程只保存一个很小的调用状态（嵌套深度与计时），随线程结束被回收，
+ * 线程池频繁换线程或每个任务一个虚拟线程时内存不会增长。
+ * {@link #snapshot()} 读取并合并所有分段的数据。
+ * 配置了统计线程池时，getUserStats 在线程池中的仓库查询不计入 repository 耗时，只计入总耗时。
+ *
+ * <p>{@link #NOOP} 不做任何统计，{@link #instrument} 直接返回普通的 UserService，没有任何额外开销。
+ */
+public class UserServiceMetrics {
+
+    private static final int OPERATIONS = Operation.values().length;
+    private static final int ERROR_TYPES = 3;
+    private static final int MAX_STRIPES = 64;
+
+    /** 关闭统计（在 OPERATIONS 之后初始化，分段数组依赖它） */
+    public static final UserServiceMetrics NOOP = new UserServiceMetrics(false);
+
+    private final boolean enabled;
+    private final Stripe[] stripes;
+    private final ThreadLocal<ThreadRecorder> current = ThreadLocal.withInitial(this::newRecorder);
+
+    public UserServiceMetrics() {
+        this(true);
+    }
+
+    private UserServiceMetrics(boolean enabled) {
+        this.enabled = enabled;
+        int count = 1;
+        while (count < 2 * Runtime.getRuntime().availableProcessors() && count < MAX_STRIPES) {
+            count <<= 1;
+        }
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public UserService instrument(UserRepository userRepository, EmailService emailService) {
+        return instrument(userRepository, emailService, null);
+    }
+
+    /**
+     * @param statsExecutor 见 {@link UserService#UserService(UserRepository, EmailService, Executor)}
+     */
+    public UserService instrument(UserRepository userRepository, EmailService emailService, Executor statsExecutor) {
+        if (!enabled) {
+            return new UserService(userRepository, emailService, statsExecutor);
+        }
+        return new MeteredUserService(new TimedUserRepository(userRepository, this),
+                new TimedEmailService(emailService, this), statsExecutor, this);
+    }
+
+    /**
+     * 合并所有线程当前的统计数据
+     */
+    public MetricsSnapshot snapshot() {
+        Map<Operation, OperationSnapshot> operations = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            int op = operation.ordinal();
+            long[] errors = new long[ERROR_TYPES];
+            for (Stripe stripe : stripes) {
+                for (int type = 0; type < ERROR_TYPES; type++) {
+                    errors[type] += stripe.errors.get(op * ERROR_TYPES + type);
+                }
+            }
+            operations.put(operation, new OperationSnapshot(operation,
+                    merge(op, ThreadRecorder.TOTAL), merge(op, ThreadRecorder.REPOSITORY),
+                    merge(op, ThreadRecorder.EMAIL), errors[0], errors[1], errors[2]));
+        }
+        return new MetricsSnapshot(operations);
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+
+    private HistogramSnapshot merge(int op, int kind) {
+        long[] counts = new long[LatencyHistogram.BUCKET_COUNT];
+        long count = 0;
+        long sum = 0;
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (Stripe stripe : stripes) {
+            LatencyHistogram histogram = stripe.histograms.get(op * ThreadRecorder.KINDS + kind);
+            if (histogram == null) {
+                continue;
+            }
+            long[] summary = histogram.addTo(counts);
+            count += summary[0];
+            sum += summary[1];
+            min = Math.min(min, summary[2]);
+            max = Math.max(max, summary[3]);
+        }
+        return count == 0 ? HistogramSnapshot.empty() : new HistogramSnapshot(counts, count, sum, min, max);
+    }
+
+    private ThreadRecorder newRecorder() {
+        long h = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return new ThreadRecorder(stripes[(int) (h ^ (h >>> 32)) & (stripes.length - 1)]);
+    }
+
+    // ---------- 供 MeteredUserService 与计时装饰器调用 ----------
+
+    ThreadRecorder begin(Operation operation) {
+        ThreadRecorder recorder = current.get();
+        if (recorder.depth++ == 0) {
+            recorder.operation = operation.ordinal();
+            recorder.repositoryNanos = 0;
+            recorder.emailNanos = 0;
+            recorder.startNanos = System.nanoTime();
+        }
+        return recorder;
+    }
+
+    /**
+     * 当前线程正在进行的操作，没有时返回 null
+     */
+    ThreadRecorder active() {
+        ThreadRecorder recorder = current.get();
+        return recorder.depth > 0 ? recorder : null;
+    }
+
+    /**
+     * 一个分段的统计数据，哈希到该分段的线程共同写入
+     */
+    static final class Stripe {
+        final AtomicReferenceArray<LatencyHistogram> histograms =
+                new AtomicReferenceArray<>(OPERATIONS * ThreadRecorder.KINDS);
+        final AtomicLongArray errors = new AtomicLongArray(OPERATIONS * ERROR_TYPES);
+
+        LatencyHistogram histogram(int index) {
+            LatencyHistogram histogram = histograms.get(index);
+            if (histogram == null) {
+                histograms.compareAndSet(index, null, new LatencyHistogram());
+                histogram = histograms.get(index);
+            }
+            return histogram;
+        }
+    }
+
+    /**
+     * 线程的调用状态：只由所属线程读写，结束时把结果记入线程所在的分段
+     */
+    static final class ThreadRecorder {
+        static final int TOTAL = 0;
+        static final int REPOSITORY = 1;
+        static final int EMAIL = 2;
+        static final int KINDS = 3;
+
+        private final Stripe stripe;
+
+        int depth;
+        int operation;
+        long startNanos;
+        long repositoryNanos;
+        long emailNanos;
+
+        ThreadRecorder(Stripe stripe) {
+            this.stripe = stripe;
+        }
+
+        void failed(RuntimeException e) {
+            if (depth != 1) {
+                return;
+            }
+            int type = e instanceof UserNotFoundException ? 0 : e instanceof DuplicateEmailException ? 1 : 2;
+            stripe.errors.getAndIncrement(operation * ERROR_TYPES + type);
+        }
+
+        void end() {
+            if (--depth != 0) {
+                return;
+            }
+            long total = System.nanoTime() - startNanos;
+            stripe.histogram(operation * KINDS + TOTAL).record(total);
+            stripe.histogram(operation * KINDS + REPOSITORY).record(repositoryNanos);
+            stripe.histogram(operation * KINDS + EMAIL).record(emailNanos);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.example.repository;
+
+import com.example.counter.FollowerRank;
+import com.example.filter.CountingBloomFilter;
+import com.example.model.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * 用计数布隆过滤器加速邮箱查重的用户仓库装饰器
+ *
+ * <p>{@link #existsByEmail} 先查过滤器，过滤器判定"一定不存在"时直接返回 false，
+ * 只有可能命中时才查询被装饰的仓库。新邮箱注册占绝大多数，大部分查重不再访问底层仓库。
+ *
+ * <p>写入顺序保证不会漏判：{@link #save} 先把新邮箱放入过滤器再写底层仓库，
+ * 写入成功后才移除旧邮箱；{@link #delete} 在底层删除成功后才移除邮箱。
+ * 过滤器只会多报不会漏报，删除和改邮箱累积的误判可以通过 {@link #rebuild} 清除。
+ *
+ * <p>更新和删除按用户 id 分段加锁，读取旧邮箱、写入和移除旧邮箱在同一把锁内完成，
+ * 同一用户的并发更新不会把旧邮箱移除两次（重复移除会减掉其他邮箱共用的计数，造成漏判）。
+ * 新用户没有 id，不需要读取旧邮箱，也不加分段锁。
+ */
+public class BloomFilterUserRepository implements UserRepository {
+
+    private static final int STRIPES = 64;
+
+    private final UserRepository delegate;
+    private final Supplier<CountingBloomFilter> filterFactory;
+    private final ReentrantReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private volatile CountingBloomFilter filter;
+
+    private final LongAdder filteredCount = new LongAdder();
+    private final LongAdder passedCount = new LongAdder();
+
+    /**
+     * @param delegate           被装饰的仓库
+     * @param existingEmails     仓库中已有的邮箱，用于初始化过滤器
+     * @param expectedInsertions 预计邮箱数
+     * @param falsePositiveRate  期望误判率
+     */
+    public BloomFilterUserRepository(UserRepository delegate, Iterable<String> existingEmails,
+                                     long expectedInsertions, double falsePositiveRate) {
+        this(delegate, existingEmails, () -> new CountingBloomFilter(expectedInsertions, falsePositiveRate));
+    }
+
+    /**
+     * @param delegate       被装饰的仓库
+     * @param existingEmails 仓库中已有的邮箱，用于初始化过滤器
+     * @param filterFactory  创建空过滤器，{@link #rebuild} 时也会调用，
+     *                       可用 {@link CountingBloomFilter#withMemoryBudget} 限定内存
+     */
+    public BloomFilterUserRepository(UserRepository delegate, Iterable<String> existingEmails,
+                                     Supplier<CountingBloomFilter> filterFactory) {
+        this.delegate = delegate;
+        this.filterFactory = filterFactory;
+        this.filter = build(existingEmails);
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public User save(User user) {
+        return saveAll(Collections.singletonList(user)).get(0);
+    }
+
+    @Override
+    public List<User> saveAll(Collection<User> users) {
+        boolean[] stripes = stripesOf(users);
+        lockAll(stripes);
+        try {
+            List<String> added = new ArrayList<>();
+            List<String> replaced = new ArrayList<>();
+            for (User user : users) {
+                String email = user.getEmail();
+                // 持有该 id 的分段锁，读到的旧邮箱在写入前不会被其他更新改掉
+                User previous = user.getId() == null ? null : delegate.findById(user.getId().longValue());
+                String previousEmail = previous == null ? null : previous.getEmail();
+                if (email != null && !email.equals(previousEmail)) {
+                    added.add(email);
+                }
+                if (previousEmail != null && !previousEmail.equals(email)) {
+                    replaced.add(previousEmail);
+                }
+            }
+
+            ReentrantReadWriteLock.ReadLock lock = rebuildLock.readLock();
+            lock.lock();
+            try {
+                CountingBloomFilter current = filter;
+                for (String email : added) {
+                    current.put(email);
+                }
+                // 写入失败时不撤销：底层可能已部分写入，多出的计数只会增加误判，rebuild 时清除
+                List<User> saved = users.size() == 1
+                        ? Collections.singletonList(delegate.save(users.iterator().next()))
+                        : delegate.saveAll(users);
+                for (String email : replaced) {
+                    current.remove(email);
+                }
+                return saved;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            unlockAll(stripes);
+        }
+    }
+
+    @Override
+    public User findById(Long id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public User findById(long id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public List<User> findByNamePrefix(String prefix, int limit) {
+        return delegate.findByNamePrefix(prefix, limit);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        if (email == null || !filter.mightContain(email)) {
+            filteredCount.increment();
+            return false;
+        }
+        passedCount.increment();
+        return delegate.existsByEmail(email);
+    }
+
+    /**
+     * 只把过滤器判定可能存在的邮箱交给底层仓库查询
+     */
+    @Override
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        CountingBloomFilter current = filter;
+        List<String> candidates = new ArrayList<>();
+        for (String email : emails) {
+            if (email != null && current.mightContain(email)) {
+                candidates.add(email);
+            } else {
+                filteredCount.increment();
+            }
+        }
+        if (candidates.isEmpty()) {
+            return new HashSet<>();
+        }
+        passedCount.add(candidates.size());
+        return delegate.findExistingEmails(candidates);
+    }
+
+    @Override
+    public void delete(Long id) {
+        if (id != null) {
+            delete(id.longValue());
+        }
+    }
+
+    @Override
+    public void delete(long id) {
+        ReentrantLock stripe = lockFor(id);
+        stripe.lock();
+        try {
+            User existing = delegate.findById(id);
+            if (existing == null) {
+                return;
+            }
+            ReentrantReadWriteLock.ReadLock lock = rebuildLock.readLock();
+            lock.lock();
+            try {
+                delegate.delete(id);
+                if (existing.getEmail() != null) {
+                    filter.remove(existing.getEmail());
+                }
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public int getPostCount(Long userId) {
+        return delegate.getPostCount(userId);
+    }
+
+    @Override
+    public int getPostCount(long userId) {
+        return delegate.getPostCount(userId);
+    }
+
+    @Override
+    public int getFollowerCount(Long userId) {
+        return delegate.getFollowerCount(userId);
+    }
+
+    @Override
+    public int getFollowerCount(long userId) {
+        return delegate.getFollowerCount(userId);
+    }
+
+    @Override
+    public List<FollowerRank> topByFollowers(int k) {
+        return delegate.topByFollowers(k);
+    }
+
+    @Override
+    public long rankOf(long userId) {
+        return delegate.rankOf(userId);
+    }
+
+    /**
+     * 用仓库中的全部邮箱重建过滤器，清除已饱和计数器和删除累积的误判
+     *
+     * <p>重建期间写操作会等待，查重仍使用旧过滤器。
+     */
+    public void rebuild(Iterable<String> existingEmails) {
+        ReentrantReadWriteLock.WriteLock lock = rebuildLock.writeLock();
+        lock.lock();
+        try {
+            filter = build(existingEmails);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 被过滤器直接判定为不存在、没有访问底层仓库的查重次数
+     */
+    public long getFilteredCount() {
+        return filteredCount.sum();
+    }
+
+    /**
+     * 过滤器判定可能存在、转给底层仓库的查重次数
+     */
+    public long getPassedCount() {
+        return passedCount.sum();
+    }
+
+    CountingBloomFilter filter() {
+        return filter;
+    }
+
+    public double expectedFalsePositiveRate() {
+        return filter.expectedFalsePositiveRate();
+    }
+
+    /**
+     * 标记一批用户涉及的分段，没有 id 的新用户不占分段
+     */
+    private static boolean[] stripesOf(Collection<User> users) {
+        boolean[] stripes = new boolean[STRIPES];
+        for (User user : users) {
+            if (user.getId() != null) {
+                stripes[stripeOf(user.getId())] = true;
+            }
+        }
+        return stripes;
+    }
+
+    /**
+     * 按分段下标升序加锁，批量写入之间不会死锁
+     */
+    private void lockAll(boolean[] stripes) {
+        for (int i = 0; i < STRIPES; i++) {
+            if (stripes[i]) {
+                locks[i].lock();
+            }
+        }
+    }
+
+    private void unlockAll(boolean[] stripes) {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            if (stripes[i]) {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    private ReentrantLock lockFor(long id) {
+        return locks[stripeOf(id)];
+    }
+
+    private static int stripeOf(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (STRIPES - 1);
+    }
+
+    private CountingBloomFilter build(Iterable<String> emails) {
+        CountingBloomFilter created = filterFactory.get();
+        for (String email : emails) {
+            if (email != null) {
+                created.put(email);
+            }
+        }
+        return created;
+    }
+}
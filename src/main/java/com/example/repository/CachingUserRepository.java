@@ -0,0 +1,164 @@
+package com.example.repository;
+
+import com.example.cache.CacheStats;
+import com.example.cache.SegmentedLruCache;
+import com.example.counter.FollowerRank;
+import com.example.model.User;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 带读穿透缓存的用户仓库装饰器
+ *
+ * <p>{@link #findById} 先查 {@link SegmentedLruCache}，未命中再查被装饰的仓库；
+ * {@link #save}/{@link #delete} 写入底层仓库后使缓存失效，
+ * 写操作返回后任何读取都不会再拿到旧的用户数据。
+ *
+ * <p>缓存中保存的是只读快照，每次返回副本，调用方修改返回对象不会污染缓存。
+ */
+public class CachingUserRepository implements UserRepository {
+
+    private final UserRepository delegate;
+    private final SegmentedLruCache<Long, User> cache;
+
+    public CachingUserRepository(UserRepository delegate, int maximumSize) {
+        this(delegate, maximumSize, null);
+    }
+
+    /**
+     * @param delegate    被装饰的仓库
+     * @param maximumSize 最多缓存的用户数
+     * @param ttl         缓存存活时间，为 null 时不过期
+     */
+    public CachingUserRepository(UserRepository delegate, int maximumSize, Duration ttl) {
+        this.delegate = delegate;
+        this.cache = new SegmentedLruCache<>(maximumSize, ttl);
+    }
+
+    @Override
+    public User save(User user) {
+        try {
+            return delegate.save(user);
+        } finally {
+            // 新用户此前不可能在缓存中，只需处理已有 id 的情况
+            invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public List<User> saveAll(Collection<User> users) {
+        try {
+            return delegate.saveAll(users);
+        } finally {
+            for (User user : users) {
+                invalidate(user.getId());
+            }
+        }
+    }
+
+    @Override
+    public User findById(Long id) {
+        if (id == null) {
+            return null;
+        }
+        User cached = cache.get(id, key -> {
+            User loaded = delegate.findById(key.longValue());
+            return loaded == null ? null : copyOf(loaded);
+        });
+        return cached == null ? null : copyOf(cached);
+    }
+
+    /**
+     * 分页扫描直接读底层仓库，不填充缓存，避免全量扫描把热点数据挤出缓存
+     */
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public List<User> findByNamePrefix(String prefix, int limit) {
+        return delegate.findByNamePrefix(prefix, limit);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return delegate.existsByEmail(email);
+    }
+
+    @Override
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        return delegate.findExistingEmails(emails);
+    }
+
+    @Override
+    public User findById(long id) {
+        return findById(Long.valueOf(id));
+    }
+
+    @Override
+    public void delete(Long id) {
+        if (id != null) {
+            delete(id.longValue());
+        }
+    }
+
+    @Override
+    public void delete(long id) {
+        try {
+            delegate.delete(id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public int getPostCount(Long userId) {
+        return delegate.getPostCount(userId);
+    }
+
+    @Override
+    public int getPostCount(long userId) {
+        return delegate.getPostCount(userId);
+    }
+
+    @Override
+    public int getFollowerCount(Long userId) {
+        return delegate.getFollowerCount(userId);
+    }
+
+    @Override
+    public int getFollowerCount(long userId) {
+        return delegate.getFollowerCount(userId);
+    }
+
+    @Override
+    public List<FollowerRank> topByFollowers(int k) {
+        return delegate.topByFollowers(k);
+    }
+
+    @Override
+    public long rankOf(long userId) {
+        return delegate.rankOf(userId);
+    }
+
+    /**
+     * 缓存命中、未命中与淘汰统计
+     */
+    public CacheStats cacheStats() {
+        return cache.stats();
+    }
+
+    private void invalidate(Long id) {
+        if (id != null) {
+            cache.invalidate(id);
+        }
+    }
+
+    private static User copyOf(User user) {
+        return new User(user.getId(), user.getName(), user.getEmail());
+    }
+}
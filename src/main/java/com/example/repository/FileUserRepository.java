@@ -0,0 +1,766 @@
+package com.example.repository;
+
+import com.example.counter.FollowerRank;
+import com.example.model.User;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * 基于文件的持久化用户仓库
+ *
+ * <p>数据常驻内存（{@link InMemoryUserRepository}），持久化分两部分：
+ * <ul>
+ *     <li>追加日志：每次 {@link #save}/{@link #delete} 写入一条带 CRC 的二进制记录，
+ *     多个并发写入共享一次 {@code fsync}（group commit），方法返回时记录已落盘</li>
+ *     <li>快照：日志超过阈值后在后台切换到新一代日志并写出紧凑快照，
+ *     随后删除旧日志；启动时通过 {@link MappedByteBuffer} 分窗口加载快照，再重放新日志</li>
+ * </ul>
+ *
+ * <p>快照是在写入继续进行时生成的（fuzzy snapshot），由于日志记录都是整条用户状态，
+ * 在快照之上按顺序重放切换点之后的日志即可得到一致的最终状态。
+ * 最后一个日志文件末尾的半条记录（崩溃时未写完）会在启动时被截断。
+ */
+public class FileUserRepository implements UserRepository, Closeable {
+
+    private static final String SNAPSHOT_FILE = "users.snapshot";
+    private static final String SNAPSHOT_TMP_FILE = "users.snapshot.tmp";
+    private static final String LOG_PREFIX = "users-";
+    private static final String LOG_SUFFIX = ".log";
+
+    private static final int SNAPSHOT_MAGIC = 0x55534E50;
+    private static final int FORMAT_VERSION = 1;
+    private static final int SNAPSHOT_HEADER_SIZE = 24;
+    private static final int SNAPSHOT_COUNT_OFFSET = 16;
+
+    private static final byte OP_SAVE = 1;
+    private static final byte OP_DELETE = 2;
+    private static final int LOG_HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    private static final long DEFAULT_CHECKPOINT_THRESHOLD = 64L * 1024 * 1024;
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+    private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+    private static final int STRIPES = 64;
+
+    private static final ThreadLocal<ByteBuffer> ENCODE_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(256));
+
+    private final Path directory;
+    private final long checkpointThreshold;
+    private final InMemoryUserRepository memory = new InMemoryUserRepository();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final ExecutorService checkpointExecutor;
+    private final AtomicBoolean checkpointScheduled = new AtomicBoolean();
+    private final Object checkpointLock = new Object();
+
+    // 日志追加状态，修改时持有 appendLock
+    private final Object appendLock = new Object();
+    private volatile FileChannel logChannel;
+    private long generation;
+    private long generationBytes;
+    private volatile long appendedPosition;
+
+    // 组提交状态，受 syncMonitor 保护；持有 syncInProgress 的线程才允许 force 或切换日志
+    private final Object syncMonitor = new Object();
+    private long durablePosition;
+    private boolean syncInProgress;
+
+    private volatile boolean closed;
+
+    public FileUserRepository(Path directory) {
+        this(directory, DEFAULT_CHECKPOINT_THRESHOLD);
+    }
+
+    /**
+     * @param directory           数据目录，不存在时自动创建
+     * @param checkpointThreshold 当前日志超过该字节数时触发后台快照
+     */
+    public FileUserRepository(Path directory, long checkpointThreshold) {
+        if (checkpointThreshold <= 0) {
+            throw new IllegalArgumentException("Checkpoint threshold must be positive: " + checkpointThreshold);
+        }
+        this.directory = directory;
+        this.checkpointThreshold = checkpointThreshold;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open user repository at " + directory, e);
+        }
+        this.checkpointExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "user-repository-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public User save(User user) {
+        return saveAll(Collections.singletonList(user)).get(0);
+    }
+
+    /**
+     * 批量保存：记录依次写入日志，最后只等待一次落盘
+     *
+     * <p>每条记录先校验邮箱，再写入日志，最后才对读取可见；写日志失败时该记录不会出现在内存中。
+     * 遇到失败的记录时抛出异常，之前的记录已保存并落盘。
+     */
+    @Override
+    public List<User> saveAll(Collection<User> users) {
+        List<User> saved = new ArrayList<>(users.size());
+        long[] position = {-1};
+        try {
+            for (User user : users) {
+                if (user.getId() == null) {
+                    user.setId(memory.nextId());
+                }
+                long id = user.getId();
+                ByteBuffer record = encodeSave(user);
+
+                ReentrantLock lock = lockFor(id);
+                lock.lock();
+                try {
+                    ensureOpen();
+                    saved.add(memory.save(user, () -> position[0] = append(record)));
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } finally {
+            if (position[0] >= 0) {
+                awaitDurable(position[0]);
+            }
+        }
+        return saved;
+    }
+
+    @Override
+    public User findById(Long id) {
+        return memory.findById(id);
+    }
+
+    @Override
+    public User findById(long id) {
+        return memory.findById(id);
+    }
+
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        return memory.findPage(afterId, limit);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return memory.existsByEmail(email);
+    }
+
+    @Override
+    public void delete(Long id) {
+        if (id != null) {
+            delete(id.longValue());
+        }
+    }
+
+    @Override
+    public void delete(long id) {
+        long position;
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            ensureOpen();
+            if (memory.findById(id) == null) {
+                return;
+            }
+            // 先写日志再删除，写日志失败时用户仍然可见
+            position = append(encodeDelete(id));
+            memory.remove(id);
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(position);
+    }
+
+    @Override
+    public int getPostCount(Long userId) {
+        return memory.getPostCount(userId);
+    }
+
+    @Override
+    public int getPostCount(long userId) {
+        return memory.getPostCount(userId);
+    }
+
+    @Override
+    public int getFollowerCount(Long userId) {
+        return memory.getFollowerCount(userId);
+    }
+
+    @Override
+    public int getFollowerCount(long userId) {
+        return memory.getFollowerCount(userId);
+    }
+
+    @Override
+    public List<FollowerRank> topByFollowers(int k) {
+        return memory.topByFollowers(k);
+    }
+
+    @Override
+    public long rankOf(long userId) {
+        return memory.rankOf(userId);
+    }
+
+    /**
+     * 当前用户数量
+     */
+    public int size() {
+        return memory.size();
+    }
+
+    /**
+     * 所有已占用邮箱的只读视图（弱一致性）
+     */
+    public Set<String> emails() {
+        return memory.emails();
+    }
+
+    /**
+     * 立即生成快照并清理已被快照覆盖的日志
+     */
+    public void checkpoint() {
+        synchronized (checkpointLock) {
+            long baseGeneration;
+            synchronized (appendLock) {
+                ensureOpen();
+                try {
+                    rollLog();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to roll user log", e);
+                }
+                baseGeneration = generation;
+            }
+            try {
+                writeSnapshot(baseGeneration);
+                deleteLogsBefore(baseGeneration);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write user snapshot", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        checkpointExecutor.shutdown();
+        try {
+            checkpointExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (appendLock) {
+            closed = true;
+            boolean interrupted = acquireSyncLeadership();
+            long synced = -1;
+            try {
+                logChannel.force(false);
+                synced = appendedPosition;
+                logChannel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to close user log", e);
+            } finally {
+                releaseSyncLeadership(synced, interrupted);
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- 日志写入
+
+    private long append(ByteBuffer records) {
+        synchronized (appendLock) {
+            ensureOpen();
+            int bytes = records.remaining();
+            try {
+                while (records.hasRemaining()) {
+                    logChannel.write(records);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append user log", e);
+            }
+            generationBytes += bytes;
+            appendedPosition += bytes;
+            if (generationBytes >= checkpointThreshold) {
+                scheduleCheckpoint();
+            }
+            return appendedPosition;
+        }
+    }
+
+    /**
+     * 等待直到指定逻辑位置之前的日志落盘
+     *
+     * <p>第一个到达的线程成为 leader 执行 {@code force}，期间到达的其他线程等待，
+     * 一次 {@code force} 覆盖 leader 开始时已经写入的全部记录。
+     */
+    private void awaitDurable(long position) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                synchronized (syncMonitor) {
+                    while (durablePosition < position && syncInProgress) {
+                        try {
+                            syncMonitor.wait();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                    if (durablePosition >= position) {
+                        return;
+                    }
+                    syncInProgress = true;
+                }
+
+                long target = appendedPosition;
+                boolean synced = false;
+                try {
+                    logChannel.force(false);
+                    synced = true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to sync user log", e);
+                } finally {
+                    synchronized (syncMonitor) {
+                        if (synced) {
+                            durablePosition = Math.max(durablePosition, target);
+                        }
+                        syncInProgress = false;
+                        syncMonitor.notifyAll();
+                    }
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 切换到下一代日志，调用方必须持有 appendLock
+     */
+    private void rollLog() throws IOException {
+        boolean interrupted = acquireSyncLeadership();
+        long synced = -1;
+        try {
+            logChannel.force(false);
+            synced = appendedPosition;
+            logChannel.close();
+            generation++;
+            logChannel = openLog(generation);
+            generationBytes = 0;
+        } finally {
+            releaseSyncLeadership(synced, interrupted);
+        }
+    }
+
+    /**
+     * 等待正在进行的 force 结束并占有同步权，返回等待期间是否被中断
+     */
+    private boolean acquireSyncLeadership() {
+        boolean interrupted = false;
+        synchronized (syncMonitor) {
+            while (syncInProgress) {
+                try {
+                    syncMonitor.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            syncInProgress = true;
+        }
+        return interrupted;
+    }
+
+    private void releaseSyncLeadership(long durable, boolean interrupted) {
+        synchronized (syncMonitor) {
+            durablePosition = Math.max(durablePosition, durable);
+            syncInProgress = false;
+            syncMonitor.notifyAll();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void scheduleCheckpoint() {
+        if (!closed && checkpointScheduled.compareAndSet(false, true)) {
+            checkpointExecutor.execute(() -> {
+                try {
+                    if (!closed) {
+                        checkpoint();
+                    }
+                } finally {
+                    checkpointScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    private FileChannel openLog(long gen) throws IOException {
+        return FileChannel.open(logPath(gen),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // ---------------------------------------------------------------- 快照
+
+    private void writeSnapshot(long baseGeneration) throws IOException {
+        Path tmp = directory.resolve(SNAPSHOT_TMP_FILE);
+        try (FileChannel channel = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+            buffer.putInt(SNAPSHOT_MAGIC).putInt(FORMAT_VERSION).putLong(baseGeneration).putLong(0L);
+
+            long[] count = new long[1];
+            try {
+                memory.forEachSnapshot(user -> {
+                    byte[] name = utf8(user.getName());
+                    byte[] email = utf8(user.getEmail());
+                    int size = 8 + stringSize(name) + stringSize(email);
+                    try {
+                        if (buffer.remaining() < size) {
+                            flush(channel, buffer);
+                        }
+                        ByteBuffer target = buffer.remaining() >= size ? buffer : ByteBuffer.allocate(size);
+                        target.putLong(user.getId());
+                        putString(target, name);
+                        putString(target, email);
+                        if (target != buffer) {
+                            target.flip();
+                            writeFully(channel, target);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            flush(channel, buffer);
+
+            ByteBuffer countBuffer = ByteBuffer.allocate(8).putLong(count[0]);
+            countBuffer.flip();
+            channel.write(countBuffer, SNAPSHOT_COUNT_OFFSET);
+            channel.force(true);
+        }
+        Files.move(tmp, directory.resolve(SNAPSHOT_FILE),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void deleteLogsBefore(long baseGeneration) throws IOException {
+        for (long gen : listLogGenerations()) {
+            if (gen < baseGeneration) {
+                Files.deleteIfExists(logPath(gen));
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- 启动恢复
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        Files.deleteIfExists(directory.resolve(SNAPSHOT_TMP_FILE));
+
+        long baseGeneration = 0;
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            baseGeneration = loadSnapshot(snapshot);
+        }
+
+        List<Long> generations = listLogGenerations();
+        long lastGeneration = baseGeneration;
+        for (int i = 0; i < generations.size(); i++) {
+            long gen = generations.get(i);
+            if (gen < baseGeneration) {
+                Files.deleteIfExists(logPath(gen));
+                continue;
+            }
+            replayLog(logPath(gen), i == generations.size() - 1);
+            lastGeneration = gen;
+        }
+
+        generation = lastGeneration;
+        logChannel = openLog(generation);
+        generationBytes = logChannel.size();
+    }
+
+    private long loadSnapshot(Path snapshot) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            if (channel.size() < SNAPSHOT_HEADER_SIZE) {
+                throw new IllegalStateException("Corrupted user snapshot: " + snapshot);
+            }
+            MappedReader reader = new MappedReader(channel, 0);
+            ByteBuffer header = reader.require(SNAPSHOT_HEADER_SIZE);
+            if (header.getInt() != SNAPSHOT_MAGIC || header.getInt() != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported user snapshot format: " + snapshot);
+            }
+            long baseGeneration = header.getLong();
+            long count = header.getLong();
+
+            for (long i = 0; i < count; i++) {
+                long id = reader.require(8).getLong();
+                String name = readString(reader);
+                String email = readString(reader);
+                memory.restore(new User(id, name, email));
+            }
+            return baseGeneration;
+        }
+    }
+
+    private void replayLog(Path log, boolean last) throws IOException {
+        long validEnd;
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+            if (channel.size() == 0) {
+                return;
+            }
+            MappedReader reader = new MappedReader(channel, 0);
+            CRC32 crc = new CRC32();
+            validEnd = 0;
+            while (reader.remaining() >= LOG_HEADER_SIZE) {
+                ByteBuffer buffer = reader.require(LOG_HEADER_SIZE);
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > MAX_RECORD_SIZE || reader.remaining() < length) {
+                    break;
+                }
+                buffer = reader.require(length);
+                ByteBuffer payload = buffer.duplicate();
+                payload.limit(payload.position() + length);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                applyRecord(buffer);
+                validEnd = reader.position();
+            }
+            if (validEnd == channel.size()) {
+                return;
+            }
+        }
+        if (!last) {
+            throw new IllegalStateException("Corrupted user log: " + log);
+        }
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(validEnd);
+            channel.force(true);
+        }
+    }
+
+    private void applyRecord(ByteBuffer buffer) {
+        byte op = buffer.get();
+        long id = buffer.getLong();
+        if (op == OP_SAVE) {
+            String name = readString(buffer);
+            String email = readString(buffer);
+            memory.restore(new User(id, name, email));
+        } else if (op == OP_DELETE) {
+            memory.remove(id);
+        } else {
+            throw new IllegalStateException("Unknown user log operation: " + op);
+        }
+    }
+
+    private List<Long> listLogGenerations() throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, LOG_PREFIX + "*" + LOG_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                String number = name.substring(LOG_PREFIX.length(), name.length() - LOG_SUFFIX.length());
+                try {
+                    generations.add(Long.parseLong(number));
+                } catch (NumberFormatException e) {
+                    // 忽略无关文件
+                }
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    private Path logPath(long gen) {
+        return directory.resolve(String.format("%s%016d%s", LOG_PREFIX, gen, LOG_SUFFIX));
+    }
+
+    // ---------------------------------------------------------------- 编解码
+
+    private static ByteBuffer encodeSave(User user) {
+        byte[] name = utf8(user.getName());
+        byte[] email = utf8(user.getEmail());
+        int payload = 1 + 8 + stringSize(name) + stringSize(email);
+        ByteBuffer buffer = encodeBuffer(LOG_HEADER_SIZE + payload);
+        buffer.putInt(payload).putInt(0);
+        buffer.put(OP_SAVE).putLong(user.getId());
+        putString(buffer, name);
+        putString(buffer, email);
+        return sealRecord(buffer);
+    }
+
+    private static ByteBuffer encodeDelete(long id) {
+        int payload = 1 + 8;
+        ByteBuffer buffer = encodeBuffer(LOG_HEADER_SIZE + payload);
+        buffer.putInt(payload).putInt(0);
+        buffer.put(OP_DELETE).putLong(id);
+        return sealRecord(buffer);
+    }
+
+    private static ByteBuffer encodeBuffer(int size) {
+        if (size > MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("User record too large: " + size + " bytes");
+        }
+        ByteBuffer buffer = ENCODE_BUFFER.get();
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(Math.max(size, buffer.capacity() * 2));
+            ENCODE_BUFFER.set(buffer);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    private static ByteBuffer sealRecord(ByteBuffer buffer) {
+        buffer.flip();
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), buffer.arrayOffset() + LOG_HEADER_SIZE, buffer.limit() - LOG_HEADER_SIZE);
+        buffer.putInt(4, (int) crc.getValue());
+        return buffer;
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringSize(byte[] bytes) {
+        return 4 + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String readString(MappedReader reader) throws IOException {
+        int length = reader.require(4).getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > MAX_RECORD_SIZE) {
+            throw new IllegalStateException("Corrupted user snapshot: string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        reader.require(length).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        writeFully(channel, buffer);
+        buffer.clear();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private ReentrantLock lockFor(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return locks[(int) (h ^ (h >>> 32)) & (STRIPES - 1)];
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("User repository is closed");
+        }
+    }
+
+    /**
+     * 以固定大小窗口顺序映射文件，避免一次性映射超过 2GB 的文件
+     */
+    private static final class MappedReader {
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        MappedReader(FileChannel channel, long start) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            map(start);
+        }
+
+        long position() {
+            return windowStart + window.position();
+        }
+
+        long remaining() {
+            return size - position();
+        }
+
+        /**
+         * 保证当前窗口至少还有 n 个字节可读
+         */
+        ByteBuffer require(int n) throws IOException {
+            if (window.remaining() < n) {
+                if (remaining() < n) {
+                    throw new IllegalStateException("Unexpected end of file");
+                }
+                map(position());
+            }
+            return window;
+        }
+
+        private void map(long start) throws IOException {
+            long length = Math.min(MAP_WINDOW, size - start);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            windowStart = start;
+        }
+    }
+}
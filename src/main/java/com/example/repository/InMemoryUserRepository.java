@@ -0,0 +1,382 @@
+package com.example.repository;
+
+import com.example.counter.FollowerRank;
+import com.example.counter.UserCounterStore;
+import com.example.exception.DuplicateEmailException;
+import com.example.model.User;
+
+import com.example.collection.ConcurrentLongObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * 基于内存的线程安全用户仓库实现
+ *
+ * <p>id → User 使用以原始 long 为键的 {@link ConcurrentLongObjectHashMap} 存储，
+ * 没有 {@code Long} 装箱和链表节点的开销；读操作（{@link #findById}、
+ * {@link #existsByEmail}）走乐观读，无写入竞争时不加锁；写操作按 id 分段加锁（lock striping），
+ * 只用于保证主存储与 email → id 二级索引的一致性，不同 id 的写入互不阻塞。
+ *
+ * <p>仓库保存的是用户快照：{@link #save} 存入副本，{@link #findById} 返回副本，
+ * 调用方修改返回对象不会绕过 {@link #save} 直接改动仓库状态。
+ *
+ * <p>另外维护一个有序的 id 索引（{@link SortedIdIndex}，原始 long 分块存放），{@link #findPage}
+ * 直接定位到 afterId 之后的位置，每页的代价为 O(log N + limit)，与用户数量和 id 的疏密无关。
+ * 索引只在新增和删除用户时修改，由单独的 {@link StampedLock} 保护；分页每次在乐观读下取出最多
+ * {@value #PAGE_WINDOW} 个 id 再逐个读取。
+ *
+ * <p>发帖数与粉丝数来自 {@link UserCounterStore}，删除用户时一并清除。
+ */
+public class InMemoryUserRepository implements UserRepository {
+
+    private static final int DEFAULT_STRIPES = 64;
+    private static final int PAGE_WINDOW = 1024;
+
+    private final ConcurrentLongObjectHashMap<User> users = new ConcurrentLongObjectHashMap<>();
+    private final SortedIdIndex sortedIds = new SortedIdIndex();
+    private final StampedLock sortedIdsLock = new StampedLock();
+    private final ConcurrentHashMap<String, Long> emailIndex = new ConcurrentHashMap<>();
+    private final AtomicLong idSequence = new AtomicLong();
+    private final ReentrantLock[] locks;
+    private final int lockMask;
+    private final UserCounterStore counters;
+
+    public InMemoryUserRepository() {
+        this(DEFAULT_STRIPES, new UserCounterStore());
+    }
+
+    public InMemoryUserRepository(UserCounterStore counters) {
+        this(DEFAULT_STRIPES, counters);
+    }
+
+    public InMemoryUserRepository(int stripes) {
+        this(stripes, new UserCounterStore());
+    }
+
+    /**
+     * @param stripes  写锁分段数，会向上取整为 2 的幂
+     * @param counters 发帖数与粉丝数的来源
+     */
+    public InMemoryUserRepository(int stripes, UserCounterStore counters) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Stripes must be positive: " + stripes);
+        }
+        int size = Integer.highestOneBit(stripes - 1) << 1;
+        if (size <= 0) {
+            size = 1;
+        }
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.lockMask = size - 1;
+        this.counters = counters;
+    }
+
+    /**
+     * 保存用户；id 为空时分配新 id 并回写到传入对象
+     *
+     * @throws DuplicateEmailException 邮箱已被其他用户占用
+     */
+    @Override
+    public User save(User user) {
+        return save(user, null);
+    }
+
+    /**
+     * 保存用户，beforeApply 在邮箱校验通过之后、写入主存储之前执行（持有该 id 的分段锁）
+     *
+     * <p>beforeApply 抛出异常时释放本次占用的邮箱并放弃写入，仓库状态不变。
+     */
+    User save(User user, Runnable beforeApply) {
+        Long id = user.getId();
+        if (id == null) {
+            id = idSequence.incrementAndGet();
+            user.setId(id);
+        } else {
+            advanceSequence(id);
+        }
+
+        User snapshot = copyOf(user);
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            User previous = users.get(id);
+            String email = snapshot.getEmail();
+            String previousEmail = previous == null ? null : previous.getEmail();
+
+            boolean reserved = false;
+            if (email != null && !email.equals(previousEmail)) {
+                Long owner = emailIndex.putIfAbsent(email, id);
+                if (owner != null && !owner.equals(id)) {
+                    throw new DuplicateEmailException("Email already exists: " + email);
+                }
+                reserved = owner == null;
+            }
+            if (beforeApply != null) {
+                try {
+                    beforeApply.run();
+                } catch (RuntimeException | Error e) {
+                    if (reserved) {
+                        emailIndex.remove(email, id);
+                    }
+                    throw e;
+                }
+            }
+
+            users.put(id, snapshot);
+            if (previous == null) {
+                addSortedId(id);
+            }
+
+            if (previousEmail != null && !previousEmail.equals(email)) {
+                emailIndex.remove(previousEmail, id);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return copyOf(snapshot);
+    }
+
+    @Override
+    public User findById(Long id) {
+        return id == null ? null : findById(id.longValue());
+    }
+
+    @Override
+    public User findById(long id) {
+        User user = users.get(id);
+        return user == null ? null : copyOf(user);
+    }
+
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        List<User> page = new ArrayList<>(Math.min(limit, 1024));
+        long[] window = new long[Math.min(limit, PAGE_WINDOW)];
+        long cursor = afterId;
+        while (page.size() < limit) {
+            int wanted = Math.min(limit - page.size(), window.length);
+            int count = idsAfter(cursor, window, wanted);
+            for (int i = 0; i < count; i++) {
+                // 索引与主存储之间弱一致，取出 id 之后被并发删除的用户直接跳过
+                User user = users.get(window[i]);
+                if (user != null) {
+                    page.add(copyOf(user));
+                }
+            }
+            if (count < wanted) {
+                break;
+            }
+            cursor = window[count - 1];
+        }
+        return page;
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return email != null && emailIndex.containsKey(email);
+    }
+
+    @Override
+    public void delete(Long id) {
+        if (id != null) {
+            remove(id);
+        }
+    }
+
+    @Override
+    public void delete(long id) {
+        remove(id);
+    }
+
+    @Override
+    public int getPostCount(Long userId) {
+        return userId == null ? 0 : getPostCount(userId.longValue());
+    }
+
+    @Override
+    public int getPostCount(long userId) {
+        return saturatedInt(counters.getPostCount(userId));
+    }
+
+    @Override
+    public int getFollowerCount(Long userId) {
+        return userId == null ? 0 : getFollowerCount(userId.longValue());
+    }
+
+    @Override
+    public int getFollowerCount(long userId) {
+        return saturatedInt(counters.getFollowerCount(userId));
+    }
+
+    @Override
+    public List<FollowerRank> topByFollowers(int k) {
+        return counters.followerLeaderboard().top(k);
+    }
+
+    @Override
+    public long rankOf(long userId) {
+        return counters.followerLeaderboard().rankOf(userId);
+    }
+
+    /**
+     * 发帖数与粉丝数计数器
+     */
+    public UserCounterStore counters() {
+        return counters;
+    }
+
+    /**
+     * 当前用户数量
+     */
+    public int size() {
+        return users.size();
+    }
+
+    /**
+     * 所有已占用邮箱的只读视图（弱一致性），用于启动时重建邮箱过滤器等场景
+     */
+    public Set<String> emails() {
+        return Collections.unmodifiableSet(emailIndex.keySet());
+    }
+
+    /**
+     * 删除用户，返回是否确实删除了记录
+     */
+    boolean remove(long id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            User removed = users.remove(id);
+            if (removed != null && removed.getEmail() != null) {
+                emailIndex.remove(removed.getEmail(), id);
+            }
+            if (removed != null) {
+                removeSortedId(id);
+                counters.remove(id);
+            }
+            return removed != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 预先分配一个新 id
+     */
+    long nextId() {
+        return idSequence.incrementAndGet();
+    }
+
+    /**
+     * 恢复数据时使用：无条件写入用户，邮箱冲突时以本次写入为准
+     *
+     * <p>按日志顺序重放时，中间状态可能短暂出现两个用户共享同一邮箱，
+     * 重放结束后索引会收敛到最终状态。
+     */
+    void restore(User user) {
+        long id = user.getId();
+        advanceSequence(id);
+        User snapshot = copyOf(user);
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            User previous = users.put(id, snapshot);
+            if (previous == null) {
+                addSortedId(id);
+            }
+            if (snapshot.getEmail() != null) {
+                emailIndex.put(snapshot.getEmail(), id);
+            }
+            if (previous != null && previous.getEmail() != null
+                    && !previous.getEmail().equals(snapshot.getEmail())) {
+                emailIndex.remove(previous.getEmail(), id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 遍历仓库内部保存的快照（弱一致性），调用方不得修改传入的对象
+     */
+    void forEachSnapshot(Consumer<User> action) {
+        users.forEach((id, user) -> action.accept(user));
+    }
+
+    private void addSortedId(long id) {
+        long stamp = sortedIdsLock.writeLock();
+        try {
+            sortedIds.add(id);
+        } finally {
+            sortedIdsLock.unlockWrite(stamp);
+        }
+    }
+
+    private void removeSortedId(long id) {
+        long stamp = sortedIdsLock.writeLock();
+        try {
+            sortedIds.remove(id);
+        } finally {
+            sortedIdsLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 把大于 afterId 的最多 wanted 个 id 按升序写入 target，先乐观读，与写入交错时改为读锁
+     */
+    private int idsAfter(long afterId, long[] target, int wanted) {
+        long stamp = sortedIdsLock.tryOptimisticRead();
+        if (stamp != 0) {
+            int count;
+            try {
+                count = sortedIds.copyAfter(afterId, target, wanted);
+            } catch (RuntimeException e) {
+                // 与写入交错时可能读到不一致的块，交给 validate 判定
+                count = -1;
+            }
+            if (sortedIdsLock.validate(stamp) && count >= 0) {
+                return count;
+            }
+        }
+        stamp = sortedIdsLock.readLock();
+        try {
+            return sortedIds.copyAfter(afterId, target, wanted);
+        } finally {
+            sortedIdsLock.unlockRead(stamp);
+        }
+    }
+
+    private ReentrantLock lockFor(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return locks[(int) (h ^ (h >>> 32)) & lockMask];
+    }
+
+    private void advanceSequence(long id) {
+        long current;
+        while ((current = idSequence.get()) < id) {
+            if (idSequence.compareAndSet(current, id)) {
+                return;
+            }
+        }
+    }
+
+    private static int saturatedInt(long value) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+    }
+
+    private static User copyOf(User user) {
+        return new User(user.getId(), user.getName(), user.getEmail());
+    }
+}
@@ -0,0 +1,520 @@
+package com.example.repository;
+
+import com.example.counter.FollowerRank;
+import com.example.counter.UserCounterStore;
+import com.example.exception.DuplicateEmailException;
+import com.example.model.User;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 列式堆外用户仓库，面向千万级以上的用户量
+ *
+ * <p>每个用户占一个槽位，槽位数据按列存放在 {@link ByteBuffer#allocateDirect} 中：
+ * {@code ids} 列保存 id（0 表示空槽位），{@code refs} 列保存字符串记录在 {@link Utf8Arena} 中的引用。
+ * 字符串记录的格式为 {@code [名字长度 u16][邮箱长度 u16][名字 UTF-8][邮箱 UTF-8]}，长度 0xFFFF 表示 null。
+ * id → 槽位、邮箱 → 槽位两个索引是只含 int 的开放寻址表（{@link SlotHashTable}），
+ * 堆上没有每个用户一个的对象，GC 不需要扫描用户数据；User 对象只在 {@link #findById} 时临时创建。
+ * 删除用户后槽位和字符串空间都会被之后的写入复用。
+ *
+ * <p>读操作走 {@link StampedLock} 乐观读，无并发写入时不加锁。写操作在锁外完成 UTF-8 编码、
+ * 字符串区的空间分配和内存复制（{@link Utf8Arena} 自身线程安全），写锁内只查改槽位表和两个索引、
+ * 替换记录引用并释放旧记录，持有写锁的时间与记录长度无关。id 必须为正数，单个名字或邮箱的 UTF-8 编码不超过 65534 字节，
+ * 槽位数受单个列缓冲区 2GB 的限制，上限约 2.6 亿。
+ *
+ * <p>{@link #findPage} 在堆上的有序 id 索引（{@link SortedIdIndex}，每个 id 约 8 字节）中定位，
+ * 每次在乐观读下取出最多 {@value #PAGE_WINDOW} 个 id 再逐个读取，锁内的工作量与用户总数无关。
+ * 发帖数与粉丝数来自 {@link UserCounterStore}，删除用户时一并清除。
+ */
+public class OffHeapUserRepository implements UserRepository {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+    private static final int DEFAULT_ARENA_CHUNK_SIZE = 16 * 1024 * 1024;
+    private static final int MAX_SLOTS = Integer.MAX_VALUE / Long.BYTES;
+    private static final int PAGE_WINDOW = 1024;
+    private static final int HEADER_SIZE = 4;
+    private static final int NULL_LENGTH = 0xFFFF;
+    private static final int MAX_FIELD_LENGTH = NULL_LENGTH - 1;
+
+    private final StampedLock lock = new StampedLock();
+    private final AtomicLong idSequence = new AtomicLong();
+    private final UserCounterStore counters;
+    private final Utf8Arena arena;
+    private final SlotHashTable idIndex;
+    private final SlotHashTable emailIndex;
+    private final SortedIdIndex sortedIds = new SortedIdIndex();
+
+    // 以下字段只在写锁内修改
+    private ByteBuffer ids;
+    private ByteBuffer refs;
+    private int slotCapacity;
+    private int usedSlots;
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+    private int size;
+
+    public OffHeapUserRepository() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_ARENA_CHUNK_SIZE, new UserCounterStore());
+    }
+
+    /**
+     * @param initialCapacity 初始槽位数
+     * @param arenaChunkSize  字符串区每次向操作系统申请的字节数
+     * @param counters        发帖数与粉丝数的来源
+     */
+    public OffHeapUserRepository(int initialCapacity, int arenaChunkSize, UserCounterStore counters) {
+        if (initialCapacity <= 0 || initialCapacity > MAX_SLOTS) {
+            throw new IllegalArgumentException("Initial capacity out of range: " + initialCapacity);
+        }
+        this.counters = counters;
+        this.arena = new Utf8Arena(arenaChunkSize);
+        this.idIndex = new SlotHashTable(initialCapacity);
+        this.emailIndex = new SlotHashTable(initialCapacity);
+        this.slotCapacity = initialCapacity;
+        this.ids = ByteBuffer.allocateDirect(initialCapacity * Long.BYTES);
+        this.refs = ByteBuffer.allocateDirect(initialCapacity * Long.BYTES);
+    }
+
+    /**
+     * 保存用户；id 为空时分配新 id 并回写到传入对象
+     *
+     * @throws DuplicateEmailException 邮箱已被其他用户占用
+     */
+    @Override
+    public User save(User user) {
+        Long boxedId = user.getId();
+        long id;
+        if (boxedId == null) {
+            id = idSequence.incrementAndGet();
+            user.setId(id);
+        } else {
+            id = boxedId;
+            if (id <= 0) {
+                throw new IllegalArgumentException("User id must be positive: " + id);
+            }
+            advanceSequence(id);
+        }
+        byte[] name = encode(user.getName());
+        byte[] email = encode(user.getEmail());
+        byte[] record = record(name, email);
+        int idHash = hashId(id);
+        int emailHash = email == null ? 0 : SlotHashTable.spread(Utf8Arena.hash(email, 0, email.length));
+
+        // 新记录在发布之前对其他线程不可见，可以在锁外写入
+        long ref = arena.allocate(record, record.length);
+        boolean published = false;
+        long stamp = lock.writeLock();
+        try {
+            int slot = slotOf(id, idHash);
+            if (email != null) {
+                int owner = slotOfEmail(email, emailHash);
+                if (owner >= 0 && owner != slot) {
+                    throw new DuplicateEmailException("Email already exists: " + user.getEmail());
+                }
+            }
+            if (slot >= 0) {
+                long previous = refs.getLong(slot * Long.BYTES);
+                removeEmailEntry(slot, previous);
+                arena.free(previous);
+            } else {
+                slot = allocateSlot();
+                ids.putLong(slot * Long.BYTES, id);
+                idIndex.insert(idHash, slot);
+                sortedIds.add(id);
+                size++;
+            }
+            refs.putLong(slot * Long.BYTES, ref);
+            published = true;
+            if (email != null) {
+                emailIndex.insert(emailHash, slot);
+            }
+        } finally {
+            if (!published) {
+                arena.free(ref);
+            }
+            lock.unlockWrite(stamp);
+        }
+        return new User(id, user.getName(), user.getEmail());
+    }
+
+    @Override
+    public User findById(Long id) {
+        return id == null ? null : findById(id.longValue());
+    }
+
+    @Override
+    public User findById(long id) {
+        if (id <= 0) {
+            return null;
+        }
+        int hash = hashId(id);
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            User user;
+            try {
+                user = read(id, hash);
+            } catch (RuntimeException e) {
+                // 与写入交错时可能读到不一致的数据，交给 validate 判定
+                user = null;
+            }
+            if (lock.validate(stamp)) {
+                return user;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return read(id, hash);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        List<User> page = new ArrayList<>(Math.min(limit, 1024));
+        long[] window = new long[Math.min(limit, PAGE_WINDOW)];
+        long cursor = afterId;
+        while (page.size() < limit) {
+            int wanted = Math.min(limit - page.size(), window.length);
+            int count = idsAfter(cursor, window, wanted);
+            for (int i = 0; i < count; i++) {
+                // 取出 id 之后被并发删除的用户直接跳过
+                User user = findById(window[i]);
+                if (user != null) {
+                    page.add(user);
+                }
+            }
+            if (count < wanted) {
+                break;
+            }
+            cursor = window[count - 1];
+        }
+        return page;
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        if (email == null) {
+            return false;
+        }
+        byte[] bytes = encode(email);
+        int hash = SlotHashTable.spread(Utf8Arena.hash(bytes, 0, bytes.length));
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            boolean exists;
+            try {
+                exists = slotOfEmail(bytes, hash) >= 0;
+            } catch (RuntimeException e) {
+                exists = false;
+            }
+            if (lock.validate(stamp)) {
+                return exists;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return slotOfEmail(bytes, hash) >= 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void delete(Long id) {
+        if (id != null) {
+            delete(id.longValue());
+        }
+    }
+
+    @Override
+    public void delete(long id) {
+        if (id <= 0) {
+            return;
+        }
+        int hash = hashId(id);
+        long stamp = lock.writeLock();
+        try {
+            int slot = slotOf(id, hash);
+            if (slot < 0) {
+                return;
+            }
+            long ref = refs.getLong(slot * Long.BYTES);
+            removeEmailEntry(slot, ref);
+            idIndex.remove(hash, slot);
+            sortedIds.remove(id);
+            arena.free(ref);
+            ids.putLong(slot * Long.BYTES, 0);
+            refs.putLong(slot * Long.BYTES, 0);
+            if (freeSlotCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+            }
+            freeSlots[freeSlotCount++] = slot;
+            size--;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        counters.remove(id);
+    }
+
+    @Override
+    public int getPostCount(Long userId) {
+        return userId == null ? 0 : getPostCount(userId.longValue());
+    }
+
+    @Override
+    public int getPostCount(long userId) {
+        return saturatedInt(counters.getPostCount(userId));
+    }
+
+    @Override
+    public int getFollowerCount(Long userId) {
+        return userId == null ? 0 : getFollowerCount(userId.longValue());
+    }
+
+    @Override
+    public int getFollowerCount(long userId) {
+        return saturatedInt(counters.getFollowerCount(userId));
+    }
+
+    @Override
+    public List<FollowerRank> topByFollowers(int k) {
+        return counters.followerLeaderboard().top(k);
+    }
+
+    @Override
+    public long rankOf(long userId) {
+        return counters.followerLeaderboard().rankOf(userId);
+    }
+
+    /**
+     * 发帖数与粉丝数计数器
+     */
+    public UserCounterStore counters() {
+        return counters;
+    }
+
+    /**
+     * 当前用户数量
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 存储用户实际占用的字节数：两列槽位、字符串区中存活的记录、两个索引表、有序 id 索引和空闲链表。
+     * 字符串区按块预留但尚未使用的空间不计入，见 {@link #reservedOffHeapBytes()}。
+     */
+    public long footprintBytes() {
+        long stamp = lock.readLock();
+        try {
+            return 2L * slotCapacity * Long.BYTES + arena.usedBytes() + idIndex.footprint()
+                    + emailIndex.footprint() + 16 + 4L * freeSlots.length + arena.freeListBytes()
+                    + sortedIds.footprint();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 向操作系统申请的堆外字节数
+     */
+    public long reservedOffHeapBytes() {
+        long stamp = lock.readLock();
+        try {
+            return 2L * slotCapacity * Long.BYTES + arena.reservedBytes();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 平均每个用户占用的字节数，即 {@link #footprintBytes()} / 用户数
+     */
+    public double bytesPerUser() {
+        int count = size();
+        return count == 0 ? 0 : (double) footprintBytes() / count;
+    }
+
+    private User read(long id, int hash) {
+        int slot = slotOf(id, hash);
+        if (slot < 0) {
+            return null;
+        }
+        long ref = refs.getLong(slot * Long.BYTES);
+        int length = Utf8Arena.lengthOf(ref);
+        if (length < HEADER_SIZE || length > Utf8Arena.MAX_RECORD_SIZE) {
+            throw new IllegalStateException("Corrupted record for user " + id);
+        }
+        byte[] bytes = new byte[length];
+        arena.read(ref, bytes);
+        int nameLength = (bytes[0] & 0xFF) << 8 | (bytes[1] & 0xFF);
+        int emailLength = (bytes[2] & 0xFF) << 8 | (bytes[3] & 0xFF);
+        int nameBytes = nameLength == NULL_LENGTH ? 0 : nameLength;
+        String name = nameLength == NULL_LENGTH
+                ? null
+                : new String(bytes, HEADER_SIZE, nameLength, StandardCharsets.UTF_8);
+        String email = emailLength == NULL_LENGTH
+                ? null
+                : new String(bytes, HEADER_SIZE + nameBytes, emailLength, StandardCharsets.UTF_8);
+        return new User(id, name, email);
+    }
+
+    private int slotOf(long id, int hash) {
+        SlotHashTable table = idIndex;
+        int index = table.indexOf(hash);
+        for (int probes = table.capacity(); probes > 0; probes--) {
+            int slot = table.slotAt(index);
+            if (slot < 0) {
+                return -1;
+            }
+            if (table.hashAt(index) == hash && ids.getLong(slot * Long.BYTES) == id) {
+                return slot;
+            }
+            index = table.next(index);
+        }
+        return -1;
+    }
+
+    private int slotOfEmail(byte[] email, int hash) {
+        SlotHashTable table = emailIndex;
+        int index = table.indexOf(hash);
+        for (int probes = table.capacity(); probes > 0; probes--) {
+            int slot = table.slotAt(index);
+            if (slot < 0) {
+                return -1;
+            }
+            if (table.hashAt(index) == hash) {
+                long ref = refs.getLong(slot * Long.BYTES);
+                int nameLength = arena.readUnsignedShort(ref, 0);
+                int emailLength = arena.readUnsignedShort(ref, 2);
+                int emailOffset = HEADER_SIZE + (nameLength == NULL_LENGTH ? 0 : nameLength);
+                if (emailLength == email.length && arena.regionEquals(ref, emailOffset, email, email.length)) {
+                    return slot;
+                }
+            }
+            index = table.next(index);
+        }
+        return -1;
+    }
+
+    private void removeEmailEntry(int slot, long ref) {
+        int nameLength = arena.readUnsignedShort(ref, 0);
+        int emailLength = arena.readUnsignedShort(ref, 2);
+        if (emailLength == NULL_LENGTH) {
+            return;
+        }
+        int emailOffset = HEADER_SIZE + (nameLength == NULL_LENGTH ? 0 : nameLength);
+        emailIndex.remove(SlotHashTable.spread(arena.hash(ref, emailOffset, emailLength)), slot);
+    }
+
+    private int allocateSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+        if (usedSlots == slotCapacity) {
+            if (slotCapacity == MAX_SLOTS) {
+                throw new IllegalStateException("Off-heap user repository is full: " + MAX_SLOTS + " slots");
+            }
+            int capacity = (int) Math.min((long) slotCapacity * 2, MAX_SLOTS);
+            ids = grow(ids, capacity);
+            refs = grow(refs, capacity);
+            slotCapacity = capacity;
+        }
+        return usedSlots++;
+    }
+
+    /**
+     * 把大于 afterId 的最多 wanted 个 id 按升序写入 target，先乐观读，与写入交错时改为读锁
+     */
+    private int idsAfter(long afterId, long[] target, int wanted) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            int count;
+            try {
+                count = sortedIds.copyAfter(afterId, target, wanted);
+            } catch (RuntimeException e) {
+                // 与写入交错时可能读到不一致的块，交给 validate 判定
+                count = -1;
+            }
+            if (lock.validate(stamp) && count >= 0) {
+                return count;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return sortedIds.copyAfter(afterId, target, wanted);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void advanceSequence(long id) {
+        long current;
+        while ((current = idSequence.get()) < id) {
+            if (idSequence.compareAndSet(current, id)) {
+                return;
+            }
+        }
+    }
+
+    private static ByteBuffer grow(ByteBuffer column, int capacity) {
+        ByteBuffer grown = ByteBuffer.allocateDirect(capacity * Long.BYTES);
+        ByteBuffer source = column.duplicate();
+        source.clear();
+        grown.put(source);
+        grown.clear();
+        return grown;
+    }
+
+    private static byte[] encode(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException("Field too long: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static byte[] record(byte[] name, byte[] email) {
+        int nameLength = name == null ? 0 : name.length;
+        int emailLength = email == null ? 0 : email.length;
+        byte[] record = new byte[HEADER_SIZE + nameLength + emailLength];
+        int nameHeader = name == null ? NULL_LENGTH : nameLength;
+        int emailHeader = email == null ? NULL_LENGTH : emailLength;
+        record[0] = (byte) (nameHeader >>> 8);
+        record[1] = (byte) nameHeader;
+        record[2] = (byte) (emailHeader >>> 8);
+        record[3] = (byte) emailHeader;
+        if (name != null) {
+            System.arraycopy(name, 0, record, HEADER_SIZE, nameLength);
+        }
+        if (email != null) {
+            System.arraycopy(email, 0, record, HEADER_SIZE + nameLength, emailLength);
+        }
+        return record;
+    }
+
+    private static int hashId(long id) {
+        return SlotHashTable.spread(Long.hashCode(id));
+    }
+
+    private static int saturatedInt(long value) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.repository;
+
+import java.util.Arrays;
+
+/**
+ * 只保存（哈希值, 槽位号）的开放寻址表（线性探测），非线程安全
+ *
+ * <p>键本身不在表中，由调用方根据槽位号到列存储中比较，
+ * 每个条目只占两个 int，删除使用后移（backward shift）。扩容只依赖保存的哈希值，不需要读取键。
+ * 探测方式：从 {@link #indexOf} 开始，用 {@link #next} 前进，遇到 {@link #slotAt} 为 -1 时停止。
+ */
+final class SlotHashTable {
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private int[] slots;
+    private int[] hashes;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    SlotHashTable(int expectedSize) {
+        allocate(tableSizeFor((int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR)));
+    }
+
+    /**
+     * 对 32 位哈希做一次混淆，避免低位相近的哈希聚集
+     */
+    static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    int indexOf(int hash) {
+        return hash & mask;
+    }
+
+    int next(int index) {
+        return (index + 1) & mask;
+    }
+
+    int slotAt(int index) {
+        return slots[index];
+    }
+
+    int hashAt(int index) {
+        return hashes[index];
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void insert(int hash, int slot) {
+        if (size >= resizeThreshold) {
+            resize(slots.length * 2);
+        }
+        int index = hash & mask;
+        while (slots[index] >= 0) {
+            index = (index + 1) & mask;
+        }
+        slots[index] = slot;
+        hashes[index] = hash;
+        size++;
+    }
+
+    /**
+     * 删除指向 slot 的条目
+     */
+    boolean remove(int hash, int slot) {
+        int index = hash & mask;
+        while (slots[index] >= 0) {
+            if (slots[index] == slot) {
+                shiftBack(index);
+                size--;
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * 堆内占用字节数
+     */
+    long footprint() {
+        return 32 + 8L * slots.length;
+    }
+
+    private void shiftBack(int gap) {
+        int index = gap;
+        while (true) {
+            index = (index + 1) & mask;
+            if (slots[index] < 0) {
+                break;
+            }
+            int home = hashes[index] & mask;
+            // 条目的初始位置不在 (gap, index] 之间时，可以移动到空位上
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                slots[gap] = slots[index];
+                hashes[gap] = hashes[index];
+                gap = index;
+            }
+        }
+        slots[gap] = -1;
+        hashes[gap] = 0;
+    }
+
+    private void resize(int newCapacity) {
+        int[] oldSlots = slots;
+        int[] oldHashes = hashes;
+        allocate(newCapacity);
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] >= 0) {
+                int index = oldHashes[i] & mask;
+                while (slots[index] >= 0) {
+                    index = (index + 1) & mask;
+                }
+                slots[index] = oldSlots[i];
+                hashes[index] = oldHashes[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        slots = new int[capacity];
+        Arrays.fill(slots, -1);
+        hashes = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int n) {
+        int size = Integer.highestOneBit(Math.max(n, 2) - 1) << 1;
+        if (size <= 0) {
+            throw new IllegalArgumentException("Table too large: " + n);
+        }
+        return size;
+    }
+}
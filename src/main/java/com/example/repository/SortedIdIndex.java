@@ -0,0 +1,199 @@
+package com.example.repository;
+
+import java.util.Arrays;
+
+/**
+ * 有序的 long 集合，供 {@link OffHeapUserRepository#findPage} 和 {@link InMemoryUserRepository#findPage}
+ * 按 id 定位，非线程安全，由调用方加锁
+ *
+ * <p>元素分段存放在若干个有序的 long[] 块中，每块最多 {@value #BLOCK_SIZE} 个，另有一个数组保存每块的首元素。
+ * 插入、删除和定位都是先在首元素中二分找到块，再在块内二分，每次移动的元素不超过一个块。
+ * 追加比当前最大值更大的元素时直接开新块，按序列分配 id 时块都是满的，每个元素约占 8 字节；
+ * 删除后相邻两块合计不超过半块时合并，稀疏的块不会长期堆积。
+ */
+final class SortedIdIndex {
+
+    static final int BLOCK_SIZE = 1024;
+
+    private static final int INITIAL_BLOCK_CAPACITY = 16;
+
+    private long[][] blocks = new long[4][];
+    private int[] blockSizes = new int[4];
+    private long[] firstKeys = new long[4];
+    private int blockCount;
+    private int size;
+
+    /**
+     * @return 元素原先不存在时为 true
+     */
+    boolean add(long value) {
+        if (blockCount == 0) {
+            insertBlock(0, new long[INITIAL_BLOCK_CAPACITY], 0);
+        }
+        int b = Math.max(0, blockFor(value));
+        int i = Arrays.binarySearch(blocks[b], 0, blockSizes[b], value);
+        if (i >= 0) {
+            return false;
+        }
+        i = -i - 1;
+        if (blockSizes[b] == BLOCK_SIZE) {
+            if (b == blockCount - 1 && i == BLOCK_SIZE) {
+                long[] block = new long[INITIAL_BLOCK_CAPACITY];
+                block[0] = value;
+                insertBlock(blockCount, block, 1);
+                size++;
+                return true;
+            }
+            split(b);
+            if (i > BLOCK_SIZE / 2) {
+                b++;
+                i -= BLOCK_SIZE / 2;
+            }
+        }
+        long[] block = blocks[b];
+        int n = blockSizes[b];
+        if (n == block.length) {
+            block = Arrays.copyOf(block, Math.min(BLOCK_SIZE, block.length * 2));
+            blocks[b] = block;
+        }
+        System.arraycopy(block, i, block, i + 1, n - i);
+        block[i] = value;
+        blockSizes[b] = n + 1;
+        if (i == 0) {
+            firstKeys[b] = value;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * @return 元素原先存在时为 true
+     */
+    boolean remove(long value) {
+        int b = blockFor(value);
+        if (b < 0) {
+            return false;
+        }
+        long[] block = blocks[b];
+        int n = blockSizes[b];
+        int i = Arrays.binarySearch(block, 0, n, value);
+        if (i < 0) {
+            return false;
+        }
+        System.arraycopy(block, i + 1, block, i, n - i - 1);
+        blockSizes[b] = --n;
+        size--;
+        if (n == 0) {
+            removeBlock(b);
+            return true;
+        }
+        if (i == 0) {
+            firstKeys[b] = block[0];
+        }
+        if (b + 1 < blockCount && n + blockSizes[b + 1] <= BLOCK_SIZE / 2) {
+            merge(b);
+        } else if (b > 0 && n + blockSizes[b - 1] <= BLOCK_SIZE / 2) {
+            merge(b - 1);
+        }
+        return true;
+    }
+
+    /**
+     * 把大于 after 的最多 max 个元素按升序写入 target 开头
+     *
+     * @return 写入的元素个数
+     */
+    int copyAfter(long after, long[] target, int max) {
+        int count = 0;
+        for (int b = Math.max(0, blockFor(after)); b < blockCount && count < max; b++) {
+            int n = blockSizes[b];
+            int i = Arrays.binarySearch(blocks[b], 0, n, after);
+            i = i >= 0 ? i + 1 : -i - 1;
+            int take = Math.min(n - i, max - count);
+            System.arraycopy(blocks[b], i, target, count, take);
+            count += take;
+        }
+        return count;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 占用的堆内字节数
+     */
+    long footprint() {
+        long bytes = 3 * 16 + (8L + 4 + 8) * blocks.length;
+        for (int b = 0; b < blockCount; b++) {
+            bytes += 16 + 8L * blocks[b].length;
+        }
+        return bytes;
+    }
+
+    /**
+     * 首元素不大于 value 的最后一块，value 小于所有元素时为 -1
+     */
+    private int blockFor(long value) {
+        int low = 0;
+        int high = blockCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (firstKeys[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    private void split(int b) {
+        long[] upper = new long[BLOCK_SIZE];
+        int moved = blockSizes[b] - BLOCK_SIZE / 2;
+        System.arraycopy(blocks[b], BLOCK_SIZE / 2, upper, 0, moved);
+        blockSizes[b] = BLOCK_SIZE / 2;
+        insertBlock(b + 1, upper, moved);
+    }
+
+    /**
+     * 把第 b + 1 块并入第 b 块
+     */
+    private void merge(int b) {
+        int n = blockSizes[b];
+        int m = blockSizes[b + 1];
+        long[] block = blocks[b];
+        if (block.length < n + m) {
+            block = Arrays.copyOf(block, Math.min(BLOCK_SIZE, Integer.highestOneBit(n + m - 1) << 1));
+            blocks[b] = block;
+        }
+        System.arraycopy(blocks[b + 1], 0, block, n, m);
+        blockSizes[b] = n + m;
+        removeBlock(b + 1);
+    }
+
+    private void insertBlock(int index, long[] block, int count) {
+        if (blockCount == blocks.length) {
+            int capacity = blocks.length * 2;
+            blocks = Arrays.copyOf(blocks, capacity);
+            blockSizes = Arrays.copyOf(blockSizes, capacity);
+            firstKeys = Arrays.copyOf(firstKeys, capacity);
+        }
+        int tail = blockCount - index;
+        System.arraycopy(blocks, index, blocks, index + 1, tail);
+        System.arraycopy(blockSizes, index, blockSizes, index + 1, tail);
+        System.arraycopy(firstKeys, index, firstKeys, index + 1, tail);
+        blocks[index] = block;
+        blockSizes[index] = count;
+        firstKeys[index] = block[0];
+        blockCount++;
+    }
+
+    private void removeBlock(int index) {
+        int tail = blockCount - index - 1;
+        System.arraycopy(blocks, index + 1, blocks, index, tail);
+        System.arraycopy(blockSizes, index + 1, blockSizes, index, tail);
+        System.arraycopy(firstKeys, index + 1, firstKeys, index, tail);
+        blocks[--blockCount] = null;
+    }
+}
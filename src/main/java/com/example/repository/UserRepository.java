@@ -1,9 +1,24 @@
 package com.example.repository;
 
+import com.example.counter.FollowerLeaderboard;
+import com.example.counter.FollowerRank;
 import com.example.model.User;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * 用户仓库接口 - 模拟数据访问层
+ *
+ * <p>{@code findById}、{@code delete}、{@code getPostCount}、{@code getFollowerCount} 各有 {@code Long} 与
+ * {@code long} 两个重载，{@link com.example.service.UserService} 调用的是 {@code long} 重载。
+ * Mockito 的 mock 不会执行默认方法，只对 {@code Long} 重载打桩（例如 {@code findById(any())}、
+ * {@code findById(Long.valueOf(1))}）时服务拿到的是 null 或 0，应当用 {@code anyLong()} 或原始类型参数打桩。
  */
 public interface UserRepository {
 
@@ -12,28 +27,140 @@ public interface UserRepository {
      */
     User save(User user);
 
+    /**
+     * 批量保存用户，返回结果与输入顺序一致
+     *
+     * <p>默认实现逐个调用 {@link #save}，实现类可以覆盖以合并写入。
+     */
+    default List<User> saveAll(Collection<User> users) {
+        List<User> saved = new ArrayList<>(users.size());
+        for (User user : users) {
+            saved.add(save(user));
+        }
+        return saved;
+    }
+
     /**
      * 根据ID查找用户
      */
     User findById(Long id);
 
+    /**
+     * 根据ID查找用户（原始类型，避免装箱）
+     *
+     * <p>默认实现转调 {@link #findById(Long)}，基于原始类型存储的实现类应当覆盖。
+     */
+    default User findById(long id) {
+        return findById(Long.valueOf(id));
+    }
+
+    /**
+     * 按 id 升序返回 id 大于 afterId 的至多 limit 个用户（keyset 分页）
+     *
+     * <p>以上一页最后一个用户的 id 作为下一页的 afterId，从头开始时传 0（id 为正数）。
+     * 页与页之间不是同一时刻的快照：扫描期间新保存的用户只要 id 还没被扫过就会出现，
+     * 被删除的用户只要还没被扫到就不会出现，不会重复返回同一个 id。
+     * 默认实现不支持遍历，能够遍历的实现类应当覆盖。
+     *
+     * @throws UnsupportedOperationException 仓库不支持遍历
+     */
+    default List<User> findPage(long afterId, int limit) {
+        throw new UnsupportedOperationException(getClass().getName() + " does not support scanning");
+    }
+
+    /**
+     * 以 {@link UserScan} 逐页读取 id 大于 afterId 的所有用户，内存占用与用户总数无关
+     *
+     * <p>一致性同 {@link #findPage}。并行流按页拆分任务。
+     */
+    default Stream<User> scan(long afterId, int pageSize) {
+        return StreamSupport.stream(new UserScan(this, afterId, pageSize), false);
+    }
+
+    /**
+     * 返回名字以 prefix 开头的至多 limit 个用户，忽略大小写与重音，顺序由实现决定
+     *
+     * <p>默认实现不支持按名字查询，可以用 {@code com.example.search.NameIndexedUserRepository} 装饰仓库来支持。
+     *
+     * @throws UnsupportedOperationException 仓库不支持按名字查询
+     */
+    default List<User> findByNamePrefix(String prefix, int limit) {
+        throw new UnsupportedOperationException(getClass().getName() + " does not support name search");
+    }
+
     /**
      * 检查邮箱是否存在
      */
     boolean existsByEmail(String email);
 
+    /**
+     * 批量检查邮箱，返回其中已存在的邮箱
+     *
+     * <p>默认实现逐个调用 {@link #existsByEmail}，实现类可以覆盖为一次查询。
+     */
+    default Set<String> findExistingEmails(Collection<String> emails) {
+        Set<String> existing = new HashSet<>();
+        for (String email : emails) {
+            if (existsByEmail(email)) {
+                existing.add(email);
+            }
+        }
+        return existing;
+    }
+
     /**
      * 删除用户
      */
     void delete(Long id);
 
+    /**
+     * 删除用户（原始类型，避免装箱）
+     */
+    default void delete(long id) {
+        delete(Long.valueOf(id));
+    }
+
     /**
      * 获取用户发帖数量
      */
     int getPostCount(Long userId);
 
+    /**
+     * 获取用户发帖数量（原始类型，避免装箱）
+     */
+    default int getPostCount(long userId) {
+        return getPostCount(Long.valueOf(userId));
+    }
+
     /**
      * 获取用户粉丝数量
      */
     int getFollowerCount(Long userId);
+
+    /**
+     * 获取用户粉丝数量（原始类型，避免装箱）
+     */
+    default int getFollowerCount(long userId) {
+        return getFollowerCount(Long.valueOf(userId));
+    }
+
+    /**
+     * 粉丝数最多的 k 个用户，按粉丝数降序、id 升序排列
+     *
+     * <p>默认实现不支持排行榜，计数器开启了 {@link FollowerLeaderboard} 的实现类应当覆盖。
+     *
+     * @throws UnsupportedOperationException 仓库不支持排行榜
+     */
+    default List<FollowerRank> topByFollowers(int k) {
+        throw new UnsupportedOperationException(getClass().getName() + " does not support follower ranking");
+    }
+
+    /**
+     * 用户在粉丝数排行榜中的名次，从 1 开始；粉丝数为 0 的用户不上榜，返回 0
+     *
+     * @throws UnsupportedOperationException 仓库不支持排行榜
+     */
+    default long rankOf(long userId) {
+        throw new UnsupportedOperationException(getClass().getName() + " does not support follower ranking");
+    }
 }
\ No newline at end of file
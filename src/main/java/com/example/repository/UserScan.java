@@ -0,0 +1,108 @@
+package com.example.repository;
+
+import com.example.model.User;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * 基于 {@link UserRepository#findPage} 的用户游标，按 id 升序逐页读取
+ *
+ * <p>任何时候只缓冲一页，遍历所有用户的内存占用只取决于页大小。
+ * {@link #trySplit()} 把下一整页交给新的 spliterator，并行流中每个任务处理一页，
+ * 同一时刻在内存中的页数不超过并行任务数。
+ *
+ * <p>顺序遍历中断后，可以用 {@link #cursor()} 作为 afterId 新建游标继续；
+ * 拆分过的游标的 cursor 只代表本游标自己处理到的位置。
+ */
+public final class UserScan implements Spliterator<User> {
+
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    private static final int CHARACTERISTICS = ORDERED | DISTINCT | NONNULL;
+
+    private final UserRepository repository;
+    private final int pageSize;
+    private long nextAfterId;
+    private long cursor;
+    private List<User> page = Collections.emptyList();
+    private int index;
+    private boolean exhausted;
+
+    public UserScan(UserRepository repository) {
+        this(repository, 0, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * @param afterId  从 id 大于该值的用户开始，0 表示从头开始
+     * @param pageSize 每次从仓库读取的用户数
+     */
+    public UserScan(UserRepository repository, long afterId, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        this.repository = repository;
+        this.pageSize = pageSize;
+        this.nextAfterId = afterId;
+        this.cursor = afterId;
+    }
+
+    /**
+     * 最后一个已交给调用方的用户 id
+     */
+    public long cursor() {
+        return cursor;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super User> action) {
+        if (index >= page.size() && !fetch()) {
+            return false;
+        }
+        User user = page.get(index++);
+        cursor = user.getId();
+        action.accept(user);
+        return true;
+    }
+
+    @Override
+    public Spliterator<User> trySplit() {
+        if (index >= page.size() && !fetch()) {
+            return null;
+        }
+        Object[] batch = page.subList(index, page.size()).toArray();
+        page = Collections.emptyList();
+        index = 0;
+        return Spliterators.spliterator(batch, CHARACTERISTICS);
+    }
+
+    @Override
+    public long estimateSize() {
+        return exhausted ? page.size() - index : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return CHARACTERISTICS;
+    }
+
+    private boolean fetch() {
+        if (exhausted) {
+            return false;
+        }
+        page = repository.findPage(nextAfterId, pageSize);
+        index = 0;
+        if (page.size() < pageSize) {
+            // 不足一页说明已经读到末尾，省掉最后一次空查询
+            exhausted = true;
+        }
+        if (page.isEmpty()) {
+            return false;
+        }
+        nextAfterId = page.get(page.size() - 1).getId();
+        return true;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.repository;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 堆外字节区，保存 {@link OffHeapUserRepository} 的 UTF-8 字符串记录
+ *
+ * <p>由固定大小的 {@link ByteBuffer#allocateDirect} 块组成，记录不跨块。
+ * 空间按大小分级分配：256 字节以内按 8 字节取整，更大的按 2 的幂取整；
+ * 释放的空间挂到所在级别的空闲链表上，之后同级别的分配优先复用。
+ *
+ * <p>分配与释放是线程安全的：新空间用 CAS 推进全局偏移量，空闲链表按级别各自加锁，
+ * 记录内容在锁外写入，不同线程的写入互不阻塞。读取方需要自己保证引用已经发布（例如经过同一把锁），
+ * 并且在读取期间不会被释放。块数组在追加新块时整体替换，读取不加锁。
+ *
+ * <p>记录引用是一个 long：高 40 位是全局偏移量，低 24 位是记录长度。
+ */
+final class Utf8Arena {
+
+    static final int MAX_RECORD_SIZE = 1 << 18;
+
+    private static final int SMALL_LIMIT = 256;
+    private static final int SMALL_CLASSES = SMALL_LIMIT / 8;
+    private static final int CLASSES = SMALL_CLASSES + Integer.numberOfTrailingZeros(MAX_RECORD_SIZE / SMALL_LIMIT);
+    private static final int LENGTH_BITS = 24;
+    private static final long LENGTH_MASK = (1L << LENGTH_BITS) - 1;
+
+    private final int chunkSize;
+    private final int chunkShift;
+    private final AtomicLong cursor = new AtomicLong();
+    private final LongAdder usedBytes = new LongAdder();
+    private final Object chunkLock = new Object();
+    private final Object[] classLocks = new Object[CLASSES];
+    // 以下两个数组的第 i 项只在 classLocks[i] 内访问
+    private final long[][] freeLists = new long[CLASSES][];
+    private final int[] freeCounts = new int[CLASSES];
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+
+    /**
+     * @param chunkSize 每块字节数，会向上取整为 2 的幂，至少为 {@link #MAX_RECORD_SIZE}
+     */
+    Utf8Arena(int chunkSize) {
+        int size = Math.max(MAX_RECORD_SIZE, Integer.highestOneBit(Math.max(chunkSize, 1) - 1) << 1);
+        this.chunkSize = size;
+        this.chunkShift = Integer.numberOfTrailingZeros(size);
+        for (int i = 0; i < CLASSES; i++) {
+            classLocks[i] = new Object();
+        }
+    }
+
+    static int lengthOf(long ref) {
+        return (int) (ref & LENGTH_MASK);
+    }
+
+    /**
+     * 分配 length 字节并写入 source[0, length)
+     */
+    long allocate(byte[] source, int length) {
+        if (length <= 0 || length > MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("Record size out of range: " + length);
+        }
+        int sizeClass = classOf(length);
+        long offset = -1;
+        synchronized (classLocks[sizeClass]) {
+            if (freeCounts[sizeClass] > 0) {
+                offset = freeLists[sizeClass][--freeCounts[sizeClass]];
+            }
+        }
+        if (offset < 0) {
+            offset = bump(capacityOf(sizeClass));
+        }
+        ByteBuffer chunk = chunks[(int) (offset >>> chunkShift)].duplicate();
+        chunk.position((int) (offset & (chunkSize - 1)));
+        chunk.put(source, 0, length);
+        usedBytes.add(capacityOf(sizeClass));
+        return offset << LENGTH_BITS | length;
+    }
+
+    void free(long ref) {
+        int sizeClass = classOf(lengthOf(ref));
+        synchronized (classLocks[sizeClass]) {
+            long[] list = freeLists[sizeClass];
+            if (list == null) {
+                list = new long[16];
+            } else if (freeCounts[sizeClass] == list.length) {
+                list = Arrays.copyOf(list, list.length * 2);
+            }
+            freeLists[sizeClass] = list;
+            list[freeCounts[sizeClass]++] = ref >>> LENGTH_BITS;
+        }
+        usedBytes.add(-capacityOf(sizeClass));
+    }
+
+    /**
+     * 把记录复制到 target 开头，target 长度至少为记录长度
+     */
+    void read(long ref, byte[] target) {
+        long offset = ref >>> LENGTH_BITS;
+        ByteBuffer chunk = chunks[(int) (offset >>> chunkShift)].duplicate();
+        chunk.position((int) (offset & (chunkSize - 1)));
+        chunk.get(target, 0, lengthOf(ref));
+    }
+
+    /**
+     * 读取记录中 [from, from + 2) 处的无符号 16 位整数
+     */
+    int readUnsignedShort(long ref, int from) {
+        long offset = (ref >>> LENGTH_BITS) + from;
+        return chunks[(int) (offset >>> chunkShift)].getShort((int) (offset & (chunkSize - 1))) & 0xFFFF;
+    }
+
+    /**
+     * 记录 [from, from + bytes.length) 与 bytes 是否相同
+     */
+    boolean regionEquals(long ref, int from, byte[] bytes, int length) {
+        long offset = (ref >>> LENGTH_BITS) + from;
+        ByteBuffer chunk = chunks[(int) (offset >>> chunkShift)];
+        int base = (int) (offset & (chunkSize - 1));
+        for (int i = 0; i < length; i++) {
+            if (chunk.get(base + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 记录 [from, from + length) 的哈希值，与 {@code hash(bytes, 0, length)} 相同
+     */
+    int hash(long ref, int from, int length) {
+        long offset = (ref >>> LENGTH_BITS) + from;
+        ByteBuffer chunk = chunks[(int) (offset >>> chunkShift)];
+        int base = (int) (offset & (chunkSize - 1));
+        int h = 1;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + chunk.get(base + i);
+        }
+        return h;
+    }
+
+    static int hash(byte[] bytes, int from, int length) {
+        int h = 1;
+        for (int i = from; i < from + length; i++) {
+            h = 31 * h + bytes[i];
+        }
+        return h;
+    }
+
+    /**
+     * 已分配给存活记录的字节数（按分级取整后的大小）
+     */
+    long usedBytes() {
+        return usedBytes.sum();
+    }
+
+    /**
+     * 向操作系统申请的堆外字节数
+     */
+    long reservedBytes() {
+        return (long) chunks.length * chunkSize;
+    }
+
+    /**
+     * 空闲链表占用的堆内字节数
+     */
+    long freeListBytes() {
+        long bytes = 0;
+        for (int i = 0; i < CLASSES; i++) {
+            synchronized (classLocks[i]) {
+                bytes += freeLists[i] == null ? 0 : 16 + 8L * freeLists[i].length;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 推进全局偏移量，当前块剩余空间不足时跳到下一块开头，返回分配到的偏移量
+     */
+    private long bump(int capacity) {
+        while (true) {
+            long current = cursor.get();
+            long chunkEnd = ((current >>> chunkShift) + 1) << chunkShift;
+            long start = current + capacity <= chunkEnd ? current : chunkEnd;
+            if (cursor.compareAndSet(current, start + capacity)) {
+                ensureChunk((int) (start >>> chunkShift));
+                return start;
+            }
+        }
+    }
+
+    private void ensureChunk(int index) {
+        if (index < chunks.length) {
+            return;
+        }
+        synchronized (chunkLock) {
+            ByteBuffer[] current = chunks;
+            if (index < current.length) {
+                return;
+            }
+            ByteBuffer[] grown = Arrays.copyOf(current, index + 1);
+            for (int i = current.length; i <= index; i++) {
+                grown[i] = ByteBuffer.allocateDirect(chunkSize);
+            }
+            chunks = grown;
+        }
+    }
+
+    private static int classOf(int length) {
+        if (length <= SMALL_LIMIT) {
+            return (length + 7) / 8 - 1;
+        }
+        return SMALL_CLASSES + 32 - Integer.numberOfLeadingZeros(length - 1) - 9;
+    }
+
+    private static int capacityOf(int sizeClass) {
+        if (sizeClass < SMALL_CLASSES) {
+            return (sizeClass + 1) * 8;
+        }
+        return SMALL_LIMIT << (sizeClass - SMALL_CLASSES + 1);
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.search;
+
+import com.example.collection.ConcurrentLongObjectHashMap;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * 线程安全的用户名前缀索引
+ *
+ * <p>条目按（规范化后的名字, id）排序存放在 {@link ConcurrentSkipListSet} 中，
+ * 前缀查询定位到第一个不小于前缀的条目后顺序读取，耗时与返回条数成正比，与用户总数只有对数关系。
+ * 另有一张 id → 条目的表，用于更新和删除时找到旧条目。
+ *
+ * <p>名字按 {@link #normalize} 规范化：兼容分解、去掉重音等组合符号、转小写、合并空白，
+ * 因此 "José"、"JOSE"、"  jose " 都能被前缀 "jos" 查到。
+ *
+ * <p>查询不加锁；写操作按 id 分段加锁，同一用户的更新与删除互斥。
+ * 查询是弱一致的：并发改名期间该用户可能暂时查不到，{@link #forEachMatch} 也可能把它的新旧条目各报告一次，
+ * {@link #search} 会去掉重复的 id。
+ */
+public final class NameIndex {
+
+    private static final int LOCK_STRIPES = 64;
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>();
+    private final ConcurrentLongObjectHashMap<Entry> entriesById;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public NameIndex() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedSize 预计用户数
+     */
+    public NameIndex(int expectedSize) {
+        this.entriesById = new ConcurrentLongObjectHashMap<>(expectedSize);
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * 规范化名字或查询前缀，null 返回 null
+     */
+    public static String normalize(String name) {
+        return normalize(name, false);
+    }
+
+    /**
+     * 规范化查询前缀：与 {@link #normalize} 相同，但末尾的空白保留为一个空格，
+     * 因此前缀 "John " 只匹配 "John" 之后还有其他词的名字，不匹配 "Johnson"
+     */
+    public static String normalizePrefix(String prefix) {
+        return normalize(prefix, true);
+    }
+
+    private static String normalize(String name, boolean keepTrailingSpace) {
+        if (name == null) {
+            return null;
+        }
+        if (isAscii(name)) {
+            return foldCaseAndSpaces(name, keepTrailingSpace);
+        }
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFKD);
+        return foldCaseAndSpaces(COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT),
+                keepTrailingSpace);
+    }
+
+    /**
+     * 设置用户的名字，替换该用户原有的条目；名字为 null 或规范化后为空时只删除原有条目
+     */
+    public void put(long id, String name) {
+        String key = normalize(name);
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Entry previous = entriesById.get(id);
+            if (previous != null && previous.key.equals(key)) {
+                return;
+            }
+            if (previous != null) {
+                entries.remove(previous);
+            }
+            if (key == null || key.isEmpty()) {
+                entriesById.remove(id);
+                return;
+            }
+            Entry entry = new Entry(key, id);
+            entries.add(entry);
+            entriesById.put(id, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 删除用户的条目
+     */
+    public void remove(long id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Entry previous = entriesById.remove(id);
+            if (previous != null) {
+                entries.remove(previous);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按（规范化后的名字, id）升序返回名字以 prefix 开头的至多 limit 个用户 id
+     */
+    public List<Long> search(String prefix, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        forEachMatch(prefix, id -> {
+            ids.add(id);
+            return ids.size() < limit;
+        });
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * 按升序把名字以 prefix 开头的用户 id 交给 action，action 返回 false 时停止
+     *
+     * <p>与改名并发时同一 id 可能出现两次。
+     */
+    public void forEachMatch(String prefix, LongPredicate action) {
+        String key = normalizePrefix(prefix);
+        if (key == null) {
+            throw new IllegalArgumentException("Prefix must not be null");
+        }
+        for (Entry entry : entries.tailSet(new Entry(key, Long.MIN_VALUE))) {
+            if (!entry.key.startsWith(key) || !action.test(entry.id)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 已索引的用户数
+     */
+    public int size() {
+        return entriesById.size();
+    }
+
+    private ReentrantLock lockFor(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return locks[(int) (h ^ (h >>> 32)) & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * ASCII 字母转小写，去掉首尾空白（keepTrailingSpace 时末尾保留一个空格），连续空白合并为一个空格；
+     * ASCII 名字只需要这一步
+     */
+    private static String foldCaseAndSpaces(String name, boolean keepTrailingSpace) {
+        StringBuilder folded = new StringBuilder(name.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = folded.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                folded.append(' ');
+                pendingSpace = false;
+            }
+            folded.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+        }
+        if (pendingSpace && keepTrailingSpace) {
+            folded.append(' ');
+        }
+        // 已经规范的名字直接复用，不额外占用内存
+        return name.contentEquals(folded) ? name : folded.toString();
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        final String key;
+        final long id;
+
+        Entry(String key, long id) {
+            this.key = key;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byKey = key.compareTo(other.key);
+            return byKey != 0 ? byKey : Long.compare(id, other.id);
+        }
+    }
+}
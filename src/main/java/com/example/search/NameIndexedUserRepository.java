@@ -0,0 +1,214 @@
+package com.example.search;
+
+import com.example.counter.FollowerRank;
+import com.example.model.User;
+import com.example.repository.UserRepository;
+import com.example.repository.UserScan;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * 维护用户名前缀索引的用户仓库装饰器，为 {@link #findByNamePrefix} 提供支持
+ *
+ * <p>{@link #save}、{@link #saveAll}、{@link #delete} 在被装饰的仓库写入成功后更新 {@link NameIndex}，
+ * 经由 UserService 的注册、更新、删除都会反映到索引中。
+ * 查询从索引按顺序取出 id 再到仓库读取用户，并用读到的名字再次核对前缀，
+ * 索引与仓库短暂不一致时不会返回不匹配的用户。
+ *
+ * <p>写操作按 id 分段加锁：已有 id 的保存和删除在锁内完成仓库写入与索引更新，同一用户的并发更新
+ * 不会让索引停留在较早的名字上。新用户和批量保存在仓库写入之后加锁，按仓库中的当前名字更新索引。
+ */
+public class NameIndexedUserRepository implements UserRepository {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final UserRepository delegate;
+    private final NameIndex index;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    /**
+     * 逐页读取被装饰仓库中的已有用户建立索引，被装饰的仓库需要支持 {@link UserRepository#findPage}
+     */
+    public NameIndexedUserRepository(UserRepository delegate) {
+        this(delegate, new NameIndex());
+        try (Stream<User> users = delegate.scan(0, UserScan.DEFAULT_PAGE_SIZE)) {
+            users.forEach(user -> index.put(user.getId(), user.getName()));
+        }
+    }
+
+    /**
+     * @param delegate 被装饰的仓库
+     * @param index    已经包含仓库中已有用户的索引
+     */
+    public NameIndexedUserRepository(UserRepository delegate, NameIndex index) {
+        this.delegate = delegate;
+        this.index = index;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public User save(User user) {
+        if (user.getId() == null) {
+            User saved = delegate.save(user);
+            reindex(saved.getId());
+            return saved;
+        }
+        ReentrantLock lock = lockFor(user.getId());
+        lock.lock();
+        try {
+            User saved = delegate.save(user);
+            index.put(saved.getId(), saved.getName());
+            return saved;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<User> saveAll(Collection<User> users) {
+        List<User> saved = delegate.saveAll(users);
+        for (User user : saved) {
+            reindex(user.getId());
+        }
+        return saved;
+    }
+
+    @Override
+    public User findById(Long id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public User findById(long id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    /**
+     * 按（规范化后的名字, id）升序返回名字以 prefix 开头的至多 limit 个用户，不扫描仓库
+     */
+    @Override
+    public List<User> findByNamePrefix(String prefix, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        String normalizedPrefix = NameIndex.normalizePrefix(prefix);
+        List<User> users = new ArrayList<>(Math.min(limit, 64));
+        Set<Long> seen = new HashSet<>();
+        index.forEachMatch(prefix, id -> {
+            if (!seen.add(id)) {
+                return true;
+            }
+            User user = delegate.findById(id);
+            String name = user == null ? null : NameIndex.normalize(user.getName());
+            if (name != null && name.startsWith(normalizedPrefix)) {
+                users.add(user);
+            }
+            return users.size() < limit;
+        });
+        return users;
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return delegate.existsByEmail(email);
+    }
+
+    @Override
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        return delegate.findExistingEmails(emails);
+    }
+
+    @Override
+    public void delete(Long id) {
+        if (id == null) {
+            delegate.delete(id);
+        } else {
+            delete(id.longValue());
+        }
+    }
+
+    @Override
+    public void delete(long id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            delegate.delete(id);
+            index.remove(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getPostCount(Long userId) {
+        return delegate.getPostCount(userId);
+    }
+
+    @Override
+    public int getPostCount(long userId) {
+        return delegate.getPostCount(userId);
+    }
+
+    @Override
+    public int getFollowerCount(Long userId) {
+        return delegate.getFollowerCount(userId);
+    }
+
+    @Override
+    public int getFollowerCount(long userId) {
+        return delegate.getFollowerCount(userId);
+    }
+
+    @Override
+    public List<FollowerRank> topByFollowers(int k) {
+        return delegate.topByFollowers(k);
+    }
+
+    @Override
+    public long rankOf(long userId) {
+        return delegate.rankOf(userId);
+    }
+
+    /**
+     * 在锁内按仓库中的当前名字更新索引：写入仓库时没有持锁，最后一个加锁的线程读到的一定是最新的名字
+     */
+    private void reindex(long id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            User current = delegate.findById(id);
+            if (current == null) {
+                index.remove(id);
+            } else {
+                index.put(id, current.getName());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return locks[(int) (h ^ (h >>> 32)) & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * 名字索引
+     */
+    public NameIndex index() {
+        return index;
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.service;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 异步邮件服务装饰器
+ *
+ * <p>调用方只负责把邮件任务放入有界队列，由后台工作线程批量取出后交给被装饰的
+ * {@link EmailService} 发送，慢速邮件后端不再拖慢用户写操作。
+ * <ul>
+ *     <li>同一地址的更新通知在合并窗口内只发送一次</li>
+ *     <li>连续的欢迎邮件合并为一次 {@link EmailService#sendWelcomeEmails} 调用</li>
+ *     <li>队列满时按 {@link BackpressurePolicy} 处理</li>
+ * </ul>
+ *
+ * <p>单个工作线程时保持提交顺序；多个工作线程时不同批次之间的顺序不做保证。
+ * 发送失败只计数，不会传播给调用方。
+ *
+ * <p>入队持有读锁，{@link #close()} 在写锁下停止接收，入队与关闭不会交错：
+ * 关闭前已经入队的邮件都会被发送，关闭后的调用直接失败。
+ */
+public class AsyncEmailService implements EmailService, Closeable {
+
+    /**
+     * 队列满时的处理策略
+     */
+    public enum BackpressurePolicy {
+        /** 阻塞调用方直到队列有空位 */
+        BLOCK,
+        /** 丢弃队列中最旧的任务 */
+        DROP_OLDEST,
+        /** 由调用方线程直接发送 */
+        CALLER_RUNS
+    }
+
+    private enum Kind { WELCOME, UPDATE, DELETION }
+
+    private static final class EmailTask {
+        final Kind kind;
+        final String email;
+
+        EmailTask(Kind kind, String email) {
+            this.kind = kind;
+            this.email = email;
+        }
+    }
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final EmailService delegate;
+    private final BlockingQueue<EmailTask> queue;
+    private final BackpressurePolicy policy;
+    private final int batchSize;
+    private final long coalesceWindowNanos;
+    private final ConcurrentHashMap<String, Long> recentUpdates = new ConcurrentHashMap<>();
+    private final Thread[] workers;
+    private final ReentrantReadWriteLock lifecycle = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+    private volatile long lastPurgeNanos = System.nanoTime();
+
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+
+    public AsyncEmailService(EmailService delegate) {
+        this(delegate, 10_000, 1, 100, Duration.ofSeconds(1), BackpressurePolicy.BLOCK);
+    }
+
+    /**
+     * @param delegate       实际发送邮件的服务
+     * @param capacity       队列容量
+     * @param workerThreads  工作线程数
+     * @param batchSize      每次最多取出的任务数
+     * @param coalesceWindow 更新通知合并窗口，为 0 时不合并
+     * @param policy         队列满时的处理策略
+     */
+    public AsyncEmailService(EmailService delegate, int capacity, int workerThreads, int batchSize,
+                             Duration coalesceWindow, BackpressurePolicy policy) {
+        if (capacity <= 0 || workerThreads <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Capacity, worker threads and batch size must be positive");
+        }
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.policy = policy;
+        this.batchSize = batchSize;
+        this.coalesceWindowNanos = coalesceWindow.toNanos();
+        this.workers = new Thread[workerThreads];
+        for (int i = 0; i < workerThreads; i++) {
+            Thread worker = new Thread(this::drainLoop, "email-dispatcher-" + i);
+            worker.setDaemon(true);
+            workers[i] = worker;
+            worker.start();
+        }
+    }
+
+    @Override
+    public void sendWelcomeEmail(String email) {
+        enqueue(new EmailTask(Kind.WELCOME, email));
+    }
+
+    /**
+     * 合并窗口内对同一地址的重复更新通知会被直接丢弃
+     */
+    @Override
+    public void sendUpdateNotification(String email) {
+        if (coalesceWindowNanos > 0 && isRecentUpdate(email)) {
+            coalescedCount.increment();
+            return;
+        }
+        enqueue(new EmailTask(Kind.UPDATE, email));
+    }
+
+    @Override
+    public void sendAccountDeletionEmail(String email) {
+        enqueue(new EmailTask(Kind.DELETION, email));
+    }
+
+    /**
+     * 停止接收新任务，等待队列中剩余的任务发送完毕
+     */
+    @Override
+    public void close() {
+        // 等待进行中的入队完成；BLOCK 策略下阻塞的入队由仍在运行的工作线程腾出空位
+        lifecycle.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            lifecycle.writeLock().unlock();
+        }
+        boolean interrupted = false;
+        for (Thread worker : workers) {
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getSentCount() {
+        return sentCount.sum();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private boolean isRecentUpdate(String email) {
+        long now = System.nanoTime();
+        Long last = recentUpdates.putIfAbsent(email, now);
+        if (last == null) {
+            return false;
+        }
+        return now - last < coalesceWindowNanos || !recentUpdates.replace(email, last, now);
+    }
+
+    private void enqueue(EmailTask task) {
+        lifecycle.readLock().lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Email dispatcher is closed");
+            }
+            offer(task);
+        } finally {
+            lifecycle.readLock().unlock();
+        }
+    }
+
+    private void offer(EmailTask task) {
+        switch (policy) {
+            case BLOCK:
+                try {
+                    queue.put(task);
+                } catch (InterruptedException e) {
+                    // 被中断时不丢邮件，改为同步发送
+                    Thread.currentThread().interrupt();
+                    dispatch(task);
+                }
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(task)) {
+                    if (queue.poll() != null) {
+                        droppedCount.increment();
+                    }
+                }
+                break;
+            case CALLER_RUNS:
+                if (!queue.offer(task)) {
+                    dispatch(task);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown backpressure policy: " + policy);
+        }
+    }
+
+    private void drainLoop() {
+        List<EmailTask> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            EmailTask first;
+            try {
+                first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // 只有 close() 能结束工作线程
+                continue;
+            }
+            if (first != null) {
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                dispatchBatch(batch);
+                batch.clear();
+            }
+            purgeExpiredUpdates();
+        }
+    }
+
+    /**
+     * 按顺序发送一批任务，连续的欢迎邮件合并为一次批量调用
+     */
+    private void dispatchBatch(List<EmailTask> batch) {
+        List<String> welcomes = new ArrayList<>();
+        for (EmailTask task : batch) {
+            if (task.kind == Kind.WELCOME) {
+                welcomes.add(task.email);
+                continue;
+            }
+            flushWelcomes(welcomes);
+            dispatch(task);
+        }
+        flushWelcomes(welcomes);
+    }
+
+    private void flushWelcomes(List<String> welcomes) {
+        if (welcomes.isEmpty()) {
+            return;
+        }
+        try {
+            if (welcomes.size() == 1) {
+                delegate.sendWelcomeEmail(welcomes.get(0));
+            } else {
+                delegate.sendWelcomeEmails(new ArrayList<>(welcomes));
+            }
+            sentCount.add(welcomes.size());
+        } catch (RuntimeException e) {
+            failedCount.add(welcomes.size());
+        }
+        welcomes.clear();
+    }
+
+    private void dispatch(EmailTask task) {
+        try {
+            switch (task.kind) {
+                case WELCOME:
+                    delegate.sendWelcomeEmail(task.email);
+                    break;
+                case UPDATE:
+                    delegate.sendUpdateNotification(task.email);
+                    break;
+                case DELETION:
+                    delegate.sendAccountDeletionEmail(task.email);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown email task: " + task.kind);
+            }
+            sentCount.increment();
+        } catch (RuntimeException e) {
+            failedCount.increment();
+        }
+    }
+
+    private void purgeExpiredUpdates() {
+        if (coalesceWindowNanos <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (now - lastPurgeNanos < coalesceWindowNanos) {
+            return;
+        }
+        lastPurgeNanos = now;
+        recentUpdates.values().removeIf(last -> now - last >= coalesceWindowNanos);
+    }
+}
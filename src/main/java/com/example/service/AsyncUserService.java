@@ -0,0 +1,126 @@
+package com.example.service;
+
+import com.example.model.User;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * UserService 的异步版本，所有操作立即返回 {@link CompletableFuture}，不阻塞调用线程
+ *
+ * <p>每个操作在线程池中调用被包装的 {@link UserService}，语义与同步版本一致。
+ * 失败时 future 直接以原始异常完成（例如 {@code UserNotFoundException}），
+ * 不会再包一层 CompletionException，{@code exceptionally}/{@code whenComplete} 拿到的就是原异常；
+ * 只有 {@code join()}/{@code get()} 会按 CompletableFuture 的约定包装。
+ *
+ * <p>未指定线程池时使用 {@link DefaultAsyncExecutor}：在 JDK 21+ 上（多版本 jar）每个操作一个虚拟线程，
+ * 大量进行中的操作不会耗尽平台线程；在 Java 11 上是固定大小的平台线程池，多出的操作排队等待。
+ */
+public class AsyncUserService implements Closeable {
+
+    private final UserService userService;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+
+    /**
+     * 使用默认线程池，{@link #close()} 时关闭
+     */
+    public AsyncUserService(UserService userService) {
+        this(userService, DefaultAsyncExecutor.create(), true);
+    }
+
+    /**
+     * @param executor 执行操作的线程池，由调用方负责关闭
+     */
+    public AsyncUserService(UserService userService, Executor executor) {
+        this(userService, executor, false);
+    }
+
+    private AsyncUserService(UserService userService, Executor executor, boolean owned) {
+        if (userService == null || executor == null) {
+            throw new IllegalArgumentException("User service and executor must not be null");
+        }
+        this.userService = userService;
+        this.executor = executor;
+        this.ownedExecutor = owned ? (ExecutorService) executor : null;
+    }
+
+    /**
+     * 默认线程池是否使用虚拟线程
+     */
+    public static boolean isVirtualThreadDefault() {
+        return DefaultAsyncExecutor.usesVirtualThreads();
+    }
+
+    /**
+     * @see UserService#register(User)
+     */
+    public CompletableFuture<User> register(User user) {
+        return submit(() -> userService.register(user));
+    }
+
+    /**
+     * @see UserService#findUser(Long)
+     */
+    public CompletableFuture<User> findUser(Long id) {
+        return submit(() -> userService.findUser(id));
+    }
+
+    /**
+     * @see UserService#updateUser(Long, User)
+     */
+    public CompletableFuture<User> updateUser(Long id, User updatedUser) {
+        return submit(() -> userService.updateUser(id, updatedUser));
+    }
+
+    /**
+     * @see UserService#deleteUser(Long)
+     */
+    public CompletableFuture<Void> deleteUser(Long id) {
+        return submit(() -> {
+            userService.deleteUser(id);
+            return null;
+        });
+    }
+
+    /**
+     * @see UserService#getUserStats(Long)
+     */
+    public CompletableFuture<UserService.UserStats> getUserStats(Long userId) {
+        return submit(() -> userService.getUserStats(userId));
+    }
+
+    /**
+     * 关闭默认线程池，已提交的操作会继续执行完；传入的线程池不受影响
+     */
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> operation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    // 调用方已取消
+                    return;
+                }
+                try {
+                    future.complete(operation.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
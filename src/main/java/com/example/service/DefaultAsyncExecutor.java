@@ -0,0 +1,31 @@
+package com.example.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AsyncUserService 的默认线程池（Java 11 版本）
+ *
+ * <p>固定数量的守护平台线程，数量为处理器数的 4 倍，超出的操作在无界队列中排队，
+ * 线程数不随进行中的操作数增长。JDK 21+ 上由 META-INF/versions/21 中的同名类替换为虚拟线程。
+ */
+final class DefaultAsyncExecutor {
+
+    private DefaultAsyncExecutor() {
+    }
+
+    static boolean usesVirtualThreads() {
+        return false;
+    }
+
+    static ExecutorService create() {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 4);
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "async-user-service-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.service;
 
+import java.util.Collection;
+
 /**
  * 邮件服务接口
  */
@@ -10,11 +12,29 @@ public interface EmailService {
      */
     void sendWelcomeEmail(String email);
 
+    /**
+     * 批量发送欢迎邮件，默认逐个发送
+     */
+    default void sendWelcomeEmails(Collection<String> emails) {
+        for (String email : emails) {
+            sendWelcomeEmail(email);
+        }
+    }
+
     /**
      * 发送更新通知
      */
     void sendUpdateNotification(String email);
 
+    /**
+     * 批量发送更新通知，默认逐个发送
+     */
+    default void sendUpdateNotifications(Collection<String> emails) {
+        for (String email : emails) {
+            sendUpdateNotification(email);
+        }
+    }
+
     /**
      * 发送账户删除邮件
      */
@@ -1,21 +1,51 @@
 package com.example.service;
 
+import com.example.counter.FollowerRank;
 import com.example.model.User;
 import com.example.repository.UserRepository;
+import com.example.repository.UserScan;
 import com.example.exception.UserNotFoundException;
 import com.example.exception.DuplicateEmailException;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
 /**
  * 用户服务类 - 用于Mockito练习
+ *
+ * <p>按 id 访问仓库时调用 {@link UserRepository} 的 {@code long} 重载（{@code findById(long)}、{@code delete(long)}、
+ * {@code getPostCount(long)}、{@code getFollowerCount(long)}），mock 仓库时需要用 {@code anyLong()}
+ * 或原始类型参数打桩，对 {@code Long} 重载的打桩不会被匹配。
  */
 public class UserService {
 
     private final UserRepository userRepository;
     private final EmailService emailService;
+    private final Executor statsExecutor;
 
     public UserService(UserRepository userRepository, EmailService emailService) {
+        this(userRepository, emailService, null);
+    }
+
+    /**
+     * @param statsExecutor 用于并行查询统计信息的线程池，为 null 时顺序查询
+     */
+    public UserService(UserRepository userRepository, EmailService emailService, Executor statsExecutor) {
         this.userRepository = userRepository;
         this.emailService = emailService;
+        this.statsExecutor = statsExecutor;
     }
 
     /**
@@ -36,10 +66,100 @@ public class UserService {
         return savedUser;
     }
 
+    /**
+     * 批量注册用户
+     *
+     * <p>一次批量查询检查邮箱是否已存在，一次批量保存，一次批量发送欢迎邮件。
+     * 与已有用户或同批次中靠前的用户邮箱重复的记录会失败，但不影响其他记录。
+     * 若批量保存失败，会逐个重新保存以定位失败的记录（依赖 save 对已分配 id 的用户幂等）。
+     *
+     * @return 每个输入用户对应一个结果，顺序与输入一致
+     */
+    public List<RegistrationResult> registerAll(Collection<User> users) {
+        List<User> input = new ArrayList<>(users);
+        RegistrationResult[] results = new RegistrationResult[input.size()];
+
+        // 同批次内去重：每个邮箱只保留第一次出现的用户
+        Set<String> batchEmails = new LinkedHashSet<>();
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < input.size(); i++) {
+            String email = input.get(i).getEmail();
+            if (batchEmails.add(email)) {
+                candidates.add(i);
+            } else {
+                results[i] = RegistrationResult.failure(input.get(i),
+                        new DuplicateEmailException("Duplicate email in batch: " + email));
+            }
+        }
+
+        // 一次查询检查已存在的邮箱
+        Set<String> existing = batchEmails.isEmpty()
+                ? Collections.emptySet()
+                : new HashSet<>(userRepository.findExistingEmails(batchEmails));
+        List<Integer> pending = new ArrayList<>(candidates.size());
+        List<User> toSave = new ArrayList<>(candidates.size());
+        for (int i : candidates) {
+            User user = input.get(i);
+            if (existing.contains(user.getEmail())) {
+                results[i] = RegistrationResult.failure(user,
+                        new DuplicateEmailException("Email already exists: " + user.getEmail()));
+            } else {
+                pending.add(i);
+                toSave.add(user);
+            }
+        }
+
+        // 批量保存，失败时逐个保存以得到每条记录的结果
+        List<String> welcomeEmails = new ArrayList<>(toSave.size());
+        if (!toSave.isEmpty()) {
+            List<User> saved = null;
+            try {
+                saved = userRepository.saveAll(toSave);
+            } catch (RuntimeException e) {
+                // 下面逐个重试
+            }
+            for (int k = 0; k < pending.size(); k++) {
+                int i = pending.get(k);
+                User savedUser;
+                if (saved != null) {
+                    savedUser = saved.get(k);
+                } else {
+                    try {
+                        savedUser = userRepository.save(toSave.get(k));
+                    } catch (RuntimeException e) {
+                        results[i] = RegistrationResult.failure(toSave.get(k), e);
+                        continue;
+                    }
+                }
+                results[i] = RegistrationResult.success(savedUser);
+                welcomeEmails.add(savedUser.getEmail());
+            }
+        }
+
+        // 批量发送欢迎邮件
+        if (!welcomeEmails.isEmpty()) {
+            emailService.sendWelcomeEmails(welcomeEmails);
+        }
+
+        List<RegistrationResult> resultList = new ArrayList<>(results.length);
+        Collections.addAll(resultList, results);
+        return resultList;
+    }
+
     /**
      * 根据ID查找用户
      */
     public User findUser(Long id) {
+        if (id == null) {
+            throw new UserNotFoundException("User not found with id: null");
+        }
+        return findUser(id.longValue());
+    }
+
+    /**
+     * 根据ID查找用户（原始类型，查找过程不装箱）
+     */
+    public User findUser(long id) {
         User user = userRepository.findById(id);
         if (user == null) {
             throw new UserNotFoundException("User not found with id: " + id);
@@ -47,10 +167,55 @@ public class UserService {
         return user;
     }
 
+    /**
+     * 按 id 升序返回 id 大于 afterId 的至多 limit 个用户，用于游标分页
+     *
+     * @see UserRepository#findPage(long, int)
+     */
+    public List<User> listUsers(long afterId, int limit) {
+        return userRepository.findPage(afterId, limit);
+    }
+
+    /**
+     * 逐页流式读取所有用户，供重建索引、批量发邮件等离线任务使用
+     *
+     * @see UserRepository#scan(long, int)
+     */
+    public Stream<User> scanUsers() {
+        return scanUsers(0, UserScan.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * @param afterId  从 id 大于该值的用户开始，0 表示从头开始
+     * @param pageSize 每次从仓库读取的用户数
+     */
+    public Stream<User> scanUsers(long afterId, int pageSize) {
+        return userRepository.scan(afterId, pageSize);
+    }
+
+    /**
+     * 按名字前缀查找用户，用于后台管理与输入联想
+     *
+     * @see UserRepository#findByNamePrefix(String, int)
+     */
+    public List<User> searchUsersByName(String prefix, int limit) {
+        return userRepository.findByNamePrefix(prefix, limit);
+    }
+
     /**
      * 更新用户信息
      */
     public User updateUser(Long id, User updatedUser) {
+        if (id == null) {
+            throw new UserNotFoundException("User not found with id: null");
+        }
+        return updateUser(id.longValue(), updatedUser);
+    }
+
+    /**
+     * 更新用户信息（原始类型）
+     */
+    public User updateUser(long id, User updatedUser) {
         User existingUser = findUser(id);
 
         existingUser.setName(updatedUser.getName());
@@ -68,6 +233,16 @@ public class UserService {
      * 删除用户
      */
     public void deleteUser(Long id) {
+        if (id == null) {
+            throw new UserNotFoundException("User not found with id: null");
+        }
+        deleteUser(id.longValue());
+    }
+
+    /**
+     * 删除用户（原始类型）
+     */
+    public void deleteUser(long id) {
         User user = findUser(id);
 
         // 发送账户删除通知
@@ -79,13 +254,161 @@ public class UserService {
 
     /**
      * 获取用户统计信息
+     *
+     * <p>配置了统计线程池时，发帖数与粉丝数在线程池中查询，与查找用户同时进行。
      */
     public UserStats getUserStats(Long userId) {
-        User user = findUser(userId);
-        int postCount = userRepository.getPostCount(userId);
-        int followerCount = userRepository.getFollowerCount(userId);
+        if (userId == null) {
+            throw new UserNotFoundException("User not found with id: null");
+        }
+        return getUserStats(userId.longValue());
+    }
 
-        return new UserStats(user, postCount, followerCount);
+    /**
+     * 获取用户统计信息（原始类型）
+     */
+    public UserStats getUserStats(long userId) {
+        if (statsExecutor == null) {
+            User user = findUser(userId);
+            int postCount = userRepository.getPostCount(userId);
+            int followerCount = userRepository.getFollowerCount(userId);
+
+            return new UserStats(user, postCount, followerCount);
+        }
+
+        CompletableFuture<Integer> postCount =
+                CompletableFuture.supplyAsync(() -> userRepository.getPostCount(userId), statsExecutor);
+        CompletableFuture<Integer> followerCount =
+                CompletableFuture.supplyAsync(() -> userRepository.getFollowerCount(userId), statsExecutor);
+        User user;
+        try {
+            user = findUser(userId);
+        } catch (RuntimeException e) {
+            postCount.cancel(false);
+            followerCount.cancel(false);
+            throw e;
+        }
+        return new UserStats(user, join(postCount), join(followerCount));
+    }
+
+    /**
+     * 批量获取用户统计信息，并行度为可用处理器数
+     *
+     * @see #getUserStatsBatch(Collection, int)
+     */
+    public Map<Long, UserStats> getUserStatsBatch(Collection<Long> userIds) {
+        return getUserStatsBatch(userIds, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 批量获取用户统计信息
+     *
+     * <p>最多 maxParallelism 个任务（包括调用线程）同时从 id 列表中领取用户并查询，
+     * 单个用户的查询在同一任务内顺序完成，不会在线程池内再次提交任务。
+     * 未配置统计线程池时顺序查询。
+     *
+     * @return 按输入顺序排列的统计信息，不存在的用户会被跳过
+     */
+    public Map<Long, UserStats> getUserStatsBatch(Collection<Long> userIds, int maxParallelism) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(userIds));
+        UserStats[] stats = new UserStats[ids.size()];
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            int i;
+            while ((i = next.getAndIncrement()) < ids.size()) {
+                try {
+                    Long id = ids.get(i);
+                    stats[i] = id == null ? null : loadStats(id);
+                } catch (RuntimeException e) {
+                    next.set(ids.size());
+                    throw e;
+                }
+            }
+        };
+
+        int workers = statsExecutor == null ? 1 : Math.max(1, Math.min(maxParallelism, ids.size()));
+        List<CompletableFuture<Void>> futures = new ArrayList<>(workers - 1);
+        for (int w = 1; w < workers; w++) {
+            futures.add(CompletableFuture.runAsync(worker, statsExecutor));
+        }
+        RuntimeException failure = null;
+        try {
+            worker.run();
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                join(future);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+
+        Map<Long, UserStats> result = new LinkedHashMap<>();
+        for (int i = 0; i < stats.length; i++) {
+            if (stats[i] != null) {
+                result.put(ids.get(i), stats[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 粉丝数最多的 k 个用户的统计信息，按名次排列
+     *
+     * <p>排行榜由仓库随粉丝数变化增量维护，这里只读取上榜的 k 个用户，不遍历全部用户。
+     * 读取期间被删除的用户会被跳过。
+     *
+     * @see UserRepository#topByFollowers(int)
+     */
+    public List<UserStats> topByFollowers(int k) {
+        List<FollowerRank> ranks = userRepository.topByFollowers(k);
+        List<UserStats> result = new ArrayList<>(ranks.size());
+        for (FollowerRank rank : ranks) {
+            UserStats stats = loadStats(rank.getUserId());
+            if (stats != null) {
+                result.add(stats);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 用户在粉丝数排行榜中的名次，从 1 开始；没有粉丝的用户返回 0
+     *
+     * @see UserRepository#rankOf(long)
+     */
+    public long rankOf(long userId) {
+        return userRepository.rankOf(userId);
+    }
+
+    private UserStats loadStats(long userId) {
+        User user = userRepository.findById(userId);
+        if (user == null) {
+            return null;
+        }
+        return new UserStats(user, userRepository.getPostCount(userId), userRepository.getFollowerCount(userId));
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
     }
 
     /**
@@ -107,4 +430,32 @@ public class UserService {
         public int getPostCount() { return postCount; }
         public int getFollowerCount() { return followerCount; }
     }
-}
\ No newline at end of file
+
+    /**
+     * 批量注册中单个用户的结果
+     */
+    public static class RegistrationResult {
+        private final User user;
+        private final RuntimeException error;
+
+        private RegistrationResult(User user, RuntimeException error) {
+            this.user = user;
+            this.error = error;
+        }
+
+        public static RegistrationResult success(User savedUser) {
+            return new RegistrationResult(savedUser, null);
+        }
+
+        public static RegistrationResult failure(User user, RuntimeException error) {
+            return new RegistrationResult(user, error);
+        }
+
+        /**
+         * 成功时为保存后的用户，失败时为输入的用户
+         */
+        public User getUser() { return user; }
+        public RuntimeException getError() { return error; }
+        public boolean isSuccess() { return error == null; }
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.service;
+
+import com.example.exception.DuplicateEmailException;
+import com.example.exception.UserNotFoundException;
+import com.example.model.User;
+import com.example.repository.UserRepository;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 延迟写回（write-behind）模式的用户服务，用于同一用户被频繁更新的场景
+ *
+ * <p>{@link #updateUser} 只把新版本放入内存中的待写回表并立即返回，
+ * 同一用户在两次写回之间的多次更新只保留最新版本。后台线程每隔 flushInterval，
+ * 或待写回用户数达到 maxPending 时，把每个用户的最新版本批量交给 {@link UserRepository#saveAll}，
+ * 并为本次写回的所有用户调用一次 {@link EmailService#sendUpdateNotifications}。
+ *
+ * <ul>
+ *     <li>{@link #findUser} 与 {@link #getUserStats(long)} 优先读取待写回的版本，总能看到最新的更新</li>
+ *     <li>{@link #deleteUser} 会丢弃该用户待写回的版本，删除邮件发往最新的邮箱</li>
+ *     <li>{@link #close} 停止后台线程并写回剩余的版本，之后的更新会抛出 {@link IllegalStateException}</li>
+ * </ul>
+ *
+ * <p>更新时只检查邮箱是否已被仓库中的其他用户占用；两个待写回版本改成同一邮箱时，
+ * 写回时仓库拒绝的版本会被丢弃并计入 {@link #getFailedCount()}，之后读到的是仓库中的版本。
+ * 分页、流式读取、按名字查询和批量统计直接读仓库，看不到尚未写回的版本。
+ */
+public class WriteBehindUserService extends UserService implements Closeable {
+
+    private final UserRepository userRepository;
+    private final EmailService emailService;
+    private final long flushIntervalNanos;
+    private final int maxPending;
+    private final ConcurrentHashMap<Long, User> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    private final LongAdder updateCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder flushedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+
+    public WriteBehindUserService(UserRepository userRepository, EmailService emailService) {
+        this(userRepository, emailService, Duration.ofSeconds(1), 10_000);
+    }
+
+    /**
+     * @param flushInterval 定时写回的间隔
+     * @param maxPending    待写回用户数达到该值时提前写回
+     */
+    public WriteBehindUserService(UserRepository userRepository, EmailService emailService,
+                                  Duration flushInterval, int maxPending) {
+        super(userRepository, emailService);
+        if (flushInterval.isNegative() || flushInterval.isZero() || maxPending <= 0) {
+            throw new IllegalArgumentException("Flush interval and max pending must be positive");
+        }
+        this.userRepository = userRepository;
+        this.emailService = emailService;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.maxPending = maxPending;
+        this.flusher = new Thread(this::flushLoop, "user-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * 根据ID查找用户，存在待写回的版本时返回该版本
+     */
+    @Override
+    public User findUser(long id) {
+        User version = pending.get(id);
+        if (version != null) {
+            return copyOf(version);
+        }
+        return super.findUser(id);
+    }
+
+    /**
+     * 更新用户信息，只更新内存中的版本，由后台线程写回
+     *
+     * @throws UserNotFoundException   用户不存在
+     * @throws DuplicateEmailException 新邮箱已被仓库中的其他用户占用
+     */
+    @Override
+    public User updateUser(long id, User updatedUser) {
+        if (!running) {
+            throw new IllegalStateException("Write-behind user service is closed");
+        }
+        User version = new User(id, updatedUser.getName(), updatedUser.getEmail());
+        // 仓库查询放在待写回表之外，慢仓库不会占住表的桶锁；安装时核对依据的版本没有变化，否则重新检查
+        while (true) {
+            User current = pending.get(id);
+            User base = current != null ? current : userRepository.findById(id);
+            if (base == null) {
+                throw new UserNotFoundException("User not found with id: " + id);
+            }
+            String email = version.getEmail();
+            if (email != null && !email.equals(base.getEmail()) && userRepository.existsByEmail(email)) {
+                throw new DuplicateEmailException("Email already exists: " + email);
+            }
+            if (current != null) {
+                if (pending.replace(id, current, version)) {
+                    coalescedCount.increment();
+                    break;
+                }
+            } else if (pending.putIfAbsent(id, version) == null) {
+                // 查询仓库之后用户可能已被删除：删除先删仓库再清待写回表，这里再确认一次
+                if (userRepository.findById(id) == null) {
+                    pending.remove(id, version);
+                    throw new UserNotFoundException("User not found with id: " + id);
+                }
+                break;
+            }
+        }
+        updateCount.increment();
+
+        if (!running) {
+            // 与 close 并发时，close 的最后一次写回可能已经结束
+            flush();
+        } else if (pending.size() >= maxPending) {
+            LockSupport.unpark(flusher);
+        }
+        return copyOf(version);
+    }
+
+    /**
+     * 删除用户，同时丢弃该用户待写回的版本
+     */
+    @Override
+    public void deleteUser(long id) {
+        // 与写回互斥，避免正在写回的版本在删除后重新写入仓库
+        flushLock.lock();
+        try {
+            super.deleteUser(id);
+            pending.remove(id);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 立即写回所有待写回的版本
+     *
+     * <p>批量保存失败时逐个重新保存（依赖 save 对已有 id 的用户幂等），
+     * 仍然失败的版本被丢弃。写回期间又被更新的用户保留新版本，留到下一次写回。
+     *
+     * @return 本次写回的用户数
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            List<User> versions = new ArrayList<>(pending.values());
+            List<User> toSave = new ArrayList<>(versions.size());
+            for (User version : versions) {
+                toSave.add(copyOf(version));
+            }
+
+            boolean batchSaved;
+            try {
+                userRepository.saveAll(toSave);
+                batchSaved = true;
+            } catch (RuntimeException e) {
+                // 下面逐个重试
+                batchSaved = false;
+            }
+
+            List<String> notifications = new ArrayList<>(versions.size());
+            for (int i = 0; i < versions.size(); i++) {
+                User version = versions.get(i);
+                if (!batchSaved) {
+                    try {
+                        userRepository.save(toSave.get(i));
+                    } catch (RuntimeException e) {
+                        pending.remove(version.getId(), version);
+                        failedCount.increment();
+                        continue;
+                    }
+                }
+                // 先保存再移除，移除前读者从待写回表读到的与仓库中的相同
+                pending.remove(version.getId(), version);
+                notifications.add(version.getEmail());
+            }
+            flushedCount.add(notifications.size());
+
+            if (!notifications.isEmpty()) {
+                emailService.sendUpdateNotifications(notifications);
+            }
+            return notifications.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 停止后台写回线程，并写回剩余的版本
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(flusher);
+        boolean interrupted = false;
+        while (flusher.isAlive()) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * 尚未写回的用户数
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getUpdateCount() {
+        return updateCount.sum();
+    }
+
+    /**
+     * 覆盖了尚未写回的版本、因此没有单独写回的更新次数
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    public long getFlushedCount() {
+        return flushedCount.sum();
+    }
+
+    /**
+     * 写回时被仓库拒绝而丢弃的版本数，以及后台写回时发送通知失败的次数
+     */
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    private void flushLoop() {
+        while (running) {
+            LockSupport.parkNanos(this, flushIntervalNanos);
+            if (!running) {
+                // 最后一次写回由 close 完成
+                return;
+            }
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                failedCount.increment();
+            }
+        }
+    }
+
+    private static User copyOf(User user) {
+        return new User(user.getId(), user.getName(), user.getEmail());
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * AsyncUserService 的默认线程池（JDK 21+ 版本）
+ *
+ * <p>每个操作一个虚拟线程，阻塞在仓库或邮件调用上时不占用平台线程。
+ */
+final class DefaultAsyncExecutor {
+
+    private DefaultAsyncExecutor() {
+    }
+
+    static boolean usesVirtualThreads() {
+        return true;
+    }
+
+    static ExecutorService create() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("async-user-service-", 0).factory());
+    }
+}
@@ -139,6 +139,94 @@ class CalculatorTest {
         }
     }
 
+    @Nested
+    @DisplayName("数组批量运算")
+    class ArrayOperationsTest {
+
+        @Test
+        @DisplayName("逐元素结果与标量运算一致")
+        void testMatchesScalar() {
+            // Given
+            int[] a = {1, -2, 300, Integer.MAX_VALUE, 7};
+            int[] b = {4, 5, -6, 1, 7};
+            int[] sum = new int[a.length];
+            int[] product = new int[a.length];
+            int[] squares = new int[a.length];
+            double[] quotient = new double[a.length];
+
+            // When
+            calculator.add(a, b, sum);
+            calculator.multiply(a, b, product);
+            calculator.square(a, squares);
+            calculator.divide(a, b, quotient);
+
+            // Then
+            for (int i = 0; i < a.length; i++) {
+                assertEquals(calculator.add(a[i], b[i]), sum[i]);
+                assertEquals(calculator.multiply(a[i], b[i]), product[i]);
+                assertEquals(calculator.square(a[i]), squares[i]);
+                assertEquals(calculator.divide(a[i], b[i]), quotient[i]);
+            }
+        }
+
+        @Test
+        @DisplayName("除数为0时按策略处理")
+        void testZeroDivisorPolicy() {
+            int[] a = {6, -1, 0};
+            int[] b = {3, 0, 0};
+            double[] out = {-1, -1, -1};
+
+            ArithmeticException exception = assertThrows(ArithmeticException.class,
+                () -> calculator.divide(a, b, out));
+            assertEquals("Division by zero at index 1", exception.getMessage());
+            assertArrayEquals(new double[]{-1, -1, -1}, out, "抛出异常时不修改输出");
+
+            calculator.divide(a, b, out, Calculator.ZeroDivisorPolicy.IEEE);
+            assertArrayEquals(new double[]{2, Double.NEGATIVE_INFINITY, Double.NaN}, out);
+
+            calculator.divide(a, b, out, Calculator.ZeroDivisorPolicy.ZERO);
+            assertArrayEquals(new double[]{2, 0, 0}, out);
+        }
+
+        @Test
+        @DisplayName("数组平方根遇到负数时抛出异常")
+        void testSqrt() {
+            double[] out = new double[3];
+            calculator.sqrt(new double[]{4, 9, 2.25}, out);
+            assertArrayEquals(new double[]{2, 3, 1.5}, out);
+
+            assertThrows(IllegalArgumentException.class,
+                () -> calculator.sqrt(new double[]{1, -1}, new double[2]));
+        }
+
+        @Test
+        @DisplayName("溢出检查版本在溢出时抛出异常")
+        void testExactVariants() {
+            int[] out = new int[2];
+            calculator.addExact(new int[]{1, 2}, new int[]{3, 4}, out);
+            assertArrayEquals(new int[]{4, 6}, out);
+
+            assertThrows(ArithmeticException.class,
+                () -> calculator.addExact(new int[]{1, Integer.MAX_VALUE}, new int[]{1, 1}, new int[2]));
+            assertThrows(ArithmeticException.class,
+                () -> calculator.subtractExact(new int[]{Integer.MIN_VALUE}, new int[]{1}, new int[1]));
+            assertThrows(ArithmeticException.class,
+                () -> calculator.multiplyExact(new int[]{1 << 16}, new int[]{1 << 16}, new int[1]));
+            assertThrows(ArithmeticException.class,
+                () -> calculator.squareExact(new int[]{-46341}, new int[1]));
+            assertDoesNotThrow(() -> calculator.squareExact(new int[]{-46340}, new int[1]));
+        }
+
+        @Test
+        @DisplayName("数组长度不一致时抛出异常")
+        void testLengthMismatch() {
+            assertThrows(IllegalArgumentException.class,
+                () -> calculator.add(new int[2], new int[3], new int[3]));
+            assertThrows(IllegalArgumentException.class,
+                () -> calculator.add(new int[3], new int[3], new int[2]));
+        }
+    }
+
     @AfterEach
     void tearDown() {
         System.out.println("清理测试环境");
@@ -0,0 +1,121 @@
+package com.example;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reductions / StatsAccumulator测试类
+ */
+@DisplayName("聚合计算测试")
+class ReductionsTest {
+
+    @Test
+    @DisplayName("小数据的各项统计量")
+    void testBasicStatistics() {
+        // When
+        StatsAccumulator stats = Reductions.of(new int[]{2, 4, 4, 4, 5, 5, 7, 9});
+
+        // Then
+        assertEquals(8, stats.getCount());
+        assertEquals(40, stats.getSum());
+        assertEquals(5, stats.getMean());
+        assertEquals(4, stats.getVariance(), 1e-12);
+        assertEquals(2, stats.getStandardDeviation(), 1e-12);
+        assertEquals(32.0 / 7, stats.getSampleVariance(), 1e-12);
+        assertEquals(232, stats.getSumOfSquares());
+        assertEquals(2, stats.getMin());
+        assertEquals(9, stats.getMax());
+    }
+
+    @Test
+    @DisplayName("空输入")
+    void testEmpty() {
+        StatsAccumulator stats = Reductions.of(new double[0]).combine(new StatsAccumulator());
+
+        assertEquals(0, stats.getCount());
+        assertEquals(0, stats.getMean());
+        assertEquals(0, stats.getVariance());
+        assertTrue(Double.isNaN(stats.getSampleVariance()));
+        assertEquals(Double.POSITIVE_INFINITY, stats.getMin());
+    }
+
+    @Test
+    @DisplayName("补偿求和与Welford算法保持精度")
+    void testNumericalStability() {
+        // 大数加上许多小数：朴素求和会丢失全部小数
+        double[] values = new double[10_001];
+        values[0] = 1e16;
+        Arrays.fill(values, 1, values.length, 1.0);
+        assertEquals(1e16 + 10_000, Reductions.of(values).getSum());
+
+        // 均值很大、方差很小：朴素的 E[x²] - E[x]² 会严重抵消
+        double[] shifted = {1e9 + 4, 1e9 + 7, 1e9 + 13, 1e9 + 16};
+        assertEquals(22.5, Reductions.of(shifted).getVariance(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("并行结果与顺序结果在误差范围内一致")
+    void testParallelMatchesSequential() {
+        Random random = new Random(11);
+        double[] values = new double[Reductions.SPLIT_THRESHOLD * 20 + 3];
+        double absSum = 0;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (random.nextDouble() - 0.3) * Math.pow(10, random.nextInt(6));
+            absSum += Math.abs(values[i]);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            StatsAccumulator sequential = Reductions.of(values);
+            StatsAccumulator parallel = Reductions.parallel(values, pool);
+
+            double sumBound = 4 * Math.ulp(1.0) * absSum;
+            assertEquals(sequential.getCount(), parallel.getCount());
+            assertEquals(sequential.getSum(), parallel.getSum(), sumBound);
+            assertEquals(sequential.getMean(), parallel.getMean(), sumBound / values.length);
+            assertEquals(sequential.getVariance(), parallel.getVariance(), sequential.getVariance() * 1e-12);
+            assertEquals(sequential.getMin(), parallel.getMin());
+            assertEquals(sequential.getMax(), parallel.getMax());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("流与分块迭代器")
+    void testStreamsAndChunks() {
+        StatsAccumulator expected = Reductions.of(IntStream.rangeClosed(1, 100_000));
+
+        StatsAccumulator fromParallelStream = Reductions.of(IntStream.rangeClosed(1, 100_000).parallel());
+        List<double[]> chunks = new ArrayList<>();
+        for (int start = 1; start <= 100_000; start += 7_000) {
+            chunks.add(IntStream.range(start, Math.min(start + 7_000, 100_001)).asDoubleStream().toArray());
+        }
+        StatsAccumulator fromChunks = Reductions.ofChunks(chunks.iterator());
+        ForkJoinPool pool = new ForkJoinPool(2);
+        StatsAccumulator fromParallelChunks;
+        try {
+            fromParallelChunks = Reductions.parallelChunks(chunks.iterator(), pool, 3);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(5_000_050_000.0, expected.getSum());
+        for (StatsAccumulator actual : Arrays.asList(fromParallelStream, fromChunks, fromParallelChunks)) {
+            assertEquals(expected.getCount(), actual.getCount());
+            assertEquals(expected.getSum(), actual.getSum());
+            assertEquals(expected.getMean(), actual.getMean(), 1e-9);
+            assertEquals(expected.getVariance(), actual.getVariance(), expected.getVariance() * 1e-12);
+            assertEquals(1, actual.getMin());
+            assertEquals(100_000, actual.getMax());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.cache;
+
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SegmentedLruCache测试类
+ */
+@DisplayName("分段LRU缓存测试")
+class SegmentedLruCacheTest {
+
+    @Test
+    @DisplayName("读穿透加载并统计命中与未命中")
+    void testReadThrough() {
+        // Given
+        SegmentedLruCache<Integer, String> cache = new SegmentedLruCache<>(10);
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        String first = cache.get(1, key -> "v" + loads.incrementAndGet());
+        String second = cache.get(1, key -> "v" + loads.incrementAndGet());
+
+        // Then
+        assertEquals("v1", first);
+        assertEquals("v1", second);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().getHitCount());
+        assertEquals(1, cache.stats().getMissCount());
+        assertEquals(0.5, cache.stats().getHitRate(), 0.001);
+    }
+
+    @Test
+    @DisplayName("只访问一次的条目先于热点条目被淘汰")
+    void testScanResistance() {
+        // Given - 64 个条目分成 16 个分片，每个分片容量为 4；16 的倍数都落在同一分片
+        SegmentedLruCache<Integer, Integer> cache = new SegmentedLruCache<>(64);
+        cache.put(0, 0);
+        cache.getIfPresent(0);
+
+        // When - 一次性扫描大量只访问一次的条目
+        for (int i = 1; i <= 20; i++) {
+            cache.put(i * 16, i);
+        }
+
+        // Then - 被访问过两次的热点条目仍然保留
+        assertEquals(Integer.valueOf(0), cache.getIfPresent(0));
+        assertNull(cache.getIfPresent(16));
+        assertEquals(17, cache.stats().getEvictionCount());
+    }
+
+    @Test
+    @DisplayName("失效后进行中的加载不会写回旧值")
+    void testInvalidateDuringLoad() {
+        SegmentedLruCache<Integer, String> cache = new SegmentedLruCache<>(10);
+
+        String loaded = cache.get(1, key -> {
+            // 加载期间发生写入并失效
+            cache.invalidate(1);
+            return "stale";
+        });
+
+        assertEquals("stale", loaded);
+        assertNull(cache.getIfPresent(1), "旧值不应被写入缓存");
+    }
+
+    @Test
+    @DisplayName("条目在TTL之后过期")
+    void testTtl() {
+        AtomicLong now = new AtomicLong();
+        SegmentedLruCache<Integer, String> cache = new SegmentedLruCache<>(10, Duration.ofMillis(20), now::get);
+        cache.put(1, "v");
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(19));
+        assertEquals("v", cache.getIfPresent(1));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+
+        assertNull(cache.getIfPresent(1));
+        assertEquals(1, cache.stats().getExpirationCount());
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.codec;
+
+import com.example.model.User;
+import com.example.service.UserService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UserCodec测试类
+ */
+@DisplayName("用户二进制编解码测试")
+class UserCodecTest {
+
+    @Test
+    @DisplayName("堆缓冲区与直接缓冲区往返编解码")
+    void testRoundTrip() {
+        User[] users = {
+            new User(1L, "Tom", "tom@example.com"),
+            new User(-42L, "Zoë 张三 😀", "zoe@例子.cn"),
+            new User(Long.MAX_VALUE, "", null),
+            new User(null, null, null)
+        };
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(256), ByteBuffer.allocateDirect(256)}) {
+            for (User user : users) {
+                buffer.clear();
+                UserCodec.encode(user, buffer);
+                assertEquals(UserCodec.encodedSize(user), buffer.position());
+
+                buffer.flip();
+                User decoded = UserCodec.decodeUser(buffer);
+
+                assertFalse(buffer.hasRemaining());
+                assertUser(user, decoded);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("视图按需读取连续存放的多条记录")
+    void testViewOverConsecutiveRecords() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+        for (long id = 1; id <= 10; id++) {
+            UserCodec.encode(new User(id, "user-" + id, "user" + id + "@example.com"), buffer);
+        }
+        buffer.flip();
+
+        UserView view = new UserView();
+        int index = 0;
+        for (long id = 1; id <= 10; id++) {
+            view.wrap(buffer, index);
+            assertEquals(id, view.id());
+            assertTrue(view.nameEquals("user-" + id));
+            assertFalse(view.nameEquals("user-" + id + "x"));
+            assertEquals("user" + id + "@example.com", view.email());
+            index += view.encodedLength();
+        }
+        assertEquals(buffer.limit(), index);
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    @DisplayName("视图按字节比较多字节字符与空值")
+    void testViewEquals() {
+        ByteBuffer buffer = ByteBuffer.allocate(128);
+        UserCodec.encode(new User(7L, "李雷 😀", null), buffer);
+        buffer.flip();
+
+        UserView view = new UserView().wrap(buffer);
+
+        assertTrue(view.hasId());
+        assertTrue(view.nameEquals("李雷 😀"));
+        assertFalse(view.nameEquals("李雷 😁"));
+        assertFalse(view.nameEquals("李雷"));
+        assertFalse(view.nameEquals(null));
+        assertFalse(view.hasEmail());
+        assertTrue(view.emailEquals(null));
+        assertFalse(view.emailEquals(""));
+    }
+
+    @Test
+    @DisplayName("用户统计往返编解码")
+    void testUserStatsRoundTrip() {
+        UserService.UserStats stats = new UserService.UserStats(new User(3L, "Jerry", "jerry@example.com"), 12, 3456);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(UserCodec.encodedSize(stats));
+
+        UserCodec.encode(stats, buffer);
+        buffer.flip();
+        UserStatsView view = new UserStatsView().wrap(buffer);
+        UserService.UserStats decoded = UserCodec.decodeUserStats(buffer);
+
+        assertEquals(12, view.postCount());
+        assertEquals(3456, view.followerCount());
+        assertTrue(view.user().nameEquals("Jerry"));
+        assertEquals(12, decoded.getPostCount());
+        assertEquals(3456, decoded.getFollowerCount());
+        assertUser(stats.getUser(), decoded.getUser());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    @DisplayName("空间不足时不写入任何字节")
+    void testOverflowLeavesBufferUntouched() {
+        User user = new User(1L, "Tom", "tom@example.com");
+        ByteBuffer buffer = ByteBuffer.allocate(UserCodec.encodedSize(user) - 1);
+
+        assertThrows(BufferOverflowException.class, () -> UserCodec.encode(user, buffer));
+        assertEquals(0, buffer.position());
+        assertEquals(0, buffer.get(0));
+    }
+
+    @Test
+    @DisplayName("不支持的版本与截断的数据")
+    void testInvalidInput() {
+        ByteBuffer unknown = ByteBuffer.wrap(new byte[]{99, 0});
+        assertThrows(IllegalStateException.class, () -> UserCodec.decodeUser(unknown));
+
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        UserCodec.encode(new User(1L, "Tom", "tom@example.com"), buffer);
+        buffer.flip();
+        buffer.limit(buffer.limit() - 3);
+        assertThrows(BufferUnderflowException.class, () -> UserCodec.decodeUser(buffer));
+        assertEquals(0, buffer.position());
+
+        // 名字长度是最高位为 1 的 10 字节变长整数，解码为负数
+        byte[] negative = {UserCodec.VERSION, (byte) UserCodec.HAS_NAME,
+            -1, -1, -1, -1, -1, -1, -1, -1, -1, 1, 'x'};
+        assertThrows(IllegalStateException.class, () -> UserCodec.decodeUser(ByteBuffer.wrap(negative)));
+        // 超出 int 范围的长度
+        byte[] tooLong = {UserCodec.VERSION, (byte) UserCodec.HAS_NAME, -128, -128, -128, -128, 16, 'x'};
+        assertThrows(IllegalStateException.class, () -> UserCodec.decodeUser(ByteBuffer.wrap(tooLong)));
+    }
+
+    private static void assertUser(User expected, User actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getEmail(), actual.getEmail());
+    }
+}
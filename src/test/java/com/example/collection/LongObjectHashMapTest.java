@@ -0,0 +1,126 @@
+package com.example.collection;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LongObjectHashMap / ConcurrentLongObjectHashMap测试类
+ */
+@DisplayName("long键哈希表测试")
+class LongObjectHashMapTest {
+
+    @Test
+    @DisplayName("基本的增删查与扩容")
+    void testPutGetRemove() {
+        // Given
+        LongObjectHashMap<String> map = new LongObjectHashMap<>(4);
+
+        // When
+        for (long i = 0; i < 1000; i++) {
+            map.put(i, "v" + i);
+        }
+
+        // Then
+        assertEquals(1000, map.size());
+        assertEquals("v500", map.get(500));
+        assertNull(map.get(1000));
+        assertEquals("v500", map.put(500, "new"));
+        assertEquals("new", map.remove(500));
+        assertNull(map.get(500));
+        assertEquals(999, map.size());
+        assertThrows(NullPointerException.class, () -> map.put(1, null));
+    }
+
+    @Test
+    @DisplayName("随机增删结果与HashMap一致（验证删除后移）")
+    void testMatchesHashMap() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            // 键范围较小，保证频繁冲突与删除
+            long key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                long value = random.nextLong();
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        int[] visited = {0};
+        map.forEach((key, value) -> {
+            assertEquals(expected.get(key), value);
+            visited[0]++;
+        });
+        assertEquals(expected.size(), visited[0]);
+    }
+
+    @Test
+    @DisplayName("并发写入不同键后全部可读")
+    void testConcurrentPutAndGet() throws Exception {
+        ConcurrentLongObjectHashMap<Long> map = new ConcurrentLongObjectHashMap<>(16, 4);
+        int threads = 4;
+        int perThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                long offset = (long) t * perThread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (long k = offset; k < offset + perThread; k++) {
+                        map.put(k, k);
+                        // 读取自己刚写入的键，与其他线程触发的扩容交错
+                        assertEquals(Long.valueOf(k), map.get(k));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(20, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * perThread, map.size());
+        for (long k = 0; k < threads * perThread; k++) {
+            assertEquals(Long.valueOf(k), map.get(k));
+        }
+    }
+
+    @Test
+    @DisplayName("computeIfAbsent只创建一次，forEach回调中可以修改表")
+    void testComputeIfAbsentAndForEach() {
+        ConcurrentLongObjectHashMap<StringBuilder> map = new ConcurrentLongObjectHashMap<>();
+        StringBuilder first = map.computeIfAbsent(7, k -> new StringBuilder("a"));
+        StringBuilder second = map.computeIfAbsent(7, k -> new StringBuilder("b"));
+        map.put(8, new StringBuilder("c"));
+
+        assertSame(first, second);
+        map.forEach((key, value) -> map.remove(key));
+        assertTrue(map.isEmpty());
+        assertFalse(map.remove(7, first));
+    }
+}
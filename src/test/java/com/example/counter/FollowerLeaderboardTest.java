@@ -0,0 +1,289 @@
+package com.example.counter;
+
+import com.example.model.User;
+import com.example.repository.InMemoryUserRepository;
+import com.example.service.EmailService;
+import com.example.service.UserService;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * FollowerLeaderboard测试类
+ */
+@DisplayName("粉丝数排行榜测试")
+class FollowerLeaderboardTest {
+
+    private UserCounterStore store;
+    private FollowerLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        store = new UserCounterStore(true);
+        leaderboard = store.followerLeaderboard();
+    }
+
+    @Test
+    @DisplayName("按粉丝数降序、ID升序排列")
+    void testTopAndRank() {
+        // Given
+        store.addFollowers(1L, 10);
+        store.addFollowers(2L, 30);
+        store.addFollowers(3L, 20);
+        store.addFollowers(4L, 20);
+        store.addPosts(5L, 100);
+
+        // When
+        List<FollowerRank> top = leaderboard.top(3);
+
+        // Then
+        assertEquals(List.of(2L, 3L, 4L), userIds(top));
+        assertEquals(List.of(1L, 2L, 3L), top.stream().map(FollowerRank::getRank).collect(Collectors.toList()));
+        assertEquals(30, top.get(0).getFollowerCount());
+        assertEquals(4, leaderboard.rankOf(1L));
+        assertEquals(3, leaderboard.rankOf(4L));
+        assertEquals(0, leaderboard.rankOf(5L));
+        assertEquals(4, leaderboard.top(100).size());
+    }
+
+    @Test
+    @DisplayName("粉丝数变化与删除用户时增量更新")
+    void testIncrementalUpdates() {
+        store.addFollowers(1L, 10);
+        store.addFollowers(2L, 20);
+
+        store.addFollowers(1L, 15);
+        assertEquals(1, leaderboard.rankOf(1L));
+        assertEquals(2, leaderboard.rankOf(2L));
+
+        store.addFollowers(1L, -25);
+        assertEquals(0, leaderboard.rankOf(1L));
+        assertEquals(1, leaderboard.size());
+
+        store.remove(2L);
+        assertEquals(0, leaderboard.size());
+        assertTrue(leaderboard.top(10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("关闭排行榜时不支持查询")
+    void testDisabled() {
+        UserCounterStore plain = new UserCounterStore(false);
+
+        assertThrows(UnsupportedOperationException.class, plain::followerLeaderboard);
+        assertThrows(UnsupportedOperationException.class,
+            () -> new InMemoryUserRepository(plain).topByFollowers(10));
+    }
+
+    @Test
+    @DisplayName("默认开启排行榜")
+    void testEnabledByDefault() {
+        InMemoryUserRepository repository = new InMemoryUserRepository();
+        UserService userService = new UserService(repository, mock(EmailService.class));
+        User tom = userService.register(new User(null, "Tom", "tom@example.com"));
+        repository.counters().addFollowers(tom.getId(), 3);
+
+        assertEquals(1, userService.rankOf(tom.getId()));
+        assertEquals(1, userService.topByFollowers(10).size());
+    }
+
+    @Test
+    @DisplayName("粉丝数减少后名次按新粉丝数计算")
+    void testRankAfterDecrease() {
+        store.addFollowers(1L, 10);
+        store.addFollowers(2L, 7);
+        assertEquals(1, leaderboard.rankOf(1L));
+
+        store.addFollowers(1L, -5);
+
+        assertEquals(2, leaderboard.rankOf(1L));
+        assertEquals(1, leaderboard.rankOf(2L));
+        assertEquals(List.of(2L, 1L), userIds(leaderboard.top(10)));
+    }
+
+    @Test
+    @DisplayName("并发写入后与计数器一致，读取不阻塞且始终有序")
+    void testConcurrentWriters() throws Exception {
+        int users = 200;
+        int writers = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            Future<?> reader = executor.submit(() -> {
+                while (writing.get()) {
+                    List<FollowerRank> top = leaderboard.top(50);
+                    for (int i = 1; i < top.size(); i++) {
+                        assertTrue(top.get(i - 1).getFollowerCount() >= top.get(i).getFollowerCount());
+                    }
+                }
+                return null;
+            });
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 20_000; i++) {
+                        store.addFollowers(random.nextInt(users) + 1, random.nextInt(3) == 0 ? -1 : 1);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            reader.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+
+        List<FollowerRank> all = leaderboard.top(users);
+        for (FollowerRank rank : all) {
+            assertEquals(store.getFollowerCount(rank.getUserId()), rank.getFollowerCount());
+            assertEquals(rank.getRank(), leaderboard.rankOf(rank.getUserId()));
+        }
+        long ranked = 0;
+        for (long id = 1; id <= users; id++) {
+            if (store.getFollowerCount(id) > 0) {
+                ranked++;
+            }
+        }
+        assertEquals(ranked, all.size());
+    }
+
+    @Test
+    @DisplayName("两次读取之间同一用户的多次变化只应用一次")
+    void testCoalescedUpdates() {
+        // Given
+        AtomicLong lookups = new AtomicLong();
+        FollowerLeaderboard board = new FollowerLeaderboard(userId -> {
+            lookups.incrementAndGet();
+            return userId * 10;
+        });
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            board.markChanged(1L);
+            board.markChanged(2L);
+        }
+
+        // Then
+        assertEquals(List.of(2L, 1L), userIds(board.top(10)));
+        assertEquals(2, lookups.get());
+        assertEquals(1, board.rankOf(2L));
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    @DisplayName("读取方批量应用更新时，粉丝数写入不被阻塞")
+    void testWritesDoNotWaitForApply() throws Exception {
+        // Given: 读取方卡在应用更新的过程中
+        CountDownLatch applying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FollowerLeaderboard board = new FollowerLeaderboard(userId -> {
+            applying.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return userId;
+        });
+        board.markChanged(1L);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<FollowerRank>> reader = executor.submit(() -> board.top(10));
+            assertTrue(applying.await(10, TimeUnit.SECONDS));
+
+            // When / Then
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                for (long id = 1; id <= 1000; id++) {
+                    board.markChanged(id);
+                }
+            });
+            release.countDown();
+            reader.get(10, TimeUnit.SECONDS);
+            assertEquals(1000, board.size());
+            assertEquals(1, board.rankOf(1000L));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("其他读取方在应用更新时，读取不等待并返回上一次发布的快照")
+    void testReadersDoNotWaitForApply() throws Exception {
+        // Given: 第一批已发布，第二批的应用卡在读取计数器上
+        CountDownLatch applying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean block = new AtomicBoolean();
+        FollowerLeaderboard board = new FollowerLeaderboard(userId -> {
+            if (block.get()) {
+                applying.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return userId;
+        });
+        board.markChanged(1L);
+        assertEquals(1, board.size());
+        block.set(true);
+        board.markChanged(2L);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> applier = executor.submit(board::size);
+            assertTrue(applying.await(10, TimeUnit.SECONDS));
+
+            // When / Then
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                assertEquals(1, board.size());
+                assertEquals(1, board.rankOf(1L));
+                assertEquals(0, board.rankOf(2L));
+            });
+            release.countDown();
+            assertEquals(2, applier.get(10, TimeUnit.SECONDS));
+            assertEquals(1, board.rankOf(2L));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("通过UserService查询排行榜")
+    void testUserService() {
+        InMemoryUserRepository repository = new InMemoryUserRepository(store);
+        UserService userService = new UserService(repository, mock(EmailService.class));
+        User tom = userService.register(new User(null, "Tom", "tom@example.com"));
+        User jerry = userService.register(new User(null, "Jerry", "jerry@example.com"));
+        store.addFollowers(tom.getId(), 5);
+        store.addFollowers(jerry.getId(), 8);
+
+        List<UserService.UserStats> top = userService.topByFollowers(10);
+
+        assertEquals(List.of("Jerry", "Tom"),
+            top.stream().map(stats -> stats.getUser().getName()).collect(Collectors.toList()));
+        assertEquals(8, top.get(0).getFollowerCount());
+        assertEquals(2, userService.rankOf(tom.getId()));
+
+        userService.deleteUser(jerry.getId());
+        assertEquals(1, userService.rankOf(tom.getId()));
+    }
+
+    private static List<Long> userIds(List<FollowerRank> ranks) {
+        return ranks.stream().map(FollowerRank::getUserId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.counter;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * UserCounterStore测试类
+ */
+@DisplayName("用户计数器测试")
+class UserCounterStoreTest {
+
+    private UserCounterStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new UserCounterStore();
+    }
+
+    @Test
+    @DisplayName("增减发帖数与粉丝数")
+    void testIncrementAndDecrement() {
+        store.incrementPosts(1L);
+        store.incrementPosts(1L);
+        store.decrementPosts(1L);
+        store.addFollowers(1L, 100);
+        store.decrementFollowers(1L);
+
+        assertEquals(1, store.getPostCount(1L));
+        assertEquals(99, store.getFollowerCount(1L));
+        assertEquals(0, store.getFollowerCount(2L));
+    }
+
+    @Test
+    @DisplayName("热点用户并发写入不丢失计数")
+    void testConcurrentHotKey() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        store.incrementFollowers(42L);
+                        if (i % 1000 == 0) {
+                            // 写入过程中穿插整理，验证折叠不会丢失计数
+                            store.consolidate();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        store.consolidate();
+        store.consolidate();
+        assertEquals((long) threads * perThread, store.getFollowerCount(42L));
+    }
+
+    @Test
+    @DisplayName("整理时折叠冷用户的计数器")
+    void testConsolidateColdCounters() throws InterruptedException {
+        UserCounterStore.StripedCounter counter = new UserCounterStore.StripedCounter();
+        counter.add(5);
+        assertFalse(counter.isInflated(), "无竞争时不膨胀");
+
+        // 两个线程同时写入，直到出现 CAS 失败触发膨胀
+        long added = inflateByContention(counter);
+        assumeTrue(counter.isInflated(), "未能制造写竞争");
+        counter.add(3);
+
+        assertFalse(counter.deflateIfCold(), "刚写入过的计数器不折叠");
+        assertTrue(counter.deflateIfCold(), "一个周期内没有写入则折叠");
+        assertFalse(counter.isInflated());
+        assertEquals(5 + added + 3, counter.sum());
+    }
+
+    @Test
+    @DisplayName("删除用户计数")
+    void testRemove() {
+        store.incrementPosts(1L);
+        store.remove(1L);
+
+        assertEquals(0, store.getPostCount(1L));
+        assertEquals(0, store.size());
+    }
+
+    private static long inflateByContention(UserCounterStore.StripedCounter counter) throws InterruptedException {
+        AtomicLong added = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        Runnable writer = () -> {
+            while (!counter.isInflated() && System.nanoTime() < deadline) {
+                counter.add(1);
+                added.incrementAndGet();
+            }
+        };
+        Thread other = new Thread(writer);
+        other.start();
+        writer.run();
+        other.join();
+        return added.get();
+    }
+}
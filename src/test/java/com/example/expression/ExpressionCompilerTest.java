@@ -0,0 +1,127 @@
+package com.example.expression;
+
+import com.example.Calculator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ExpressionCompiler / CompiledExpression测试类
+ */
+@DisplayName("表达式编译测试")
+class ExpressionCompilerTest {
+
+    private ExpressionCompiler compiler;
+    private Calculator calculator;
+
+    @BeforeEach
+    void setUp() {
+        compiler = new ExpressionCompiler();
+        calculator = new Calculator();
+    }
+
+    @Test
+    @DisplayName("按列求值结果与手工串联Calculator一致（跨多个行块）")
+    void testMatchesCalculatorChain() {
+        // Given
+        int rows = CompiledExpression.BLOCK_SIZE * 2 + 17;
+        int[] a = new int[rows];
+        int[] b = new int[rows];
+        int[] c = new int[rows];
+        Random random = new Random(7);
+        for (int i = 0; i < rows; i++) {
+            a[i] = random.nextInt(2000) - 1000;
+            b[i] = random.nextInt(2000) - 1000;
+            c[i] = random.nextInt(100) + 1;
+        }
+
+        // When
+        double[] result = compiler.compile("sqrt(a*a + b*b) / c")
+            .evaluate(new ColumnBatch().put("a", a).put("b", b).put("c", c));
+
+        // Then
+        for (int i = 0; i < rows; i++) {
+            double expected = calculator.sqrt(
+                calculator.add(calculator.multiply(a[i], a[i]), calculator.multiply(b[i], b[i]))) / c[i];
+            assertEquals(expected, result[i], 0.0);
+        }
+    }
+
+    @Test
+    @DisplayName("int列按int运算（溢出回绕），double列按double运算")
+    void testIntAndDoubleSemantics() {
+        CompiledExpression expression = compiler.compile("square(x) + 1");
+
+        double[] ints = expression.evaluate(new ColumnBatch().put("x", new int[]{46341, 3}));
+        double[] doubles = expression.evaluate(new ColumnBatch().put("x", new double[]{46341, 1.5}));
+
+        assertEquals(calculator.square(46341) + 1, ints[0]);
+        assertEquals(10, ints[1]);
+        assertEquals(46341.0 * 46341.0 + 1, doubles[0]);
+        assertEquals(3.25, doubles[1]);
+    }
+
+    @Test
+    @DisplayName("常量折叠，折叠会出错的子表达式保留到求值时")
+    void testConstantFolding() {
+        CompiledExpression folded = compiler.compile("a * (2 + 3) - sqrt(16) + -(-1)");
+        assertEquals("(((a * 5) - 4.0) + 1)", folded.toString());
+
+        CompiledExpression constant = compiler.compile("multiply(6, 7)");
+        assertTrue(constant.isConstant());
+        assertEquals(42, constant.evaluate(new HashMap<>()));
+
+        CompiledExpression divideByZero = compiler.compile("1 / 0");
+        assertFalse(divideByZero.isConstant());
+        ArithmeticException exception = assertThrows(ArithmeticException.class,
+            () -> divideByZero.evaluate(new HashMap<>()));
+        assertEquals("Division by zero", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("除零与负数开方抛出与Calculator相同的异常")
+    void testErrors() {
+        CompiledExpression divide = compiler.compile("a / b");
+        ArithmeticException divideError = assertThrows(ArithmeticException.class,
+            () -> divide.evaluate(new ColumnBatch().put("a", new int[]{1, 2}).put("b", new int[]{1, 0})));
+        assertEquals("Division by zero", divideError.getMessage());
+
+        Map<String, Number> values = new HashMap<>();
+        values.put("a", -4.0);
+        IllegalArgumentException sqrtError = assertThrows(IllegalArgumentException.class,
+            () -> compiler.compile("sqrt(a)").evaluate(values));
+        assertEquals("Cannot calculate square root of negative number", sqrtError.getMessage());
+
+        assertThrows(IllegalArgumentException.class,
+            () -> compiler.compile("a + missing").evaluate(values));
+    }
+
+    @Test
+    @DisplayName("语法错误报告位置")
+    void testSyntaxErrors() {
+        ExpressionSyntaxException error = assertThrows(ExpressionSyntaxException.class,
+            () -> compiler.compile("a + * b"));
+        assertEquals(4, error.getPosition());
+
+        assertThrows(ExpressionSyntaxException.class, () -> compiler.compile("pow(a, 2)"));
+        assertThrows(ExpressionSyntaxException.class, () -> compiler.compile("(a + b"));
+        assertThrows(ExpressionSyntaxException.class, () -> compiler.compile("99999999999"));
+    }
+
+    @Test
+    @DisplayName("按源文本缓存编译结果")
+    void testCache() {
+        CompiledExpression first = compiler.compile("a + b");
+        CompiledExpression second = compiler.compile("a + b");
+
+        assertSame(first, second);
+        assertEquals(1, compiler.cacheStats().getHitCount());
+        assertEquals(2, first.getVariables().size());
+    }
+}
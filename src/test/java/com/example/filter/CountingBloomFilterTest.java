@@ -0,0 +1,83 @@
+package com.example.filter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CountingBloomFilter测试类
+ */
+@DisplayName("计数布隆过滤器测试")
+class CountingBloomFilterTest {
+
+    @Test
+    @DisplayName("放入的元素一定命中，删除后不再命中")
+    void testPutAndRemove() {
+        // Given
+        CountingBloomFilter filter = new CountingBloomFilter(1000, 0.01);
+
+        // When
+        filter.put("tom@example.com");
+        filter.put("jerry@example.com");
+
+        // Then
+        assertTrue(filter.mightContain("tom@example.com"));
+        assertTrue(filter.mightContain("jerry@example.com"));
+
+        filter.remove("tom@example.com");
+        assertFalse(filter.mightContain("tom@example.com"));
+        assertTrue(filter.mightContain("jerry@example.com"));
+        assertEquals(1, filter.approximateElementCount());
+    }
+
+    @Test
+    @DisplayName("误判率接近配置值")
+    void testFalsePositiveRate() {
+        int n = 10_000;
+        CountingBloomFilter filter = new CountingBloomFilter(n, 0.01);
+        for (int i = 0; i < n; i++) {
+            filter.put("user" + i + "@example.com");
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("other" + i + "@example.com")) {
+                falsePositives++;
+            }
+        }
+
+        // 允许一定统计波动
+        assertTrue(falsePositives < probes * 0.02, "false positives: " + falsePositives);
+        assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.005);
+    }
+
+    @Test
+    @DisplayName("按内存预算分配计数器")
+    void testMemoryBudget() {
+        CountingBloomFilter filter = CountingBloomFilter.withMemoryBudget(1024, 100);
+
+        assertEquals(1024, filter.memoryBytes());
+        assertTrue(filter.hashFunctions() >= 1);
+        assertThrows(IllegalArgumentException.class, () -> CountingBloomFilter.withMemoryBudget(4, 100));
+        assertThrows(IllegalArgumentException.class, () -> new CountingBloomFilter(100, 1.5));
+    }
+
+    @Test
+    @DisplayName("计数器饱和后删除不会造成漏判")
+    void testSaturatedCounterIsSticky() {
+        CountingBloomFilter filter = CountingBloomFilter.withMemoryBudget(8, 1);
+        for (int i = 0; i < 20; i++) {
+            filter.put("same@example.com");
+        }
+        filter.put("other@example.com");
+
+        // 删除次数超过计数上限，饱和的计数器保持不变
+        for (int i = 0; i < 20; i++) {
+            filter.remove("same@example.com");
+        }
+
+        assertTrue(filter.mightContain("other@example.com"));
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.importer;
+
+import com.example.model.User;
+import com.example.repository.InMemoryUserRepository;
+import com.example.service.EmailService;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * UserImporter测试类
+ */
+@DisplayName("批量导入用户测试")
+class UserImporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryUserRepository repository;
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryUserRepository();
+        emailService = mock(EmailService.class);
+    }
+
+    @Test
+    @DisplayName("导入CSV，按表头识别列并支持引号字段")
+    void testImportCsv() throws IOException {
+        // Given
+        Path input = write("users.csv",
+            "email,id,name\r\n"
+                + "tom@example.com,1,Tom\r\n"
+                + "jerry@example.com,2,\"Jerry, \"\"the mouse\"\"\"\r\n");
+
+        // When
+        ImportProgress result = new UserImporter(repository, emailService).importFile(input, null);
+
+        // Then
+        assertEquals(2, result.getImportedCount());
+        assertEquals(0, result.getRejectedCount());
+        assertEquals(Files.size(input), result.getCommittedOffset());
+        assertEquals("Jerry, \"the mouse\"", repository.findById(2L).getName());
+        assertTrue(repository.existsByEmail("tom@example.com"));
+        verifyNoInteractions(emailService);
+    }
+
+    @Test
+    @DisplayName("多个分块并行解析，拒绝重复邮箱与无效记录")
+    void testRejects() throws IOException {
+        // Given: 每行一个分块；第2000行之后的邮箱与前面重复
+        repository.save(new User(null, "Existing", "user7@example.com"));
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            content.append("{\"name\":\"user").append(i).append("\",\"email\":\"user").append(i % 2000)
+                .append("@example.com\"}\n");
+        }
+        content.append("{\"name\":\"no email\"}\n");
+        content.append("not json\n");
+        Path input = write("users.ndjson", content.toString());
+        Path rejectsFile = tempDir.resolve("rejects.tsv");
+
+        // When
+        ImportProgress result = new UserImporter(repository, emailService, 4, 1, 100, 0)
+            .importFile(input, ImportFormat.NDJSON, rejectsFile, 0, ImportListener.NONE);
+
+        // Then
+        assertEquals(1999, result.getImportedCount());
+        assertEquals(1003, result.getRejectedCount());
+        assertEquals(2000, repository.size());
+        List<String> rejects = Files.readAllLines(rejectsFile);
+        assertEquals(1003, rejects.size());
+        assertTrue(rejects.stream().anyMatch(line -> line.contains("\tINVALID_EMAIL\t{\"name\":\"no email\"}")));
+        assertTrue(rejects.stream().anyMatch(line -> line.endsWith("\tMALFORMED\tnot json")));
+        assertEquals(1001, rejects.stream().filter(line -> line.contains("\tDUPLICATE_EMAIL\t")).count());
+        verifyNoInteractions(emailService);
+    }
+
+    @Test
+    @DisplayName("从上次提交的偏移量继续导入")
+    void testResume() throws IOException {
+        // Given
+        Path input = write("users.csv", "name,email\nTom,tom@example.com\nJerry,jerry@example.com\n"
+            + "Spike,spike@example.com\n");
+        List<ImportProgress> progress = new ArrayList<>();
+        new UserImporter(repository, emailService, 1, 1, 10, 0)
+            .importFile(input, ImportFormat.CSV, null, 0, progress::add);
+        assertEquals(3, progress.size());
+        long afterFirst = progress.get(0).getCommittedOffset();
+
+        // When: 模拟在第一个分块提交后崩溃，用新仓库从断点继续
+        InMemoryUserRepository resumed = new InMemoryUserRepository();
+        ImportProgress result = new UserImporter(resumed, emailService, 2, 1, 10, 0)
+            .importFile(input, ImportFormat.CSV, null, afterFirst, ImportListener.NONE);
+
+        // Then
+        assertEquals(2, result.getImportedCount());
+        assertFalse(resumed.existsByEmail("tom@example.com"));
+        assertTrue(resumed.existsByEmail("spike@example.com"));
+        assertThrows(IllegalArgumentException.class, () -> new UserImporter(resumed, emailService)
+            .importFile(input, ImportFormat.CSV, null, afterFirst + 1, ImportListener.NONE));
+    }
+
+    @Test
+    @DisplayName("欢迎邮件限速发送")
+    void testWelcomeEmailThrottle() throws IOException {
+        StringBuilder content = new StringBuilder("name,email\n");
+        for (int i = 0; i < 30; i++) {
+            content.append("user").append(i).append(",user").append(i).append("@example.com\n");
+        }
+        Path input = write("users.csv", content.toString());
+
+        long start = System.nanoTime();
+        ImportProgress result = new UserImporter(repository, emailService, 2, 64, 10, 20).importFile(input, null);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // 20封/秒，每批最多20封：最后一批至少要等前10封的配额，即0.5秒
+        assertTrue(elapsedMillis >= 500, "elapsed " + elapsedMillis + "ms");
+        assertEquals(30, repository.size());
+        assertEquals(30, result.getWelcomeEmailsSent());
+        assertEquals(0, result.getWelcomeEmailsFailed());
+        assertEquals(0, result.getWelcomeEmailsUnsent());
+    }
+
+    @Test
+    @DisplayName("欢迎邮件发送失败计入导入结果")
+    void testFailedWelcomeEmails() throws IOException {
+        // Given
+        doThrow(new IllegalStateException("smtp down")).when(emailService).sendWelcomeEmail(anyString());
+        doThrow(new IllegalStateException("smtp down")).when(emailService).sendWelcomeEmails(anyList());
+        Path input = write("users.csv", "name,email\nTom,tom@example.com\nJerry,jerry@example.com\n");
+
+        // When
+        ImportProgress result = new UserImporter(repository, emailService, 1, 64, 10, 1000).importFile(input, null);
+
+        // Then
+        assertEquals(2, result.getImportedCount());
+        assertEquals(0, result.getWelcomeEmailsSent());
+        assertEquals(2, result.getWelcomeEmailsFailed());
+    }
+
+    @Test
+    @DisplayName("导入异常结束时不等待欢迎邮件，回调尚未发出的地址")
+    void testUnsentWelcomeEmailsOnFailure() throws IOException {
+        // Given: 每行一个分块，第5个分块提交后回调失败
+        StringBuilder content = new StringBuilder("name,email\n");
+        for (int i = 0; i < 30; i++) {
+            content.append("user").append(i).append(",user").append(i).append("@example.com\n");
+        }
+        Path input = write("users.csv", content.toString());
+        List<String> unsent = new ArrayList<>();
+        ImportListener listener = new ImportListener() {
+            private int chunks;
+
+            @Override
+            public void onProgress(ImportProgress progress) {
+                if (++chunks == 5) {
+                    throw new IllegalStateException("listener failed");
+                }
+            }
+
+            @Override
+            public void onWelcomeEmailsUnsent(List<String> emails) {
+                unsent.addAll(emails);
+            }
+        };
+
+        // When: 每秒1封，全部发完需要数秒
+        long start = System.nanoTime();
+        assertThrows(IllegalStateException.class, () -> new UserImporter(repository, emailService, 1, 1, 10, 1)
+            .importFile(input, ImportFormat.CSV, null, 0, listener));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Then
+        assertTrue(elapsedMillis < 2000, "elapsed " + elapsedMillis + "ms");
+        assertEquals(5, repository.size());
+        assertFalse(unsent.isEmpty());
+        assertTrue(unsent.stream().allMatch(repository::existsByEmail));
+        verify(emailService, never()).sendWelcomeEmails(any());
+        verify(emailService, atMost(5 - unsent.size())).sendWelcomeEmail(anyString());
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
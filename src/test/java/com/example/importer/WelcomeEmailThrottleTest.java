@@ -0,0 +1,89 @@
+package com.example.importer;
+
+import com.example.service.EmailService;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * WelcomeEmailThrottle测试类
+ */
+@DisplayName("欢迎邮件限速测试")
+class WelcomeEmailThrottleTest {
+
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        emailService = mock(EmailService.class);
+    }
+
+    @Test
+    @DisplayName("队列满时不阻塞，返回放不下的地址")
+    void testSubmitReturnsOverflow() {
+        // Given: 每秒1封，队列只能积压2封
+        WelcomeEmailThrottle throttle = new WelcomeEmailThrottle(emailService, 1, 2);
+        List<String> submitted = emails(10);
+
+        // When
+        long start = System.nanoTime();
+        List<String> overflow = throttle.submit(submitted);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        List<String> unsent = throttle.abort();
+
+        // Then: 放不下的是提交列表的末尾，每个地址恰好被发出、中止时取回或溢出一次
+        assertTrue(elapsedMillis < 500, "elapsed " + elapsedMillis + "ms");
+        assertFalse(overflow.isEmpty());
+        assertEquals(submitted.subList(10 - overflow.size(), 10), overflow);
+        assertEquals(10, throttle.getSentCount() + unsent.size() + overflow.size());
+    }
+
+    @Test
+    @DisplayName("发送失败计入失败数")
+    void testFailedCount() {
+        // Given
+        doThrow(new IllegalStateException("smtp down")).when(emailService).sendWelcomeEmail(anyString());
+        doThrow(new IllegalStateException("smtp down")).when(emailService).sendWelcomeEmails(anyList());
+        WelcomeEmailThrottle throttle = new WelcomeEmailThrottle(emailService, 1000, 100);
+
+        // When
+        assertTrue(throttle.submit(emails(5)).isEmpty());
+        throttle.close();
+
+        // Then
+        assertEquals(0, throttle.getSentCount());
+        assertEquals(5, throttle.getFailedCount());
+    }
+
+    @Test
+    @DisplayName("中止时不等待积压，返回尚未发出的地址")
+    void testAbortReturnsUnsent() {
+        // Given: 每秒1封，第一封立即发出，其余要等配额
+        WelcomeEmailThrottle throttle = new WelcomeEmailThrottle(emailService, 1, 100);
+        List<String> submitted = emails(20);
+        throttle.submit(submitted);
+
+        // When
+        long start = System.nanoTime();
+        List<String> unsent = throttle.abort();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then: 已发出的与未发出的恰好覆盖全部地址，且保持顺序
+        assertTrue(elapsedMillis < 1000, "elapsed " + elapsedMillis + "ms");
+        assertEquals(20, throttle.getSentCount() + unsent.size());
+        assertEquals(submitted.subList((int) throttle.getSentCount(), 20), unsent);
+        assertThrows(IllegalStateException.class, () -> throttle.submit(emails(1)));
+    }
+
+    private static List<String> emails(int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> "user" + i + "@example.com")
+            .collect(Collectors.toList());
+    }
+}
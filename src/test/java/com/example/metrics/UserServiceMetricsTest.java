@@ -0,0 +1,171 @@
+package com.example.metrics;
+
+import com.example.exception.DuplicateEmailException;
+import com.example.exception.UserNotFoundException;
+import com.example.model.User;
+import com.example.repository.InMemoryUserRepository;
+import com.example.service.EmailService;
+import com.example.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * UserServiceMetrics测试类
+ */
+@DisplayName("UserService指标统计测试")
+class UserServiceMetricsTest {
+
+    private UserServiceMetrics metrics;
+    private EmailService emailService;
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new UserServiceMetrics();
+        emailService = mock(EmailService.class);
+        userService = metrics.instrument(new InMemoryUserRepository(), emailService);
+    }
+
+    @Test
+    @DisplayName("按操作统计调用次数，嵌套调用只记在最外层操作上")
+    void testCallCounts() {
+        // Given
+        User tom = userService.register(new User(null, "Tom", "tom@example.com"));
+
+        // When
+        userService.findUser(tom.getId());
+        userService.findUser(tom.getId().longValue());
+        userService.updateUser(tom.getId(), new User(null, "Tommy", "tommy@example.com"));
+        userService.getUserStats(tom.getId());
+        userService.deleteUser(tom.getId());
+
+        // Then
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(1, snapshot.get(Operation.REGISTER).getCalls());
+        assertEquals(2, snapshot.get(Operation.FIND_USER).getCalls());
+        assertEquals(1, snapshot.get(Operation.UPDATE_USER).getCalls());
+        assertEquals(1, snapshot.get(Operation.GET_USER_STATS).getCalls());
+        assertEquals(1, snapshot.get(Operation.DELETE_USER).getCalls());
+        assertEquals(0, snapshot.get(Operation.FIND_USER).getErrorCount());
+    }
+
+    @Test
+    @DisplayName("大量短生命周期线程的统计全部计入，且不按线程保留数据")
+    void testShortLivedThreads() throws Exception {
+        User tom = userService.register(new User(null, "Tom", "tom@example.com"));
+        int threads = 2_000;
+        for (int batch = 0; batch < threads; batch += 100) {
+            Thread[] workers = new Thread[100];
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = new Thread(() -> userService.findUser(tom.getId().longValue()));
+                workers[i].start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(threads, snapshot.get(Operation.FIND_USER).getCalls());
+        assertTrue(metrics.stripeCount() <= 64);
+    }
+
+    @Test
+    @DisplayName("按异常类型统计失败次数")
+    void testErrorCounts() {
+        // Given
+        userService.register(new User(null, "Tom", "tom@example.com"));
+
+        // When
+        assertThrows(DuplicateEmailException.class,
+            () -> userService.register(new User(null, "Tom2", "tom@example.com")));
+        assertThrows(UserNotFoundException.class, () -> userService.findUser(999L));
+        assertThrows(UserNotFoundException.class, () -> userService.findUser((Long) null));
+        assertThrows(UserNotFoundException.class, () -> userService.deleteUser(999L));
+        doThrow(new IllegalStateException("smtp down")).when(emailService).sendWelcomeEmail(anyString());
+        assertThrows(IllegalStateException.class,
+            () -> userService.register(new User(null, "Jerry", "jerry@example.com")));
+
+        // Then
+        MetricsSnapshot snapshot = metrics.snapshot();
+        OperationSnapshot register = snapshot.get(Operation.REGISTER);
+        assertEquals(3, register.getCalls());
+        assertEquals(1, register.getDuplicateEmailCount());
+        assertEquals(1, register.getOtherErrorCount());
+        assertEquals(2, snapshot.get(Operation.FIND_USER).getUserNotFoundCount());
+        // deleteUser 内部的 findUser 失败只记在 deleteUser 上
+        assertEquals(1, snapshot.get(Operation.DELETE_USER).getUserNotFoundCount());
+        assertEquals(2, snapshot.get(Operation.FIND_USER).getCalls());
+    }
+
+    @Test
+    @DisplayName("分别统计花在仓库与邮件服务上的时间")
+    void testRepositoryAndEmailSplit() {
+        // Given: 仓库保存耗时至少 30ms，发送邮件耗时至少 20ms，只用下界断言，不受机器负载影响
+        InMemoryUserRepository repository = spy(new InMemoryUserRepository());
+        doAnswer(invocation -> {
+            Thread.sleep(30);
+            return invocation.callRealMethod();
+        }).when(repository).save(any(User.class));
+        doAnswer(invocation -> {
+            Thread.sleep(20);
+            return null;
+        }).when(emailService).sendWelcomeEmail(anyString());
+        userService = metrics.instrument(repository, emailService);
+
+        // When
+        userService.register(new User(null, "Tom", "tom@example.com"));
+
+        // Then: 两部分时间互不包含时，总耗时不小于两者之和
+        OperationSnapshot register = metrics.snapshot().get(Operation.REGISTER);
+        assertTrue(register.getEmail().getMax() >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(register.getRepository().getMax() >= TimeUnit.MILLISECONDS.toNanos(30));
+        assertTrue(register.getTotal().getMax() >= register.getEmail().getMax() + register.getRepository().getMax());
+        assertEquals(1, register.getRepository().getCount());
+    }
+
+    @Test
+    @DisplayName("直方图百分位数的相对误差在1/64以内")
+    void testHistogramAccuracy() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+        long[] counts = new long[LatencyHistogram.BUCKET_COUNT];
+        long[] summary = histogram.addTo(counts);
+        HistogramSnapshot snapshot = new HistogramSnapshot(counts, summary[0], summary[1], summary[2], summary[3]);
+
+        assertEquals(100_000, snapshot.getCount());
+        assertEquals(1000, snapshot.getMin());
+        assertEquals(100_000_000, snapshot.getMax());
+        assertEquals(50_000_000, snapshot.getValueAtPercentile(50), 50_000_000 / 64.0);
+        assertEquals(99_900_000, snapshot.getValueAtPercentile(99.9), 99_900_000 / 64.0);
+    }
+
+    @Test
+    @DisplayName("导出键值对与关闭统计")
+    void testExportAndNoop() {
+        userService.register(new User(null, "Tom", "tom@example.com"));
+
+        Map<String, Long> exported = metrics.snapshot().toMap();
+        assertEquals(1L, exported.get("register.calls"));
+        assertEquals(0L, exported.get("register.errors.duplicateEmail"));
+        assertTrue(exported.containsKey("register.total.p999"));
+        assertTrue(exported.containsKey("getUserStats.email.p50"));
+
+        UserService plain = UserServiceMetrics.NOOP.instrument(new InMemoryUserRepository(), emailService);
+        assertFalse(UserServiceMetrics.NOOP.isEnabled());
+        assertSame(UserService.class, plain.getClass());
+        plain.register(new User(null, "Jerry", "jerry@example.com"));
+        assertEquals(0, UserServiceMetrics.NOOP.snapshot().get(Operation.REGISTER).getCalls());
+    }
+}
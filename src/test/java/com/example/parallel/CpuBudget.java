@@ -0,0 +1,130 @@
+package com.example.parallel;
+
+import org.junit.platform.engine.ConfigurationParameters;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 同一台机器上所有测试进程共享的 CPU 并发预算
+ *
+ * <p>预算目录下有 slots 个槽文件，每个槽代表一个测试线程。测试引擎开始运行时对槽文件加文件锁来占用名额，
+ * 运行结束时释放；进程异常退出时操作系统自动释放文件锁，不会泄漏名额。
+ * 每个进程最多占用 ceil(slots / forks) 个槽，先启动的进程不会占满预算；
+ * 剩余名额不足时也至少保留一个线程，保证测试能继续执行。
+ *
+ * <p>线程池在创建时确定大小，其他进程结束后释放的名额不会再分配给已经启动的进程。
+ */
+public final class CpuBudget {
+
+    /**
+     * 预算槽数（通常为处理器核数），大于 0 时启用共享预算
+     *
+     * <p>以下参数都位于 junit.jupiter.execution.parallel.config. 前缀下，并行策略只能读取该前缀下的配置，
+     * 完整的键为 junit.jupiter.execution.parallel.config.custom.budget.slots 等。
+     */
+    public static final String SLOTS_PARAMETER = "custom.budget.slots";
+
+    /**
+     * 同时运行的测试进程数，用于计算每个进程的份额
+     */
+    public static final String FORKS_PARAMETER = "custom.budget.forks";
+
+    /**
+     * 槽文件所在目录，默认在系统临时目录下；Gradle 测试进程的临时目录按任务区分，需要显式配置
+     */
+    public static final String DIRECTORY_PARAMETER = "custom.budget.dir";
+
+    private final Path directory;
+    private final int slots;
+    private final List<FileChannel> channels = new ArrayList<>();
+
+    CpuBudget(Path directory, int slots) {
+        this.directory = directory;
+        this.slots = slots;
+    }
+
+    /**
+     * 根据配置参数创建预算，未启用时为空
+     */
+    static Optional<CpuBudget> fromConfiguration(ConfigurationParameters parameters) {
+        int slots = parameters.get(SLOTS_PARAMETER).map(Integer::parseInt).orElse(0);
+        if (slots <= 0) {
+            return Optional.empty();
+        }
+        Path directory = parameters.get(DIRECTORY_PARAMETER)
+                .map(Paths::get)
+                .orElseGet(() -> Paths.get(System.getProperty("java.io.tmpdir"),
+                        "junit-cpu-budget-" + System.getProperty("user.name")));
+        return Optional.of(new CpuBudget(directory, slots));
+    }
+
+    /**
+     * 每个进程最多占用的槽数
+     */
+    int fairShare(int forks) {
+        return Math.max(1, (slots + Math.max(1, forks) - 1) / Math.max(1, forks));
+    }
+
+    /**
+     * 尽量占用 wanted 个槽，返回实际持有的槽数（可能为 0）
+     */
+    synchronized int acquire(int wanted) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            return 0;
+        }
+        for (int slot = 0; slot < slots && channels.size() < wanted; slot++) {
+            FileChannel channel = null;
+            try {
+                channel = FileChannel.open(directory.resolve("slot-" + slot + ".lock"),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                FileLock lock = channel.tryLock();
+                if (lock != null) {
+                    channels.add(channel);
+                    channel = null;
+                }
+            } catch (IOException | OverlappingFileLockException e) {
+                // 槽被占用（同一 JVM 内重复占用时抛出 OverlappingFileLockException）或无法访问，尝试下一个
+            } finally {
+                closeQuietly(channel);
+            }
+        }
+        return channels.size();
+    }
+
+    /**
+     * 当前持有的槽数
+     */
+    synchronized int held() {
+        return channels.size();
+    }
+
+    /**
+     * 释放持有的所有槽
+     */
+    synchronized void release() {
+        channels.forEach(CpuBudget::closeQuietly);
+        channels.clear();
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // 关闭通道即释放文件锁，失败时由进程退出释放
+            }
+        }
+    }
+}
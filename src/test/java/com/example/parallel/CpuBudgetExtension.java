@@ -0,0 +1,30 @@
+package com.example.parallel;
+
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * 测试引擎结束时释放 {@link CustomParallelStrategy} 本次运行占用的 {@link CpuBudget} 槽
+ *
+ * <p>与 {@link DurationRecordingExtension} 一样借助根上下文的存储在所有测试完成后执行，
+ * 槽在引擎结束时立即归还，不必等到测试进程退出。通过 META-INF/services 自动注册。
+ */
+public class CpuBudgetExtension implements BeforeAllCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(CpuBudgetExtension.class);
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        context.getRoot().getStore(NAMESPACE)
+                .getOrComputeIfAbsent(BudgetRelease.class, key -> new BudgetRelease(), BudgetRelease.class);
+    }
+
+    private static final class BudgetRelease implements ExtensionContext.Store.CloseableResource {
+
+        @Override
+        public void close() {
+            CustomParallelStrategy.releaseBudget();
+        }
+    }
+}
@@ -4,18 +4,65 @@ import org.junit.platform.engine.ConfigurationParameters;
 import org.junit.platform.engine.support.hierarchical.ParallelExecutionConfiguration;
 import org.junit.platform.engine.support.hierarchical.ParallelExecutionConfigurationStrategy;
 
+import java.util.Optional;
 import java.util.concurrent.ForkJoinPool;
 import java.util.function.Predicate;
 
 /**
  * 自定义并行执行策略
  * 可以根据具体需求调整并行度和执行策略
+ *
+ * <p>并行度不按历史耗时压低：测试中有大量 sleep 和阻塞等待，按 CPU 工作量估算出的线程数会拉长总时间。
+ * 历史耗时只交给 {@link DurationOrderer}，让最慢的测试最先开始。
+ *
+ * <p>配置了 {@link CpuBudget#SLOTS_PARAMETER} 时，多个 Gradle 测试进程共享一份机器级的并发预算，
+ * 每个进程的线程数取自剩余名额，所有进程的活跃测试线程总数保持在预算（核数）左右，
+ * 避免每个进程都按核数开线程造成 核数 × 进程数 的超额订阅。
+ * 槽在每次引擎运行开始时占用，运行结束时由 {@link CpuBudgetExtension} 释放。
  */
 public class CustomParallelStrategy implements ParallelExecutionConfigurationStrategy {
 
+    /**
+     * 当前引擎运行持有的预算，没有启用或已经释放时为 null
+     */
+    private static CpuBudget budget;
+
     @Override
     public ParallelExecutionConfiguration createConfiguration(ConfigurationParameters configurationParameters) {
-        return new CustomParallelExecutionConfiguration();
+        Optional<CpuBudget> configured = CpuBudget.fromConfiguration(configurationParameters);
+        if (configured.isPresent()) {
+            int forks = configurationParameters.get(CpuBudget.FORKS_PARAMETER).map(Integer::parseInt).orElse(1);
+            return new CustomParallelExecutionConfiguration(budgetedParallelism(configured.get(), forks));
+        }
+        return new CustomParallelExecutionConfiguration(
+                parallelism(Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * 默认使用处理器数量的75%
+     */
+    static int parallelism(int processors) {
+        return Math.max(1, (int) (processors * 0.75));
+    }
+
+    /**
+     * 从共享预算中占用不超过本进程份额的槽，线程数等于占到的槽数，至少为 1
+     */
+    static synchronized int budgetedParallelism(CpuBudget configured, int forks) {
+        // 上一次运行没有执行任何测试类时不会触发释放，在这里补上
+        releaseBudget();
+        budget = configured;
+        return Math.max(1, budget.acquire(budget.fairShare(forks)));
+    }
+
+    /**
+     * 归还本次引擎运行占用的槽，未占用时什么也不做
+     */
+    static synchronized void releaseBudget() {
+        if (budget != null) {
+            budget.release();
+            budget = null;
+        }
     }
 
     /**
@@ -23,12 +70,15 @@ public class CustomParallelStrategy implements ParallelExecutionConfigurationStr
      */
     static class CustomParallelExecutionConfiguration implements ParallelExecutionConfiguration {
 
+        private final int parallelism;
+
+        CustomParallelExecutionConfiguration(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
         @Override
         public int getParallelism() {
-            // 自定义并行度计算
-            int processors = Runtime.getRuntime().availableProcessors();
-            // 例如：使用处理器数量的75%
-            return Math.max(1, (int) (processors * 0.75));
+            return parallelism;
         }
 
         @Override
@@ -39,10 +89,10 @@ public class CustomParallelStrategy implements ParallelExecutionConfigurationStr
 
         @Override
         public int getMaxPoolSize() {
-            // 最大线程池大小
-            int processors = Runtime.getRuntime().availableProcessors();
-            // 例如：处理器数量的2倍
-            return processors * 2;
+            // 最大线程池大小：与 JUnit 默认配置相同，为阻塞在 join 上的任务留出补偿线程的余量。
+            // 并行度被历史或预算压低后，核数 × 2 的上限在 JDK 21 上容易耗尽，
+            // 线程池拒绝创建补偿线程时会抛出 RejectedExecutionException
+            return parallelism + 256;
         }
 
         @Override
@@ -59,8 +109,9 @@ public class CustomParallelStrategy implements ParallelExecutionConfigurationStr
 
         @Override
         public Predicate<? super ForkJoinPool> getSaturatePredicate() {
-            // 饱和判断条件
-            return pool -> pool.getQueuedTaskCount() > 100;
+            // 饱和判断条件：达到最大线程数时始终视为饱和，不再创建补偿线程而是继续等待，
+            // 不能按队列长度判断，否则队列较短时线程池会直接拒绝任务
+            return pool -> true;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,146 @@
+package com.example.parallel;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 测试耗时历史：记录上次运行中每个测试方法和测试类的耗时，供排序和线程池大小计算使用
+ *
+ * <p>历史文件每行一条 {@code 毫秒数<TAB>键}，按键排序，方法的键为 {@code 类名#方法名(参数类型)}，
+ * 类的键为类名。同一个文件在一个 JVM 内只加载一次，排序器、并行策略和记录扩展共用同一份快照。
+ *
+ * <p>保存时先锁住同目录下的 .lock 文件，重新读取文件再合并本次测量结果，
+ * Gradle 多个测试进程同时结束也不会互相覆盖。已有记录与本次测量取平均值，平滑偶发的抖动。
+ */
+public final class DurationHistory {
+
+    /**
+     * 历史文件路径的配置参数，默认为工作目录下的 .gradle/test-durations.tsv
+     */
+    public static final String FILE_PROPERTY = "com.example.parallel.durations.file";
+
+    static final String DEFAULT_FILE = ".gradle/test-durations.tsv";
+
+    private static final ConcurrentHashMap<Path, DurationHistory> LOADED = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final Map<String, Long> previous;
+    private final ConcurrentHashMap<String, Long> measuredNanos = new ConcurrentHashMap<>();
+
+    private DurationHistory(Path file, Map<String, Long> previous) {
+        this.file = file;
+        this.previous = previous;
+    }
+
+    /**
+     * 获取配置的历史文件对应的共享实例，未配置时使用默认文件
+     */
+    public static DurationHistory get(Optional<String> configuredFile) {
+        Path path = Paths.get(configuredFile.orElse(DEFAULT_FILE)).toAbsolutePath().normalize();
+        return LOADED.computeIfAbsent(path, DurationHistory::load);
+    }
+
+    /**
+     * 加载历史文件，不经过共享缓存
+     */
+    static DurationHistory load(Path file) {
+        try {
+            return new DurationHistory(file, Collections.unmodifiableMap(read(file)));
+        } catch (IOException e) {
+            // 历史只影响调度顺序，读取失败时按没有历史处理
+            return new DurationHistory(file, Collections.emptyMap());
+        }
+    }
+
+    public static String classKey(Class<?> testClass) {
+        return testClass.getName();
+    }
+
+    public static String methodKey(Class<?> testClass, Method method) {
+        return testClass.getName() + '#' + method.getName() + Arrays.stream(method.getParameterTypes())
+                .map(Class::getName)
+                .collect(Collectors.joining(",", "(", ")"));
+    }
+
+    /**
+     * 上次运行的耗时（毫秒），没有记录时为空
+     */
+    public OptionalLong millis(String key) {
+        Long millis = previous.get(key);
+        return millis == null ? OptionalLong.empty() : OptionalLong.of(millis);
+    }
+
+    /**
+     * 记录本次运行的耗时；同一个键多次记录时累加，重复测试和参数化测试的每次调用都计入所属方法
+     */
+    public void record(String key, long nanos) {
+        measuredNanos.merge(key, nanos, Long::sum);
+    }
+
+    /**
+     * 把本次测量结果合并进历史文件
+     */
+    public void save() throws IOException {
+        if (measuredNanos.isEmpty()) {
+            return;
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path lockFile = directory.resolve(file.getFileName() + ".lock");
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = channel.lock()) {
+            Map<String, Long> merged = new TreeMap<>(read(file));
+            measuredNanos.forEach((key, nanos) -> {
+                long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+                merged.merge(key, millis, (old, now) -> (old + now) / 2);
+            });
+
+            Path tmp = directory.resolve(file.getFileName() + ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Long> entry : merged.entrySet()) {
+                    writer.write(entry.getValue() + "\t" + entry.getKey());
+                    writer.newLine();
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static Map<String, Long> read(Path file) throws IOException {
+        Map<String, Long> durations = new HashMap<>();
+        if (!Files.exists(file)) {
+            return durations;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int tab = line.indexOf('\t');
+            if (tab <= 0) {
+                continue;
+            }
+            try {
+                durations.put(line.substring(tab + 1), Long.parseLong(line.substring(0, tab)));
+            } catch (NumberFormatException e) {
+                // 跳过损坏的行
+            }
+        }
+        return durations;
+    }
+}
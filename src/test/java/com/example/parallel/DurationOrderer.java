@@ -0,0 +1,57 @@
+package com.example.parallel;
+
+import org.junit.jupiter.api.ClassDescriptor;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.ClassOrdererContext;
+import org.junit.jupiter.api.MethodDescriptor;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.MethodOrdererContext;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.function.ToLongFunction;
+
+/**
+ * 按历史耗时从长到短排列测试类和测试方法，让最慢的测试最先开始
+ *
+ * <p>并行执行时前面的任务先被空闲线程取走，耗时长的测试排在最后会单独拖长总时间。
+ * 没有历史记录的测试（新增的测试）排在最前面：它如果很快，提前执行几乎没有代价；
+ * 如果很慢，排在最后的代价是它的全部耗时。耗时相同时保持发现顺序。
+ *
+ * <p>在 junit-platform.properties 中配置为默认的类排序器和方法排序器，
+ * 耗时由 {@link DurationRecordingExtension} 记录。
+ */
+public class DurationOrderer implements MethodOrderer, ClassOrderer {
+
+    @Override
+    public void orderMethods(MethodOrdererContext context) {
+        DurationHistory history = DurationHistory.get(context.getConfigurationParameter(DurationHistory.FILE_PROPERTY));
+        Class<?> testClass = context.getTestClass();
+        context.getMethodDescriptors().sort(longestFirst((MethodDescriptor descriptor) ->
+                estimate(history, DurationHistory.methodKey(testClass, descriptor.getMethod()))));
+    }
+
+    @Override
+    public void orderClasses(ClassOrdererContext context) {
+        DurationHistory history = DurationHistory.get(context.getConfigurationParameter(DurationHistory.FILE_PROPERTY));
+        context.getClassDescriptors().sort(longestFirst((ClassDescriptor descriptor) ->
+                estimate(history, DurationHistory.classKey(descriptor.getTestClass()))));
+    }
+
+    /**
+     * 排序本身不要求顺序执行，方法仍按全局配置并发执行
+     */
+    @Override
+    public Optional<ExecutionMode> getDefaultExecutionMode() {
+        return Optional.empty();
+    }
+
+    private static long estimate(DurationHistory history, String key) {
+        return history.millis(key).orElse(Long.MAX_VALUE);
+    }
+
+    private static <T> Comparator<T> longestFirst(ToLongFunction<T> estimate) {
+        return Comparator.comparingLong(estimate).reversed();
+    }
+}
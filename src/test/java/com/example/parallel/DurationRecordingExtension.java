@@ -0,0 +1,71 @@
+package com.example.parallel;
+
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * 记录每个测试方法和测试类的耗时，测试引擎结束时写入 {@link DurationHistory}
+ *
+ * <p>方法耗时包含 @BeforeEach / @AfterEach，类耗时从 @BeforeAll 之前到 @AfterAll 之后。
+ * 通过 META-INF/services 自动注册（需要开启 junit.jupiter.extensions.autodetection.enabled）。
+ */
+public class DurationRecordingExtension implements BeforeAllCallback, AfterAllCallback,
+        BeforeEachCallback, AfterEachCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(DurationRecordingExtension.class);
+    private static final String START = "start";
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        history(context);
+        context.getStore(NAMESPACE).put(START, System.nanoTime());
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        long elapsed = System.nanoTime() - context.getStore(NAMESPACE).remove(START, long.class);
+        history(context).record(DurationHistory.classKey(context.getRequiredTestClass()), elapsed);
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(START, System.nanoTime());
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        long elapsed = System.nanoTime() - context.getStore(NAMESPACE).remove(START, long.class);
+        history(context).record(
+                DurationHistory.methodKey(context.getRequiredTestClass(), context.getRequiredTestMethod()), elapsed);
+    }
+
+    /**
+     * 根上下文的存储在引擎结束时关闭，借此在所有测试完成后保存一次历史
+     */
+    private static DurationHistory history(ExtensionContext context) {
+        return context.getRoot().getStore(NAMESPACE)
+                .getOrComputeIfAbsent(HistoryWriter.class,
+                        key -> new HistoryWriter(DurationHistory.get(
+                                context.getConfigurationParameter(DurationHistory.FILE_PROPERTY))),
+                        HistoryWriter.class)
+                .history;
+    }
+
+    private static final class HistoryWriter implements ExtensionContext.Store.CloseableResource {
+
+        private final DurationHistory history;
+
+        HistoryWriter(DurationHistory history) {
+            this.history = history;
+        }
+
+        @Override
+        public void close() throws Throwable {
+            history.save();
+        }
+    }
+}
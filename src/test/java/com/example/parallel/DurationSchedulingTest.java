@@ -0,0 +1,203 @@
+package com.example.parallel;
+
+import org.junit.jupiter.api.ClassDescriptor;
+import org.junit.jupiter.api.ClassOrdererContext;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodDescriptor;
+import org.junit.jupiter.api.MethodOrdererContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.platform.engine.ConfigurationParameters;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * DurationOrderer、DurationHistory与CpuBudget测试类
+ */
+@DisplayName("按历史耗时调度测试")
+class DurationSchedulingTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("保存时与文件中已有记录合并并取平均值")
+    void testSaveMergesWithExistingFile() throws IOException {
+        Path file = tempDir.resolve("durations.tsv");
+        DurationHistory first = DurationHistory.load(file);
+        first.record("A#fast()", TimeUnit.MILLISECONDS.toNanos(10));
+        first.record("A#slow()", TimeUnit.MILLISECONDS.toNanos(400));
+        // 另一个测试进程同时运行的类
+        DurationHistory second = DurationHistory.load(file);
+        second.record("B#other()", TimeUnit.MILLISECONDS.toNanos(50));
+
+        first.save();
+        second.save();
+        DurationHistory next = DurationHistory.load(file);
+        next.record("A#slow()", TimeUnit.MILLISECONDS.toNanos(200));
+        next.save();
+
+        DurationHistory loaded = DurationHistory.load(file);
+        assertEquals(10, loaded.millis("A#fast()").getAsLong());
+        assertEquals(300, loaded.millis("A#slow()").getAsLong());
+        assertEquals(50, loaded.millis("B#other()").getAsLong());
+        assertFalse(loaded.millis("C#missing()").isPresent());
+    }
+
+    @Test
+    @DisplayName("重复调用累加到所属方法，损坏的行被忽略")
+    void testRepeatedInvocationsAndCorruptLines() throws IOException {
+        Path file = tempDir.resolve("durations.tsv");
+        Files.write(file, List.of("oops", "12\tA#x()", "abc\tA#y()"), StandardCharsets.UTF_8);
+        DurationHistory history = DurationHistory.load(file);
+        assertEquals(12, history.millis("A#x()").getAsLong());
+        assertFalse(history.millis("A#y()").isPresent());
+
+        history.record("A#x()", TimeUnit.MILLISECONDS.toNanos(20));
+        history.record("A#x()", TimeUnit.MILLISECONDS.toNanos(20));
+        history.save();
+
+        assertEquals(26, DurationHistory.load(file).millis("A#x()").getAsLong());
+    }
+
+    @Test
+    @DisplayName("方法与类按历史耗时从长到短排列，没有历史的排在最前")
+    void testOrderLongestFirst() throws Exception {
+        Path file = tempDir.resolve("durations.tsv");
+        Method quick = Sample.class.getDeclaredMethod("quick");
+        Method slow = Sample.class.getDeclaredMethod("slow");
+        Method medium = Sample.class.getDeclaredMethod("medium", int.class);
+        Method unknown = Sample.class.getDeclaredMethod("unknown");
+        Files.write(file, List.of(
+            "5\t" + DurationHistory.methodKey(Sample.class, quick),
+            "900\t" + DurationHistory.methodKey(Sample.class, slow),
+            "40\t" + DurationHistory.methodKey(Sample.class, medium),
+            "100\t" + DurationHistory.classKey(String.class),
+            "700\t" + DurationHistory.classKey(Sample.class)), StandardCharsets.UTF_8);
+
+        List<MethodDescriptor> methods = new ArrayList<>();
+        for (Method method : List.of(quick, slow, medium, unknown)) {
+            MethodDescriptor descriptor = mock(MethodDescriptor.class);
+            when(descriptor.getMethod()).thenReturn(method);
+            methods.add(descriptor);
+        }
+        MethodOrdererContext methodContext = mock(MethodOrdererContext.class);
+        doReturn(Sample.class).when(methodContext).getTestClass();
+        doReturn(methods).when(methodContext).getMethodDescriptors();
+        when(methodContext.getConfigurationParameter(DurationHistory.FILE_PROPERTY))
+            .thenReturn(Optional.of(file.toString()));
+
+        List<ClassDescriptor> classes = new ArrayList<>();
+        for (Class<?> testClass : List.of(String.class, Integer.class, Sample.class)) {
+            ClassDescriptor descriptor = mock(ClassDescriptor.class);
+            doReturn(testClass).when(descriptor).getTestClass();
+            classes.add(descriptor);
+        }
+        ClassOrdererContext classContext = mock(ClassOrdererContext.class);
+        doReturn(classes).when(classContext).getClassDescriptors();
+        when(classContext.getConfigurationParameter(DurationHistory.FILE_PROPERTY))
+            .thenReturn(Optional.of(file.toString()));
+
+        DurationOrderer orderer = new DurationOrderer();
+        orderer.orderMethods(methodContext);
+        orderer.orderClasses(classContext);
+
+        assertEquals(List.of("unknown", "slow", "medium", "quick"),
+            methods.stream().map(d -> d.getMethod().getName()).collect(Collectors.toList()));
+        assertEquals(List.of(Integer.class, Sample.class, String.class),
+            classes.stream().map(ClassDescriptor::getTestClass).collect(Collectors.toList()));
+        assertFalse(orderer.getDefaultExecutionMode().isPresent());
+    }
+
+    @Test
+    @DisplayName("并行度取处理器数量的75%，不受历史耗时限制")
+    void testParallelism() {
+        assertEquals(6, CustomParallelStrategy.parallelism(8));
+        assertEquals(1, CustomParallelStrategy.parallelism(1));
+    }
+
+    @Test
+    @DisplayName("线程池上限留出补偿线程余量，达到上限时视为饱和而不是拒绝任务")
+    void testPoolLimits() {
+        CustomParallelStrategy.CustomParallelExecutionConfiguration configuration =
+            new CustomParallelStrategy.CustomParallelExecutionConfiguration(2);
+
+        assertEquals(2, configuration.getCorePoolSize());
+        assertEquals(258, configuration.getMaxPoolSize());
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            assertTrue(configuration.getSaturatePredicate().test(pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("多个进程共享CPU预算，每个进程不超过自己的份额")
+    void testCpuBudgetSharedBetweenForks() {
+        Path directory = tempDir.resolve("budget");
+        CpuBudget first = new CpuBudget(directory, 8);
+        CpuBudget second = new CpuBudget(directory, 8);
+        CpuBudget third = new CpuBudget(directory, 8);
+        try {
+            assertEquals(3, first.fairShare(3));
+            assertEquals(8, first.fairShare(0));
+
+            assertEquals(3, first.acquire(first.fairShare(3)));
+            assertEquals(3, second.acquire(second.fairShare(3)));
+            // 只剩下 2 个名额
+            assertEquals(2, third.acquire(third.fairShare(3)));
+
+            second.release();
+            assertEquals(0, second.held());
+            assertEquals(3, new CpuBudget(directory, 8).fairShare(3));
+            assertEquals(3, second.acquire(3));
+        } finally {
+            first.release();
+            second.release();
+            third.release();
+        }
+    }
+
+    @Test
+    @DisplayName("未配置槽数时不启用CPU预算")
+    void testCpuBudgetConfiguration() {
+        ConfigurationParameters disabled = mock(ConfigurationParameters.class);
+        when(disabled.get(anyString())).thenReturn(Optional.empty());
+        ConfigurationParameters enabled = mock(ConfigurationParameters.class);
+        when(enabled.get(anyString())).thenReturn(Optional.empty());
+        when(enabled.get(CpuBudget.SLOTS_PARAMETER)).thenReturn(Optional.of("4"));
+        when(enabled.get(CpuBudget.DIRECTORY_PARAMETER)).thenReturn(Optional.of(tempDir.toString()));
+
+        assertFalse(CpuBudget.fromConfiguration(disabled).isPresent());
+        CpuBudget budget = CpuBudget.fromConfiguration(enabled).orElseThrow();
+        assertEquals(2, budget.fairShare(2));
+    }
+
+    static class Sample {
+        void quick() {
+        }
+
+        void slow() {
+        }
+
+        void medium(int value) {
+        }
+
+        void unknown() {
+        }
+    }
+}
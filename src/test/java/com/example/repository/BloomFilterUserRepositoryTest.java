@@ -0,0 +1,141 @@
+package com.example.repository;
+
+import com.example.exception.DuplicateEmailException;
+import com.example.model.User;
+import com.example.service.EmailService;
+import com.example.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * BloomFilterUserRepository测试类
+ */
+@DisplayName("布隆过滤器用户仓库测试")
+class BloomFilterUserRepositoryTest {
+
+    private InMemoryUserRepository memory;
+    private UserRepository delegate;
+    private BloomFilterUserRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        memory = new InMemoryUserRepository();
+        memory.save(new User(null, "Tom", "tom@example.com"));
+        delegate = spy(memory);
+        repository = new BloomFilterUserRepository(delegate, memory.emails(), 1000, 0.01);
+    }
+
+    @Test
+    @DisplayName("新邮箱不访问底层仓库，已有邮箱转给底层仓库确认")
+    void testExistsByEmail() {
+        // When & Then
+        assertFalse(repository.existsByEmail("new@example.com"));
+        assertTrue(repository.existsByEmail("tom@example.com"));
+
+        verify(delegate, never()).existsByEmail("new@example.com");
+        verify(delegate).existsByEmail("tom@example.com");
+        assertEquals(1, repository.getFilteredCount());
+        assertEquals(1, repository.getPassedCount());
+    }
+
+    @Test
+    @DisplayName("保存、改邮箱、删除后过滤器保持同步")
+    void testKeptInSync() {
+        User jerry = repository.save(new User(null, "Jerry", "jerry@example.com"));
+        assertTrue(repository.existsByEmail("jerry@example.com"));
+
+        jerry.setEmail("jerry2@example.com");
+        repository.save(jerry);
+        assertTrue(repository.existsByEmail("jerry2@example.com"));
+        assertFalse(repository.existsByEmail("jerry@example.com"));
+
+        repository.delete(jerry.getId());
+        assertFalse(repository.existsByEmail("jerry2@example.com"));
+        // 旧邮箱和已删除的邮箱都由过滤器直接判定
+        assertEquals(2, repository.getFilteredCount());
+        verify(delegate, times(1)).existsByEmail("jerry@example.com");
+    }
+
+    @Test
+    @DisplayName("批量查重只查询可能存在的邮箱")
+    void testFindExistingEmails() {
+        assertEquals(Collections.singleton("tom@example.com"),
+            repository.findExistingEmails(Arrays.asList("tom@example.com", "a@example.com", "b@example.com")));
+
+        verify(delegate).findExistingEmails(Collections.singletonList("tom@example.com"));
+    }
+
+    @Test
+    @DisplayName("重复邮箱注册失败不影响已有邮箱的判定")
+    void testDuplicateThroughUserService() {
+        EmailService emailService = mock(EmailService.class);
+        UserService userService = new UserService(repository, emailService);
+
+        userService.register(new User(null, "Jerry", "jerry@example.com"));
+
+        assertThrows(DuplicateEmailException.class,
+            () -> userService.register(new User(null, "Jerry2", "jerry@example.com")));
+        assertThrows(DuplicateEmailException.class,
+            () -> repository.save(new User(null, "Jerry3", "tom@example.com")));
+        assertTrue(repository.existsByEmail("tom@example.com"));
+        verify(emailService, times(1)).sendWelcomeEmail(anyString());
+    }
+
+    @Test
+    @DisplayName("同一用户的并发更新不会重复移除旧邮箱")
+    void testConcurrentUpdatesOfSameUser() throws Exception {
+        User jerry = repository.save(new User(null, "Jerry", "jerry@example.com"));
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        repository.save(new User(jerry.getId(), "Jerry", "jerry-" + thread + "-" + i + "@example.com"));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        repository.delete(jerry.getId());
+        repository.delete(jerry.getId());
+
+        // 每次改邮箱恰好加一个、移除一个，最终只剩 Tom
+        assertEquals(1, repository.filter().approximateElementCount());
+        assertTrue(repository.existsByEmail("tom@example.com"));
+    }
+
+    @Test
+    @DisplayName("从仓库重建过滤器")
+    void testRebuild() {
+        memory.save(new User(null, "Spike", "spike@example.com"));
+        // 绕过装饰器写入，过滤器尚不知道该邮箱
+        assertFalse(repository.existsByEmail("spike@example.com"));
+
+        repository.rebuild(new HashSet<>(memory.emails()));
+
+        assertTrue(repository.existsByEmail("spike@example.com"));
+    }
+}
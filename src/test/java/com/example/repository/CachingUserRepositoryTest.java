@@ -0,0 +1,100 @@
+package com.example.repository;
+
+import com.example.model.User;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * CachingUserRepository测试类
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("缓存用户仓库测试")
+class CachingUserRepositoryTest {
+
+    @Mock
+    private UserRepository delegate;
+
+    private CachingUserRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new CachingUserRepository(delegate, 100);
+    }
+
+    @Test
+    @DisplayName("重复查询只访问一次底层仓库")
+    void testFindByIdCached() {
+        // Given
+        when(delegate.findById(1L)).thenReturn(new User(1L, "Tom", "tom@example.com"));
+
+        // When
+        User first = repository.findById(1L);
+        User second = repository.findById(1L);
+
+        // Then
+        assertEquals("Tom", first.getName());
+        assertEquals("Tom", second.getName());
+        assertNotSame(first, second, "每次返回副本");
+        verify(delegate, times(1)).findById(1L);
+        assertEquals(1, repository.cacheStats().getHitCount());
+    }
+
+    @Test
+    @DisplayName("修改返回对象不会污染缓存")
+    void testReturnedCopyIsolated() {
+        when(delegate.findById(1L)).thenReturn(new User(1L, "Tom", "tom@example.com"));
+
+        repository.findById(1L).setName("Changed");
+
+        assertEquals("Tom", repository.findById(1L).getName());
+    }
+
+    @Test
+    @DisplayName("保存后缓存失效，读取到最新数据")
+    void testSaveInvalidates() {
+        // Given
+        when(delegate.findById(1L))
+            .thenReturn(new User(1L, "Tom", "tom@example.com"))
+            .thenReturn(new User(1L, "Tom Updated", "tom@example.com"));
+        repository.findById(1L);
+
+        // When
+        User updated = new User(1L, "Tom Updated", "tom@example.com");
+        when(delegate.save(updated)).thenReturn(updated);
+        repository.save(updated);
+
+        // Then
+        assertEquals("Tom Updated", repository.findById(1L).getName());
+        verify(delegate, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("删除后缓存失效")
+    void testDeleteInvalidates() {
+        when(delegate.findById(1L))
+            .thenReturn(new User(1L, "Tom", "tom@example.com"))
+            .thenReturn(null);
+        repository.findById(1L);
+
+        repository.delete(1L);
+
+        assertNull(repository.findById(1L));
+        verify(delegate).delete(1L);
+    }
+
+    @Test
+    @DisplayName("不缓存不存在的用户")
+    void testMissNotCached() {
+        when(delegate.findById(2L)).thenReturn(null);
+
+        assertNull(repository.findById(2L));
+        assertNull(repository.findById(2L));
+
+        verify(delegate, times(2)).findById(2L);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.repository;
+
+import com.example.model.User;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FileUserRepository测试类
+ */
+@DisplayName("文件用户仓库测试")
+class FileUserRepositoryTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    @DisplayName("重启后从日志恢复用户")
+    void testRecoverFromLog() {
+        // Given
+        long tomId;
+        try (FileUserRepository repository = new FileUserRepository(dataDir)) {
+            tomId = repository.save(new User(null, "Tom", "tom@example.com")).getId();
+            User jerry = repository.save(new User(null, "Jerry", "jerry@example.com"));
+            jerry.setName("Jerry Updated");
+            repository.save(jerry);
+            repository.delete(tomId);
+        }
+
+        // When
+        try (FileUserRepository reopened = new FileUserRepository(dataDir)) {
+            // Then
+            assertNull(reopened.findById(tomId));
+            assertFalse(reopened.existsByEmail("tom@example.com"));
+            assertTrue(reopened.existsByEmail("jerry@example.com"));
+            assertEquals(1, reopened.size());
+
+            User next = reopened.save(new User(null, "Spike", "spike@example.com"));
+            assertTrue(next.getId() > tomId, "ID序列应从已恢复的最大ID继续");
+        }
+    }
+
+    @Test
+    @DisplayName("快照后删除旧日志并可从快照加日志恢复")
+    void testCheckpoint() throws IOException {
+        try (FileUserRepository repository = new FileUserRepository(dataDir)) {
+            for (int i = 0; i < 100; i++) {
+                repository.save(new User(null, "user-" + i, "user" + i + "@example.com"));
+            }
+            repository.checkpoint();
+            repository.save(new User(null, "after", "after@example.com"));
+            repository.delete(1L);
+        }
+
+        assertTrue(Files.exists(dataDir.resolve("users.snapshot")));
+        assertEquals(1, logFiles().size(), "快照之前的日志应被删除");
+
+        try (FileUserRepository reopened = new FileUserRepository(dataDir)) {
+            assertEquals(100, reopened.size());
+            assertNull(reopened.findById(1L));
+            assertEquals("user-50", reopened.findById(51L).getName());
+            assertTrue(reopened.existsByEmail("after@example.com"));
+        }
+    }
+
+    @Test
+    @DisplayName("日志超过阈值时自动生成快照")
+    void testAutomaticCheckpoint() throws Exception {
+        try (FileUserRepository repository = new FileUserRepository(dataDir, 1024)) {
+            for (int i = 0; i < 200; i++) {
+                repository.save(new User(null, "user-" + i, "user" + i + "@example.com"));
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!Files.exists(dataDir.resolve("users.snapshot")) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+
+        assertTrue(Files.exists(dataDir.resolve("users.snapshot")));
+        try (FileUserRepository reopened = new FileUserRepository(dataDir)) {
+            assertEquals(200, reopened.size());
+        }
+    }
+
+    @Test
+    @DisplayName("截断日志末尾未写完的记录")
+    void testTruncatedTail() throws IOException {
+        try (FileUserRepository repository = new FileUserRepository(dataDir)) {
+            repository.save(new User(null, "Tom", "tom@example.com"));
+        }
+        Path log = logFiles().get(0);
+        long validSize = Files.size(log);
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 40, 1, 2, 3}));
+        }
+
+        try (FileUserRepository reopened = new FileUserRepository(dataDir)) {
+            assertEquals(1, reopened.size());
+            assertEquals(validSize, Files.size(log));
+        }
+    }
+
+    @Test
+    @DisplayName("写日志失败时用户不可见，重启后状态一致")
+    void testAppendFailure() throws Exception {
+        // Given
+        FileUserRepository repository = new FileUserRepository(dataDir);
+        User tom = repository.save(new User(null, "Tom", "tom@example.com"));
+        Field logChannel = FileUserRepository.class.getDeclaredField("logChannel");
+        logChannel.setAccessible(true);
+        ((FileChannel) logChannel.get(repository)).close();
+
+        // When
+        assertThrows(UncheckedIOException.class,
+            () -> repository.save(new User(null, "Jerry", "jerry@example.com")));
+        assertThrows(UncheckedIOException.class, () -> repository.delete(tom.getId()));
+
+        // Then
+        assertFalse(repository.existsByEmail("jerry@example.com"));
+        assertEquals(1, repository.size());
+        assertNotNull(repository.findById(tom.getId()));
+        assertThrows(UncheckedIOException.class, repository::close);
+        try (FileUserRepository reopened = new FileUserRepository(dataDir)) {
+            assertEquals(1, reopened.size());
+            assertEquals("Tom", reopened.findById(tom.getId()).getName());
+        }
+    }
+
+    @Test
+    @DisplayName("并发写入共享组提交")
+    void testConcurrentWrites() throws Exception {
+        int threads = 8;
+        int perThread = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (FileUserRepository repository = new FileUserRepository(dataDir)) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new java.util.ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        repository.save(new User(null, "u", "t" + thread + "-" + i + "@example.com"));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        try (FileUserRepository reopened = new FileUserRepository(dataDir)) {
+            assertEquals(threads * perThread, reopened.size());
+        }
+    }
+
+    private List<Path> logFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dataDir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".log"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.repository;
+
+import com.example.counter.UserCounterStore;
+import com.example.exception.DuplicateEmailException;
+import com.example.model.User;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * InMemoryUserRepository测试类
+ */
+@DisplayName("内存用户仓库测试")
+class InMemoryUserRepositoryTest {
+
+    private InMemoryUserRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryUserRepository();
+    }
+
+    @Test
+    @DisplayName("保存新用户时分配ID")
+    void testSaveAssignsId() {
+        // Given
+        User user = new User(null, "Tom", "tom@example.com");
+
+        // When
+        User saved = repository.save(user);
+
+        // Then
+        assertNotNull(saved.getId());
+        assertEquals(saved.getId(), user.getId());
+        assertEquals("Tom", repository.findById(saved.getId()).getName());
+        assertTrue(repository.existsByEmail("tom@example.com"));
+    }
+
+    @Test
+    @DisplayName("返回的是快照，修改返回对象不影响仓库")
+    void testFindReturnsSnapshot() {
+        User saved = repository.save(new User(null, "Tom", "tom@example.com"));
+
+        User found = repository.findById(saved.getId());
+        found.setEmail("changed@example.com");
+
+        assertEquals("tom@example.com", repository.findById(saved.getId()).getEmail());
+        assertTrue(repository.existsByEmail("tom@example.com"));
+        assertFalse(repository.existsByEmail("changed@example.com"));
+    }
+
+    @Test
+    @DisplayName("更新邮箱时同步维护邮箱索引")
+    void testUpdateEmailMaintainsIndex() {
+        User saved = repository.save(new User(null, "Tom", "tom@example.com"));
+
+        saved.setEmail("new@example.com");
+        repository.save(saved);
+
+        assertFalse(repository.existsByEmail("tom@example.com"));
+        assertTrue(repository.existsByEmail("new@example.com"));
+        assertEquals(1, repository.size());
+    }
+
+    @Test
+    @DisplayName("邮箱被其他用户占用时拒绝保存")
+    void testSaveDuplicateEmail() {
+        repository.save(new User(null, "Tom", "tom@example.com"));
+
+        assertThrows(DuplicateEmailException.class,
+            () -> repository.save(new User(null, "Jerry", "tom@example.com")));
+    }
+
+    @Test
+    @DisplayName("删除用户时移除邮箱索引")
+    void testDelete() {
+        User saved = repository.save(new User(null, "Tom", "tom@example.com"));
+
+        repository.delete(saved.getId());
+
+        assertNull(repository.findById(saved.getId()));
+        assertFalse(repository.existsByEmail("tom@example.com"));
+        assertDoesNotThrow(() -> repository.delete(saved.getId()));
+    }
+
+    @Test
+    @DisplayName("发帖数与粉丝数来自计数器，删除用户时清除")
+    void testCounters() {
+        UserCounterStore counters = new UserCounterStore();
+        InMemoryUserRepository countingRepository = new InMemoryUserRepository(counters);
+        User saved = countingRepository.save(new User(null, "Tom", "tom@example.com"));
+        counters.addPosts(saved.getId(), 3);
+        counters.addFollowers(saved.getId(), 7);
+
+        assertEquals(3, countingRepository.getPostCount(saved.getId()));
+        assertEquals(7, countingRepository.getFollowerCount(saved.getId()));
+
+        countingRepository.delete(saved.getId());
+        assertEquals(0, countingRepository.getFollowerCount(saved.getId()));
+    }
+
+    @Test
+    @DisplayName("指定ID保存后序列不会重复分配该ID")
+    void testExplicitIdAdvancesSequence() {
+        repository.save(new User(100L, "Tom", "tom@example.com"));
+
+        User next = repository.save(new User(null, "Jerry", "jerry@example.com"));
+
+        assertTrue(next.getId() > 100L);
+    }
+
+    @Test
+    @DisplayName("分页按id升序返回，跳过已删除的用户")
+    void testFindPage() {
+        // Given
+        for (int i = 1; i <= 10; i++) {
+            repository.save(new User(null, "user" + i, "user" + i + "@example.com"));
+        }
+        repository.delete(3L);
+        repository.delete(4L);
+
+        // When
+        List<User> first = repository.findPage(0, 3);
+        List<User> second = repository.findPage(first.get(2).getId(), 3);
+
+        // Then
+        assertEquals(List.of(1L, 2L, 5L), first.stream().map(User::getId).collect(Collectors.toList()));
+        assertEquals(List.of(6L, 7L, 8L), second.stream().map(User::getId).collect(Collectors.toList()));
+        assertTrue(repository.findPage(10, 3).isEmpty());
+    }
+
+    @Test
+    @DisplayName("稀疏id时分页仍按id升序")
+    void testFindPageSparseIds() {
+        repository.save(new User(3_000_000_000L, "c", "c@example.com"));
+        repository.save(new User(5L, "a", "a@example.com"));
+        repository.save(new User(1_000_000_000L, "b", "b@example.com"));
+
+        List<User> page = repository.findPage(5, 10);
+
+        assertEquals(List.of(1_000_000_000L, 3_000_000_000L),
+            page.stream().map(User::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("更新、删除后重新保存的用户在分页中只出现一次")
+    void testFindPageAfterUpdateAndReinsert() {
+        repository.save(new User(7L, "a", "a@example.com"));
+        repository.save(new User(9L, "b", "b@example.com"));
+        repository.save(new User(7L, "a2", "a@example.com"));
+        repository.delete(9L);
+        repository.save(new User(9L, "b2", "b@example.com"));
+        repository.delete(7L);
+
+        List<User> page = repository.findPage(0, 10);
+
+        assertEquals(List.of(9L), page.stream().map(User::getId).collect(Collectors.toList()));
+        assertEquals("b2", page.get(0).getName());
+    }
+
+    @Test
+    @DisplayName("流式扫描与并行扫描返回全部用户各一次")
+    void testScan() {
+        for (int i = 0; i < 1000; i++) {
+            repository.save(new User(null, "user" + i, "user" + i + "@example.com"));
+        }
+
+        List<Long> sequential = repository.scan(0, 64).map(User::getId).collect(Collectors.toList());
+        long parallelCount = repository.scan(0, 64).parallel().map(User::getId).distinct().count();
+
+        assertEquals(1000, sequential.size());
+        assertEquals(1L, sequential.get(0));
+        assertEquals(1000L, sequential.get(999));
+        assertEquals(1000, parallelCount);
+    }
+
+    @Test
+    @DisplayName("游标中断后可以从上次位置继续")
+    void testScanResume() {
+        for (int i = 0; i < 10; i++) {
+            repository.save(new User(null, "user" + i, "user" + i + "@example.com"));
+        }
+        UserScan scan = new UserScan(repository, 0, 4);
+        for (int i = 0; i < 6; i++) {
+            assertTrue(scan.tryAdvance(user -> { }));
+        }
+
+        List<Long> rest = repository.scan(scan.cursor(), 4).map(User::getId).collect(Collectors.toList());
+
+        assertEquals(List.of(7L, 8L, 9L, 10L), rest);
+    }
+
+    @Test
+    @DisplayName("扫描期间并发保存与删除不会重复返回同一用户")
+    void testScanWithConcurrentWrites() {
+        for (int i = 0; i < 100; i++) {
+            repository.save(new User(null, "user" + i, "user" + i + "@example.com"));
+        }
+
+        List<Long> ids = repository.scan(0, 10).peek(user -> {
+            if (user.getId() == 50L) {
+                repository.delete(20L);
+                repository.delete(60L);
+                repository.save(new User(null, "late", "late@example.com"));
+            }
+        }).map(User::getId).collect(Collectors.toList());
+
+        assertEquals(ids.size(), ids.stream().distinct().count());
+        assertTrue(ids.contains(20L));
+        assertFalse(ids.contains(60L));
+        assertTrue(ids.contains(101L));
+    }
+
+    @Test
+    @DisplayName("并发注册同一邮箱只有一个成功")
+    void testConcurrentSameEmail() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                String name = "user-" + i;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        repository.save(new User(null, name, "same@example.com"));
+                        return true;
+                    } catch (DuplicateEmailException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int successes = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(5, TimeUnit.SECONDS)) {
+                    successes++;
+                }
+            }
+            assertEquals(1, successes);
+            assertEquals(1, repository.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.repository;
+
+import com.example.counter.UserCounterStore;
+import com.example.exception.DuplicateEmailException;
+import com.example.model.User;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OffHeapUserRepository测试类
+ */
+@DisplayName("堆外用户仓库测试")
+class OffHeapUserRepositoryTest {
+
+    private OffHeapUserRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new OffHeapUserRepository(4, 1 << 18, new UserCounterStore());
+    }
+
+    @Test
+    @DisplayName("保存、查询、更新与删除")
+    void testCrud() {
+        // Given
+        User user = new User(null, "张三", "zhangsan@example.com");
+
+        // When
+        User saved = repository.save(user);
+        repository.save(new User(saved.getId(), "Tom", null));
+
+        // Then
+        assertEquals(saved.getId(), user.getId());
+        User found = repository.findById(saved.getId());
+        assertEquals("Tom", found.getName());
+        assertNull(found.getEmail());
+        assertFalse(repository.existsByEmail("zhangsan@example.com"));
+
+        repository.delete(saved.getId());
+        assertNull(repository.findById(saved.getId()));
+        assertEquals(0, repository.size());
+    }
+
+    @Test
+    @DisplayName("邮箱被其他用户占用时拒绝保存")
+    void testDuplicateEmail() {
+        User tom = repository.save(new User(null, "Tom", "tom@example.com"));
+
+        assertThrows(DuplicateEmailException.class,
+            () -> repository.save(new User(null, "Other", "tom@example.com")));
+        repository.save(new User(tom.getId(), "Tommy", "tom@example.com"));
+
+        assertEquals("Tommy", repository.findById(tom.getId()).getName());
+        assertEquals(1, repository.size());
+    }
+
+    @Test
+    @DisplayName("删除后复用槽位与字符串空间")
+    void testSpaceReuse() {
+        for (int i = 1; i <= 1000; i++) {
+            repository.save(new User(null, "user" + i, "user" + i + "@example.com"));
+        }
+        long footprint = repository.footprintBytes();
+        long reserved = repository.reservedOffHeapBytes();
+
+        // When: 反复删除并写入同样数量的用户
+        for (int round = 0; round < 5; round++) {
+            for (long id = 1 + round * 1000L; id <= 1000 + round * 1000L; id++) {
+                repository.delete(id);
+            }
+            for (int i = 1; i <= 1000; i++) {
+                repository.save(new User(null, "user" + i, "user" + i + "@example.com"));
+            }
+        }
+
+        // Then
+        assertEquals(1000, repository.size());
+        // 只允许空闲链表数组本身的增长
+        assertTrue(repository.footprintBytes() <= footprint + 16 * 1024, "footprint " + repository.footprintBytes());
+        assertEquals(reserved, repository.reservedOffHeapBytes());
+        assertNull(repository.findById(5000L));
+        assertEquals("user1000@example.com", repository.findById(6000L).getEmail());
+    }
+
+    @Test
+    @DisplayName("每个用户占用的字节数")
+    void testBytesPerUser() {
+        for (int i = 1; i <= 100_000; i++) {
+            repository.save(new User(null, "user" + i, "user" + i + "@example.com"));
+        }
+
+        assertEquals("user100000@example.com", repository.findById(100_000L).getEmail());
+        assertTrue(repository.bytesPerUser() < 128, "bytes per user " + repository.bytesPerUser());
+    }
+
+    @Test
+    @DisplayName("按ID分页，支持稀疏ID")
+    void testFindPage() {
+        for (int i = 1; i <= 10; i++) {
+            repository.save(new User(null, "user" + i, "user" + i + "@example.com"));
+        }
+        repository.save(new User(1_000_000L, "far", "far@example.com"));
+        repository.delete(3L);
+
+        List<Long> first = ids(repository.findPage(0, 4));
+        List<Long> rest = ids(repository.findPage(5, 100));
+
+        assertEquals(List.of(1L, 2L, 4L, 5L), first);
+        assertEquals(List.of(6L, 7L, 8L, 9L, 10L, 1_000_000L), rest);
+        assertTrue(repository.findPage(1_000_000L, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("随机id插入与删除后，分页结果与有序集合一致")
+    void testFindPageMatchesSortedSet() {
+        // Given: 足够多的随机id，触发索引块的拆分与合并
+        Random random = new Random(42);
+        TreeSet<Long> expected = new TreeSet<>();
+        for (int i = 0; i < 5000; i++) {
+            long id = 1 + random.nextInt(20_000);
+            repository.save(new User(id, "u" + id, null));
+            expected.add(id);
+        }
+        for (int i = 0; i < 3000; i++) {
+            long id = 1 + random.nextInt(20_000);
+            repository.delete(id);
+            expected.remove(id);
+        }
+
+        // When: 按页大小 300 遍历全部用户
+        List<Long> paged = new ArrayList<>();
+        List<User> page = repository.findPage(0, 300);
+        while (!page.isEmpty()) {
+            paged.addAll(ids(page));
+            page = repository.findPage(paged.get(paged.size() - 1), 300);
+        }
+
+        // Then
+        assertEquals(new ArrayList<>(expected), paged);
+        assertEquals(ids(repository.findPage(0, Integer.MAX_VALUE)), paged);
+        assertEquals(new ArrayList<>(expected.tailSet(10_000L, false)).subList(0, 50),
+            ids(repository.findPage(10_000L, 50)));
+    }
+
+    @Test
+    @DisplayName("并发写入与读取")
+    void testConcurrentAccess() throws Exception {
+        int threads = 8;
+        int perThread = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        User saved = repository.save(new User(null, "u" + thread + "-" + i,
+                            "u" + thread + "-" + i + "@example.com"));
+                        User found = repository.findById(saved.getId());
+                        assertEquals(saved.getEmail(), found.getEmail());
+                        if (i % 2 == 0) {
+                            repository.delete(saved.getId());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(threads * perThread / 2, repository.size());
+        assertTrue(repository.existsByEmail("u7-1999@example.com"));
+        assertFalse(repository.existsByEmail("u7-1998@example.com"));
+    }
+
+    @Test
+    @DisplayName("并发更新同一批用户并争抢邮箱，记录保持一致且不泄漏空间")
+    void testConcurrentUpdatesOfSameUsers() throws Exception {
+        int threads = 8;
+        int users = 50;
+        int rounds = 500;
+        long baseline = repository.footprintBytes();
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        try {
+            AtomicBoolean writing = new AtomicBoolean(true);
+            Future<?> reader = executor.submit(() -> {
+                while (writing.get()) {
+                    for (long id = 1; id <= users; id++) {
+                        User found = repository.findById(id);
+                        // 名字与邮箱在同一条记录里写入，读到的必须来自同一次保存
+                        if (found != null && found.getEmail() != null) {
+                            assertTrue(found.getEmail().startsWith(found.getName() + "@"), found.toString());
+                        }
+                    }
+                }
+                return null;
+            });
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                writers.add(executor.submit(() -> {
+                    Random random = new Random(thread);
+                    for (int i = 0; i < rounds; i++) {
+                        long id = 1 + random.nextInt(users);
+                        String name = "t" + thread + "-" + "x".repeat(random.nextInt(300));
+                        try {
+                            // 同一线程的邮箱在不同 id 之间争抢
+                            repository.save(new User(id, name, name + "@example.com"));
+                        } catch (DuplicateEmailException e) {
+                            // 邮箱已被另一个 id 占用
+                        }
+                        if (random.nextInt(10) == 0) {
+                            repository.delete(id);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            reader.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+
+        List<User> remaining = repository.findPage(0, users);
+        assertEquals(remaining.size(), repository.size());
+        assertEquals(remaining.size(), remaining.stream().map(User::getEmail).distinct().count());
+        for (User user : remaining) {
+            assertTrue(repository.existsByEmail(user.getEmail()));
+            repository.delete(user.getId());
+        }
+        assertEquals(0, repository.size());
+        assertTrue(repository.footprintBytes() - baseline < 64 * 1024, "footprint " + repository.footprintBytes());
+    }
+
+    private static List<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).collect(Collectors.toList());
+    }
+}
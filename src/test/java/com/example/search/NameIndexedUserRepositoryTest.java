@@ -0,0 +1,183 @@
+package com.example.search;
+
+import com.example.model.User;
+import com.example.repository.InMemoryUserRepository;
+import com.example.service.EmailService;
+import com.example.service.UserService;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * NameIndexedUserRepository测试类
+ */
+@DisplayName("用户名前缀索引测试")
+class NameIndexedUserRepositoryTest {
+
+    private InMemoryUserRepository memory;
+    private NameIndexedUserRepository repository;
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        memory = new InMemoryUserRepository();
+        repository = new NameIndexedUserRepository(memory);
+        userService = new UserService(repository, mock(EmailService.class));
+    }
+
+    @Test
+    @DisplayName("规范化：大小写、重音、全角与空白")
+    void testNormalize() {
+        assertEquals("jose maria", NameIndex.normalize("  José   MARÍA "));
+        assertEquals("abc", NameIndex.normalize("ＡＢＣ"));
+        assertEquals("张三", NameIndex.normalize("张三"));
+        assertNull(NameIndex.normalize(null));
+    }
+
+    @Test
+    @DisplayName("按规范化后的名字排序返回前N个匹配")
+    void testTopN() {
+        // Given
+        userService.register(new User(null, "Tommy", "tommy@example.com"));
+        userService.register(new User(null, "tom", "tom@example.com"));
+        userService.register(new User(null, "Tomás", "tomas@example.com"));
+        userService.register(new User(null, "Jerry", "jerry@example.com"));
+
+        // When
+        List<String> names = names(userService.searchUsersByName("TOM", 2));
+        List<String> all = names(userService.searchUsersByName("tom", 10));
+
+        // Then
+        assertEquals(List.of("tom", "Tomás"), names);
+        assertEquals(List.of("tom", "Tomás", "Tommy"), all);
+        assertEquals(4, names(userService.searchUsersByName("", 10)).size());
+        assertTrue(userService.searchUsersByName("x", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("前缀末尾的空格保留，只匹配完整的词")
+    void testTrailingSpaceInPrefix() {
+        userService.register(new User(null, "John Smith", "john@example.com"));
+        userService.register(new User(null, "Johnson", "johnson@example.com"));
+
+        assertEquals("john ", NameIndex.normalizePrefix("  JOHN   "));
+        assertEquals(List.of("John Smith"), names(userService.searchUsersByName("John ", 10)));
+        assertEquals(2, userService.searchUsersByName("john", 10).size());
+        assertEquals(2, userService.searchUsersByName(" ", 10).size());
+    }
+
+    @Test
+    @DisplayName("同一用户并发改名后索引与仓库一致")
+    void testConcurrentRenamesOfSameUser() throws Exception {
+        User tom = userService.register(new User(null, "Tom", "tom@example.com"));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        userService.updateUser(tom.getId(),
+                            new User(null, "name" + thread + "x" + i, "tom@example.com"));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        String finalName = memory.findById(tom.getId()).getName();
+        assertEquals(List.of(finalName), names(repository.findByNamePrefix(finalName, 10)));
+        assertEquals(1, repository.index().size());
+    }
+
+    @Test
+    @DisplayName("更新与删除后索引保持最新")
+    void testUpdateAndDelete() {
+        User tom = userService.register(new User(null, "Tom", "tom@example.com"));
+        User jerry = userService.register(new User(null, "Jerry", "jerry@example.com"));
+
+        userService.updateUser(tom.getId(), new User(null, "Thomas", "tom@example.com"));
+        userService.deleteUser(jerry.getId());
+
+        assertEquals(List.of("Thomas"), names(userService.searchUsersByName("th", 10)));
+        assertTrue(userService.searchUsersByName("tom", 10).isEmpty());
+        assertTrue(userService.searchUsersByName("jer", 10).isEmpty());
+        assertEquals(1, repository.index().size());
+    }
+
+    @Test
+    @DisplayName("从已有仓库建立索引")
+    void testBuildsFromExistingUsers() {
+        for (int i = 0; i < 2500; i++) {
+            memory.save(new User(null, "user" + i, "user" + i + "@example.com"));
+        }
+
+        NameIndexedUserRepository rebuilt = new NameIndexedUserRepository(memory);
+
+        assertEquals(2500, rebuilt.index().size());
+        assertEquals(List.of("user1", "user10", "user100"), names(rebuilt.findByNamePrefix("USER1", 3)));
+    }
+
+    @Test
+    @DisplayName("索引中过期的条目不会返回不匹配的用户")
+    void testStaleEntriesFiltered() {
+        User tom = repository.save(new User(null, "Tom", "tom@example.com"));
+        // 绕过装饰器直接修改底层仓库，索引中仍是旧名字
+        memory.save(new User(tom.getId(), "Jerry", "tom@example.com"));
+
+        assertTrue(repository.findByNamePrefix("tom", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("并发更新时查询结果保持有序且不重复")
+    void testConcurrentUpdates() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            repository.save(new User(null, "name" + i, "user" + i + "@example.com"));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 2; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (long id = 1 + thread; id <= 1000; id += 2) {
+                        repository.save(new User(id, "renamed" + id, "user" + (id - 1) + "@example.com"));
+                    }
+                    return null;
+                }));
+            }
+            for (int t = 0; t < 2; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int round = 0; round < 200; round++) {
+                        List<Long> ids = repository.index().search("", 100);
+                        assertEquals(ids.stream().distinct().count(), ids.size());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1000, repository.findByNamePrefix("renamed", 2000).size());
+        assertTrue(repository.findByNamePrefix("name", 10).isEmpty());
+    }
+
+    private static List<String> names(List<User> users) {
+        return users.stream().map(User::getName).collect(Collectors.toList());
+    }
+}
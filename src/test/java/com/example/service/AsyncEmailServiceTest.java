@@ -0,0 +1,224 @@
+package com.example.service;
+
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AsyncEmailService测试类
+ */
+@DisplayName("异步邮件服务测试")
+class AsyncEmailServiceTest {
+
+    private RecordingEmailService backend;
+
+    @BeforeEach
+    void setUp() {
+        backend = new RecordingEmailService();
+    }
+
+    @Test
+    @DisplayName("关闭时发送队列中的全部邮件并保持顺序")
+    void testDrainOnClose() {
+        // Given
+        AsyncEmailService service = new AsyncEmailService(backend);
+
+        // When
+        service.sendWelcomeEmail("a@example.com");
+        service.sendUpdateNotification("a@example.com");
+        service.sendAccountDeletionEmail("a@example.com");
+        service.close();
+
+        // Then
+        assertEquals(Arrays.asList("welcome:a@example.com", "update:a@example.com", "delete:a@example.com"),
+            backend.events);
+        assertEquals(3, service.getSentCount());
+    }
+
+    @Test
+    @DisplayName("合并窗口内的重复更新通知只发送一次")
+    void testCoalesceUpdates() {
+        AsyncEmailService service = new AsyncEmailService(backend, 100, 1, 10,
+            Duration.ofMinutes(1), AsyncEmailService.BackpressurePolicy.BLOCK);
+
+        for (int i = 0; i < 5; i++) {
+            service.sendUpdateNotification("a@example.com");
+        }
+        service.sendUpdateNotification("b@example.com");
+        service.close();
+
+        assertEquals(Arrays.asList("update:a@example.com", "update:b@example.com"), backend.events);
+        assertEquals(4, service.getCoalescedCount());
+    }
+
+    @Test
+    @DisplayName("连续的欢迎邮件合并为批量调用")
+    void testBatchWelcomeEmails() throws InterruptedException {
+        backend.block();
+        AsyncEmailService service = new AsyncEmailService(backend, 100, 1, 10,
+            Duration.ZERO, AsyncEmailService.BackpressurePolicy.BLOCK);
+
+        // 第一封邮件占住工作线程，其余邮件在队列中积累成一批
+        service.sendAccountDeletionEmail("first@example.com");
+        assertTrue(backend.started.await(5, TimeUnit.SECONDS));
+        service.sendWelcomeEmail("a@example.com");
+        service.sendWelcomeEmail("b@example.com");
+        service.sendWelcomeEmail("c@example.com");
+        backend.release();
+        service.close();
+
+        assertEquals(1, backend.batches.size());
+        assertEquals(Arrays.asList("a@example.com", "b@example.com", "c@example.com"), backend.batches.get(0));
+    }
+
+    @Test
+    @DisplayName("DROP_OLDEST策略丢弃最旧的任务")
+    void testDropOldest() throws InterruptedException {
+        backend.block();
+        AsyncEmailService service = new AsyncEmailService(backend, 2, 1, 10,
+            Duration.ZERO, AsyncEmailService.BackpressurePolicy.DROP_OLDEST);
+
+        service.sendAccountDeletionEmail("first@example.com");
+        assertTrue(backend.started.await(5, TimeUnit.SECONDS));
+        service.sendAccountDeletionEmail("1@example.com");
+        service.sendAccountDeletionEmail("2@example.com");
+        service.sendAccountDeletionEmail("3@example.com");
+        backend.release();
+        service.close();
+
+        assertEquals(1, service.getDroppedCount());
+        assertEquals(Arrays.asList("delete:first@example.com", "delete:2@example.com", "delete:3@example.com"),
+            backend.events);
+    }
+
+    @Test
+    @DisplayName("CALLER_RUNS策略在调用线程中发送")
+    void testCallerRuns() throws InterruptedException {
+        backend.block();
+        AsyncEmailService service = new AsyncEmailService(backend, 1, 1, 10,
+            Duration.ZERO, AsyncEmailService.BackpressurePolicy.CALLER_RUNS);
+
+        service.sendAccountDeletionEmail("first@example.com");
+        assertTrue(backend.started.await(5, TimeUnit.SECONDS));
+        service.sendAccountDeletionEmail("queued@example.com");
+        // 队列已满，由当前线程直接发送
+        service.sendAccountDeletionEmail("caller@example.com");
+        backend.release();
+        service.close();
+
+        assertTrue(backend.threads.contains(Thread.currentThread().getName()));
+        assertEquals(3, backend.events.size());
+    }
+
+    @Test
+    @DisplayName("关闭后拒绝新任务")
+    void testRejectAfterClose() {
+        AsyncEmailService service = new AsyncEmailService(backend);
+        service.close();
+
+        assertThrows(IllegalStateException.class, () -> service.sendWelcomeEmail("a@example.com"));
+    }
+
+    @Test
+    @DisplayName("与关闭并发的入队要么被发送要么被拒绝，不会丢失")
+    void testEnqueueRacingClose() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            RecordingEmailService recording = new RecordingEmailService();
+            AsyncEmailService service = new AsyncEmailService(recording, 4, 1, 2,
+                Duration.ZERO, AsyncEmailService.BackpressurePolicy.BLOCK);
+            AtomicInteger accepted = new AtomicInteger();
+            CountDownLatch go = new CountDownLatch(1);
+            Thread[] senders = new Thread[3];
+            for (int t = 0; t < senders.length; t++) {
+                int sender = t;
+                senders[t] = new Thread(() -> {
+                    try {
+                        go.await();
+                        for (int i = 0; ; i++) {
+                            service.sendWelcomeEmail(sender + "-" + i + "@example.com");
+                            accepted.incrementAndGet();
+                        }
+                    } catch (IllegalStateException | InterruptedException e) {
+                        // 已关闭
+                    }
+                });
+                senders[t].start();
+            }
+            go.countDown();
+            Thread.sleep(2);
+            service.close();
+            for (Thread sender : senders) {
+                sender.join(5_000);
+                assertFalse(sender.isAlive());
+            }
+
+            assertEquals(accepted.get(), recording.events.size());
+            assertEquals(accepted.get(), service.getSentCount());
+        }
+    }
+
+    /**
+     * 记录调用的邮件服务，可以阻塞工作线程以模拟慢速后端
+     */
+    static class RecordingEmailService implements EmailService {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final List<List<String>> batches = new CopyOnWriteArrayList<>();
+        final List<String> threads = new CopyOnWriteArrayList<>();
+        final CountDownLatch started = new CountDownLatch(1);
+        private volatile CountDownLatch gate;
+
+        void block() {
+            gate = new CountDownLatch(1);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        private void record(String event) {
+            threads.add(Thread.currentThread().getName());
+            started.countDown();
+            CountDownLatch current = gate;
+            if (current != null && Thread.currentThread().getName().startsWith("email-dispatcher")) {
+                try {
+                    current.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            events.add(event);
+        }
+
+        @Override
+        public void sendWelcomeEmail(String email) {
+            record("welcome:" + email);
+        }
+
+        @Override
+        public void sendWelcomeEmails(Collection<String> emails) {
+            batches.add(new CopyOnWriteArrayList<>(emails));
+            for (String email : emails) {
+                record("welcome:" + email);
+            }
+        }
+
+        @Override
+        public void sendUpdateNotification(String email) {
+            record("update:" + email);
+        }
+
+        @Override
+        public void sendAccountDeletionEmail(String email) {
+            record("delete:" + email);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.service;
+
+import com.example.exception.DuplicateEmailException;
+import com.example.exception.UserNotFoundException;
+import com.example.model.User;
+import com.example.repository.InMemoryUserRepository;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * AsyncUserService测试类
+ */
+@DisplayName("异步用户服务测试")
+class AsyncUserServiceTest {
+
+    private EmailService emailService;
+    private AsyncUserService asyncUserService;
+
+    @BeforeEach
+    void setUp() {
+        emailService = mock(EmailService.class);
+        asyncUserService = new AsyncUserService(new UserService(new InMemoryUserRepository(), emailService));
+    }
+
+    @AfterEach
+    void tearDown() {
+        asyncUserService.close();
+    }
+
+    @Test
+    @DisplayName("异步完成注册、查询、更新、统计与删除")
+    void testOperations() {
+        // When
+        User tom = asyncUserService.register(new User(null, "Tom", "tom@example.com")).join();
+        User updated = asyncUserService.updateUser(tom.getId(), new User(null, "Tommy", "tommy@example.com")).join();
+        UserService.UserStats stats = asyncUserService.getUserStats(tom.getId()).join();
+        asyncUserService.deleteUser(tom.getId()).join();
+
+        // Then
+        assertEquals("Tommy", updated.getName());
+        assertEquals("Tommy", stats.getUser().getName());
+        verify(emailService).sendWelcomeEmail("tom@example.com");
+        verify(emailService).sendUpdateNotification("tommy@example.com");
+        verify(emailService).sendAccountDeletionEmail("tommy@example.com");
+        CompletionException e = assertThrows(CompletionException.class,
+            () -> asyncUserService.findUser(tom.getId()).join());
+        assertInstanceOf(UserNotFoundException.class, e.getCause());
+    }
+
+    @Test
+    @DisplayName("失败时以原始异常完成，不额外包装")
+    void testOriginalException() {
+        asyncUserService.register(new User(null, "Tom", "tom@example.com")).join();
+
+        Throwable duplicate = asyncUserService.register(new User(null, "Tom2", "tom@example.com"))
+            .handle((user, error) -> error).join();
+        Throwable notFound = asyncUserService.findUser(null).handle((user, error) -> error).join();
+
+        assertInstanceOf(DuplicateEmailException.class, duplicate);
+        assertInstanceOf(UserNotFoundException.class, notFound);
+    }
+
+    @Test
+    @DisplayName("不阻塞调用线程，操作在指定线程池中执行")
+    void testRunsOnExecutor() throws InterruptedException {
+        // Given: 邮件服务阻塞，直到测试放行
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(emailService).sendWelcomeEmail(anyString());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AsyncUserService service = new AsyncUserService(
+            new UserService(new InMemoryUserRepository(), emailService), executor);
+
+        // When
+        CompletableFuture<User> future = service.register(new User(null, "Tom", "tom@example.com"));
+
+        // Then
+        assertFalse(future.isDone());
+        release.countDown();
+        assertEquals("Tom", future.join().getName());
+        service.close();
+        assertFalse(executor.isShutdown());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("大量进行中的操作")
+    void testManyInFlightOperations() {
+        List<CompletableFuture<User>> futures = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            futures.add(asyncUserService.register(new User(null, "user" + i, "user" + i + "@example.com")));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        verify(emailService, times(10_000)).sendWelcomeEmail(anyString());
+    }
+
+    @Test
+    @DisplayName("线程池拒绝时future以拒绝异常完成")
+    void testRejected() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        AsyncUserService service = new AsyncUserService(
+            new UserService(new InMemoryUserRepository(), emailService), executor);
+
+        CompletableFuture<User> future = service.findUser(1L);
+
+        assertTrue(future.isCompletedExceptionally());
+        assertInstanceOf(RejectedExecutionException.class, future.handle((user, error) -> error).join());
+    }
+}
@@ -9,6 +9,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -93,6 +104,72 @@ class UserServiceTest {
         verify(emailService, never()).sendWelcomeEmail(anyString());
     }
 
+    @Test
+    @DisplayName("测试批量注册 - 批内重复与已存在邮箱单独失败")
+    void testRegisterAll() {
+        // Given
+        User alice = new User(null, "Alice", "alice@example.com");
+        User bob = new User(null, "Bob", "bob@example.com");
+        User aliceAgain = new User(null, "Alice2", "alice@example.com");
+        User carol = new User(null, "Carol", "carol@example.com");
+
+        when(userRepository.findExistingEmails(anyCollection()))
+            .thenReturn(Collections.singleton("bob@example.com"));
+        when(userRepository.saveAll(anyCollection())).thenAnswer(invocation -> {
+            Collection<User> users = invocation.getArgument(0);
+            List<User> saved = new ArrayList<>();
+            long id = 1;
+            for (User user : users) {
+                saved.add(new User(id++, user.getName(), user.getEmail()));
+            }
+            return saved;
+        });
+
+        // When
+        List<UserService.RegistrationResult> results =
+            userService.registerAll(Arrays.asList(alice, bob, aliceAgain, carol));
+
+        // Then
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(1L, results.get(0).getUser().getId());
+        assertInstanceOf(DuplicateEmailException.class, results.get(1).getError());
+        assertInstanceOf(DuplicateEmailException.class, results.get(2).getError());
+        assertTrue(results.get(3).isSuccess());
+        assertEquals(2L, results.get(3).getUser().getId());
+
+        // 只有一次批量查询、一次批量保存、一次批量发送
+        verify(userRepository).findExistingEmails(new HashSet<>(
+            Arrays.asList("alice@example.com", "bob@example.com", "carol@example.com")));
+        verify(userRepository).saveAll(Arrays.asList(alice, carol));
+        verify(emailService).sendWelcomeEmails(Arrays.asList("alice@example.com", "carol@example.com"));
+        verify(userRepository, never()).existsByEmail(anyString());
+        verify(userRepository, never()).save(any());
+        verify(emailService, never()).sendWelcomeEmail(anyString());
+    }
+
+    @Test
+    @DisplayName("测试批量注册 - 批量保存失败时逐个保存")
+    void testRegisterAllFallback() {
+        // Given
+        User alice = new User(null, "Alice", "alice@example.com");
+        User bob = new User(null, "Bob", "bob@example.com");
+
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(Collections.emptySet());
+        when(userRepository.saveAll(anyCollection())).thenThrow(new DuplicateEmailException("Email already exists: bob@example.com"));
+        when(userRepository.save(alice)).thenReturn(new User(1L, "Alice", "alice@example.com"));
+        when(userRepository.save(bob)).thenThrow(new DuplicateEmailException("Email already exists: bob@example.com"));
+
+        // When
+        List<UserService.RegistrationResult> results = userService.registerAll(Arrays.asList(alice, bob));
+
+        // Then
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("Email already exists: bob@example.com", results.get(1).getError().getMessage());
+        verify(emailService).sendWelcomeEmails(Collections.singletonList("alice@example.com"));
+    }
+
     @Test
     @DisplayName("测试查找存在的用户")
     void testFindUserExists() {
@@ -129,6 +206,19 @@ class UserServiceTest {
         verify(userRepository).findById(999L);
     }
 
+    @Test
+    @DisplayName("测试ID为null时查找用户")
+    void testFindUserNullId() {
+        // When & Then
+        UserNotFoundException exception = assertThrows(
+            UserNotFoundException.class,
+            () -> userService.findUser((Long) null)
+        );
+
+        assertEquals("User not found with id: null", exception.getMessage());
+        verifyNoInteractions(userRepository);
+    }
+
     @Test
     @DisplayName("测试更新用户信息")
     void testUpdateUser() {
@@ -197,6 +287,87 @@ class UserServiceTest {
         verifyNoMoreInteractions(userRepository);
     }
 
+    @Test
+    @DisplayName("测试获取id为null的用户统计信息")
+    void testGetUserStatsWithNullId() {
+        assertThrows(UserNotFoundException.class, () -> userService.getUserStats(null));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("测试并行获取用户统计信息")
+    void testGetUserStatsParallel() {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        UserService parallelService = new UserService(userRepository, emailService, executor);
+        when(userRepository.findById(1L)).thenReturn(testUser);
+        when(userRepository.getPostCount(1L)).thenReturn(10);
+        when(userRepository.getFollowerCount(1L)).thenReturn(100);
+
+        try {
+            // When
+            UserService.UserStats stats = parallelService.getUserStats(1L);
+
+            // Then
+            assertEquals(testUser, stats.getUser());
+            assertEquals(10, stats.getPostCount());
+            assertEquals(100, stats.getFollowerCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("测试并行获取统计信息时用户不存在")
+    void testGetUserStatsParallelNotFound() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        UserService parallelService = new UserService(userRepository, emailService, executor);
+        when(userRepository.findById(999L)).thenReturn(null);
+        lenient().when(userRepository.getPostCount(999L)).thenReturn(0);
+        lenient().when(userRepository.getFollowerCount(999L)).thenReturn(0);
+
+        try {
+            UserNotFoundException exception = assertThrows(
+                UserNotFoundException.class,
+                () -> parallelService.getUserStats(999L)
+            );
+            assertEquals("User not found with id: 999", exception.getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("测试批量获取用户统计信息")
+    void testGetUserStatsBatch() {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        UserService parallelService = new UserService(userRepository, emailService, executor);
+        for (long id = 1; id <= 20; id++) {
+            long userId = id;
+            when(userRepository.findById(userId)).thenReturn(id == 7 ? null : new User(userId, "u" + id, id + "@example.com"));
+            lenient().when(userRepository.getPostCount(userId)).thenReturn((int) id);
+            lenient().when(userRepository.getFollowerCount(userId)).thenReturn((int) id * 10);
+        }
+        List<Long> ids = new ArrayList<>();
+        for (long id = 20; id >= 1; id--) {
+            ids.add(id);
+        }
+
+        try {
+            // When
+            Map<Long, UserService.UserStats> stats = parallelService.getUserStatsBatch(ids, 3);
+
+            // Then - 不存在的用户被跳过，结果保持输入顺序
+            assertEquals(19, stats.size());
+            assertFalse(stats.containsKey(7L));
+            assertEquals(Long.valueOf(20L), stats.keySet().iterator().next());
+            assertEquals(50, stats.get(5L).getFollowerCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     @DisplayName("使用Spy测试部分Mock")
     void testWithSpy() {
@@ -262,6 +433,39 @@ class UserServiceTest {
         assertTrue(result.getId() > 0);
     }
 
+    @Test
+    @DisplayName("按游标逐页流式读取所有用户")
+    void testScanUsers() {
+        // Given
+        User second = new User(2L, "Jerry", "jerry@example.com");
+        User third = new User(3L, "Spike", "spike@example.com");
+        when(userRepository.scan(0L, 2)).thenCallRealMethod();
+        when(userRepository.findPage(0L, 2)).thenReturn(Arrays.asList(testUser, second));
+        when(userRepository.findPage(2L, 2)).thenReturn(Collections.singletonList(third));
+
+        // When
+        List<User> users = userService.scanUsers(0, 2).collect(Collectors.toList());
+
+        // Then
+        assertEquals(Arrays.asList(testUser, second, third), users);
+        // 第二页不足一页，不再发起查询
+        verify(userRepository, times(2)).findPage(anyLong(), eq(2));
+    }
+
+    @Test
+    @DisplayName("按名字前缀查找用户 - 委托给仓库")
+    void testSearchUsersByName() {
+        // Given
+        when(userRepository.findByNamePrefix("to", 10)).thenReturn(Collections.singletonList(testUser));
+
+        // When
+        List<User> users = userService.searchUsersByName("to", 10);
+
+        // Then
+        assertEquals(Collections.singletonList(testUser), users);
+        verify(userRepository).findByNamePrefix("to", 10);
+    }
+
     @AfterEach
     void tearDown() {
         // 重置mocks（使用@ExtendWith(MockitoExtension.class)时自动完成）
@@ -0,0 +1,202 @@
+package com.example.service;
+
+import com.example.exception.DuplicateEmailException;
+import com.example.exception.UserNotFoundException;
+import com.example.model.User;
+import com.example.repository.InMemoryUserRepository;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * WriteBehindUserService测试类
+ */
+@DisplayName("延迟写回用户服务测试")
+class WriteBehindUserServiceTest {
+
+    private InMemoryUserRepository repository;
+    private EmailService emailService;
+    private WriteBehindUserService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = spy(new InMemoryUserRepository());
+        emailService = mock(EmailService.class);
+        // 定时写回间隔足够长，测试中由 flush 显式触发
+        service = new WriteBehindUserService(repository, emailService, Duration.ofHours(1), 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    @Test
+    @DisplayName("多次更新合并为一次保存和一次通知")
+    void testCoalescesUpdates() {
+        // Given
+        User tom = repository.save(new User(null, "Tom", "tom@example.com"));
+        clearInvocations(repository);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            service.updateUser(tom.getId(), new User(null, "Tom" + i, "tom" + i + "@example.com"));
+        }
+
+        // Then: 读者立即看到最新版本，仓库尚未写入
+        assertEquals("Tom99", service.findUser(tom.getId()).getName());
+        assertEquals("Tom", repository.findById(tom.getId()).getName());
+        assertEquals(99, service.getCoalescedCount());
+
+        assertEquals(1, service.flush());
+        assertEquals("tom99@example.com", repository.findById(tom.getId()).getEmail());
+        assertFalse(repository.existsByEmail("tom@example.com"));
+        verify(repository, times(1)).saveAll(anyCollection());
+        verify(emailService).sendUpdateNotifications(Collections.singletonList("tom99@example.com"));
+        verify(emailService, never()).sendUpdateNotification(anyString());
+        assertEquals(0, service.getPendingCount());
+        assertEquals(0, service.flush());
+    }
+
+    @Test
+    @DisplayName("待写回数量达到上限时提前写回")
+    void testSizeTrigger() {
+        WriteBehindUserService bounded = new WriteBehindUserService(repository, emailService, Duration.ofHours(1), 2);
+        User tom = repository.save(new User(null, "Tom", "tom@example.com"));
+        User jerry = repository.save(new User(null, "Jerry", "jerry@example.com"));
+
+        bounded.updateUser(tom.getId(), new User(null, "Tommy", "tom@example.com"));
+        bounded.updateUser(jerry.getId(), new User(null, "Jerry2", "jerry@example.com"));
+
+        awaitTrue(() -> "Jerry2".equals(repository.findById(jerry.getId()).getName()));
+        assertEquals("Tommy", repository.findById(tom.getId()).getName());
+        bounded.close();
+    }
+
+    @Test
+    @DisplayName("按间隔定时写回")
+    void testScheduledFlush() {
+        WriteBehindUserService scheduled = new WriteBehindUserService(repository, emailService,
+            Duration.ofMillis(20), 1000);
+        User tom = repository.save(new User(null, "Tom", "tom@example.com"));
+
+        scheduled.updateUser(tom.getId(), new User(null, "Tommy", "tom@example.com"));
+
+        awaitTrue(() -> "Tommy".equals(repository.findById(tom.getId()).getName()));
+        scheduled.close();
+    }
+
+    @Test
+    @DisplayName("删除时丢弃待写回版本，删除邮件发往最新邮箱")
+    void testDeleteDropsPendingVersion() {
+        User tom = repository.save(new User(null, "Tom", "tom@example.com"));
+        service.updateUser(tom.getId(), new User(null, "Tommy", "tommy@example.com"));
+
+        service.deleteUser(tom.getId());
+        service.flush();
+
+        verify(emailService).sendAccountDeletionEmail("tommy@example.com");
+        assertNull(repository.findById(tom.getId()));
+        assertThrows(UserNotFoundException.class, () -> service.findUser(tom.getId()));
+        verify(emailService, never()).sendUpdateNotifications(anyCollection());
+    }
+
+    @Test
+    @DisplayName("关闭时写回剩余版本，之后拒绝更新")
+    void testCloseDrains() {
+        User tom = repository.save(new User(null, "Tom", "tom@example.com"));
+        service.updateUser(tom.getId(), new User(null, "Tommy", "tom@example.com"));
+
+        service.close();
+
+        assertEquals("Tommy", repository.findById(tom.getId()).getName());
+        assertThrows(IllegalStateException.class,
+            () -> service.updateUser(tom.getId(), new User(null, "Tom", "tom@example.com")));
+    }
+
+    @Test
+    @DisplayName("更新不存在的用户或已被占用的邮箱时立即失败")
+    void testValidation() {
+        User tom = repository.save(new User(null, "Tom", "tom@example.com"));
+        repository.save(new User(null, "Jerry", "jerry@example.com"));
+
+        assertThrows(UserNotFoundException.class,
+            () -> service.updateUser(999L, new User(null, "Nobody", "nobody@example.com")));
+        assertThrows(DuplicateEmailException.class,
+            () -> service.updateUser(tom.getId(), new User(null, "Tom", "jerry@example.com")));
+        assertEquals(0, service.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("仓库查询缓慢时不阻塞其他用户的更新和写回")
+    void testSlowRepositoryDoesNotBlockOtherUsers() throws Exception {
+        // Given: id 1 与 id 17 在待写回表中落在同一个桶
+        User tom = repository.save(new User(1L, "Tom", "tom@example.com"));
+        User jerry = repository.save(new User(17L, "Jerry", "jerry@example.com"));
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            reading.countDown();
+            release.await();
+            return invocation.callRealMethod();
+        }).when(repository).findById(tom.getId().longValue());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<User> slow = executor.submit(() -> service.updateUser(tom.getId(), new User(null, "Tommy", null)));
+            assertTrue(reading.await(10, TimeUnit.SECONDS));
+
+            // When / Then
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                service.updateUser(jerry.getId(), new User(null, "Jerry2", "jerry@example.com"));
+                assertEquals(1, service.flush());
+            });
+            release.countDown();
+            assertEquals("Tommy", slow.get(10, TimeUnit.SECONDS).getName());
+            assertEquals("Jerry2", repository.findById(jerry.getId()).getName());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("写回时被仓库拒绝的版本被丢弃")
+    void testRejectedVersionDropped() {
+        User tom = repository.save(new User(null, "Tom", "tom@example.com"));
+        User jerry = repository.save(new User(null, "Jerry", "jerry@example.com"));
+        service.updateUser(tom.getId(), new User(null, "Tom", "shared@example.com"));
+        service.updateUser(jerry.getId(), new User(null, "Jerry", "shared@example.com"));
+
+        assertEquals(1, service.flush());
+
+        assertEquals(1, service.getFailedCount());
+        assertEquals(0, service.getPendingCount());
+        boolean tomWon = "shared@example.com".equals(service.findUser(tom.getId()).getEmail());
+        boolean jerryWon = "shared@example.com".equals(service.findUser(jerry.getId()).getEmail());
+        assertTrue(tomWon ^ jerryWon);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+}